@@ -0,0 +1,19 @@
+package uk.gov.laa.gradle
+
+import org.gradle.api.file.RegularFileProperty
+import org.gradle.api.provider.Property
+
+/**
+ * Settings for the {@code jmh} source set and task added by {@link LaaJmhPlugin}.
+ */
+abstract class LaaJmhExtension {
+
+    /** JMH version used for the benchmark runtime and annotation processor. */
+    abstract Property<String> getJmhVersion()
+
+    /** JMH result format, for example {@code JSON} or {@code CSV}. */
+    abstract Property<String> getResultFormat()
+
+    /** File the benchmark results are written to. */
+    abstract RegularFileProperty getResultFile()
+}
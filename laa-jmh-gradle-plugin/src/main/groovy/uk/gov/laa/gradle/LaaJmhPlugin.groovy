@@ -0,0 +1,67 @@
+package uk.gov.laa.gradle
+
+import org.gradle.api.Plugin
+import org.gradle.api.Project
+import org.gradle.api.plugins.JavaPlugin
+import org.gradle.api.tasks.JavaExec
+import org.gradle.api.tasks.SourceSetContainer
+import org.gradle.process.CommandLineArgumentProvider
+
+/**
+ * Opt-in JMH benchmarks: adds a {@code jmh} source set that sees the main classes and their
+ * dependencies, and a {@code jmh} task that runs it and writes the results to a file so runs
+ * can be compared between releases.
+ *
+ * <p>Benchmarks are not part of {@code build}; run them with {@code ./gradlew jmh} and pass JMH
+ * options with {@code -PjmhArgs="MyBenchmark -prof gc"}.
+ */
+class LaaJmhPlugin implements Plugin<Project> {
+
+    static final String DEFAULT_JMH_VERSION = "1.37"
+
+    @Override
+    void apply(Project target) {
+
+        target.pluginManager.apply JavaPlugin
+
+        def extension = target.extensions.create('laaJmh', LaaJmhExtension)
+        extension.jmhVersion.convention(DEFAULT_JMH_VERSION)
+        extension.resultFormat.convention('JSON')
+        extension.resultFile.convention(target.layout.buildDirectory.file('reports/jmh/results.json'))
+
+        def sourceSets = target.extensions.getByType(SourceSetContainer)
+        def main = sourceSets.getByName('main')
+        def jmh = sourceSets.create('jmh') {
+            compileClasspath += main.output + main.compileClasspath
+            runtimeClasspath += main.output + main.runtimeClasspath
+        }
+
+        target.dependencies.addProvider(
+                jmh.implementationConfigurationName,
+                extension.jmhVersion.map { "org.openjdk.jmh:jmh-core:${it}" })
+        target.dependencies.addProvider(
+                jmh.annotationProcessorConfigurationName,
+                extension.jmhVersion.map { "org.openjdk.jmh:jmh-generator-annprocess:${it}" })
+
+        target.tasks.register('jmh', JavaExec) {
+            group = 'benchmark'
+            description = 'Runs the JMH benchmarks.'
+            classpath = jmh.runtimeClasspath
+            mainClass.set('org.openjdk.jmh.Main')
+            outputs.file(extension.resultFile)
+            // Benchmark results depend on the machine as well as the inputs, so always rerun.
+            outputs.upToDateWhen { false }
+
+            def resultFile = extension.resultFile
+            def resultFormat = extension.resultFormat
+            def jmhArgs = (target.findProperty('jmhArgs') ?: '').toString()
+            argumentProviders.add({
+                ['-rf', resultFormat.get().toLowerCase(), '-rff', resultFile.get().asFile.absolutePath] +
+                        jmhArgs.tokenize()
+            } as CommandLineArgumentProvider)
+            doFirst {
+                resultFile.get().asFile.parentFile.mkdirs()
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.laa.gradle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import org.gradle.api.Project;
+import org.gradle.api.tasks.JavaExec;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.Test;
+
+public class LaaJmhPluginApplyTest {
+
+    @Test
+    public void testApplyLaaJmhPlugin() {
+        Project project = ProjectBuilder.builder().build();
+        project.getPluginManager().apply(LaaJmhPlugin.class);
+
+        SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+        assertNotNull(sourceSets.findByName("jmh"));
+
+        JavaExec jmh = (JavaExec) project.getTasks().getByName("jmh");
+        assertEquals("org.openjdk.jmh.Main", jmh.getMainClass().get());
+        assertEquals(LaaJmhPlugin.DEFAULT_JMH_VERSION,
+                project.getExtensions().getByType(LaaJmhExtension.class).getJmhVersion().get());
+    }
+}
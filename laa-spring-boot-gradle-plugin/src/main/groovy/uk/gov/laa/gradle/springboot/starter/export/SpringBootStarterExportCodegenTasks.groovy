@@ -9,6 +9,14 @@ import org.yaml.snakeyaml.Yaml
 class SpringBootStarterExportCodegenTasks {
 
   private static final String DEFAULT_PACKAGE = 'uk.gov.laa.springboot.export.generated'
+  // Media types advertised in OpenAPI for the built-in formats; custom formats fall back to binary.
+  private static final Map<String, String> FORMAT_MEDIA_TYPES = [
+      csv: 'text/csv',
+      arrow: 'application/vnd.apache.arrow.stream',
+      ndjson: 'application/x-ndjson',
+      json: 'application/json',
+      xlsx: 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet'
+  ]
   private static final Pattern EXPORT_ALIAS_PATTERN =
       Pattern.compile(/(?i)\bas\s+"?([A-Za-z_][A-Za-z0-9_]*)"?\s*(,|\bfrom\b|$)/)
 
@@ -60,8 +68,79 @@ class SpringBootStarterExportCodegenTasks {
           def outDir = new File(exportDir, packageName.replace('.', '/'))
           outDir.mkdirs()
 
+          // COPY emits raw database text, so column formats need the cursor exporter.
+          def hasFormats = columns.any { it.format }
+          def exporter = (defn?.exporter ?: (hasFormats ? 'cursor' : 'copy')).toString().toLowerCase()
+          if (!(exporter in ['copy', 'cursor'])) {
+            throw new GradleException("Export ${key} has unsupported exporter: ${defn.exporter}")
+          }
+          if (exporter == 'copy' && hasFormats) {
+            project.logger.warn("Export ${key} uses the copy exporter; column formats are ignored.")
+          }
+          def fetchSize = defn?.fetchSize == null ? null : defn.fetchSize.toString().toInteger()
+          if (fetchSize != null && fetchSize <= 0) {
+            throw new GradleException("Export ${key} fetchSize must be positive")
+          }
+          def statementTimeoutMs = parseDurationMillis(
+              key, defn?.statementTimeout ?: defn?.'statement-timeout')
+          def datasource = (defn?.datasource ?: 'export').toString().toLowerCase()
+          if (!(datasource in ['export', 'primary'])) {
+            throw new GradleException("Export ${key} has unsupported datasource: ${defn.datasource}")
+          }
+          def paramTypes = (defn?.params ?: []).collectEntries {
+            [(it.name): (it.type ?: 'STRING').toString().toUpperCase()]
+          }
+
+          def rowFormats = !extraFormats(defn).isEmpty()
+          def partition = defn?.partition
+          if (partition != null) {
+            if (exporter != 'copy') {
+              throw new GradleException("Export ${key} partition requires the copy exporter")
+            }
+            if (!(partition.key ==~ /[A-Za-z_][A-Za-z0-9_]*/)) {
+              throw new GradleException("Export ${key} partition key must be a column name")
+            }
+          }
+          def resume = defn?.resume
+          if (resume != null) {
+            if (exporter != 'copy' || partition != null || rowFormats) {
+              throw new GradleException(
+                  "Export ${key} resume requires the copy exporter and CSV output only")
+            }
+            if (!(resume.key ==~ /[A-Za-z_][A-Za-z0-9_]*/)) {
+              throw new GradleException("Export ${key} resume key must be a column name")
+            }
+          }
+          def watermark = defn?.watermark
+          if (watermark != null) {
+            if (exporter != 'copy' || partition != null || resume != null || rowFormats) {
+              throw new GradleException(
+                  "Export ${key} watermark requires the copy exporter and CSV output only, "
+                      + 'without partition or resume')
+            }
+            if (!(watermark.column ==~ /[A-Za-z_][A-Za-z0-9_]*/)) {
+              throw new GradleException("Export ${key} watermark column must be a column name")
+            }
+            if ((defn?.params ?: []).any { resolveParamRequestName(it) == 'since' }) {
+              throw new GradleException(
+                  "Export ${key} watermark reserves the since request param")
+            }
+          }
+          def freshnessSql = defn?.freshness?.sql
+          if (defn?.freshness != null) {
+            if (!freshnessSql?.toString()?.trim()) {
+              throw new GradleException("Export ${key} freshness sql missing")
+            }
+            if (watermark != null) {
+              throw new GradleException("Export ${key} cannot combine freshness with watermark")
+            }
+          }
+
           def providerClassName = key.split('[_-]').collect { it.capitalize() }.join('') + 'Provider'
-          def source = renderProviderSource(providerClassName, packageName, key, defn.provider, sql, effectiveKeys)
+          def source = renderProviderSource(
+              providerClassName, packageName, key, defn.provider, sql, effectiveKeys, exporter, paramTypes,
+              fetchSize, rowFormats, partition, resume, statementTimeoutMs, datasource == 'export',
+              watermark, freshnessSql?.toString())
           new File(outDir, "${providerClassName}.java").text = source
         }
       }
@@ -235,31 +314,90 @@ class SpringBootStarterExportCodegenTasks {
       String key,
       String providerName,
       String sql,
-      List<String> columnOrder) {
+      List<String> columnOrder,
+      String exporter,
+      Map<String, String> paramTypes,
+      Integer fetchSize,
+      boolean rowFormats,
+      Map partition,
+      Map resume,
+      Long statementTimeoutMs = null,
+      boolean exportDataSource = true,
+      Map watermark = null,
+      String freshnessSql = null) {
+    def cursor = exporter == 'cursor'
+    // Non-CSV formats always read through a JDBC cursor, even when CSV uses COPY.
+    def needsCursor = cursor || rowFormats
     def sb = new StringBuilder()
     sb << "package ${packageName};\n\n"
+    sb << 'import io.micrometer.observation.ObservationRegistry;\n'
     sb << 'import jakarta.annotation.Generated;\n'
     sb << 'import java.io.OutputStream;\n'
-    sb << 'import java.io.OutputStreamWriter;\n'
-    sb << 'import java.io.Writer;\n'
-    sb << 'import java.nio.charset.StandardCharsets;\n'
+    if (statementTimeoutMs != null) {
+      sb << 'import java.time.Duration;\n'
+    }
     sb << 'import java.util.HashMap;\n'
     sb << 'import java.util.List;\n'
     sb << 'import java.util.Map;\n'
     sb << 'import javax.sql.DataSource;\n'
+    sb << 'import org.springframework.beans.factory.ObjectProvider;\n'
     sb << 'import org.springframework.stereotype.Component;\n'
     sb << 'import uk.gov.laa.springboot.export.ExportCsvProvider;\n'
+    sb << 'import uk.gov.laa.springboot.export.ExportEstimateProvider;\n'
+    if (rowFormats) {
+      sb << 'import uk.gov.laa.springboot.export.ExportFormatWriter;\n'
+    }
+    if (freshnessSql != null) {
+      sb << 'import uk.gov.laa.springboot.export.ExportFreshnessProvider;\n'
+    }
+    if (rowFormats) {
+      sb << 'import uk.gov.laa.springboot.export.ExportRowProvider;\n'
+    }
+    if (watermark != null) {
+      sb << 'import uk.gov.laa.springboot.export.ExportWatermarkProvider;\n'
+    }
     sb << 'import uk.gov.laa.springboot.export.csv.CsvHeaderWriter;\n'
-    sb << 'import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;\n'
+    if (exportDataSource) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;\n'
+    }
+    if (needsCursor) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.jdbc.JdbcCursorExporter;\n'
+    }
+    if (resume != null) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.postgres.KeysetCopyExporter;\n'
+    } else if (partition != null) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.postgres.PartitionedCopyExporter;\n'
+    } else if (!cursor && watermark == null) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;\n'
+    }
+    if (freshnessSql != null) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.postgres.PostgresFingerprinter;\n'
+    }
+    sb << 'import uk.gov.laa.springboot.export.datasource.postgres.PostgresPlanEstimator;\n'
+    if (resume == null && watermark != null) {
+      sb << 'import uk.gov.laa.springboot.export.datasource.postgres.WatermarkCopyExporter;\n'
+    }
     sb << 'import uk.gov.laa.springboot.export.model.ExportColumn;\n'
-    sb << 'import uk.gov.laa.springboot.export.model.ValidatedExportRequest;\n\n'
+    sb << 'import uk.gov.laa.springboot.export.model.ExportEstimate;\n'
+    sb << 'import uk.gov.laa.springboot.export.model.ValidatedExportRequest;\n'
+    sb << 'import uk.gov.laa.springboot.export.sql.SqlTemplate;\n'
+    sb << '\n'
 
     sb << '/**\n'
     sb << " * Export provider for ${key}.\n"
     sb << ' */\n'
     sb << "@Component(\"${providerName}\")\n"
     sb << '@Generated("export-sql-codegen")\n'
-    sb << "public class ${providerClassName} implements ExportCsvProvider {\n"
+    def interfaces = rowFormats
+        ? 'ExportCsvProvider, ExportRowProvider, ExportEstimateProvider'
+        : 'ExportCsvProvider, ExportEstimateProvider'
+    if (watermark != null) {
+      interfaces += ', ExportWatermarkProvider'
+    }
+    if (freshnessSql != null) {
+      interfaces += ', ExportFreshnessProvider'
+    }
+    sb << "public class ${providerClassName} implements ${interfaces} {\n"
 
     def sqlLines = sql.readLines().collect { escapeSqlLineForJavaString(it) }
     sb << '  private static final String SQL =\n'
@@ -283,9 +421,108 @@ class SpringBootStarterExportCodegenTasks {
       sb << '      );\n'
     }
 
-    sb << '  private final PostgresCopyExporter copyExporter;\n\n'
-    sb << "  public ${providerClassName}(DataSource dataSource) {\n"
-    sb << '    this.copyExporter = new PostgresCopyExporter(dataSource);\n'
+    sb << '  private static final SqlTemplate TEMPLATE = SqlTemplate.compile(SQL);\n'
+    if (freshnessSql != null) {
+      def freshnessLines = freshnessSql.readLines().collect { escapeSqlLineForJavaString(it) }
+      sb << '  private static final SqlTemplate FRESHNESS_TEMPLATE =\n'
+      sb << '      SqlTemplate.compile(String.join("\\n",\n'
+      freshnessLines.eachWithIndex { line, idx ->
+        def suffix = idx == freshnessLines.size() - 1 ? '' : ','
+        sb << "          \"${line}\"${suffix}\n"
+      }
+      sb << '      ));\n'
+    }
+    if (statementTimeoutMs != null) {
+      sb << "  private static final Duration STATEMENT_TIMEOUT = Duration.ofMillis(${statementTimeoutMs}L);\n"
+    }
+    def timeoutArg = statementTimeoutMs != null ? ',\n        STATEMENT_TIMEOUT' : ''
+    if (needsCursor) {
+      if (paramTypes.isEmpty()) {
+        sb << '  private static final Map<String, String> PARAM_TYPES = Map.of();\n'
+      } else {
+        def entries = paramTypes.collect { name, type -> "Map.entry(\"${name}\", \"${type}\")" }
+        sb << '  private static final Map<String, String> PARAM_TYPES =\n'
+        sb << '      Map.ofEntries(\n'
+        entries.eachWithIndex { entry, idx ->
+          def suffix = idx == entries.size() - 1 ? '' : ','
+          sb << "          ${entry}${suffix}\n"
+        }
+        sb << '      );\n'
+      }
+    }
+    if (resume != null) {
+      sb << '  private final KeysetCopyExporter copyExporter;\n'
+    } else if (watermark != null) {
+      sb << '  private final WatermarkCopyExporter copyExporter;\n'
+    } else if (partition != null) {
+      sb << '  private final PartitionedCopyExporter copyExporter;\n'
+    } else if (!cursor) {
+      sb << '  private final PostgresCopyExporter copyExporter;\n'
+    }
+    if (needsCursor) {
+      sb << '  private final JdbcCursorExporter cursorExporter;\n'
+    }
+    sb << '  private final PostgresPlanEstimator planEstimator;\n'
+    if (freshnessSql != null) {
+      sb << '  private final PostgresFingerprinter fingerprinter;\n'
+    }
+    sb << '\n'
+    sb << "  public ${providerClassName}(\n"
+    if (exportDataSource) {
+      // The dedicated export pool is used when configured; otherwise the primary data source.
+      sb << '      DataSource primaryDataSource,\n'
+      sb << '      ObjectProvider<ExportDataSourceRouter> dataSourceRouter,\n'
+      sb << '      ObjectProvider<ObservationRegistry> observationRegistry) {\n'
+      sb << '    ExportDataSourceRouter router = dataSourceRouter.getIfAvailable();\n'
+      sb << '    DataSource dataSource = router == null ? primaryDataSource : router.getDataSource();\n'
+    } else {
+      sb << '      DataSource dataSource, ObjectProvider<ObservationRegistry> observationRegistry) {\n'
+    }
+    if (resume != null) {
+      def configuredPageSize = resume.pageSize ?: resume.'page-size'
+      def pageSize = configuredPageSize == null
+          ? 'KeysetCopyExporter.DEFAULT_PAGE_SIZE'
+          : configuredPageSize.toString().toInteger()
+      sb << '    this.copyExporter = new KeysetCopyExporter(\n'
+      sb << '        dataSource,\n'
+      sb << '        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n'
+      sb << "        \"${resume.key}\",\n"
+      sb << "        ${pageSize}${timeoutArg});\n"
+    } else if (watermark != null) {
+      sb << '    this.copyExporter = new WatermarkCopyExporter(\n'
+      sb << '        dataSource,\n'
+      sb << '        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n'
+      sb << "        \"${watermark.column}\"${timeoutArg});\n"
+    } else if (partition != null) {
+      def count = (partition.count ?: 4).toString().toInteger()
+      def parallelism = (partition.parallelism ?: count).toString().toInteger()
+      sb << '    this.copyExporter = new PartitionedCopyExporter(\n'
+      sb << '        dataSource,\n'
+      sb << '        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n'
+      sb << "        \"${partition.key}\",\n"
+      sb << "        ${count},\n"
+      sb << "        ${parallelism}${timeoutArg});\n"
+    } else if (!cursor && statementTimeoutMs != null) {
+      sb << '    this.copyExporter = new PostgresCopyExporter(\n'
+      sb << '        dataSource,\n'
+      sb << '        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n'
+      sb << '        STATEMENT_TIMEOUT);\n'
+    } else if (!cursor) {
+      sb << '    this.copyExporter = new PostgresCopyExporter(\n'
+      sb << '        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));\n'
+    }
+    if (needsCursor) {
+      sb << '    this.cursorExporter = new JdbcCursorExporter(\n'
+      sb << '        dataSource,\n'
+      sb << '        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n'
+      sb << "        ${fetchSize ?: 'JdbcCursorExporter.DEFAULT_FETCH_SIZE'}${timeoutArg});\n"
+    }
+    sb << '    this.planEstimator = new PostgresPlanEstimator(\n'
+    sb << '        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));\n'
+    if (freshnessSql != null) {
+      sb << '    this.fingerprinter = new PostgresFingerprinter(\n'
+      sb << '        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));\n'
+    }
     sb << '  }\n\n'
 
     sb << '  @Override\n'
@@ -296,24 +533,119 @@ class SpringBootStarterExportCodegenTasks {
     sb << '    Map<String, Object> params = new HashMap<>();\n'
     sb << '    params.putAll(request.getParams());\n'
     sb << '    params.put("maxRows", request.getMaxRows());\n'
-    sb << '    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {\n'
+    sb << '    try {\n'
     sb << '      boolean hasOverrides = columns != null && !columns.isEmpty();\n'
-    sb << '      if (hasOverrides) {\n'
-    sb << '        CsvHeaderWriter.writeHeader(writer, COLUMN_ORDER, columns);\n'
-    sb << '      }\n'
-    sb << '      boolean includeHeader = !hasOverrides;\n'
-    sb << '      long rows = copyExporter.copyCsv(SQL, params, writer, includeHeader);\n'
-    sb << '      writer.flush();\n'
+    if (resume != null) {
+      // A resumed export continues an earlier response, so it is written without a header.
+      sb << '      boolean firstRow = request.getResumeAfter() == null;\n'
+      sb << '      if (hasOverrides && firstRow) {\n'
+      sb << '        CsvHeaderWriter.writeHeader(out, COLUMN_ORDER, columns);\n'
+      sb << '      }\n'
+      sb << '      boolean includeHeader = !hasOverrides && firstRow;\n'
+    } else {
+      sb << '      if (hasOverrides) {\n'
+      sb << '        CsvHeaderWriter.writeHeader(out, COLUMN_ORDER, columns);\n'
+      sb << '      }\n'
+      sb << '      boolean includeHeader = !hasOverrides;\n'
+    }
+    if (resume != null) {
+      sb << '      long rows = copyExporter.copyCsv(\n'
+      sb << '          TEMPLATE, params, request.getResumeAfter(), out, includeHeader);\n'
+    } else if (watermark != null) {
+      sb << '      long rows = copyExporter.copyCsv(\n'
+      sb << '          TEMPLATE,\n'
+      sb << '          params,\n'
+      sb << '          request.getWatermarkSince(),\n'
+      sb << '          request.getWatermarkUntil(),\n'
+      sb << '          out,\n'
+      sb << '          includeHeader);\n'
+    } else if (cursor) {
+      sb << '      long rows =\n'
+      sb << '          cursorExporter.copyCsv(\n'
+      sb << '              TEMPLATE, params, PARAM_TYPES, columns, out, includeHeader);\n'
+    } else {
+      sb << '      long rows = copyExporter.copyCsv(TEMPLATE, params, out, includeHeader);\n'
+    }
+    sb << '      out.flush();\n'
     sb << '      return rows;\n'
     sb << '    } catch (Exception e) {\n'
     sb << '      throw new RuntimeException("CSV export failed", e);\n'
     sb << '    }\n'
     sb << '  }\n'
+    if (rowFormats) {
+      sb << '\n'
+      sb << '  @Override\n'
+      sb << '  public long writeRows(\n'
+      sb << '      ValidatedExportRequest request,\n'
+      sb << '      List<ExportColumn> columns,\n'
+      sb << '      ExportFormatWriter format,\n'
+      sb << '      OutputStream out) {\n'
+      sb << '    Map<String, Object> params = new HashMap<>();\n'
+      sb << '    params.putAll(request.getParams());\n'
+      sb << '    params.put("maxRows", request.getMaxRows());\n'
+      sb << '    return cursorExporter.export(TEMPLATE, params, PARAM_TYPES, columns, format, out);\n'
+      sb << '  }\n'
+    }
+    if (watermark != null) {
+      sb << '\n'
+      sb << '  @Override\n'
+      sb << '  public String nextWatermark(ValidatedExportRequest request) {\n'
+      sb << '    Map<String, Object> params = new HashMap<>();\n'
+      sb << '    params.putAll(request.getParams());\n'
+      sb << '    return copyExporter.nextWatermark(\n'
+      sb << '        TEMPLATE, params, request.getWatermarkSince(), request.getMaxRows());\n'
+      sb << '  }\n'
+    }
+    sb << '\n'
+    sb << '  @Override\n'
+    sb << '  public ExportEstimate estimate(ValidatedExportRequest request) {\n'
+    sb << '    Map<String, Object> params = new HashMap<>();\n'
+    sb << '    params.putAll(request.getParams());\n'
+    sb << '    params.put("maxRows", request.getMaxRows());\n'
+    sb << '    return planEstimator.estimate(TEMPLATE, params, request.getMaxRows());\n'
+    sb << '  }\n'
+    if (freshnessSql != null) {
+      sb << '\n'
+      sb << '  @Override\n'
+      sb << '  public String fingerprint(ValidatedExportRequest request) {\n'
+      sb << '    Map<String, Object> params = new HashMap<>();\n'
+      sb << '    params.putAll(request.getParams());\n'
+      sb << '    params.put("maxRows", request.getMaxRows());\n'
+      sb << '    return fingerprinter.fingerprint(FRESHNESS_TEMPLATE, params);\n'
+      sb << '  }\n'
+    }
     sb << '}\n'
 
     sb.toString()
   }
 
+  /**
+   * Parses a duration in Spring Boot's simple ({@code 30s}, {@code 500ms}; bare numbers are
+   * milliseconds) or ISO-8601 form.
+   */
+  private static Long parseDurationMillis(String key, Object value) {
+    if (value == null || value.toString().isBlank()) {
+      return null
+    }
+    def text = value.toString().trim()
+    def units = [ms: 1L, s: 1000L, m: 60_000L, h: 3_600_000L, d: 86_400_000L]
+    def matcher = text =~ /^(\d+)(ms|s|m|h|d)?$/
+    long millis
+    if (matcher.matches()) {
+      millis = matcher.group(1).toLong() * units[matcher.group(2) ?: 'ms']
+    } else {
+      try {
+        millis = java.time.Duration.parse(text).toMillis()
+      } catch (java.time.format.DateTimeParseException e) {
+        throw new GradleException("Export ${key} statementTimeout is not a duration: ${text}")
+      }
+    }
+    if (millis <= 0) {
+      throw new GradleException("Export ${key} statementTimeout must be positive")
+    }
+    return millis
+  }
+
   private static String escapeSqlLineForJavaString(String line) {
     return line.replace('\\\\', '\\\\\\\\').replace('"', '\\\\"')
   }
@@ -325,6 +657,11 @@ class SpringBootStarterExportCodegenTasks {
       String sql) {
     def sb = new StringBuilder()
     def packageName = defn?.packageName ?: DEFAULT_PACKAGE
+    def formats = extraFormats(defn)
+    def negotiated = !formats.isEmpty()
+    def resumeKey = defn?.resume?.key
+    def watermarkColumn = defn?.watermark?.column
+    def fingerprinted = defn?.freshness != null
 
     sb << "package ${packageName};\n\n"
     sb << 'import io.swagger.v3.oas.annotations.Operation;\n'
@@ -336,13 +673,31 @@ class SpringBootStarterExportCodegenTasks {
     sb << 'import java.util.HashMap;\n'
     sb << 'import java.util.Map;\n'
     sb << 'import org.springframework.http.HttpHeaders;\n'
+    if (fingerprinted) {
+      sb << 'import org.springframework.http.HttpStatus;\n'
+    }
     sb << 'import org.springframework.http.ResponseEntity;\n'
     sb << 'import org.springframework.web.bind.annotation.GetMapping;\n'
+    if (negotiated) {
+      sb << 'import org.springframework.web.bind.annotation.PathVariable;\n'
+    }
+    sb << 'import org.springframework.web.bind.annotation.RequestHeader;\n'
     sb << 'import org.springframework.web.bind.annotation.RequestMapping;\n'
     sb << 'import org.springframework.web.bind.annotation.RequestParam;\n'
     sb << 'import org.springframework.web.bind.annotation.RestController;\n'
     sb << 'import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;\n'
-    sb << 'import uk.gov.laa.springboot.export.ExportService;\n\n'
+    if (negotiated) {
+      sb << 'import uk.gov.laa.springboot.export.ExportFormatWriter;\n'
+    }
+    sb << 'import uk.gov.laa.springboot.export.ExportService;\n'
+    sb << 'import uk.gov.laa.springboot.export.compression.ExportContentEncoding;\n'
+    sb << 'import uk.gov.laa.springboot.export.model.ExportEstimate;\n'
+    if (fingerprinted) {
+      sb << 'import uk.gov.laa.springboot.export.model.ExportEtag;\n'
+    }
+    if (watermarkColumn) {
+      sb << 'import uk.gov.laa.springboot.export.model.ExportWatermarkToken;\n'
+    }
     sb << 'import uk.gov.laa.springboot.export.model.ValidatedExportRequest;\n\n'
 
     sb << '/**\n'
@@ -391,7 +746,10 @@ class SpringBootStarterExportCodegenTasks {
       sb << '  @ApiResponse(\n'
       sb << '      responseCode = "200",\n'
       sb << '      description = "CSV export",\n'
-      sb << '      content = @Content(\n'
+      if (negotiated) {
+        sb << '      content = {\n'
+      }
+      sb << (negotiated ? '      @Content(\n' : '      content = @Content(\n')
       sb << '          mediaType = "text/csv",\n'
       sb << '          examples = @ExampleObject(\n'
       sb << '              value =\n'
@@ -400,7 +758,22 @@ class SpringBootStarterExportCodegenTasks {
         sb << "${prefix}\"${chunk}\"\n"
       }
       sb << '          )\n'
-      sb << '      )\n'
+      if (negotiated) {
+        sb << '      ),\n'
+        sb << formats.collect { "      @Content(mediaType = \"${formatMediaType(it)}\")" }.join(',\n')
+        sb << '\n      }\n'
+      } else {
+        sb << '      )\n'
+      }
+      sb << '  )\n'
+    } else if (negotiated) {
+      sb << '  @ApiResponse(\n'
+      sb << '      responseCode = "200",\n'
+      sb << '      description = "CSV export",\n'
+      sb << '      content = {\n'
+      sb << '      @Content(mediaType = "text/csv"),\n'
+      sb << formats.collect { "      @Content(mediaType = \"${formatMediaType(it)}\")" }.join(',\n')
+      sb << '\n      }\n'
       sb << '  )\n'
     } else {
       sb << '  @ApiResponse(\n'
@@ -410,10 +783,18 @@ class SpringBootStarterExportCodegenTasks {
       sb << '  )\n'
     }
 
-    sb << "  @GetMapping(value = \"/${key}\", produces = \"text/csv\")\n"
+    if (negotiated) {
+      def produces = (['text/csv'] + formats.collect { formatMediaType(it) }).unique()
+      sb << '  @GetMapping(\n'
+      sb << "      value = {\"/${key}\", \"/${key}.{format}\"},\n"
+      sb << "      produces = {${produces.collect { "\"${it}\"" }.join(', ')}})\n"
+    } else {
+      sb << "  @GetMapping(value = \"/${key}\", produces = \"text/csv\")\n"
+    }
     sb << "  public ResponseEntity<StreamingResponseBody> ${methodName}(\n"
 
     def requestParams = []
+    def filterParams = []
     def paramBindings = []
     params.each { p ->
       def required = p.required == true
@@ -421,13 +802,30 @@ class SpringBootStarterExportCodegenTasks {
       def dbParamName = p.name
       def requestParamName = resolveParamRequestName(p)
       def javaParamName = toJavaParamName(dbParamName)
-      requestParams <<
+      filterParams <<
           "      @RequestParam(name = \"${requestParamName}\"${requiredAttr}) String ${javaParamName}"
       paramBindings << [
         dbParamName: dbParamName,
         javaParamName: javaParamName
       ]
     }
+    requestParams.addAll(filterParams)
+    if (resumeKey) {
+      requestParams << '      @RequestParam(name = "resumeAfter", required = false) String resumeAfter'
+    }
+    if (watermarkColumn) {
+      requestParams << '      @RequestParam(name = "since", required = false) String since'
+    }
+    if (negotiated) {
+      requestParams << '      @PathVariable(name = "format", required = false) String outputFormat'
+      requestParams << '      @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept'
+    }
+    requestParams <<
+        '      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding'
+    if (fingerprinted) {
+      requestParams <<
+          '      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch'
+    }
     sb << requestParams.join(',\n')
     sb << '\n  ) {\n'
     sb << '    Map<String, String[]> rawParams = new HashMap<>();\n'
@@ -436,20 +834,105 @@ class SpringBootStarterExportCodegenTasks {
       sb << "      rawParams.put(\"${p.dbParamName}\", new String[] { ${p.javaParamName} });\n"
       sb << '    }\n'
     }
+    if (resumeKey) {
+      sb << '    if (resumeAfter != null) {\n'
+      sb << '      rawParams.put("resumeAfter", new String[] { resumeAfter });\n'
+      sb << '    }\n'
+    }
+    if (watermarkColumn) {
+      sb << '    if (since != null) {\n'
+      sb << '      rawParams.put(ExportWatermarkToken.PARAM, new String[] { since });\n'
+      sb << '    }\n'
+    }
     sb << "    StringBuilder filename = new StringBuilder(\"${key}\");\n"
     paramBindings.each { p ->
       sb << "    if (${p.javaParamName} != null && !${p.javaParamName}.isBlank()) {\n"
       sb << "      filename.append(\"-\").append(sanitizeFilenamePart(${p.javaParamName}));\n"
       sb << '    }\n'
     }
-    sb << '    filename.append("-").append(LocalDate.now()).append(".csv");\n'
+    if (negotiated) {
+      sb << "    ExportFormatWriter format = exportService.negotiateFormat(\"${key}\", outputFormat, accept);\n"
+      sb << '    filename.append("-").append(LocalDate.now()).append(".").append(format.getFileExtension());\n'
+    } else {
+      sb << '    filename.append("-").append(LocalDate.now()).append(".csv");\n'
+    }
     sb << '    String outputFilename = filename.toString();\n'
-    sb << "    ValidatedExportRequest validatedRequest = exportService.validateRequest(\"${key}\", rawParams);\n"
-    sb << "    StreamingResponseBody body = out -> exportService.streamCsv(\"${key}\", validatedRequest, out);\n"
-    sb << '    return ResponseEntity.ok()\n'
+    if (watermarkColumn) {
+      // The delta's upper bound is fixed before streaming so it can be sent as a header.
+      sb << '    ValidatedExportRequest validatedRequest = exportService.resolveWatermark(\n'
+      sb << "        \"${key}\", exportService.validateRequest(\"${key}\", rawParams));\n"
+    } else {
+      sb << "    ValidatedExportRequest validatedRequest = exportService.validateRequest(\"${key}\", rawParams);\n"
+    }
+    def cacheControl = fingerprinted ? 'private, no-cache' : 'no-store'
+    def vary = negotiated
+        ? 'HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING'
+        : 'HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING'
+    if (fingerprinted) {
+      // A client already holding the current data is answered without running the export.
+      def formatArg = negotiated ? ', format' : ''
+      sb << "    String etag = exportService.etag(\"${key}\", validatedRequest${formatArg});\n"
+      sb << '    if (ExportEtag.matches(ifNoneMatch, etag)) {\n'
+      sb << '      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)\n'
+      sb << '          .eTag(etag)\n'
+      sb << "          .header(HttpHeaders.CACHE_CONTROL, \"${cacheControl}\")\n"
+      sb << "          .header(${vary})\n"
+      sb << '          .build();\n'
+      sb << '    }\n'
+    }
+    if (negotiated) {
+      sb << '    ExportContentEncoding encoding = format.isCompressible()\n'
+      sb << "        ? exportService.negotiateEncoding(\"${key}\", acceptEncoding)\n"
+      sb << '        : ExportContentEncoding.IDENTITY;\n'
+      sb << "    StreamingResponseBody body = out -> exportService.stream(\"${key}\", validatedRequest, out, format, encoding);\n"
+      sb << '    ResponseEntity.BodyBuilder response = ResponseEntity.ok()\n'
+      sb << '        .header(HttpHeaders.CONTENT_TYPE, format.getMediaType())\n'
+    } else {
+      sb << "    ExportContentEncoding encoding = exportService.negotiateEncoding(\"${key}\", acceptEncoding);\n"
+      sb << "    StreamingResponseBody body = out -> exportService.streamCsv(\"${key}\", validatedRequest, out, encoding);\n"
+      sb << '    ResponseEntity.BodyBuilder response = ResponseEntity.ok()\n'
+    }
     sb << '        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\\\"" + outputFilename + "\\\"")\n'
-    sb << '        .header(HttpHeaders.CACHE_CONTROL, "no-store")\n'
-    sb << '        .body(body);\n'
+    sb << "        .header(HttpHeaders.CACHE_CONTROL, \"${cacheControl}\")\n"
+    sb << "        .header(${vary});\n"
+    if (fingerprinted) {
+      sb << '    response.eTag(etag);\n'
+    }
+    sb << '    if (encoding != ExportContentEncoding.IDENTITY) {\n'
+    sb << '      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());\n'
+    sb << '    }\n'
+    if (resumeKey) {
+      // Names the column whose value in the last complete row is passed back as resumeAfter.
+      sb << "    response.header(\"X-Export-Resume-Key\", \"${resumeKey}\");\n"
+    }
+    if (watermarkColumn) {
+      // Passed back as ?since= to receive only the rows changed after this export.
+      sb << '    if (validatedRequest.getWatermarkUntil() != null) {\n'
+      sb << '      response.header(\n'
+      sb << '          ExportWatermarkToken.HEADER,\n'
+      sb << '          ExportWatermarkToken.encode(validatedRequest.getWatermarkUntil()));\n'
+      sb << '    }\n'
+    }
+    sb << '    return response.body(body);\n'
+    sb << '  }\n'
+    sb << '\n'
+
+    sb << "  @Operation(summary = \"Estimate ${key.replace('_',' ')} export size\")\n"
+    sb << "  @GetMapping(value = \"/${key}/estimate\", produces = \"application/json\")\n"
+    if (filterParams.isEmpty()) {
+      sb << "  public ExportEstimate ${methodName}Estimate() {\n"
+    } else {
+      sb << "  public ExportEstimate ${methodName}Estimate(\n"
+      sb << filterParams.join(',\n')
+      sb << '\n  ) {\n'
+    }
+    sb << '    Map<String, String[]> rawParams = new HashMap<>();\n'
+    paramBindings.each { p ->
+      sb << "    if (${p.javaParamName} != null) {\n"
+      sb << "      rawParams.put(\"${p.dbParamName}\", new String[] { ${p.javaParamName} });\n"
+      sb << '    }\n'
+    }
+    sb << "    return exportService.estimate(\"${key}\", rawParams);\n"
     sb << '  }\n'
     sb << '\n'
     sb << '  private String sanitizeFilenamePart(String value) {\n'
@@ -460,6 +943,15 @@ class SpringBootStarterExportCodegenTasks {
     sb.toString()
   }
 
+  private static List<String> extraFormats(Map defn) {
+    def formats = (defn?.formats ?: []).collect { it.toString().trim().toLowerCase() }
+    return formats.findAll { it && it != 'csv' }.unique()
+  }
+
+  private static String formatMediaType(String format) {
+    return FORMAT_MEDIA_TYPES[format] ?: 'application/octet-stream'
+  }
+
   private static String resolveParamRequestName(Map param) {
     def override = param?.requestName ?: param?.'request-name'
     if (override != null && !override.toString().isBlank()) {
@@ -0,0 +1,401 @@
+package uk.gov.laa.gradle.springboot.starter.export;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.gradle.api.GradleException;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpringBootStarterExportCodegenTasksTest {
+
+  private static final String GENERATED_PACKAGE = "uk/gov/laa/springboot/export/generated/";
+
+  private static final String BOOKS_SQL =
+      """
+      sql: |
+        select id as "id", title as "title", updated_at as "updated_at"
+        from books
+        where author = :author
+      params:
+        - name: author
+      """;
+
+  @TempDir
+  Path projectDir;
+
+  @BeforeEach
+  void enableExports() throws IOException {
+    Path resources = Files.createDirectories(projectDir.resolve("src/main/resources"));
+    Files.writeString(
+        resources.resolve("application.yml"),
+        """
+        laa:
+          springboot:
+            starter:
+              exports:
+                enabled: true
+        """);
+  }
+
+  @Test
+  void generatesCopyProviderAndControllerByDefault() throws IOException {
+    define("books", BOOKS_SQL + "provider: booksProvider\n");
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("@Component(\"booksProvider\")"));
+    assertTrue(provider.contains("implements ExportCsvProvider, ExportEstimateProvider {"));
+    assertTrue(provider.contains("private final PostgresCopyExporter copyExporter;"));
+    assertFalse(provider.contains("JdbcCursorExporter"));
+    assertTrue(provider.contains("SqlTemplate.compile(SQL)"));
+    assertTrue(provider.contains("ObjectProvider<ExportDataSourceRouter> dataSourceRouter"));
+
+    String controller = controller("BooksExportController");
+    assertTrue(controller.contains("@GetMapping(value = \"/books\", produces = \"text/csv\")"));
+    assertTrue(controller.contains("exportService.negotiateEncoding(\"books\", acceptEncoding)"));
+    assertTrue(controller.contains("exportService.streamCsv(\"books\", validatedRequest"));
+    assertFalse(controller.contains("IF_NONE_MATCH"));
+    assertFalse(controller.contains("X-Export-Resume-Key"));
+  }
+
+  @Test
+  void selectsCursorExporterWhenColumnsAreFormatted() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            fetchSize: 500
+            statementTimeout: 30s
+            columns:
+              - key: updated_at
+                format: date
+            """);
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("private final JdbcCursorExporter cursorExporter;"));
+    assertFalse(provider.contains("PostgresCopyExporter"));
+    assertTrue(provider.contains("Duration.ofMillis(30000L)"));
+    assertTrue(provider.contains("        500,\n        STATEMENT_TIMEOUT);"));
+  }
+
+  @Test
+  void honoursExplicitExporterAndPrimaryDatasource() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            exporter: cursor
+            datasource: primary
+            """);
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("JdbcCursorExporter.DEFAULT_FETCH_SIZE"));
+    assertTrue(provider.contains("DataSource dataSource, ObjectProvider<ObservationRegistry>"));
+    assertFalse(provider.contains("ExportDataSourceRouter"));
+  }
+
+  @Test
+  void generatesPartitionedCopyExporter() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            partition:
+              key: id
+              count: 8
+              parallelism: 2
+            """);
+
+    generate();
+
+    assertTrue(
+        provider("BooksProvider")
+            .contains("new PartitionedCopyExporter(\n        dataSource,\n"
+                + "        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),\n"
+                + "        \"id\",\n        8,\n        2);"));
+  }
+
+  @Test
+  void negotiatesExtraFormatsThroughRowProvider() throws IOException {
+    define("books", BOOKS_SQL + "provider: booksProvider\nformats: [ndjson, xlsx]\n");
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("ExportCsvProvider, ExportRowProvider, ExportEstimateProvider"));
+    assertTrue(provider.contains("private final PostgresCopyExporter copyExporter;"));
+    assertTrue(provider.contains("private final JdbcCursorExporter cursorExporter;"));
+
+    String controller = controller("BooksExportController");
+    assertTrue(controller.contains("value = {\"/books\", \"/books.{format}\"}"));
+    assertTrue(controller.contains("\"text/csv\", \"application/x-ndjson\", \"application/vnd."));
+    assertTrue(
+        controller.contains("exportService.negotiateFormat(\"books\", outputFormat, accept)"));
+    assertTrue(
+        controller.contains("HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING"));
+  }
+
+  @Test
+  void answersUnchangedDataWithNotModified() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            freshness:
+              sql: select max(updated_at) from books
+            """);
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("ExportEstimateProvider, ExportFreshnessProvider {"));
+    assertTrue(provider.contains("\"select max(updated_at) from books\""));
+
+    String controller = controller("BooksExportController");
+    assertTrue(
+        controller.contains("HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch"));
+    assertTrue(
+        controller.contains("String etag = exportService.etag(\"books\", validatedRequest);"));
+    assertTrue(controller.contains("ResponseEntity.status(HttpStatus.NOT_MODIFIED)"));
+    assertTrue(controller.contains("response.eTag(etag);"));
+    assertTrue(controller.contains("\"private, no-cache\""));
+  }
+
+  @Test
+  void advertisesResumeKey() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            resume:
+              key: id
+              page-size: 1000
+            """);
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("private final KeysetCopyExporter copyExporter;"));
+    assertTrue(provider.contains("        \"id\",\n        1000);"));
+    assertTrue(provider.contains("boolean firstRow = request.getResumeAfter() == null;"));
+
+    String controller = controller("BooksExportController");
+    assertTrue(controller.contains("@RequestParam(name = \"resumeAfter\", required = false)"));
+    assertTrue(controller.contains("response.header(\"X-Export-Resume-Key\", \"id\");"));
+  }
+
+  @Test
+  void returnsWatermarkForNextDelta() throws IOException {
+    define(
+        "books",
+        BOOKS_SQL
+            + """
+            provider: booksProvider
+            watermark:
+              column: updated_at
+            """);
+
+    generate();
+
+    String provider = provider("BooksProvider");
+    assertTrue(provider.contains("ExportEstimateProvider, ExportWatermarkProvider {"));
+    assertTrue(provider.contains("private final WatermarkCopyExporter copyExporter;"));
+    assertFalse(provider.contains("PostgresCopyExporter"));
+
+    String controller = controller("BooksExportController");
+    assertTrue(
+        controller.contains("@RequestParam(name = \"since\", required = false) String since"));
+    assertTrue(controller.contains("exportService.resolveWatermark("));
+    assertTrue(controller.contains("ExportWatermarkToken.HEADER,"));
+  }
+
+  @Test
+  void generatesEstimateEndpointWithFilterParams() throws IOException {
+    define("books", BOOKS_SQL + "provider: booksProvider\nresume:\n  key: id\n");
+
+    generate();
+
+    assertTrue(provider("BooksProvider").contains("planEstimator.estimate(TEMPLATE, params"));
+    String controller = controller("BooksExportController");
+    assertTrue(
+        controller.contains(
+            "@GetMapping(value = \"/books/estimate\", produces = \"application/json\")"));
+    assertTrue(
+        controller.contains(
+            "public ExportEstimate exportBooksEstimate(\n"
+                + "      @RequestParam(name = \"author\", required = false) String author\n"
+                + "  ) {"));
+    assertTrue(controller.contains("return exportService.estimate(\"books\", rawParams);"));
+  }
+
+  @Test
+  void skipsGenerationWhenExportsAreDisabled() throws IOException {
+    Files.writeString(
+        projectDir.resolve("src/main/resources/application.yml"),
+        "laa:\n  springboot:\n    starter:\n      exports:\n        enabled: false\n");
+    define("books", BOOKS_SQL + "provider: booksProvider\n");
+
+    generate();
+
+    assertFalse(Files.exists(generated("export-sql", "BooksProvider")));
+  }
+
+  @Test
+  void rejectsSqlWithoutProvider() throws IOException {
+    assertRejected(BOOKS_SQL, "has sql but no provider");
+  }
+
+  @Test
+  void rejectsUnknownExporter() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nexporter: jdbc\n", "unsupported exporter: jdbc");
+  }
+
+  @Test
+  void rejectsNonPositiveFetchSize() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nfetchSize: 0\n", "fetchSize must be positive");
+  }
+
+  @Test
+  void rejectsInvalidStatementTimeout() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nstatementTimeout: soon\n",
+        "statementTimeout is not a duration: soon");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nstatementTimeout: 0s\n",
+        "statementTimeout must be positive");
+  }
+
+  @Test
+  void rejectsUnknownDatasource() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\ndatasource: replica\n",
+        "unsupported datasource: replica");
+  }
+
+  @Test
+  void rejectsPartitionOutsideCopyExporter() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nexporter: cursor\npartition:\n  key: id\n",
+        "partition requires the copy exporter");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\npartition:\n  key: \"id; drop\"\n",
+        "partition key must be a column name");
+  }
+
+  @Test
+  void rejectsResumeOutsideCsvCopyExport() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\npartition:\n  key: id\nresume:\n  key: id\n",
+        "resume requires the copy exporter and CSV output only");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nformats: [ndjson]\nresume:\n  key: id\n",
+        "resume requires the copy exporter and CSV output only");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nresume:\n  key: \"id desc\"\n",
+        "resume key must be a column name");
+  }
+
+  @Test
+  void rejectsWatermarkCombinedWithOtherModes() throws IOException {
+    assertRejected(
+        BOOKS_SQL
+            + "provider: booksProvider\nresume:\n  key: id\nwatermark:\n  column: updated_at\n",
+        "watermark requires the copy exporter and CSV output only, without partition or resume");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nexporter: cursor\nwatermark:\n  column: updated_at\n",
+        "watermark requires the copy exporter");
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nwatermark:\n  column: \"now()\"\n",
+        "watermark column must be a column name");
+  }
+
+  @Test
+  void rejectsWatermarkWhenSinceParamIsTaken() throws IOException {
+    assertRejected(
+        """
+        sql: select id as "id" from books where updated_at > :from
+        provider: booksProvider
+        params:
+          - name: from
+            requestName: since
+        watermark:
+          column: updated_at
+        """,
+        "watermark reserves the since request param");
+  }
+
+  @Test
+  void rejectsInvalidFreshness() throws IOException {
+    assertRejected(
+        BOOKS_SQL + "provider: booksProvider\nfreshness:\n  ttl: 30s\n", "freshness sql missing");
+    assertRejected(
+        BOOKS_SQL
+            + "provider: booksProvider\nwatermark:\n  column: updated_at\n"
+            + "freshness:\n  sql: select 1\n",
+        "cannot combine freshness with watermark");
+  }
+
+  private void define(String key, String yaml) throws IOException {
+    Path definitions =
+        Files.createDirectories(projectDir.resolve("src/main/resources/export_definitions"));
+    Files.writeString(definitions.resolve(key + ".yml"), yaml);
+  }
+
+  private void assertRejected(String yaml, String message) throws IOException {
+    define("books", yaml);
+    Project project = ProjectBuilder.builder().withProjectDir(projectDir.toFile()).build();
+    SpringBootStarterExportCodegenTasks.registerAll(project);
+
+    GradleException exception =
+        assertThrows(GradleException.class, () -> run(project, "generateExportSql"));
+    assertTrue(
+        exception.getMessage().contains(message),
+        () -> "Unexpected message: " + exception.getMessage());
+  }
+
+  private void generate() {
+    Project project = ProjectBuilder.builder().withProjectDir(projectDir.toFile()).build();
+    SpringBootStarterExportCodegenTasks.registerAll(project);
+    run(project, "generateExportSql");
+    run(project, "generateExportControllers");
+  }
+
+  private static void run(Project project, String taskName) {
+    Task task = project.getTasks().getByName(taskName);
+    task.getActions().forEach(action -> action.execute(task));
+  }
+
+  private String provider(String className) throws IOException {
+    return Files.readString(generated("export-sql", className));
+  }
+
+  private String controller(String className) throws IOException {
+    return Files.readString(generated("export-web", className));
+  }
+
+  private Path generated(String dir, String className) {
+    return projectDir.resolve(
+        "build/generated/" + dir + "/" + GENERATED_PACKAGE + className + ".java");
+  }
+}
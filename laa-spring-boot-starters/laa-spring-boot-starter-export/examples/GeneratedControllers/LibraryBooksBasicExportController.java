@@ -4,23 +4,28 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_books_basic.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryBooksBasicExportController {
   private final ExportService exportService;
@@ -29,7 +34,7 @@ public class LibraryBooksBasicExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_books_basic")
+  @Operation(summary = "Export library books basic")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
@@ -41,20 +46,52 @@ public class LibraryBooksBasicExportController {
           )
       )
   )
-  @GetMapping(value = "/library_books_basic.csv", produces = "text/csv")
+  @GetMapping(value = "/library_books_basic", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryBooksBasic(
-      @RequestParam(name = "status", required = false) String status
+      @RequestParam(name = "status", required = false) String status,
+      @RequestParam(name = "resumeAfter", required = false) String resumeAfter,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (status != null) {
       rawParams.put("status", new String[] { status });
     }
-    String filename = "library_books_basic-" + LocalDate.now() + ".csv";
+    if (resumeAfter != null) {
+      rawParams.put("resumeAfter", new String[] { resumeAfter });
+    }
+    StringBuilder filename = new StringBuilder("library_books_basic");
+    if (status != null && !status.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(status));
+    }
+    filename.append("-").append(LocalDate.now()).append(".csv");
+    String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library_books_basic", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_books_basic", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library_books_basic", acceptEncoding);
+    StreamingResponseBody body = out -> exportService.streamCsv("library_books_basic", validatedRequest, out, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    response.header("X-Export-Resume-Key", "bookId");
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library books basic export size")
+  @GetMapping(value = "/library_books_basic/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryBooksBasicEstimate(
+      @RequestParam(name = "status", required = false) String status
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (status != null) {
+      rawParams.put("status", new String[] { status });
+    }
+    return exportService.estimate("library_books_basic", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
@@ -1,26 +1,32 @@
-package uk.gov.laa.springboot.export.generated;
+package uk.gov.justice.laa.dstew.payments.claimsdata.export.generated;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.model.ExportWatermarkToken;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_books.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryBooksExportController {
   private final ExportService exportService;
@@ -29,7 +35,7 @@ public class LibraryBooksExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_books")
+  @Operation(summary = "Export library books")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
@@ -37,22 +43,61 @@ public class LibraryBooksExportController {
           mediaType = "text/csv",
           examples = @ExampleObject(
               value =
-                  "Book ID,Status"
+                  "Book ID,Status,Updated At"
           )
       )
   )
-  @GetMapping(value = "/library_books.csv", produces = "text/csv")
+  @GetMapping(value = "/library_books", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryBooks(
-      @RequestParam(name = "minId") String minId
+      @RequestParam(name = "min-id") String minId,
+      @RequestParam(name = "since", required = false) String since,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
-    rawParams.put("minId", new String[] { minId });
-    String filename = "library_books-" + LocalDate.now() + ".csv";
-    ValidatedExportRequest validatedRequest = exportService.validateRequest("library_books", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_books", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    if (minId != null) {
+      rawParams.put("minId", new String[] { minId });
+    }
+    if (since != null) {
+      rawParams.put(ExportWatermarkToken.PARAM, new String[] { since });
+    }
+    StringBuilder filename = new StringBuilder("library_books");
+    if (minId != null && !minId.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(minId));
+    }
+    filename.append("-").append(LocalDate.now()).append(".csv");
+    String outputFilename = filename.toString();
+    ValidatedExportRequest validatedRequest = exportService.resolveWatermark(
+        "library_books", exportService.validateRequest("library_books", rawParams));
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library_books", acceptEncoding);
+    StreamingResponseBody body = out -> exportService.streamCsv("library_books", validatedRequest, out, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    if (validatedRequest.getWatermarkUntil() != null) {
+      response.header(
+          ExportWatermarkToken.HEADER,
+          ExportWatermarkToken.encode(validatedRequest.getWatermarkUntil()));
+    }
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library books export size")
+  @GetMapping(value = "/library_books/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryBooksEstimate(
+      @RequestParam(name = "min-id") String minId
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (minId != null) {
+      rawParams.put("minId", new String[] { minId });
+    }
+    return exportService.estimate("library_books", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
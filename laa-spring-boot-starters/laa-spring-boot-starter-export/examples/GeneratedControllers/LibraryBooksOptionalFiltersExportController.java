@@ -4,23 +4,28 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_books_optional_filters.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryBooksOptionalFiltersExportController {
   private final ExportService exportService;
@@ -29,7 +34,7 @@ public class LibraryBooksOptionalFiltersExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_books_optional_filters")
+  @Operation(summary = "Export library books optional filters")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
@@ -41,11 +46,12 @@ public class LibraryBooksOptionalFiltersExportController {
           )
       )
   )
-  @GetMapping(value = "/library_books_optional_filters.csv", produces = "text/csv")
+  @GetMapping(value = "/library_books_optional_filters", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryBooksOptionalFilters(
       @RequestParam(name = "genre", required = false) String genre,
       @RequestParam(name = "status", required = false) String status,
-      @RequestParam(name = "createdOnOrAfter", required = false) String createdOnOrAfter
+      @RequestParam(name = "created-on-or-after", required = false) String createdOnOrAfter,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (genre != null) {
@@ -57,12 +63,52 @@ public class LibraryBooksOptionalFiltersExportController {
     if (createdOnOrAfter != null) {
       rawParams.put("createdOnOrAfter", new String[] { createdOnOrAfter });
     }
-    String filename = "library_books_optional_filters-" + LocalDate.now() + ".csv";
+    StringBuilder filename = new StringBuilder("library_books_optional_filters");
+    if (genre != null && !genre.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(genre));
+    }
+    if (status != null && !status.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(status));
+    }
+    if (createdOnOrAfter != null && !createdOnOrAfter.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(createdOnOrAfter));
+    }
+    filename.append("-").append(LocalDate.now()).append(".csv");
+    String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library_books_optional_filters", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_books_optional_filters", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library_books_optional_filters", acceptEncoding);
+    StreamingResponseBody body = out -> exportService.streamCsv("library_books_optional_filters", validatedRequest, out, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library books optional filters export size")
+  @GetMapping(value = "/library_books_optional_filters/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryBooksOptionalFiltersEstimate(
+      @RequestParam(name = "genre", required = false) String genre,
+      @RequestParam(name = "status", required = false) String status,
+      @RequestParam(name = "created-on-or-after", required = false) String createdOnOrAfter
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (genre != null) {
+      rawParams.put("genre", new String[] { genre });
+    }
+    if (status != null) {
+      rawParams.put("status", new String[] { status });
+    }
+    if (createdOnOrAfter != null) {
+      rawParams.put("createdOnOrAfter", new String[] { createdOnOrAfter });
+    }
+    return exportService.estimate("library_books_optional_filters", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
@@ -4,23 +4,30 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_books_with_authors.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryBooksWithAuthorsExportController {
   private final ExportService exportService;
@@ -29,22 +36,32 @@ public class LibraryBooksWithAuthorsExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_books_with_authors")
+  @Operation(summary = "Export library books with authors")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
-      content = @Content(
+      content = {
+      @Content(
           mediaType = "text/csv",
           examples = @ExampleObject(
               value =
                   "Book ID,Title,Author,Branch,Status"
           )
-      )
+      ),
+      @Content(mediaType = "application/x-ndjson"),
+      @Content(mediaType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+      @Content(mediaType = "application/vnd.apache.arrow.stream")
+      }
   )
-  @GetMapping(value = "/library_books_with_authors.csv", produces = "text/csv")
+  @GetMapping(
+      value = {"/library_books_with_authors", "/library_books_with_authors.{format}"},
+      produces = {"text/csv", "application/x-ndjson", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "application/vnd.apache.arrow.stream"})
   public ResponseEntity<StreamingResponseBody> exportLibraryBooksWithAuthors(
       @RequestParam(name = "branchCode", required = false) String branchCode,
-      @RequestParam(name = "status", required = false) String status
+      @RequestParam(name = "status", required = false) String status,
+      @PathVariable(name = "format", required = false) String outputFormat,
+      @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (branchCode != null) {
@@ -53,12 +70,49 @@ public class LibraryBooksWithAuthorsExportController {
     if (status != null) {
       rawParams.put("status", new String[] { status });
     }
-    String filename = "library_books_with_authors-" + LocalDate.now() + ".csv";
+    StringBuilder filename = new StringBuilder("library_books_with_authors");
+    if (branchCode != null && !branchCode.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(branchCode));
+    }
+    if (status != null && !status.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(status));
+    }
+    ExportFormatWriter format = exportService.negotiateFormat("library_books_with_authors", outputFormat, accept);
+    filename.append("-").append(LocalDate.now()).append(".").append(format.getFileExtension());
+    String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library_books_with_authors", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_books_with_authors", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    ExportContentEncoding encoding = format.isCompressible()
+        ? exportService.negotiateEncoding("library_books_with_authors", acceptEncoding)
+        : ExportContentEncoding.IDENTITY;
+    StreamingResponseBody body = out -> exportService.stream("library_books_with_authors", validatedRequest, out, format, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_TYPE, format.getMediaType())
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library books with authors export size")
+  @GetMapping(value = "/library_books_with_authors/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryBooksWithAuthorsEstimate(
+      @RequestParam(name = "branchCode", required = false) String branchCode,
+      @RequestParam(name = "status", required = false) String status
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (branchCode != null) {
+      rawParams.put("branchCode", new String[] { branchCode });
+    }
+    if (status != null) {
+      rawParams.put("status", new String[] { status });
+    }
+    return exportService.estimate("library_books_with_authors", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
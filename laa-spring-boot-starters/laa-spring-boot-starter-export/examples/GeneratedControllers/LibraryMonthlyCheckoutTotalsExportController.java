@@ -4,23 +4,30 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.model.ExportEtag;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_monthly_checkout_totals.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryMonthlyCheckoutTotalsExportController {
   private final ExportService exportService;
@@ -29,7 +36,7 @@ public class LibraryMonthlyCheckoutTotalsExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_monthly_checkout_totals")
+  @Operation(summary = "Export library monthly checkout totals")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
@@ -41,10 +48,12 @@ public class LibraryMonthlyCheckoutTotalsExportController {
           )
       )
   )
-  @GetMapping(value = "/library_monthly_checkout_totals.csv", produces = "text/csv")
+  @GetMapping(value = "/library_monthly_checkout_totals", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryMonthlyCheckoutTotals(
       @RequestParam(name = "fromDate") String fromDate,
-      @RequestParam(name = "toDate") String toDate
+      @RequestParam(name = "toDate") String toDate,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (fromDate != null) {
@@ -53,12 +62,54 @@ public class LibraryMonthlyCheckoutTotalsExportController {
     if (toDate != null) {
       rawParams.put("toDate", new String[] { toDate });
     }
-    String filename = "library_monthly_checkout_totals-" + LocalDate.now() + ".csv";
+    StringBuilder filename = new StringBuilder("library_monthly_checkout_totals");
+    if (fromDate != null && !fromDate.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(fromDate));
+    }
+    if (toDate != null && !toDate.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(toDate));
+    }
+    filename.append("-").append(LocalDate.now()).append(".csv");
+    String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library_monthly_checkout_totals", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_monthly_checkout_totals", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-        .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+    String etag = exportService.etag("library_monthly_checkout_totals", validatedRequest);
+    if (ExportEtag.matches(ifNoneMatch, etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+          .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+          .build();
+    }
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library_monthly_checkout_totals", acceptEncoding);
+    StreamingResponseBody body = out -> exportService.streamCsv("library_monthly_checkout_totals", validatedRequest, out, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
+        .header(HttpHeaders.CACHE_CONTROL, "private, no-cache")
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    response.eTag(etag);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library monthly checkout totals export size")
+  @GetMapping(value = "/library_monthly_checkout_totals/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryMonthlyCheckoutTotalsEstimate(
+      @RequestParam(name = "fromDate") String fromDate,
+      @RequestParam(name = "toDate") String toDate
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (fromDate != null) {
+      rawParams.put("fromDate", new String[] { fromDate });
+    }
+    if (toDate != null) {
+      rawParams.put("toDate", new String[] { toDate });
+    }
+    return exportService.estimate("library_monthly_checkout_totals", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
@@ -4,23 +4,28 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
  * Generated export endpoint for library_overdue_loans.
  */
 @RestController
+@Tag(name="Export operations", description="Operations generated via LAA Spring Boot export starter")
 @RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
 public class LibraryOverdueLoansExportController {
   private final ExportService exportService;
@@ -29,7 +34,7 @@ public class LibraryOverdueLoansExportController {
     this.exportService = exportService;
   }
 
-  @Operation(summary = "Export library_overdue_loans")
+  @Operation(summary = "Export library overdue loans")
   @ApiResponse(
       responseCode = "200",
       description = "CSV export",
@@ -41,10 +46,11 @@ public class LibraryOverdueLoansExportController {
           )
       )
   )
-  @GetMapping(value = "/library_overdue_loans.csv", produces = "text/csv")
+  @GetMapping(value = "/library_overdue_loans", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryOverdueLoans(
       @RequestParam(name = "asOfDate") String asOfDate,
-      @RequestParam(name = "branchCode", required = false) String branchCode
+      @RequestParam(name = "branchCode", required = false) String branchCode,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
   ) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (asOfDate != null) {
@@ -53,12 +59,45 @@ public class LibraryOverdueLoansExportController {
     if (branchCode != null) {
       rawParams.put("branchCode", new String[] { branchCode });
     }
-    String filename = "library_overdue_loans-" + LocalDate.now() + ".csv";
+    StringBuilder filename = new StringBuilder("library_overdue_loans");
+    if (asOfDate != null && !asOfDate.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(asOfDate));
+    }
+    if (branchCode != null && !branchCode.isBlank()) {
+      filename.append("-").append(sanitizeFilenamePart(branchCode));
+    }
+    filename.append("-").append(LocalDate.now()).append(".csv");
+    String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library_overdue_loans", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library_overdue_loans", validatedRequest, out);
-    return ResponseEntity.ok()
-        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library_overdue_loans", acceptEncoding);
+    StreamingResponseBody body = out -> exportService.streamCsv("library_overdue_loans", validatedRequest, out, encoding);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    return response.body(body);
+  }
+
+  @Operation(summary = "Estimate library overdue loans export size")
+  @GetMapping(value = "/library_overdue_loans/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryOverdueLoansEstimate(
+      @RequestParam(name = "asOfDate") String asOfDate,
+      @RequestParam(name = "branchCode", required = false) String branchCode
+  ) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (asOfDate != null) {
+      rawParams.put("asOfDate", new String[] { asOfDate });
+    }
+    if (branchCode != null) {
+      rawParams.put("branchCode", new String[] { branchCode });
+    }
+    return exportService.estimate("library_overdue_loans", rawParams);
+  }
+
+  private String sanitizeFilenamePart(String value) {
+    return value.replaceAll("[^A-Za-z0-9._-]", "_");
   }
 }
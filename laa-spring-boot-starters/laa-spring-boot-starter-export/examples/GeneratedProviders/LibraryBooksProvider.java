@@ -1,40 +1,60 @@
-package uk.gov.laa.springboot.export.generated;
+package uk.gov.justice.laa.dstew.payments.claimsdata.export.generated;
 
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.Generated;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportEstimateProvider;
+import uk.gov.laa.springboot.export.ExportWatermarkProvider;
 import uk.gov.laa.springboot.export.csv.CsvHeaderWriter;
-import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresPlanEstimator;
+import uk.gov.laa.springboot.export.datasource.postgres.WatermarkCopyExporter;
 import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Export provider for library_books.
  */
 @Component("libraryBooksProvider")
 @Generated("export-sql-codegen")
-public class LibraryBooksProvider implements ExportCsvProvider {
+public class LibraryBooksProvider implements ExportCsvProvider, ExportEstimateProvider, ExportWatermarkProvider {
   private static final String SQL =
       String.join("\n",
-          "select id as book_id, status as status from library_books where id > :minId"
+          "select id as book_id, status as status, updated_at as updated_at",
+          "from library_books",
+          "where id > :minId"
       );
   private static final List<String> COLUMN_ORDER =
       List.of(
           "book_id",
-          "status"
+          "status",
+          "updated_at"
       );
-  private final PostgresCopyExporter copyExporter;
+  private static final SqlTemplate TEMPLATE = SqlTemplate.compile(SQL);
+  private final WatermarkCopyExporter copyExporter;
+  private final PostgresPlanEstimator planEstimator;
 
-  public LibraryBooksProvider(DataSource dataSource) {
-    this.copyExporter = new PostgresCopyExporter(dataSource);
+  public LibraryBooksProvider(
+      DataSource primaryDataSource,
+      ObjectProvider<ExportDataSourceRouter> dataSourceRouter,
+      ObjectProvider<ObservationRegistry> observationRegistry) {
+    ExportDataSourceRouter router = dataSourceRouter.getIfAvailable();
+    DataSource dataSource = router == null ? primaryDataSource : router.getDataSource();
+    this.copyExporter = new WatermarkCopyExporter(
+        dataSource,
+        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+        "updated_at");
+    this.planEstimator = new PostgresPlanEstimator(
+        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
   }
 
   @Override
@@ -45,17 +65,39 @@ public class LibraryBooksProvider implements ExportCsvProvider {
     Map<String, Object> params = new HashMap<>();
     params.putAll(request.getParams());
     params.put("maxRows", request.getMaxRows());
-    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+    try {
       boolean hasOverrides = columns != null && !columns.isEmpty();
       if (hasOverrides) {
-        CsvHeaderWriter.writeHeader(writer, COLUMN_ORDER, columns);
+        CsvHeaderWriter.writeHeader(out, COLUMN_ORDER, columns);
       }
       boolean includeHeader = !hasOverrides;
-      long rows = copyExporter.copyCsv(SQL, params, writer, includeHeader);
-      writer.flush();
+      long rows = copyExporter.copyCsv(
+          TEMPLATE,
+          params,
+          request.getWatermarkSince(),
+          request.getWatermarkUntil(),
+          out,
+          includeHeader);
+      out.flush();
       return rows;
     } catch (Exception e) {
       throw new RuntimeException("CSV export failed", e);
     }
   }
+
+  @Override
+  public String nextWatermark(ValidatedExportRequest request) {
+    Map<String, Object> params = new HashMap<>();
+    params.putAll(request.getParams());
+    return copyExporter.nextWatermark(
+        TEMPLATE, params, request.getWatermarkSince(), request.getMaxRows());
+  }
+
+  @Override
+  public ExportEstimate estimate(ValidatedExportRequest request) {
+    Map<String, Object> params = new HashMap<>();
+    params.putAll(request.getParams());
+    params.put("maxRows", request.getMaxRows());
+    return planEstimator.estimate(TEMPLATE, params, request.getMaxRows());
+  }
 }
@@ -1,27 +1,34 @@
 package uk.gov.laa.springboot.export.generated;
 
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.Generated;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportEstimateProvider;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.ExportRowProvider;
 import uk.gov.laa.springboot.export.csv.CsvHeaderWriter;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
+import uk.gov.laa.springboot.export.datasource.jdbc.JdbcCursorExporter;
 import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresPlanEstimator;
 import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Export provider for library_books_with_authors.
  */
 @Component("libraryBooksWithAuthorsProvider")
 @Generated("export-sql-codegen")
-public class LibraryBooksWithAuthorsProvider implements ExportCsvProvider {
+public class LibraryBooksWithAuthorsProvider implements ExportCsvProvider, ExportRowProvider, ExportEstimateProvider {
   private static final String SQL =
       String.join("\n",
           "select",
@@ -46,10 +53,30 @@ public class LibraryBooksWithAuthorsProvider implements ExportCsvProvider {
           "branchName",
           "status"
       );
+  private static final SqlTemplate TEMPLATE = SqlTemplate.compile(SQL);
+  private static final Map<String, String> PARAM_TYPES =
+      Map.ofEntries(
+          Map.entry("branchCode", "STRING"),
+          Map.entry("status", "STRING")
+      );
   private final PostgresCopyExporter copyExporter;
+  private final JdbcCursorExporter cursorExporter;
+  private final PostgresPlanEstimator planEstimator;
 
-  public LibraryBooksWithAuthorsProvider(DataSource dataSource) {
-    this.copyExporter = new PostgresCopyExporter(dataSource);
+  public LibraryBooksWithAuthorsProvider(
+      DataSource primaryDataSource,
+      ObjectProvider<ExportDataSourceRouter> dataSourceRouter,
+      ObjectProvider<ObservationRegistry> observationRegistry) {
+    ExportDataSourceRouter router = dataSourceRouter.getIfAvailable();
+    DataSource dataSource = router == null ? primaryDataSource : router.getDataSource();
+    this.copyExporter = new PostgresCopyExporter(
+        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    this.cursorExporter = new JdbcCursorExporter(
+        dataSource,
+        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP),
+        JdbcCursorExporter.DEFAULT_FETCH_SIZE);
+    this.planEstimator = new PostgresPlanEstimator(
+        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
   }
 
   @Override
@@ -60,17 +87,37 @@ public class LibraryBooksWithAuthorsProvider implements ExportCsvProvider {
     Map<String, Object> params = new HashMap<>();
     params.putAll(request.getParams());
     params.put("maxRows", request.getMaxRows());
-    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+    try {
       boolean hasOverrides = columns != null && !columns.isEmpty();
       if (hasOverrides) {
-        CsvHeaderWriter.writeHeader(writer, COLUMN_ORDER, columns);
+        CsvHeaderWriter.writeHeader(out, COLUMN_ORDER, columns);
       }
       boolean includeHeader = !hasOverrides;
-      long rows = copyExporter.copyCsv(SQL, params, writer, includeHeader);
-      writer.flush();
+      long rows = copyExporter.copyCsv(TEMPLATE, params, out, includeHeader);
+      out.flush();
       return rows;
     } catch (Exception e) {
       throw new RuntimeException("CSV export failed", e);
     }
   }
+
+  @Override
+  public long writeRows(
+      ValidatedExportRequest request,
+      List<ExportColumn> columns,
+      ExportFormatWriter format,
+      OutputStream out) {
+    Map<String, Object> params = new HashMap<>();
+    params.putAll(request.getParams());
+    params.put("maxRows", request.getMaxRows());
+    return cursorExporter.export(TEMPLATE, params, PARAM_TYPES, columns, format, out);
+  }
+
+  @Override
+  public ExportEstimate estimate(ValidatedExportRequest request) {
+    Map<String, Object> params = new HashMap<>();
+    params.putAll(request.getParams());
+    params.put("maxRows", request.getMaxRows());
+    return planEstimator.estimate(TEMPLATE, params, request.getMaxRows());
+  }
 }
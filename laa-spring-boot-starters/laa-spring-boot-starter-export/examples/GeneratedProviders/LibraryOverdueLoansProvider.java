@@ -1,27 +1,31 @@
 package uk.gov.laa.springboot.export.generated;
 
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.Generated;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportEstimateProvider;
 import uk.gov.laa.springboot.export.csv.CsvHeaderWriter;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
 import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresPlanEstimator;
 import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Export provider for library_overdue_loans.
  */
 @Component("libraryOverdueLoansProvider")
 @Generated("export-sql-codegen")
-public class LibraryOverdueLoansProvider implements ExportCsvProvider {
+public class LibraryOverdueLoansProvider implements ExportCsvProvider, ExportEstimateProvider {
   private static final String SQL =
       String.join("\n",
           "select",
@@ -51,10 +55,20 @@ public class LibraryOverdueLoansProvider implements ExportCsvProvider {
           "dueDate",
           "daysOverdue"
       );
+  private static final SqlTemplate TEMPLATE = SqlTemplate.compile(SQL);
   private final PostgresCopyExporter copyExporter;
+  private final PostgresPlanEstimator planEstimator;
 
-  public LibraryOverdueLoansProvider(DataSource dataSource) {
-    this.copyExporter = new PostgresCopyExporter(dataSource);
+  public LibraryOverdueLoansProvider(
+      DataSource primaryDataSource,
+      ObjectProvider<ExportDataSourceRouter> dataSourceRouter,
+      ObjectProvider<ObservationRegistry> observationRegistry) {
+    ExportDataSourceRouter router = dataSourceRouter.getIfAvailable();
+    DataSource dataSource = router == null ? primaryDataSource : router.getDataSource();
+    this.copyExporter = new PostgresCopyExporter(
+        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+    this.planEstimator = new PostgresPlanEstimator(
+        dataSource, observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
   }
 
   @Override
@@ -65,17 +79,25 @@ public class LibraryOverdueLoansProvider implements ExportCsvProvider {
     Map<String, Object> params = new HashMap<>();
     params.putAll(request.getParams());
     params.put("maxRows", request.getMaxRows());
-    try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+    try {
       boolean hasOverrides = columns != null && !columns.isEmpty();
       if (hasOverrides) {
-        CsvHeaderWriter.writeHeader(writer, COLUMN_ORDER, columns);
+        CsvHeaderWriter.writeHeader(out, COLUMN_ORDER, columns);
       }
       boolean includeHeader = !hasOverrides;
-      long rows = copyExporter.copyCsv(SQL, params, writer, includeHeader);
-      writer.flush();
+      long rows = copyExporter.copyCsv(TEMPLATE, params, out, includeHeader);
+      out.flush();
       return rows;
     } catch (Exception e) {
       throw new RuntimeException("CSV export failed", e);
     }
   }
+
+  @Override
+  public ExportEstimate estimate(ValidatedExportRequest request) {
+    Map<String, Object> params = new HashMap<>();
+    params.putAll(request.getParams());
+    params.put("maxRows", request.getMaxRows());
+    return planEstimator.estimate(TEMPLATE, params, request.getMaxRows());
+  }
 }
@@ -0,0 +1,128 @@
+package uk.gov.laa.springboot.export.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+
+/**
+ * Streams a full extract of a large table through {@code COPY ... TO STDOUT} to measure
+ * end-to-end export throughput. Rows and bytes per second are reported as secondary results
+ * alongside extracts per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CopyThroughputBenchmark {
+  private static final int ROWS = 1_000_000;
+  private static final String SQL =
+      "select id, title, status, published_on, price from bench_extract order by id"
+          + " limit :maxRows";
+
+  private PostgreSQLContainer postgres;
+  private HikariDataSource dataSource;
+  private PostgresCopyExporter copyExporter;
+
+  /**
+   * Rows and bytes written, reported by JMH as per-second rates.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+    public long rows;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      rows = 0;
+      bytes = 0;
+    }
+  }
+
+  /**
+   * Starts PostgreSQL and loads the extract table.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    postgres = new PostgreSQLContainer("postgres:16-alpine");
+    postgres.start();
+
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(postgres.getJdbcUrl());
+    config.setUsername(postgres.getUsername());
+    config.setPassword(postgres.getPassword());
+    config.setMaximumPoolSize(1);
+    dataSource = new HikariDataSource(config);
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table bench_extract(id bigint primary key, title text, status text,"
+              + " published_on date, price numeric(10, 2))");
+      statement.execute(
+          "insert into bench_extract select g, 'Title \"' || g || '\", volume ' || (g % 7),"
+              + " case when g % 3 = 0 then 'ON_LOAN' else 'AVAILABLE' end,"
+              + " date '2000-01-01' + (g % 9000), (g % 10000) / 100.0"
+              + " from generate_series(1, " + ROWS + ") g");
+      statement.execute("analyze");
+    }
+
+    copyExporter = new PostgresCopyExporter(dataSource);
+  }
+
+  /**
+   * Stops the pool and database.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.close();
+    postgres.stop();
+  }
+
+  @Benchmark
+  public long fullExtract(Counters counters) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("maxRows", ROWS);
+    ByteCounter out = new ByteCounter();
+    long rows = copyExporter.copyCsv(SQL, params, out, true);
+    counters.rows += rows;
+    counters.bytes += out.count;
+    return rows;
+  }
+
+  private static final class ByteCounter extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package uk.gov.laa.springboot.export.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.laa.springboot.export.csv.CsvRowWriter;
+
+/**
+ * Compares {@link CsvRowWriter} with the string-escaping approach used by
+ * {@code CsvHeaderWriter}, writing the same rows to a discarding stream.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvRowWriterBenchmark {
+  private static final int ROWS = 10_000;
+
+  @Param({"ascii", "quoted", "unicode"})
+  public String text;
+
+  private String[] names;
+  private long[] ids;
+  private LocalDate[] dates;
+
+  /**
+   * Builds the rows to write.
+   */
+  @Setup
+  public void setUp() {
+    names = new String[ROWS];
+    ids = new long[ROWS];
+    dates = new LocalDate[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      names[i] = switch (text) {
+        case "quoted" -> "Smith, \"Jo\" " + i;
+        case "unicode" -> "Zoë Ñandú " + i;
+        default -> "Book title " + i;
+      };
+      ids[i] = 1_000_000L + i;
+      dates[i] = LocalDate.of(2020, 1, 1).plusDays(i % 1000);
+    }
+  }
+
+  /**
+   * Writes rows with {@link CsvRowWriter}.
+   */
+  @Benchmark
+  public void rowWriter() throws IOException {
+    CsvRowWriter writer = new CsvRowWriter(OutputStream.nullOutputStream());
+    for (int i = 0; i < ROWS; i++) {
+      writer.writeLong(ids[i]);
+      writer.writeField(names[i]);
+      writer.writeDate(dates[i]);
+      writer.endRow();
+    }
+    writer.flush();
+  }
+
+  /**
+   * Writes rows by escaping each value to a string and encoding through a buffered writer.
+   */
+  @Benchmark
+  public void stringEscaping() throws IOException {
+    Writer writer =
+        new BufferedWriter(
+            new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8),
+            CsvRowWriter.DEFAULT_BUFFER_SIZE);
+    for (int i = 0; i < ROWS; i++) {
+      writer.write(escape(Long.toString(ids[i])));
+      writer.write(',');
+      writer.write(escape(names[i]));
+      writer.write(',');
+      writer.write(escape(dates[i].toString()));
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+  private static String escape(String value) {
+    boolean needsQuotes =
+        value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r");
+    if (!needsQuotes) {
+      return value;
+    }
+    return "\"" + value.replace("\"", "\"\"") + "\"";
+  }
+}
@@ -0,0 +1,128 @@
+package uk.gov.laa.springboot.export.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.laa.springboot.export.csv.CsvHeaderWriter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresSqlRenderer;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+import uk.gov.laa.springboot.export.service.DefaultExportRequestValidator;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Measures the per-request work done before any rows are read: validating the raw request
+ * parameters, rendering the SQL for COPY and writing the CSV header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportRequestBenchmark {
+  private static final String SQL =
+      String.join(
+          "\n",
+          "select b.id as book_id, b.title as title, b.status as status, a.name as author",
+          "from library_books b",
+          "join library_authors a on a.id = b.author_id",
+          "where (:status is null or b.status = :status)",
+          "and (:author is null or a.name = :author)",
+          "and b.published_on >= :since",
+          "and b.id > :minId",
+          "order by b.id",
+          "limit :maxRows");
+
+  private final DefaultExportRequestValidator validator = new DefaultExportRequestValidator();
+  private ExportDefinition definition;
+  private Map<String, String[]> rawParams;
+  private SqlTemplate template;
+  private Map<String, Object> params;
+  private List<String> columnOrder;
+  private List<ExportColumn> columns;
+
+  /**
+   * Builds a definition with typical params and columns.
+   */
+  @Setup
+  public void setUp() {
+    definition =
+        new ExportDefinition(
+            "library_books",
+            "Library books",
+            50_000,
+            "libraryBooksProvider",
+            List.of(
+                new ExportColumn("book_id", "Book ID", null),
+                new ExportColumn("title", "Title", null),
+                new ExportColumn("author", "Author, \"primary\"", null)),
+            List.of(
+                new ExportParamDefinition(
+                    "status", "STRING", null, List.of("AVAILABLE", "ON_LOAN"), false, null),
+                new ExportParamDefinition("author", "STRING", null, List.of(), false, null),
+                new ExportParamDefinition("since", "DATE", null, List.of(), true, null),
+                new ExportParamDefinition(
+                    "day", "ENUM", "java.time.DayOfWeek", List.of(), false, "monday"),
+                new ExportParamDefinition("minId", "min-id", "LONG", null, List.of(), false, "0")));
+    rawParams = new HashMap<>();
+    rawParams.put("status", new String[] {"ON_LOAN"});
+    rawParams.put("author", new String[] {"O'Brien"});
+    rawParams.put("since", new String[] {"2024-01-01"});
+    rawParams.put("day", new String[] {"friday"});
+    rawParams.put("min-id", new String[] {"1000"});
+    rawParams.put("maxRows", new String[] {"1000"});
+
+    template = SqlTemplate.compile(SQL);
+    params = new HashMap<>();
+    params.put("status", "ON_LOAN");
+    params.put("author", "O'Brien");
+    params.put("since", LocalDate.of(2024, 1, 1));
+    params.put("minId", 1000L);
+    params.put("maxRows", 1000);
+
+    columnOrder = List.of("book_id", "title", "status", "author");
+    columns = definition.getColumns();
+  }
+
+  @Benchmark
+  public ValidatedExportRequest validate() {
+    return validator.validate(definition, rawParams);
+  }
+
+  /**
+   * Validates with a fresh validator, paying for the validation plan on every request.
+   */
+  @Benchmark
+  public ValidatedExportRequest validateWithoutCachedPlan() {
+    return new DefaultExportRequestValidator().validate(definition, rawParams);
+  }
+
+  @Benchmark
+  public String renderSql() {
+    return PostgresSqlRenderer.render(template, params);
+  }
+
+  @Benchmark
+  public OutputStream writeHeader() throws IOException {
+    OutputStream out = OutputStream.nullOutputStream();
+    CsvHeaderWriter.writeHeader(out, columnOrder, columns);
+    return out;
+  }
+}
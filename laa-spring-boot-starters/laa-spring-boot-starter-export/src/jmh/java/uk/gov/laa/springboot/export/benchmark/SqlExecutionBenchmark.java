@@ -0,0 +1,132 @@
+package uk.gov.laa.springboot.export.benchmark;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import uk.gov.laa.springboot.export.datasource.jdbc.JdbcCursorExporter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Compares literal-inlined COPY execution with server-side prepared cursor execution for a
+ * selective, join-heavy export where planning dominates execution time.
+ * Both paths share a single pooled connection so the prepared statement cache is reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SqlExecutionBenchmark {
+  private static final String SQL =
+      String.join(
+          "\n",
+          "select b.id as book_id, b.title as title, a.name as author, count(l.id) as loans",
+          "from bench_books b",
+          "join bench_authors a on a.id = b.author_id",
+          "left join bench_loans l on l.book_id = b.id and l.loaned_on >= :since",
+          "where b.id between :fromId and :fromId + 20",
+          "and (:status is null or b.status = :status)",
+          "group by b.id, b.title, a.name",
+          "order by b.id",
+          "limit :maxRows");
+  private static final SqlTemplate TEMPLATE = SqlTemplate.compile(SQL);
+  private static final Map<String, String> PARAM_TYPES =
+      Map.of("since", "DATE", "fromId", "LONG", "status", "STRING");
+
+  private PostgreSQLContainer postgres;
+  private HikariDataSource dataSource;
+  private PostgresCopyExporter copyExporter;
+  private JdbcCursorExporter cursorExporter;
+  private long nextId;
+
+  /**
+   * Starts PostgreSQL and loads the benchmark schema.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    postgres = new PostgreSQLContainer("postgres:16-alpine");
+    postgres.start();
+
+    HikariConfig config = new HikariConfig();
+    config.setJdbcUrl(postgres.getJdbcUrl());
+    config.setUsername(postgres.getUsername());
+    config.setPassword(postgres.getPassword());
+    config.setMaximumPoolSize(1);
+    dataSource = new HikariDataSource(config);
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table bench_authors(id bigint primary key, name text)");
+      statement.execute(
+          "create table bench_books(id bigint primary key, title text, status text,"
+              + " author_id bigint references bench_authors(id))");
+      statement.execute(
+          "create table bench_loans(id bigint primary key, book_id bigint, loaned_on date)");
+      statement.execute(
+          "insert into bench_authors select g, 'Author ' || g from generate_series(1, 1000) g");
+      statement.execute(
+          "insert into bench_books select g, 'Title ' || g,"
+              + " case when g % 3 = 0 then 'ON_LOAN' else 'AVAILABLE' end, 1 + g % 1000"
+              + " from generate_series(1, 100000) g");
+      statement.execute(
+          "insert into bench_loans select g, 1 + g % 100000, date '2024-01-01' + (g % 365)"
+              + " from generate_series(1, 300000) g");
+      statement.execute("create index on bench_loans(book_id, loaned_on)");
+      statement.execute("analyze");
+    }
+
+    copyExporter = new PostgresCopyExporter(dataSource);
+    cursorExporter = new JdbcCursorExporter(dataSource);
+  }
+
+  /**
+   * Stops the pool and database.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    dataSource.close();
+    postgres.stop();
+  }
+
+  @Benchmark
+  public long inlinedLiteralCopy() {
+    return copyExporter.copyCsv(SQL, nextParams(), OutputStream.nullOutputStream(), true);
+  }
+
+  @Benchmark
+  public long preparedStatementCursor() {
+    return cursorExporter.copyCsv(
+        TEMPLATE, nextParams(), PARAM_TYPES, OutputStream.nullOutputStream(), true);
+  }
+
+  private Map<String, Object> nextParams() {
+    nextId = (nextId + 97) % 99000;
+    Map<String, Object> params = new HashMap<>();
+    params.put("since", LocalDate.of(2024, 6, 1));
+    params.put("fromId", nextId + 1);
+    params.put("status", null);
+    params.put("maxRows", 50);
+    return params;
+  }
+}
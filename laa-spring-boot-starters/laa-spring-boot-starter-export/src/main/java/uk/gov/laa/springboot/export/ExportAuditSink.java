@@ -1,5 +1,6 @@
 package uk.gov.laa.springboot.export;
 
+import java.util.List;
 import uk.gov.laa.springboot.export.model.ExportAuditEvent;
 
 /**
@@ -7,4 +8,14 @@ import uk.gov.laa.springboot.export.model.ExportAuditEvent;
  */
 public interface ExportAuditSink {
   void record(ExportAuditEvent event);
+
+  /**
+   * Records several events. Sinks that write to a database or queue can override this to write
+   * them in one batch.
+   */
+  default void recordAll(List<ExportAuditEvent> events) {
+    for (ExportAuditEvent event : events) {
+      record(event);
+    }
+  }
 }
@@ -0,0 +1,27 @@
+package uk.gov.laa.springboot.export;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Streams several exports as one ZIP archive, read from a single database snapshot.
+ */
+public interface ExportBundleService {
+  /**
+   * Validates raw request parameters for each export of a bundle. A param named
+   * {@code <exportKey>.<name>} applies to that export only; any other param applies to every
+   * bundled export that declares it.
+   *
+   * @return the validated requests keyed by export key, in bundle order
+   * @throws ExportValidationException when the bundle or a param is invalid
+   */
+  Map<String, ValidatedExportRequest> validateBundle(
+      List<String> exportKeys, Map<String, String[]> rawParams);
+
+  /**
+   * Streams validated requests to a ZIP archive with one CSV entry per export.
+   */
+  void streamZip(Map<String, ValidatedExportRequest> requests, OutputStream out);
+}
@@ -0,0 +1,103 @@
+package uk.gov.laa.springboot.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cancels the database work of a running export when its client goes away.
+ * The web layer binds a cancellation to the thread streaming a response; exporters register an
+ * action, such as cancelling the backend query, for as long as a statement is running, and the
+ * action is invoked from another thread when the request times out or fails.
+ */
+public final class ExportCancellation {
+  private static final ThreadLocal<ExportCancellation> CURRENT = new ThreadLocal<>();
+  private static final ExportCancellation NONE = new ExportCancellation();
+
+  private final List<Action> actions = new ArrayList<>();
+  private boolean cancelled;
+
+  /**
+   * Returns the cancellation bound to the current thread, or an inert one that is never
+   * cancelled.
+   */
+  public static ExportCancellation current() {
+    ExportCancellation cancellation = CURRENT.get();
+    return cancellation == null ? NONE : cancellation;
+  }
+
+  /**
+   * Binds a cancellation to the current thread.
+   */
+  public static void bind(ExportCancellation cancellation) {
+    CURRENT.set(cancellation);
+  }
+
+  /**
+   * Removes the current thread's cancellation.
+   */
+  public static void unbind() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Registers an action to run if the export is cancelled before the returned registration is
+   * closed.
+   *
+   * @throws CancellationException when the export has already been cancelled
+   */
+  public synchronized Registration register(Action action) {
+    if (this == NONE) {
+      return () -> {};
+    }
+    if (cancelled) {
+      throw new CancellationException("Export cancelled");
+    }
+    actions.add(action);
+    return () -> {
+      synchronized (this) {
+        actions.remove(action);
+      }
+    };
+  }
+
+  /**
+   * Marks the export cancelled and runs the registered actions. Registrations are closed under
+   * the same lock, so an action never runs after its statement has finished.
+   */
+  public synchronized void cancel() {
+    if (this == NONE || cancelled) {
+      return;
+    }
+    cancelled = true;
+    for (Action action : actions) {
+      try {
+        action.cancel();
+      } catch (Exception e) {
+        // Cancellation is best effort; the statement still fails on its next write.
+      }
+    }
+    actions.clear();
+  }
+
+  public synchronized boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Cancels in-flight database work.
+   */
+  @FunctionalInterface
+  public interface Action {
+    void cancel() throws Exception;
+  }
+
+  /**
+   * Ends an action's registration.
+   */
+  @FunctionalInterface
+  public interface Registration extends AutoCloseable {
+    @Override
+    void close();
+  }
+}
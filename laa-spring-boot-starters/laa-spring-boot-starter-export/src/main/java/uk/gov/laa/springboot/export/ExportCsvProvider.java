@@ -10,8 +10,9 @@ import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
  */
 public interface ExportCsvProvider {
   /**
-   * Writes CSV to the output stream and returns the number of data rows written,
-   * or -1 if the count is unknown.
+   * Writes UTF-8 CSV bytes to the output stream and returns the number of data rows written,
+   * or -1 if the count is unknown. Implementations should write bytes directly rather than
+   * wrapping the stream in a {@link java.io.Writer}, and should not close the stream.
    */
   long writeCsv(
       ValidatedExportRequest request,
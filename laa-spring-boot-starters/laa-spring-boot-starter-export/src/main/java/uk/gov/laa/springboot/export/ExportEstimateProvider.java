@@ -0,0 +1,15 @@
+package uk.gov.laa.springboot.export;
+
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Estimates the size of an export from the database's query plan, without running the export.
+ * Providers implement this alongside {@link ExportCsvProvider} to back the estimate endpoint.
+ */
+public interface ExportEstimateProvider {
+  /**
+   * Returns the planner's estimate for the request.
+   */
+  ExportEstimate estimate(ValidatedExportRequest request);
+}
@@ -0,0 +1,10 @@
+package uk.gov.laa.springboot.export;
+
+/**
+ * Thrown when an export is requested in a format its definition does not provide.
+ */
+public class ExportFormatNotAcceptableException extends RuntimeException {
+  public ExportFormatNotAcceptableException(String message) {
+    super(message);
+  }
+}
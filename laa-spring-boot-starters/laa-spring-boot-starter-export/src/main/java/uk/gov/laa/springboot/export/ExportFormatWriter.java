@@ -0,0 +1,46 @@
+package uk.gov.laa.springboot.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+/**
+ * Writes export rows from a JDBC result set in a particular output format.
+ * Implementations registered as beans can be enabled per definition with {@code formats}.
+ */
+public interface ExportFormatWriter {
+  /**
+   * Returns the format name used in definitions, for example {@code arrow}.
+   */
+  String getName();
+
+  /**
+   * Returns the response media type, for example {@code application/vnd.apache.arrow.stream}.
+   */
+  String getMediaType();
+
+  /**
+   * Returns the file extension used for download filenames and URL suffixes, without a dot.
+   */
+  String getFileExtension();
+
+  /**
+   * Returns whether output benefits from HTTP compression; formats that compress internally
+   * should return {@code false}.
+   */
+  default boolean isCompressible() {
+    return true;
+  }
+
+  /**
+   * Streams all rows of the result set to the output stream and returns the number written.
+   * Implementations must hold a bounded number of rows in memory and must not close the stream.
+   *
+   * @param columns export column metadata for header overrides and formats, possibly empty
+   */
+  long write(ResultSet resultSet, List<ExportColumn> columns, OutputStream out)
+      throws SQLException, IOException;
+}
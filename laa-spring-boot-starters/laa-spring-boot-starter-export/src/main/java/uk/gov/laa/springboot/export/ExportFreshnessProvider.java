@@ -0,0 +1,16 @@
+package uk.gov.laa.springboot.export;
+
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Identifies the current version of an export's data with a cheap query, so unchanged exports
+ * can be answered with {@code 304 Not Modified} instead of being run again. Providers of
+ * definitions with {@code freshness} implement this alongside {@link ExportCsvProvider}.
+ */
+public interface ExportFreshnessProvider {
+  /**
+   * Returns a value that changes whenever the data the request would export changes, such as
+   * the newest {@code updated_at} and the row count.
+   */
+  String fingerprint(ValidatedExportRequest request);
+}
@@ -0,0 +1,10 @@
+package uk.gov.laa.springboot.export;
+
+/**
+ * Thrown when an export job id is unknown or its result has expired.
+ */
+public class ExportJobNotFoundException extends RuntimeException {
+  public ExportJobNotFoundException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,10 @@
+package uk.gov.laa.springboot.export;
+
+/**
+ * Thrown when a job result is requested before the job has completed.
+ */
+public class ExportJobNotReadyException extends RuntimeException {
+  public ExportJobNotReadyException(String message) {
+    super(message);
+  }
+}
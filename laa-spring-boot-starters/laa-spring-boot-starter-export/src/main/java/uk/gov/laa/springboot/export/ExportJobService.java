@@ -0,0 +1,25 @@
+package uk.gov.laa.springboot.export;
+
+import java.nio.file.Path;
+import java.util.Map;
+import uk.gov.laa.springboot.export.model.ExportJob;
+
+/**
+ * Runs exports asynchronously, spooling results to local files for later download.
+ */
+public interface ExportJobService {
+  /**
+   * Validates raw request parameters and queues an export job.
+   */
+  ExportJob submit(String exportKey, Map<String, String[]> rawParams);
+
+  /**
+   * Returns the current state of a job.
+   */
+  ExportJob getRequired(String jobId);
+
+  /**
+   * Returns the spooled result file for a completed job.
+   */
+  Path getResultFile(String jobId);
+}
@@ -11,5 +11,12 @@ public interface ExportRegistry {
 
   ExportCsvProvider getProvider(String key);
 
+  /**
+   * Returns the output format with the given name.
+   *
+   * @throws ExportFormatNotAcceptableException when no such format is registered
+   */
+  ExportFormatWriter getFormat(String name);
+
   Set<String> keys();
 }
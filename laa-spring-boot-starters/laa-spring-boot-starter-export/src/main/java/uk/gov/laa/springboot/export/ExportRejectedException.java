@@ -0,0 +1,26 @@
+package uk.gov.laa.springboot.export;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an export cannot be accepted because capacity limits are reached.
+ */
+public class ExportRejectedException extends RuntimeException {
+  private final Duration retryAfter;
+
+  public ExportRejectedException(String message) {
+    this(message, null);
+  }
+
+  public ExportRejectedException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Returns how long clients should wait before retrying, or {@code null} if unknown.
+   */
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,63 @@
+package uk.gov.laa.springboot.export;
+
+import java.io.OutputStream;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Caches completed export results so repeated requests with identical parameters can be served
+ * without running the query again.
+ */
+public interface ExportResultCache {
+  /**
+   * Writes a cached result for the request in the given encoding.
+   *
+   * @return the number of rows in the cached result, or {@code -1} when there is no live entry
+   */
+  long serve(
+      ExportDefinition definition,
+      ValidatedExportRequest request,
+      OutputStream out,
+      ExportContentEncoding encoding);
+
+  /**
+   * Starts capturing a result for the request while it is streamed to the client.
+   */
+  PendingResult begin(
+      ExportDefinition definition, ValidatedExportRequest request, ExportContentEncoding encoding);
+
+  /**
+   * Removes all cached results for an export.
+   */
+  void invalidate(String exportKey);
+
+  /**
+   * Removes all cached results.
+   */
+  void invalidateAll();
+
+  /**
+   * A result being captured while it is written to the client.
+   */
+  interface PendingResult {
+    /**
+     * Wraps the client stream so uncompressed CSV written to the returned stream is sent to the
+     * client in the requested encoding and captured for the cache.
+     */
+    OutputStream wrap(OutputStream out);
+
+    /**
+     * Finishes the client and cache streams and stores the captured result.
+     *
+     * <p>A result with an unknown row count ({@code -1}) finishes the client stream but is not
+     * stored, since {@link ExportResultCache#serve} reports hits through the row count.
+     */
+    void commit(long rows);
+
+    /**
+     * Drops the captured result.
+     */
+    void discard();
+  }
+}
@@ -0,0 +1,23 @@
+package uk.gov.laa.springboot.export;
+
+import java.io.OutputStream;
+import java.util.List;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Streams export rows in formats other than CSV.
+ * Providers implement this alongside {@link ExportCsvProvider} when their definition enables
+ * additional {@code formats}.
+ */
+public interface ExportRowProvider {
+  /**
+   * Writes the export in the given format and returns the number of rows written.
+   * Implementations should not close the stream.
+   */
+  long writeRows(
+      ValidatedExportRequest request,
+      List<ExportColumn> columns,
+      ExportFormatWriter format,
+      OutputStream out);
+}
@@ -2,6 +2,8 @@ package uk.gov.laa.springboot.export;
 
 import java.io.OutputStream;
 import java.util.Map;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
@@ -13,11 +15,75 @@ public interface ExportService {
    */
   ValidatedExportRequest validateRequest(String exportKey, Map<String, String[]> rawParams);
 
+  /**
+   * Resolves the response content encoding for an export from an {@code Accept-Encoding} header.
+   */
+  ExportContentEncoding negotiateEncoding(String exportKey, String acceptEncoding);
+
+  /**
+   * Resolves the output format for an export from a URL file extension or, when no extension
+   * is given, an {@code Accept} header. CSV is used when neither selects a format.
+   *
+   * @throws ExportFormatNotAcceptableException when the export is not offered in that format
+   */
+  ExportFormatWriter negotiateFormat(String exportKey, String extension, String accept);
+
+  /**
+   * Validates raw request parameters and estimates the export's size from the database's query
+   * plan. Unlike {@link #validateRequest}, this never rejects the request for its estimated size.
+   *
+   * @throws ExportConfigurationException when the export's provider cannot estimate
+   */
+  ExportEstimate estimate(String exportKey, Map<String, String[]> rawParams);
+
+  /**
+   * Fixes the watermark an incremental export runs up to, before it is streamed. Requests for
+   * exports without a watermark are returned unchanged.
+   *
+   * @return the request with {@link ValidatedExportRequest#getWatermarkUntil()} set, which is
+   *     the client's {@code since} value when no newer rows exist
+   */
+  ValidatedExportRequest resolveWatermark(String exportKey, ValidatedExportRequest request);
+
+  /**
+   * Returns the entity tag of a validated request's CSV export, from the export's freshness
+   * fingerprint, or {@code null} when the export has none. A client holding a response with
+   * this tag already has the current data.
+   *
+   * @throws ExportConfigurationException when the export's provider cannot fingerprint
+   */
+  String etag(String exportKey, ValidatedExportRequest request);
+
+  /**
+   * Returns the entity tag of a validated request's export in the given format, or
+   * {@code null} when the export has no freshness fingerprint.
+   */
+  String etag(String exportKey, ValidatedExportRequest request, ExportFormatWriter format);
+
   /**
    * Streams a validated request to CSV.
    */
   void streamCsv(String exportKey, ValidatedExportRequest request, OutputStream out);
 
+  /**
+   * Streams a validated request to CSV, compressed with the given content encoding.
+   */
+  void streamCsv(
+      String exportKey,
+      ValidatedExportRequest request,
+      OutputStream out,
+      ExportContentEncoding encoding);
+
+  /**
+   * Streams a validated request in the given format, compressed with the given content encoding.
+   */
+  void stream(
+      String exportKey,
+      ValidatedExportRequest request,
+      OutputStream out,
+      ExportFormatWriter format,
+      ExportContentEncoding encoding);
+
   /**
    * Validates and streams raw request parameters.
    */
@@ -0,0 +1,61 @@
+package uk.gov.laa.springboot.export;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Shares one PostgreSQL snapshot between the exports of a bundle, so they read the same
+ * committed data although each runs on its own connection.
+ * The bundle binds a snapshot exported with {@code pg_export_snapshot()} to the threads
+ * streaming its exports; exporters {@link #join} it when they begin a transaction.
+ */
+public final class ExportSnapshot {
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+  private static final Pattern SNAPSHOT_ID = Pattern.compile("[0-9A-Fa-f-]+");
+
+  private ExportSnapshot() {}
+
+  /**
+   * Returns the snapshot bound to the current thread, or {@code null} when exports read their
+   * own snapshot.
+   */
+  public static String current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Binds a snapshot to the current thread.
+   *
+   * @param snapshotId identifier returned by {@code pg_export_snapshot()}
+   */
+  public static void bind(String snapshotId) {
+    if (snapshotId == null || !SNAPSHOT_ID.matcher(snapshotId).matches()) {
+      throw new IllegalArgumentException("Invalid snapshot id: " + snapshotId);
+    }
+    CURRENT.set(snapshotId);
+  }
+
+  /**
+   * Removes the current thread's snapshot.
+   */
+  public static void unbind() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Starts the connection's transaction on the current thread's snapshot, if one is bound.
+   * Must be called with autocommit off, before the transaction's first query.
+   */
+  public static void join(Connection conn) throws SQLException {
+    String snapshotId = CURRENT.get();
+    if (snapshotId == null) {
+      return;
+    }
+    conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+    try (Statement statement = conn.createStatement()) {
+      statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package uk.gov.laa.springboot.export;
+
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Fixes the upper bound of an incremental export before it is streamed, so it can be returned
+ * to the client as the watermark for its next request. Providers of definitions with a
+ * {@code watermark} implement this alongside {@link ExportCsvProvider}.
+ */
+public interface ExportWatermarkProvider {
+  /**
+   * Returns the watermark the request's export runs up to, or {@code null} when no rows are
+   * newer than the request's {@link ValidatedExportRequest#getWatermarkSince() since} value.
+   */
+  String nextWatermark(ValidatedExportRequest request);
+}
@@ -0,0 +1,211 @@
+package uk.gov.laa.springboot.export.audit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+
+/**
+ * Audit sink that queues events and records them on a background thread, so a slow delegate does
+ * not add latency to exports. Events are handed to the delegate in batches of up to
+ * {@code batchSize}, as soon as a batch is full or after {@code flushInterval} otherwise.
+ *
+ * <p>The queue is bounded; when it is full the {@link Overflow} policy decides what happens to
+ * new events. Closing the sink records everything still queued, waiting up to the shutdown
+ * timeout. Events still queued when the timeout passes, and events recorded after the sink is
+ * closed, are counted as dropped.
+ */
+public class AsyncExportAuditSink implements ExportAuditSink, AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(AsyncExportAuditSink.class);
+
+  /**
+   * What to do with an event when the queue is full.
+   */
+  public enum Overflow {
+    /** Discard the new event. */
+    DROP_NEWEST,
+    /** Discard the oldest queued event to make room for the new one. */
+    DROP_OLDEST,
+    /** Record the new event on the calling thread. */
+    CALLER_RUNS
+  }
+
+  private final ExportAuditSink delegate;
+  private final int capacity;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final Overflow overflow;
+  private final Duration shutdownTimeout;
+  private final ConcurrentLinkedQueue<ExportAuditEvent> queue = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicLong dropped = new AtomicLong();
+  private final Thread worker;
+  private volatile boolean closed;
+  private volatile boolean stopped;
+
+  /**
+   * Creates the sink and starts its worker thread.
+   *
+   * @param delegate sink the batches are recorded to
+   * @param capacity maximum number of queued events
+   * @param batchSize maximum number of events passed to the delegate at once
+   * @param flushInterval longest time an event waits for its batch to fill
+   * @param overflow policy for events arriving while the queue is full
+   * @param shutdownTimeout how long closing waits for queued events to be recorded
+   */
+  public AsyncExportAuditSink(
+      ExportAuditSink delegate,
+      int capacity,
+      int batchSize,
+      Duration flushInterval,
+      Overflow overflow,
+      Duration shutdownTimeout) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.delegate = delegate;
+    this.capacity = capacity;
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.overflow = overflow;
+    this.shutdownTimeout = shutdownTimeout;
+    this.worker = new Thread(this::run, "export-audit");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @Override
+  public void record(ExportAuditEvent event) {
+    if (closed) {
+      dropped.incrementAndGet();
+      return;
+    }
+    if (queued.incrementAndGet() > capacity) {
+      queued.decrementAndGet();
+      switch (overflow) {
+        case DROP_NEWEST -> {
+          dropped.incrementAndGet();
+          return;
+        }
+        case DROP_OLDEST -> {
+          if (queue.poll() != null) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+          }
+          queued.incrementAndGet();
+        }
+        case CALLER_RUNS -> {
+          deliver(List.of(event));
+          return;
+        }
+        default -> throw new IllegalStateException("Unknown overflow policy: " + overflow);
+      }
+    }
+    queue.offer(event);
+    if (stopped) {
+      // The sink closed after the check above; nothing will record the event.
+      discardQueued();
+      return;
+    }
+    if (queued.get() >= batchSize) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  /**
+   * Returns the number of events waiting to be recorded.
+   */
+  public int getQueuedCount() {
+    return queued.get();
+  }
+
+  /**
+   * Returns the number of events discarded because the queue was full or the delegate failed.
+   */
+  public long getDroppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops the worker once the queue is drained and closes the delegate if it is closeable.
+   *
+   * <p>If the worker does not finish within the shutdown timeout it is interrupted, the events
+   * still queued are dropped and the delegate is left open, since the worker may still be
+   * recording to it.
+   */
+  @Override
+  public void close() throws Exception {
+    closed = true;
+    LockSupport.unpark(worker);
+    worker.join(shutdownTimeout.toMillis());
+    stopped = true;
+    if (worker.isAlive()) {
+      int discarded = discardQueued();
+      worker.interrupt();
+      log.warn("Export audit sink did not flush in {}, dropped {} queued events",
+          shutdownTimeout, discarded);
+      return;
+    }
+    // Events queued while the worker was finishing.
+    drain();
+    if (delegate instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  private void run() {
+    while (!closed) {
+      if (queued.get() < batchSize) {
+        LockSupport.parkNanos(this, flushIntervalNanos);
+      }
+      drain();
+    }
+    drain();
+  }
+
+  private void drain() {
+    List<ExportAuditEvent> batch = new ArrayList<>(batchSize);
+    ExportAuditEvent event;
+    while ((event = queue.poll()) != null) {
+      queued.decrementAndGet();
+      batch.add(event);
+      if (batch.size() == batchSize) {
+        deliver(batch);
+        batch = new ArrayList<>(batchSize);
+      }
+    }
+    if (!batch.isEmpty()) {
+      deliver(batch);
+    }
+  }
+
+  private int discardQueued() {
+    int discarded = 0;
+    while (queue.poll() != null) {
+      queued.decrementAndGet();
+      discarded++;
+    }
+    dropped.addAndGet(discarded);
+    return discarded;
+  }
+
+  private void deliver(List<ExportAuditEvent> batch) {
+    try {
+      delegate.recordAll(batch);
+    } catch (RuntimeException e) {
+      dropped.addAndGet(batch.size());
+      log.warn("Export audit sink {} failed to record {} events",
+          delegate.getClass().getSimpleName(), batch.size(), e);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package uk.gov.laa.springboot.export.audit;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+
+/**
+ * Audit sink that forwards events to several sinks.
+ * A failing sink is logged and does not stop the remaining sinks from receiving the event.
+ */
+public class CompositeExportAuditSink implements ExportAuditSink {
+  private static final Logger log = LoggerFactory.getLogger(CompositeExportAuditSink.class);
+
+  private final List<ExportAuditSink> sinks;
+
+  public CompositeExportAuditSink(List<ExportAuditSink> sinks) {
+    this.sinks = List.copyOf(sinks);
+  }
+
+  @Override
+  public void record(ExportAuditEvent event) {
+    for (ExportAuditSink sink : sinks) {
+      try {
+        sink.record(event);
+      } catch (RuntimeException e) {
+        log.warn("Export audit sink {} failed", sink.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  @Override
+  public void recordAll(List<ExportAuditEvent> events) {
+    for (ExportAuditSink sink : sinks) {
+      try {
+        sink.recordAll(events);
+      } catch (RuntimeException e) {
+        log.warn("Export audit sink {} failed", sink.getClass().getSimpleName(), e);
+      }
+    }
+  }
+
+  public List<ExportAuditSink> getSinks() {
+    return sinks;
+  }
+}
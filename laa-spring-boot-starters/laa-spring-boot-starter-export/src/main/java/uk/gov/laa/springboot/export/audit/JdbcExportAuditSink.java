@@ -0,0 +1,85 @@
+package uk.gov.laa.springboot.export.audit;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+
+/**
+ * Audit sink that inserts events into a database table, one JDBC batch per call to
+ * {@link #recordAll(List)}. Pair it with {@link AsyncExportAuditSink} so inserts happen off the
+ * request thread.
+ */
+public class JdbcExportAuditSink implements ExportAuditSink {
+  public static final String DEFAULT_TABLE_NAME = "export_audit";
+
+  private static final Pattern TABLE_NAME =
+      Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+  private final DataSource dataSource;
+  private final String insertSql;
+
+  /**
+   * Creates a sink writing to the given table.
+   *
+   * @param tableName table name, optionally schema-qualified
+   */
+  public JdbcExportAuditSink(DataSource dataSource, String tableName) {
+    if (tableName == null || !TABLE_NAME.matcher(tableName).matches()) {
+      throw new IllegalArgumentException("tableName must be a table name: " + tableName);
+    }
+    this.dataSource = dataSource;
+    this.insertSql =
+        "insert into " + tableName
+            + " (export_key, outcome, started_at, duration_ms, max_rows, rows_written,"
+            + " bytes_written, first_byte_ms, write_blocked_ms, error)"
+            + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  }
+
+  @Override
+  public void record(ExportAuditEvent event) {
+    recordAll(List.of(event));
+  }
+
+  @Override
+  public void recordAll(List<ExportAuditEvent> events) {
+    if (events.isEmpty()) {
+      return;
+    }
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+        for (ExportAuditEvent event : events) {
+          statement.setString(1, event.getExportKey());
+          statement.setString(2, event.getOutcome().name());
+          statement.setTimestamp(3, Timestamp.from(event.getStartedAt()));
+          statement.setLong(4, event.getDurationMs());
+          statement.setInt(5, event.getMaxRows());
+          statement.setLong(6, event.getRows());
+          statement.setLong(7, event.getBytes());
+          if (event.getTimeToFirstByteMs() < 0) {
+            statement.setNull(8, Types.BIGINT);
+          } else {
+            statement.setLong(8, event.getTimeToFirstByteMs());
+          }
+          statement.setLong(9, event.getWriteBlockedMs());
+          statement.setString(10, event.getError());
+          statement.addBatch();
+        }
+        statement.executeBatch();
+        connection.commit();
+      } catch (SQLException e) {
+        connection.rollback();
+        throw e;
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException("Export audit insert failed", e);
+    }
+  }
+}
@@ -15,11 +15,29 @@ public class LogExportAuditSink implements ExportAuditSink {
   public void record(ExportAuditEvent event) {
     if (event.isSuccess()) {
       log.info(
-          "export_success key={} rows={} maxRows={} durationMs={} startedAt={}",
+          "export_success key={} rows={} bytes={} maxRows={} durationMs={} firstByteMs={}"
+              + " databaseMs={} writeBlockedMs={} bytesPerSecond={} startedAt={}",
           event.getExportKey(),
           event.getRows(),
+          event.getBytes(),
           event.getMaxRows(),
           event.getDurationMs(),
+          event.getTimeToFirstByteMs(),
+          event.getDatabaseMs(),
+          event.getWriteBlockedMs(),
+          event.getBytesPerSecond(),
+          event.getStartedAt());
+    } else if (event.getOutcome() == ExportAuditEvent.Outcome.CANCELLED) {
+      log.info(
+          "export_cancelled key={} rows={} bytes={} maxRows={} durationMs={} databaseMs={}"
+              + " writeBlockedMs={} startedAt={}",
+          event.getExportKey(),
+          event.getRows(),
+          event.getBytes(),
+          event.getMaxRows(),
+          event.getDurationMs(),
+          event.getDatabaseMs(),
+          event.getWriteBlockedMs(),
           event.getStartedAt());
     } else {
       log.warn(
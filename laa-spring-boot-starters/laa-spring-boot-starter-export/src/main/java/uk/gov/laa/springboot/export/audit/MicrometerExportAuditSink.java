@@ -0,0 +1,81 @@
+package uk.gov.laa.springboot.export.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+
+/**
+ * Audit sink that records export events as Micrometer meters tagged by export key.
+ */
+public class MicrometerExportAuditSink implements ExportAuditSink {
+  private final MeterRegistry registry;
+
+  public MicrometerExportAuditSink(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  @Override
+  public void record(ExportAuditEvent event) {
+    String outcome = event.getOutcome().name().toLowerCase(Locale.ROOT);
+    Tags tags = Tags.of("export", event.getExportKey(), "outcome", outcome);
+
+    Timer.builder("laa.exports.duration")
+        .description("Time taken to run an export")
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(event.getDurationMs(), TimeUnit.MILLISECONDS);
+    DistributionSummary.builder("laa.exports.rows")
+        .description("Rows written per export")
+        .tags(tags)
+        .register(registry)
+        .record(event.getRows());
+    DistributionSummary.builder("laa.exports.bytes")
+        .description("Response bytes written per export")
+        .baseUnit(BaseUnits.BYTES)
+        .tags(tags)
+        .register(registry)
+        .record(event.getBytes());
+    Timer.builder("laa.exports.database.time")
+        .description("Time an export spent running its query and producing output")
+        .tags(tags)
+        .register(registry)
+        .record(event.getDatabaseMs(), TimeUnit.MILLISECONDS);
+    Timer.builder("laa.exports.write.blocked")
+        .description("Time an export spent blocked writing to its client")
+        .tags(tags)
+        .register(registry)
+        .record(event.getWriteBlockedMs(), TimeUnit.MILLISECONDS);
+    if (event.getBytes() > 0) {
+      DistributionSummary.builder("laa.exports.throughput")
+          .description("Average response bytes written per second")
+          .baseUnit("bytes.per.second")
+          .tags(tags)
+          .register(registry)
+          .record(event.getBytesPerSecond());
+    }
+    if (event.getTimeToFirstByteMs() >= 0) {
+      Timer.builder("laa.exports.first.byte")
+          .description("Time from the start of an export to its first byte of output")
+          .tag("export", event.getExportKey())
+          .publishPercentileHistogram()
+          .register(registry)
+          .record(event.getTimeToFirstByteMs(), TimeUnit.MILLISECONDS);
+    }
+    if (event.getOutcome() == ExportAuditEvent.Outcome.FAILURE) {
+      Counter.builder("laa.exports.failures")
+          .description("Failed exports by root cause exception type")
+          .tag("export", event.getExportKey())
+          .tag("exception", event.getError() == null ? "none" : event.getError())
+          .register(registry)
+          .increment();
+    }
+  }
+}
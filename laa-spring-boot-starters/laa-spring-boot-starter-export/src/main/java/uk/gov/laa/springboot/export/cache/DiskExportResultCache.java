@@ -0,0 +1,361 @@
+package uk.gov.laa.springboot.export.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.laa.springboot.export.ExportConfigurationException;
+import uk.gov.laa.springboot.export.ExportResultCache;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Export result cache that stores gzip-compressed CSV files on local disk.
+ * Entries expire after the definition's TTL and the least recently used entries are evicted
+ * once the total size exceeds the configured maximum. The index is held in memory, so files
+ * left over from a previous run are removed on startup.
+ */
+public class DiskExportResultCache implements ExportResultCache {
+  private static final Logger log = LoggerFactory.getLogger(DiskExportResultCache.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String SUFFIX = ".csv.gz";
+  private static final String ENTRY_PATTERN = "[0-9a-f]{64}\\.csv\\.gz|export-cache-.*\\.tmp";
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private long totalBytes;
+  private long generation;
+
+  /**
+   * Creates the cache, removing any files left in the cache directory by a previous run.
+   */
+  public DiskExportResultCache(LaaExportsProperties.Cache settings) {
+    this.directory = resolveDirectory(settings.getDirectory());
+    this.maxSizeBytes = settings.getMaxSize().toBytes();
+    purgeDirectory();
+  }
+
+  @Override
+  public long serve(
+      ExportDefinition definition,
+      ValidatedExportRequest request,
+      OutputStream out,
+      ExportContentEncoding encoding) {
+    String id = cacheId(definition.getKey(), request);
+    Entry entry;
+    InputStream in;
+    synchronized (this) {
+      entry = entries.get(id);
+      if (entry != null && entry.expiresAt.isBefore(Instant.now())) {
+        remove(id);
+        entry = null;
+      }
+      if (entry == null) {
+        misses.incrementAndGet();
+        return -1;
+      }
+      try {
+        // Opened under the lock so a concurrent eviction cannot delete the file first.
+        in = Files.newInputStream(entry.file);
+      } catch (IOException e) {
+        remove(id);
+        misses.incrementAndGet();
+        return -1;
+      }
+      hits.incrementAndGet();
+    }
+    boolean gzipped = encoding == ExportContentEncoding.GZIP;
+    try (InputStream file = in;
+        InputStream cached = gzipped ? file : new GZIPInputStream(file, BUFFER_SIZE)) {
+      cached.transferTo(out);
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to serve cached export " + definition.getKey(), e);
+    }
+    return entry.rows;
+  }
+
+  @Override
+  public PendingResult begin(
+      ExportDefinition definition, ValidatedExportRequest request, ExportContentEncoding encoding) {
+    long startGeneration;
+    synchronized (this) {
+      startGeneration = generation;
+    }
+    try {
+      Path file = Files.createTempFile(directory, "export-cache-", ".tmp");
+      return new DiskPendingResult(
+          definition, cacheId(definition.getKey(), request), startGeneration, file, encoding);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create export cache file", e);
+    }
+  }
+
+  @Override
+  public synchronized void invalidate(String exportKey) {
+    generation++;
+    entries.entrySet().removeIf(
+        e -> {
+          if (!e.getValue().exportKey.equals(exportKey)) {
+            return false;
+          }
+          totalBytes -= e.getValue().sizeBytes;
+          deleteQuietly(e.getValue().file);
+          return true;
+        });
+  }
+
+  @Override
+  public synchronized void invalidateAll() {
+    generation++;
+    entries.values().forEach(entry -> deleteQuietly(entry.file));
+    entries.clear();
+    totalBytes = 0;
+  }
+
+  public long getHits() {
+    return hits.get();
+  }
+
+  public long getMisses() {
+    return misses.get();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  public synchronized long getSizeBytes() {
+    return totalBytes;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * Derives the cache entry id from the export key, typed params and row limit.
+   * Params are sorted by name and values are length-prefixed, so equal requests always produce
+   * the same id regardless of parameter order.
+   */
+  static String cacheId(String exportKey, ValidatedExportRequest request) {
+    StringBuilder canonical = new StringBuilder(exportKey);
+    canonical.append('\n').append(request.getMaxRows());
+    new TreeMap<>(request.getParams())
+        .forEach(
+            (name, value) -> {
+              String text = String.valueOf(value);
+              canonical
+                  .append('\n')
+                  .append(name)
+                  .append('=')
+                  .append(value.getClass().getName())
+                  .append(':')
+                  .append(text.length())
+                  .append(':')
+                  .append(text);
+            });
+    try {
+      MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+      byte[] digest = sha256.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private synchronized void store(DiskPendingResult pending, long rows) throws IOException {
+    if (pending.generation != generation) {
+      deleteQuietly(pending.file);
+      return;
+    }
+    Path target = directory.resolve(pending.id + SUFFIX);
+    Files.move(pending.file, target, StandardCopyOption.REPLACE_EXISTING);
+    long size = Files.size(target);
+    Entry previous =
+        entries.put(
+            pending.id,
+            new Entry(pending.exportKey, target, rows, size, Instant.now().plus(pending.ttl)));
+    if (previous != null) {
+      totalBytes -= previous.sizeBytes;
+    }
+    totalBytes += size;
+    evict();
+  }
+
+  private void evict() {
+    Instant now = Instant.now();
+    Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next().getValue();
+      if (totalBytes <= maxSizeBytes && !entry.expiresAt.isBefore(now)) {
+        continue;
+      }
+      iterator.remove();
+      totalBytes -= entry.sizeBytes;
+      deleteQuietly(entry.file);
+      evictions.incrementAndGet();
+    }
+  }
+
+  private void remove(String id) {
+    Entry entry = entries.remove(id);
+    if (entry != null) {
+      totalBytes -= entry.sizeBytes;
+      deleteQuietly(entry.file);
+    }
+  }
+
+  private void purgeDirectory() {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        if (file.getFileName().toString().matches(ENTRY_PATTERN)) {
+          deleteQuietly(file);
+        }
+      }
+    } catch (IOException e) {
+      log.warn("export_cache_purge_failed directory={}", directory);
+    }
+  }
+
+  private static Path resolveDirectory(String configured) {
+    Path directory =
+        configured == null || configured.isBlank()
+            ? Path.of(System.getProperty("java.io.tmpdir"), "laa-export-cache")
+            : Path.of(configured);
+    try {
+      return Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new ExportConfigurationException(
+          "Export cache directory is not writable: " + directory, e);
+    }
+  }
+
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("export_cache_cleanup_failed file={}", file);
+    }
+  }
+
+  private static final class Entry {
+    private final String exportKey;
+    private final Path file;
+    private final long rows;
+    private final long sizeBytes;
+    private final Instant expiresAt;
+
+    private Entry(String exportKey, Path file, long rows, long sizeBytes, Instant expiresAt) {
+      this.exportKey = exportKey;
+      this.file = file;
+      this.rows = rows;
+      this.sizeBytes = sizeBytes;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final class DiskPendingResult implements PendingResult {
+    private final String exportKey;
+    private final String id;
+    private final long generation;
+    private final Path file;
+    private final ExportContentEncoding encoding;
+    private final int compressionLevel;
+    private final Duration ttl;
+    private OutputStream fileOut;
+    private OutputStream finishStream;
+
+    private DiskPendingResult(
+        ExportDefinition definition,
+        String id,
+        long generation,
+        Path file,
+        ExportContentEncoding encoding) {
+      this.exportKey = definition.getKey();
+      this.id = id;
+      this.generation = generation;
+      this.file = file;
+      this.encoding = encoding;
+      this.compressionLevel = definition.getCompressionLevel();
+      this.ttl = definition.getCacheTtl();
+    }
+
+    @Override
+    public OutputStream wrap(OutputStream out) {
+      try {
+        fileOut = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Failed to open export cache file", e);
+      }
+      if (encoding == ExportContentEncoding.GZIP) {
+        // The client already receives gzip, so the compressed bytes are stored as they are sent.
+        finishStream = encoding.wrap(new TeeOutputStream(out, fileOut), compressionLevel);
+        return finishStream;
+      }
+      finishStream = ExportContentEncoding.GZIP.wrap(fileOut, compressionLevel);
+      return new TeeOutputStream(out, finishStream);
+    }
+
+    @Override
+    public void commit(long rows) {
+      ExportContentEncoding.GZIP.finish(finishStream);
+      if (rows < 0) {
+        // A hit is reported through its row count, so an unknown count cannot be served.
+        closeFile();
+        deleteQuietly(file);
+        return;
+      }
+      try {
+        store(this, rows);
+      } catch (IOException e) {
+        deleteQuietly(file);
+        log.warn("export_cache_store_failed key={} error={}", exportKey, e.toString());
+      }
+    }
+
+    @Override
+    public void discard() {
+      if (finishStream != null) {
+        ExportContentEncoding.GZIP.abandon(finishStream);
+      }
+      closeFile();
+      deleteQuietly(file);
+    }
+
+    private void closeFile() {
+      if (fileOut != null) {
+        try {
+          fileOut.close();
+        } catch (IOException e) {
+          log.debug("export_cache_close_failed file={}", file);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package uk.gov.laa.springboot.export.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every byte to two streams.
+ */
+final class TeeOutputStream extends OutputStream {
+  private final OutputStream primary;
+  private final OutputStream secondary;
+
+  TeeOutputStream(OutputStream primary, OutputStream secondary) {
+    this.primary = primary;
+    this.secondary = secondary;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    primary.write(b);
+    secondary.write(b);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    primary.write(b, off, len);
+    secondary.write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    primary.flush();
+    secondary.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      primary.close();
+    } finally {
+      secondary.close();
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package uk.gov.laa.springboot.export.compression;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content encodings supported for streamed export responses.
+ */
+public enum ExportContentEncoding {
+  IDENTITY("identity"),
+  GZIP("gzip");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String token;
+
+  ExportContentEncoding(String token) {
+    this.token = token;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * Selects the encoding to use for an {@code Accept-Encoding} request header value.
+   * Returns {@link #IDENTITY} when the client does not accept gzip.
+   */
+  public static ExportContentEncoding negotiate(String acceptEncoding) {
+    if (acceptEncoding == null || acceptEncoding.isBlank()) {
+      return IDENTITY;
+    }
+    double gzipQuality = -1;
+    double wildcardQuality = -1;
+    for (String part : acceptEncoding.split(",")) {
+      String[] tokens = part.trim().split(";");
+      String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+      double quality = parseQuality(tokens);
+      if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+        gzipQuality = Math.max(gzipQuality, quality);
+      } else if ("*".equals(coding)) {
+        wildcardQuality = quality;
+      }
+    }
+    double effective = gzipQuality >= 0 ? gzipQuality : wildcardQuality;
+    return effective > 0 ? GZIP : IDENTITY;
+  }
+
+  /**
+   * Wraps the output stream in a streaming compressor for this encoding.
+   * The returned stream must be passed to {@link #finish(OutputStream)} once writing completes.
+   */
+  public OutputStream wrap(OutputStream out, int level) {
+    if (this == IDENTITY) {
+      return out;
+    }
+    try {
+      return new GzipStream(new LevelGzipOutputStream(out, level));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to start " + token + " stream", e);
+    }
+  }
+
+  /**
+   * Writes any trailing compressed data for a stream returned by {@link #wrap(OutputStream, int)}.
+   * Call {@link #abandon(OutputStream)} instead when writing fails.
+   */
+  public void finish(OutputStream wrapped) {
+    if (this == IDENTITY) {
+      return;
+    }
+    try {
+      wrapped.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to finish " + token + " stream", e);
+    }
+  }
+
+  /**
+   * Releases the compressor of a stream returned by {@link #wrap(OutputStream, int)} whose output
+   * will not be completed, without writing anything more to the underlying stream. The stream
+   * cannot be used afterwards.
+   */
+  public void abandon(OutputStream wrapped) {
+    if (wrapped instanceof GzipStream gzip) {
+      gzip.release();
+    }
+  }
+
+  private static double parseQuality(String[] tokens) {
+    for (int i = 1; i < tokens.length; i++) {
+      String param = tokens[i].trim();
+      if (param.startsWith("q=")) {
+        try {
+          return Double.parseDouble(param.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Buffers writes to a gzip stream, keeping hold of it so its native zlib memory can be freed
+   * when the output is abandoned.
+   */
+  private static final class GzipStream extends BufferedOutputStream {
+    private final LevelGzipOutputStream gzip;
+
+    GzipStream(LevelGzipOutputStream gzip) {
+      super(gzip, BUFFER_SIZE);
+      this.gzip = gzip;
+    }
+
+    void release() {
+      gzip.release();
+    }
+  }
+
+  private static final class LevelGzipOutputStream extends GZIPOutputStream {
+    LevelGzipOutputStream(OutputStream out, int level) throws IOException {
+      super(out, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+
+    void release() {
+      def.end();
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package uk.gov.laa.springboot.export.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.audit.AsyncExportAuditSink;
+
+/**
+ * Wraps the application's {@link ExportAuditSink} in an {@link AsyncExportAuditSink}, so custom
+ * sinks are recorded off the request thread as well as the built-in ones. The wrapper replaces
+ * the bean and is closed with the context, flushing queued events.
+ */
+class AsyncExportAuditSinkPostProcessor implements BeanPostProcessor {
+  private final ObjectProvider<LaaExportsProperties> properties;
+
+  AsyncExportAuditSinkPostProcessor(ObjectProvider<LaaExportsProperties> properties) {
+    this.properties = properties;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (!(bean instanceof ExportAuditSink sink) || bean instanceof AsyncExportAuditSink) {
+      return bean;
+    }
+    LaaExportsProperties.AuditAsync async = properties.getObject().getAudit().getAsync();
+    return new AsyncExportAuditSink(
+        sink,
+        async.getQueueCapacity(),
+        async.getBatchSize(),
+        async.getFlushInterval(),
+        async.getOverflow(),
+        async.getShutdownTimeout());
+  }
+}
@@ -1,19 +1,57 @@
 package uk.gov.laa.springboot.export.config;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.ExportBundleService;
+import uk.gov.laa.springboot.export.ExportJobService;
 import uk.gov.laa.springboot.export.ExportRegistry;
 import uk.gov.laa.springboot.export.ExportRequestValidator;
+import uk.gov.laa.springboot.export.ExportResultCache;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.audit.AsyncExportAuditSink;
+import uk.gov.laa.springboot.export.audit.CompositeExportAuditSink;
+import uk.gov.laa.springboot.export.audit.JdbcExportAuditSink;
 import uk.gov.laa.springboot.export.audit.LogExportAuditSink;
+import uk.gov.laa.springboot.export.audit.MicrometerExportAuditSink;
+import uk.gov.laa.springboot.export.cache.DiskExportResultCache;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
+import uk.gov.laa.springboot.export.format.ArrowExportFormat;
+import uk.gov.laa.springboot.export.format.JsonExportFormat;
+import uk.gov.laa.springboot.export.format.XlsxExportFormat;
+import uk.gov.laa.springboot.export.metrics.ExportAuditQueueMetrics;
+import uk.gov.laa.springboot.export.metrics.ExportConcurrencyMetrics;
+import uk.gov.laa.springboot.export.metrics.ExportResultCacheMetrics;
 import uk.gov.laa.springboot.export.registry.DefaultExportRegistry;
+import uk.gov.laa.springboot.export.service.DefaultExportBundleService;
+import uk.gov.laa.springboot.export.service.DefaultExportJobService;
 import uk.gov.laa.springboot.export.service.DefaultExportRequestValidator;
 import uk.gov.laa.springboot.export.service.DefaultExportService;
+import uk.gov.laa.springboot.export.service.ExportConcurrencyLimiter;
+import uk.gov.laa.springboot.export.web.ExportBundleController;
+import uk.gov.laa.springboot.export.web.ExportCancellationInterceptor;
+import uk.gov.laa.springboot.export.web.ExportJobController;
 
 /**
  * Auto-configuration for export components.
@@ -25,6 +63,8 @@ import uk.gov.laa.springboot.export.service.DefaultExportService;
         name = "enabled",
         havingValue = "true")
 public class ExportAutoConfiguration {
+  private static final String METER_REGISTRY_CLASS =
+      "io.micrometer.core.instrument.MeterRegistry";
 
   @Bean
   @ConditionalOnMissingBean
@@ -32,10 +72,38 @@ public class ExportAutoConfiguration {
     return new DefaultExportRequestValidator();
   }
 
+  /**
+   * Logs export events, and also records them as meters when Micrometer is on the classpath and
+   * a {@code MeterRegistry} is available.
+   */
   @Bean
   @ConditionalOnMissingBean
-  public ExportAuditSink exportAuditSink() {
-    return new LogExportAuditSink();
+  public ExportAuditSink exportAuditSink(
+      ApplicationContext applicationContext,
+      LaaExportsProperties properties,
+      ObjectProvider<DataSource> dataSource) {
+    List<ExportAuditSink> sinks = new ArrayList<>();
+    sinks.add(new LogExportAuditSink());
+    if (ClassUtils.isPresent(METER_REGISTRY_CLASS, applicationContext.getClassLoader())) {
+      ExportAuditSink metrics = MicrometerAuditSinks.create(applicationContext);
+      if (metrics != null) {
+        sinks.add(metrics);
+      }
+    }
+    return auditSinks(sinks, properties, dataSource);
+  }
+
+  /**
+   * Records audit events on a background thread, wrapping whichever audit sink is in use.
+   */
+  @Bean
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.audit.async",
+      name = "enabled",
+      havingValue = "true")
+  public static BeanPostProcessor asyncExportAuditSinkPostProcessor(
+      ObjectProvider<LaaExportsProperties> properties) {
+    return new AsyncExportAuditSinkPostProcessor(properties);
   }
 
   @Bean
@@ -45,13 +113,130 @@ public class ExportAutoConfiguration {
     return new DefaultExportRegistry(applicationContext, properties);
   }
 
+  /**
+   * Builds the admission control limiter from the default and per-definition limits.
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  public ExportConcurrencyLimiter exportConcurrencyLimiter(
+      ExportRegistry registry, LaaExportsProperties properties) {
+    LaaExportsProperties.Defaults defaults = properties.getDefaults();
+    Map<String, Integer> perExportLimits = new HashMap<>();
+    for (String key : registry.keys()) {
+      perExportLimits.put(key, registry.getRequired(key).getMaxConcurrent());
+    }
+    return new ExportConcurrencyLimiter(
+        defaults.getMaxConcurrentExports(),
+        perExportLimits,
+        defaults.getMaxQueuedExports(),
+        defaults.getMaxQueueWait(),
+        defaults.getRetryAfter());
+  }
+
+  /**
+   * Export service, observed when an {@link ObservationRegistry} is available and caching
+   * results when an {@link ExportResultCache} is configured.
+   */
   @Bean
   @ConditionalOnMissingBean
   public ExportService exportService(
       ExportRegistry registry,
       ExportRequestValidator validator,
-      ExportAuditSink audit) {
-    return new DefaultExportService(registry, validator, audit);
+      ExportAuditSink audit,
+      ExportConcurrencyLimiter limiter,
+      ObjectProvider<ObservationRegistry> observationRegistry,
+      ObjectProvider<ExportResultCache> resultCache,
+      LaaExportsProperties properties) {
+    return DefaultExportService.builder(registry, validator, audit)
+        .limiter(limiter)
+        .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+        .resultCache(resultCache.getIfAvailable())
+        .estimate(properties.getEstimate())
+        .build();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(ExportResultCache.class)
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.cache",
+      name = "enabled",
+      havingValue = "true")
+  public DiskExportResultCache exportResultCache(LaaExportsProperties properties) {
+    return new DiskExportResultCache(properties.getCache());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.jobs",
+      name = "enabled",
+      havingValue = "true")
+  public ExportJobService exportJobService(
+      ExportService exportService, LaaExportsProperties properties) {
+    return new DefaultExportJobService(exportService, properties.getJobs());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.jobs",
+      name = "enabled",
+      havingValue = "true")
+  public ExportJobController exportJobController(
+      ExportJobService exportJobService, LaaExportsProperties properties) {
+    return new ExportJobController(exportJobService, properties);
+  }
+
+  /**
+   * Bundles export their snapshot from the data source their exports read from, pinning the
+   * export pool's routing while they stream, and are admitted by the export limiter up front.
+   */
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.bundles",
+      name = "enabled",
+      havingValue = "true")
+  public ExportBundleService exportBundleService(
+      ExportService exportService,
+      ExportRegistry registry,
+      DataSource dataSource,
+      ObjectProvider<ExportDataSourceRouter> router,
+      ExportConcurrencyLimiter limiter,
+      ObjectProvider<ObservationRegistry> observationRegistry,
+      LaaExportsProperties properties) {
+    return new DefaultExportBundleService(
+        exportService,
+        registry,
+        dataSource,
+        router.getIfAvailable(),
+        limiter,
+        properties.getBundles(),
+        observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(
+      prefix = "laa.springboot.starter.exports.bundles",
+      name = "enabled",
+      havingValue = "true")
+  public ExportBundleController exportBundleController(ExportBundleService exportBundleService) {
+    return new ExportBundleController(exportBundleService);
+  }
+
+  /**
+   * Cancels the database work of streaming exports whose requests time out or fail.
+   */
+  @Bean
+  @ConditionalOnMissingBean(name = "exportCancellationWebMvcConfigurer")
+  public WebMvcConfigurer exportCancellationWebMvcConfigurer() {
+    return new WebMvcConfigurer() {
+      @Override
+      public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new ExportCancellationInterceptor());
+      }
+    };
   }
 
   @Bean
@@ -60,4 +245,164 @@ public class ExportAutoConfiguration {
     return new ExportExceptionHandler();
   }
 
+  @Bean
+  @ConditionalOnMissingBean(name = "ndjsonExportFormat")
+  public JsonExportFormat ndjsonExportFormat() {
+    return JsonExportFormat.ndjson();
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(name = "jsonExportFormat")
+  public JsonExportFormat jsonExportFormat() {
+    return JsonExportFormat.array();
+  }
+
+  /**
+   * Dedicated export connection pool, registered when a URL is configured and HikariCP is on the
+   * classpath. The pool is not a {@link DataSource} bean, so it does not replace the application's
+   * own data source.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = "com.zaxxer.hikari.HikariDataSource")
+  @ConditionalOnProperty(prefix = "laa.springboot.starter.exports.datasource", name = "url")
+  static class ExportDataSourceConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExportDataSourceRouter exportDataSourceRouter(
+        DataSource dataSource, LaaExportsProperties properties) {
+      LaaExportsProperties.Datasource settings = properties.getDatasource();
+      HikariConfig config = poolConfig(settings, "laa-exports");
+      config.setMaximumPoolSize(settings.getMaximumPoolSize());
+      config.setMinimumIdle(settings.getMinimumIdle());
+      // The lag probe has its own connection so an exhausted export pool cannot starve it.
+      HikariDataSource lagProbe = null;
+      if (settings.getMaxReplicationLag() != null) {
+        HikariConfig probeConfig = poolConfig(settings, "laa-exports-lag");
+        probeConfig.setMaximumPoolSize(1);
+        lagProbe = new HikariDataSource(probeConfig);
+      }
+      return new ExportDataSourceRouter(
+          dataSource,
+          new HikariDataSource(config),
+          lagProbe,
+          settings.getMaxReplicationLag(),
+          settings.getLagCheckInterval());
+    }
+
+    private static HikariConfig poolConfig(
+        LaaExportsProperties.Datasource settings, String poolName) {
+      HikariConfig config = new HikariConfig();
+      config.setPoolName(poolName);
+      config.setJdbcUrl(settings.getUrl());
+      config.setUsername(settings.getUsername());
+      config.setPassword(settings.getPassword());
+      if (settings.getDriverClassName() != null) {
+        config.setDriverClassName(settings.getDriverClassName());
+      }
+      config.setConnectionTimeout(settings.getConnectionTimeout().toMillis());
+      config.setReadOnly(true);
+      return config;
+    }
+  }
+
+  /**
+   * Apache Arrow output format, registered when the Arrow JDBC adapter is on the classpath.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = "org.apache.arrow.adapter.jdbc.JdbcToArrow")
+  static class ArrowFormatConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ArrowExportFormat arrowExportFormat(LaaExportsProperties properties) {
+      return new ArrowExportFormat(properties.getFormats().getArrowBatchSize());
+    }
+  }
+
+  /**
+   * Excel output format, registered when Apache POI is on the classpath.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = "org.apache.poi.xssf.streaming.SXSSFWorkbook")
+  static class XlsxFormatConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public XlsxExportFormat xlsxExportFormat(LaaExportsProperties properties) {
+      return new XlsxExportFormat(properties.getFormats().getXlsxWindowSize());
+    }
+  }
+
+  /**
+   * Export metrics, registered when Micrometer is on the classpath.
+   */
+  @Configuration(proxyBeanMethods = false)
+  @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+  static class ExportMetricsConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ExportConcurrencyMetrics exportConcurrencyMetrics(ExportConcurrencyLimiter limiter) {
+      return new ExportConcurrencyMetrics(limiter);
+    }
+
+    /**
+     * Publishes cache statistics when the built-in disk cache is in use.
+     */
+    @Bean
+    @ConditionalOnProperty(
+        prefix = "laa.springboot.starter.exports.cache",
+        name = "enabled",
+        havingValue = "true")
+    public MeterBinder exportResultCacheMetrics(ObjectProvider<DiskExportResultCache> cache) {
+      DiskExportResultCache diskCache = cache.getIfAvailable();
+      return diskCache == null ? registry -> { } : new ExportResultCacheMetrics(diskCache);
+    }
+
+    /**
+     * Publishes the audit queue's depth and dropped events when audit events are recorded
+     * asynchronously.
+     */
+    @Bean
+    @ConditionalOnProperty(
+        prefix = "laa.springboot.starter.exports.audit.async",
+        name = "enabled",
+        havingValue = "true")
+    public MeterBinder exportAuditQueueMetrics(ObjectProvider<ExportAuditSink> sink) {
+      return sink.getIfAvailable() instanceof AsyncExportAuditSink asyncSink
+          ? new ExportAuditQueueMetrics(asyncSink)
+          : registry -> { };
+    }
+  }
+
+  /**
+   * Keeps Micrometer types out of {@link ExportAutoConfiguration}'s own signatures, so it loads
+   * without micrometer-core.
+   */
+  private static final class MicrometerAuditSinks {
+    private MicrometerAuditSinks() {}
+
+    static ExportAuditSink create(ApplicationContext applicationContext) {
+      MeterRegistry registry =
+          applicationContext.getBeanProvider(MeterRegistry.class).getIfAvailable();
+      return registry == null ? null : new MicrometerExportAuditSink(registry);
+    }
+  }
+
+  /**
+   * Combines the given sinks with the JDBC sink when it is enabled.
+   */
+  private static ExportAuditSink auditSinks(
+      List<ExportAuditSink> sinks,
+      LaaExportsProperties properties,
+      ObjectProvider<DataSource> dataSource) {
+    LaaExportsProperties.AuditJdbc jdbc = properties.getAudit().getJdbc();
+    if (!jdbc.isEnabled()) {
+      return sinks.size() == 1 ? sinks.get(0) : new CompositeExportAuditSink(sinks);
+    }
+    List<ExportAuditSink> all = new ArrayList<>(sinks);
+    all.add(new JdbcExportAuditSink(dataSource.getObject(), jdbc.getTableName()));
+    return new CompositeExportAuditSink(all);
+  }
 }
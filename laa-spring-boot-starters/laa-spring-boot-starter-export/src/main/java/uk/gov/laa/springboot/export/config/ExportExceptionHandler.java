@@ -1,9 +1,17 @@
 package uk.gov.laa.springboot.export.config;
 
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import uk.gov.laa.springboot.export.ExportDefinitionNotFoundException;
+import uk.gov.laa.springboot.export.ExportFormatNotAcceptableException;
+import uk.gov.laa.springboot.export.ExportJobNotFoundException;
+import uk.gov.laa.springboot.export.ExportJobNotReadyException;
+import uk.gov.laa.springboot.export.ExportRejectedException;
 import uk.gov.laa.springboot.export.ExportValidationException;
 
 /**
@@ -22,4 +30,59 @@ public class ExportExceptionHandler {
     problemDetail.setTitle("Invalid export request");
     return problemDetail;
   }
+
+  /**
+   * Maps unknown export keys and job ids to a 404 response.
+   */
+  @ExceptionHandler({ExportDefinitionNotFoundException.class, ExportJobNotFoundException.class})
+  public ProblemDetail handleExportNotFoundException(RuntimeException exception) {
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, exception.getMessage());
+    problemDetail.setTitle("Export not found");
+    return problemDetail;
+  }
+
+  /**
+   * Maps downloads of unfinished export jobs to a 409 response.
+   */
+  @ExceptionHandler(ExportJobNotReadyException.class)
+  public ProblemDetail handleExportJobNotReadyException(ExportJobNotReadyException exception) {
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, exception.getMessage());
+    problemDetail.setTitle("Export job not ready");
+    return problemDetail;
+  }
+
+  /**
+   * Maps requests for formats an export does not offer to a 406 response.
+   */
+  @ExceptionHandler(ExportFormatNotAcceptableException.class)
+  public ProblemDetail handleExportFormatNotAcceptableException(
+      ExportFormatNotAcceptableException exception) {
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.NOT_ACCEPTABLE, exception.getMessage());
+    problemDetail.setTitle("Export format not available");
+    return problemDetail;
+  }
+
+  /**
+   * Maps exports rejected for capacity reasons to a 429 response with a {@code Retry-After} hint.
+   */
+  @ExceptionHandler(ExportRejectedException.class)
+  public ResponseEntity<ProblemDetail> handleExportRejectedException(
+      ExportRejectedException exception, HttpServletResponse servletResponse) {
+    // Rejections raised from a streaming body arrive after the CSV headers were applied.
+    if (!servletResponse.isCommitted()) {
+      servletResponse.reset();
+    }
+    ProblemDetail problemDetail =
+        ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, exception.getMessage());
+    problemDetail.setTitle("Export rejected");
+    ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS);
+    if (exception.getRetryAfter() != null) {
+      long seconds = Math.max(1, exception.getRetryAfter().toSeconds());
+      response.header(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+    return response.body(problemDetail);
+  }
 }
@@ -1,11 +1,15 @@
 package uk.gov.laa.springboot.export.config;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import uk.gov.laa.springboot.export.audit.AsyncExportAuditSink;
+import uk.gov.laa.springboot.export.audit.JdbcExportAuditSink;
 
 /**
  * Configuration properties for exports.
@@ -15,6 +19,13 @@ public class LaaExportsProperties {
   private boolean enabled = false;
   private Web web = new Web();
   private Defaults defaults = new Defaults();
+  private Jobs jobs = new Jobs();
+  private Bundles bundles = new Bundles();
+  private Cache cache = new Cache();
+  private Formats formats = new Formats();
+  private Estimate estimate = new Estimate();
+  private Datasource datasource = new Datasource();
+  private Audit audit = new Audit();
   private Map<String, Definition> definitions = new HashMap<>();
 
   public boolean isEnabled() {
@@ -41,6 +52,62 @@ public class LaaExportsProperties {
     this.defaults = defaults;
   }
 
+  public Jobs getJobs() {
+    return jobs;
+  }
+
+  public void setJobs(Jobs jobs) {
+    this.jobs = jobs;
+  }
+
+  public Bundles getBundles() {
+    return bundles;
+  }
+
+  public void setBundles(Bundles bundles) {
+    this.bundles = bundles;
+  }
+
+  public Cache getCache() {
+    return cache;
+  }
+
+  public void setCache(Cache cache) {
+    this.cache = cache;
+  }
+
+  public Formats getFormats() {
+    return formats;
+  }
+
+  public void setFormats(Formats formats) {
+    this.formats = formats;
+  }
+
+  public Estimate getEstimate() {
+    return estimate;
+  }
+
+  public void setEstimate(Estimate estimate) {
+    this.estimate = estimate;
+  }
+
+  public Datasource getDatasource() {
+    return datasource;
+  }
+
+  public void setDatasource(Datasource datasource) {
+    this.datasource = datasource;
+  }
+
+  public Audit getAudit() {
+    return audit;
+  }
+
+  public void setAudit(Audit audit) {
+    this.audit = audit;
+  }
+
   public Map<String, Definition> getDefinitions() {
     return definitions;
   }
@@ -78,6 +145,13 @@ public class LaaExportsProperties {
    */
   public static class Defaults {
     private int maxRows = 50000;
+    private boolean compressionEnabled = true;
+    private int compressionLevel = 6;
+    private int maxConcurrentExports = 0;
+    private int maxConcurrentPerExport = 0;
+    private int maxQueuedExports = 0;
+    private Duration maxQueueWait = Duration.ofSeconds(10);
+    private Duration retryAfter = Duration.ofSeconds(30);
 
     public int getMaxRows() {
       return maxRows;
@@ -86,6 +160,490 @@ public class LaaExportsProperties {
     public void setMaxRows(int maxRows) {
       this.maxRows = maxRows;
     }
+
+    public boolean isCompressionEnabled() {
+      return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(boolean compressionEnabled) {
+      this.compressionEnabled = compressionEnabled;
+    }
+
+    public int getCompressionLevel() {
+      return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+    }
+
+    public int getMaxConcurrentExports() {
+      return maxConcurrentExports;
+    }
+
+    public void setMaxConcurrentExports(int maxConcurrentExports) {
+      this.maxConcurrentExports = maxConcurrentExports;
+    }
+
+    public int getMaxConcurrentPerExport() {
+      return maxConcurrentPerExport;
+    }
+
+    public void setMaxConcurrentPerExport(int maxConcurrentPerExport) {
+      this.maxConcurrentPerExport = maxConcurrentPerExport;
+    }
+
+    public int getMaxQueuedExports() {
+      return maxQueuedExports;
+    }
+
+    public void setMaxQueuedExports(int maxQueuedExports) {
+      this.maxQueuedExports = maxQueuedExports;
+    }
+
+    public Duration getMaxQueueWait() {
+      return maxQueueWait;
+    }
+
+    public void setMaxQueueWait(Duration maxQueueWait) {
+      this.maxQueueWait = maxQueueWait;
+    }
+
+    public Duration getRetryAfter() {
+      return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+      this.retryAfter = retryAfter;
+    }
+  }
+
+  /**
+   * Asynchronous export job settings.
+   */
+  public static class Jobs {
+    private boolean enabled = false;
+    private int threads = 2;
+    private int queueCapacity = 20;
+    private Duration retention = Duration.ofHours(1);
+    private String spoolDirectory;
+    private boolean compress = true;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getRetention() {
+      return retention;
+    }
+
+    public void setRetention(Duration retention) {
+      this.retention = retention;
+    }
+
+    public String getSpoolDirectory() {
+      return spoolDirectory;
+    }
+
+    public void setSpoolDirectory(String spoolDirectory) {
+      this.spoolDirectory = spoolDirectory;
+    }
+
+    public boolean isCompress() {
+      return compress;
+    }
+
+    public void setCompress(boolean compress) {
+      this.compress = compress;
+    }
+  }
+
+  /**
+   * ZIP bundle endpoint settings.
+   */
+  public static class Bundles {
+    private boolean enabled = false;
+    private int maxExports = 10;
+    private int parallelism = 1;
+    private int threads = 4;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    /**
+     * Returns the maximum number of exports in one bundle.
+     */
+    public int getMaxExports() {
+      return maxExports;
+    }
+
+    public void setMaxExports(int maxExports) {
+      this.maxExports = maxExports;
+    }
+
+    /**
+     * Returns how many of a bundle's exports run at the same time, each on its own connection.
+     */
+    public int getParallelism() {
+      return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+      this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns how many threads all bundles share for running exports in parallel.
+     */
+    public int getThreads() {
+      return threads;
+    }
+
+    public void setThreads(int threads) {
+      this.threads = threads;
+    }
+  }
+
+  /**
+   * Export result cache settings.
+   */
+  public static class Cache {
+    private boolean enabled = false;
+    private String directory;
+    private DataSize maxSize = DataSize.ofGigabytes(1);
+    private Duration ttl = Duration.ofHours(1);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+      return directory;
+    }
+
+    public void setDirectory(String directory) {
+      this.directory = directory;
+    }
+
+    public DataSize getMaxSize() {
+      return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+  }
+
+  /**
+   * Query plan estimate settings.
+   */
+  public static class Estimate {
+    private Duration cacheTtl = Duration.ofSeconds(30);
+    private Long maxEstimatedRows;
+
+    /**
+     * Returns how long estimates are reused for the same export and parameters.
+     */
+    public Duration getCacheTtl() {
+      return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+      this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Returns the estimated row count above which exports are rejected before they run, or
+     * {@code null} to never reject on estimates.
+     */
+    public Long getMaxEstimatedRows() {
+      return maxEstimatedRows;
+    }
+
+    public void setMaxEstimatedRows(Long maxEstimatedRows) {
+      this.maxEstimatedRows = maxEstimatedRows;
+    }
+  }
+
+  /**
+   * Dedicated export connection pool, optionally pointing at a read replica.
+   */
+  public static class Datasource {
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private int maximumPoolSize = 4;
+    private int minimumIdle = 0;
+    private Duration connectionTimeout = Duration.ofSeconds(30);
+    private Duration maxReplicationLag;
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * Returns the JDBC URL of the export pool; exports use the primary data source when unset.
+     */
+    public String getUrl() {
+      return url;
+    }
+
+    public void setUrl(String url) {
+      this.url = url;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+
+    public String getPassword() {
+      return password;
+    }
+
+    public void setPassword(String password) {
+      this.password = password;
+    }
+
+    public String getDriverClassName() {
+      return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+      this.driverClassName = driverClassName;
+    }
+
+    public int getMaximumPoolSize() {
+      return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+      this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public int getMinimumIdle() {
+      return minimumIdle;
+    }
+
+    public void setMinimumIdle(int minimumIdle) {
+      this.minimumIdle = minimumIdle;
+    }
+
+    public Duration getConnectionTimeout() {
+      return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Duration connectionTimeout) {
+      this.connectionTimeout = connectionTimeout;
+    }
+
+    /**
+     * Returns the replication lag above which exports fall back to the primary data source, or
+     * {@code null} to never check lag.
+     */
+    public Duration getMaxReplicationLag() {
+      return maxReplicationLag;
+    }
+
+    public void setMaxReplicationLag(Duration maxReplicationLag) {
+      this.maxReplicationLag = maxReplicationLag;
+    }
+
+    /**
+     * Returns the delay between replication lag measurements.
+     */
+    public Duration getLagCheckInterval() {
+      return lagCheckInterval;
+    }
+
+    public void setLagCheckInterval(Duration lagCheckInterval) {
+      this.lagCheckInterval = lagCheckInterval;
+    }
+  }
+
+  /**
+   * Audit pipeline settings.
+   */
+  public static class Audit {
+    private AuditAsync async = new AuditAsync();
+    private AuditJdbc jdbc = new AuditJdbc();
+
+    public AuditAsync getAsync() {
+      return async;
+    }
+
+    public void setAsync(AuditAsync async) {
+      this.async = async;
+    }
+
+    public AuditJdbc getJdbc() {
+      return jdbc;
+    }
+
+    public void setJdbc(AuditJdbc jdbc) {
+      this.jdbc = jdbc;
+    }
+  }
+
+  /**
+   * Settings for recording audit events on a background thread.
+   */
+  public static class AuditAsync {
+    private boolean enabled = false;
+    private int queueCapacity = 10_000;
+    private int batchSize = 100;
+    private Duration flushInterval = Duration.ofSeconds(1);
+    private AsyncExportAuditSink.Overflow overflow = AsyncExportAuditSink.Overflow.DROP_NEWEST;
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public int getQueueCapacity() {
+      return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+      this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the longest time an event waits for its batch to fill before it is recorded.
+     */
+    public Duration getFlushInterval() {
+      return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+      this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Returns what happens to new events while the queue is full.
+     */
+    public AsyncExportAuditSink.Overflow getOverflow() {
+      return overflow;
+    }
+
+    public void setOverflow(AsyncExportAuditSink.Overflow overflow) {
+      this.overflow = overflow;
+    }
+
+    /**
+     * Returns how long shutdown waits for queued events to be recorded.
+     */
+    public Duration getShutdownTimeout() {
+      return shutdownTimeout;
+    }
+
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+      this.shutdownTimeout = shutdownTimeout;
+    }
+  }
+
+  /**
+   * Settings for inserting audit events into a database table.
+   */
+  public static class AuditJdbc {
+    private boolean enabled = false;
+    private String tableName = JdbcExportAuditSink.DEFAULT_TABLE_NAME;
+
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+      this.enabled = enabled;
+    }
+
+    public String getTableName() {
+      return tableName;
+    }
+
+    public void setTableName(String tableName) {
+      this.tableName = tableName;
+    }
+  }
+
+  /**
+   * Output format settings.
+   */
+  public static class Formats {
+    private int arrowBatchSize = 10_000;
+    private int xlsxWindowSize = 100;
+
+    /**
+     * Returns the number of rows buffered per Arrow record batch.
+     */
+    public int getArrowBatchSize() {
+      return arrowBatchSize;
+    }
+
+    public void setArrowBatchSize(int arrowBatchSize) {
+      this.arrowBatchSize = arrowBatchSize;
+    }
+
+    /**
+     * Returns the number of XLSX rows kept in memory before older rows are flushed to disk.
+     */
+    public int getXlsxWindowSize() {
+      return xlsxWindowSize;
+    }
+
+    public void setXlsxWindowSize(int xlsxWindowSize) {
+      this.xlsxWindowSize = xlsxWindowSize;
+    }
   }
 
   /**
@@ -98,6 +656,20 @@ public class LaaExportsProperties {
     private String provider;
     private String packageName;
     private String sql;
+    private String exporter;
+    private Integer fetchSize;
+    private Duration statementTimeout;
+    private String datasource;
+    private Boolean compressionEnabled;
+    private Integer compressionLevel;
+    private Integer maxConcurrent;
+    private Boolean cacheEnabled;
+    private Duration cacheTtl;
+    private List<String> formats = new ArrayList<>();
+    private Partition partition;
+    private Resume resume;
+    private Watermark watermark;
+    private Freshness freshness;
     private List<Column> columns = new ArrayList<>();
     private List<Param> params = new ArrayList<>();
 
@@ -141,6 +713,144 @@ public class LaaExportsProperties {
       this.sql = sql;
     }
 
+    /**
+     * Returns the generated provider's execution strategy: {@code copy} (default) or
+     * {@code cursor}.
+     */
+    public String getExporter() {
+      return exporter;
+    }
+
+    public void setExporter(String exporter) {
+      this.exporter = exporter;
+    }
+
+    /**
+     * Returns the number of rows a {@code cursor} provider fetches per round trip, or
+     * {@code null} for the exporter default.
+     */
+    public Integer getFetchSize() {
+      return fetchSize;
+    }
+
+    public void setFetchSize(Integer fetchSize) {
+      this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Returns the server-side limit on the export's statements, or {@code null} for none.
+     */
+    public Duration getStatementTimeout() {
+      return statementTimeout;
+    }
+
+    public void setStatementTimeout(Duration statementTimeout) {
+      this.statementTimeout = statementTimeout;
+    }
+
+    /**
+     * Returns where the generated provider runs: {@code export} (default), the dedicated export
+     * pool when one is configured, or {@code primary}.
+     */
+    public String getDatasource() {
+      return datasource;
+    }
+
+    public void setDatasource(String datasource) {
+      this.datasource = datasource;
+    }
+
+    public Boolean getCompressionEnabled() {
+      return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(Boolean compressionEnabled) {
+      this.compressionEnabled = compressionEnabled;
+    }
+
+    public Integer getCompressionLevel() {
+      return compressionLevel;
+    }
+
+    public void setCompressionLevel(Integer compressionLevel) {
+      this.compressionLevel = compressionLevel;
+    }
+
+    public Integer getMaxConcurrent() {
+      return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(Integer maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+    }
+
+    public Boolean getCacheEnabled() {
+      return cacheEnabled;
+    }
+
+    public void setCacheEnabled(Boolean cacheEnabled) {
+      this.cacheEnabled = cacheEnabled;
+    }
+
+    public Duration getCacheTtl() {
+      return cacheTtl;
+    }
+
+    public void setCacheTtl(Duration cacheTtl) {
+      this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Returns additional output formats, such as {@code arrow}, offered alongside CSV.
+     */
+    public List<String> getFormats() {
+      return formats;
+    }
+
+    public void setFormats(List<String> formats) {
+      this.formats = formats;
+    }
+
+    /**
+     * Returns how a {@code copy} provider splits the query into concurrent key ranges, or
+     * {@code null} to run it as a single COPY.
+     */
+    public Partition getPartition() {
+      return partition;
+    }
+
+    public void setPartition(Partition partition) {
+      this.partition = partition;
+    }
+
+    public Resume getResume() {
+      return resume;
+    }
+
+    public void setResume(Resume resume) {
+      this.resume = resume;
+    }
+
+    public Watermark getWatermark() {
+      return watermark;
+    }
+
+    public void setWatermark(Watermark watermark) {
+      this.watermark = watermark;
+    }
+
+    /**
+     * Returns the query whose result identifies the current version of the export's data, or
+     * {@code null} when responses carry no {@code ETag}.
+     */
+    public Freshness getFreshness() {
+      return freshness;
+    }
+
+    public void setFreshness(Freshness freshness) {
+      this.freshness = freshness;
+    }
+
     public List<Column> getColumns() {
       return columns;
     }
@@ -159,6 +869,124 @@ public class LaaExportsProperties {
 
   }
 
+  /**
+   * Range partitioning for parallel COPY exports.
+   */
+  public static class Partition {
+    private String key;
+    private int count = 4;
+    private Integer parallelism;
+
+    /**
+     * Returns the integer or date column, by its alias in the export SQL, to split on.
+     */
+    public String getKey() {
+      return key;
+    }
+
+    public void setKey(String key) {
+      this.key = key;
+    }
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+    /**
+     * Returns the maximum number of ranges copied at once, or {@code null} for all of them.
+     */
+    public Integer getParallelism() {
+      return parallelism;
+    }
+
+    public void setParallelism(Integer parallelism) {
+      this.parallelism = parallelism;
+    }
+  }
+
+  /**
+   * Keyset pagination for resumable COPY exports.
+   */
+  public static class Resume {
+    private String key;
+    private int pageSize = 10_000;
+
+    /**
+     * Returns the unique, non-null column, by its alias in the export SQL, to page and resume on.
+     */
+    public String getKey() {
+      return key;
+    }
+
+    public void setKey(String key) {
+      this.key = key;
+    }
+
+    public int getPageSize() {
+      return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+      this.pageSize = pageSize;
+    }
+  }
+
+  /**
+   * Watermark column for incremental COPY exports.
+   */
+  public static class Watermark {
+    private String column;
+
+    /**
+     * Returns the non-null column, by its alias in the export SQL, that increases whenever a row
+     * changes, such as {@code updated_at}.
+     */
+    public String getColumn() {
+      return column;
+    }
+
+    public void setColumn(String column) {
+      this.column = column;
+    }
+  }
+
+  /**
+   * Freshness fingerprint for conditional requests.
+   */
+  public static class Freshness {
+    private String sql;
+    private Duration ttl;
+
+    /**
+     * Returns the cheap query, such as {@code select max(updated_at), count(*) from books},
+     * whose first row changes whenever the export's data changes. It may reference the
+     * export's params.
+     */
+    public String getSql() {
+      return sql;
+    }
+
+    public void setSql(String sql) {
+      this.sql = sql;
+    }
+
+    /**
+     * Returns how long a fingerprint is reused before the query is run again, or {@code null}
+     * to run it for every request.
+     */
+    public Duration getTtl() {
+      return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+      this.ttl = ttl;
+    }
+  }
+
   /**
    * CSV column configuration.
    */
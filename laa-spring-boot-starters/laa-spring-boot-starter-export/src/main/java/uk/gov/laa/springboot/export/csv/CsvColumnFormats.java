@@ -0,0 +1,131 @@
+package uk.gov.laa.springboot.export.csv;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+/**
+ * Resolves how each result set column is read and formatted for CSV output.
+ * Columns without a configured {@link ExportColumn#getFormat() format} are written using the
+ * driver's text form. Formats are interpreted by SQL type:
+ * <ul>
+ *   <li>dates, times and timestamps: a {@link DateTimeFormatter} pattern, e.g.
+ *       {@code dd/MM/yyyy}</li>
+ *   <li>numbers: a {@link DecimalFormat} pattern, e.g. {@code #,##0.00}, rounding half up</li>
+ *   <li>booleans: the true and false text separated by {@code |}, e.g. {@code Yes|No}</li>
+ * </ul>
+ */
+final class CsvColumnFormats {
+
+  private CsvColumnFormats() {}
+
+  /**
+   * Reads a single column value as text, or {@code null} for SQL {@code NULL}.
+   * Readers may reuse the returned character sequence between rows.
+   */
+  interface ValueReader {
+    CharSequence read(ResultSet resultSet, int column) throws SQLException;
+  }
+
+  /**
+   * Returns one reader per result set column, matching export columns to result set labels.
+   */
+  static ValueReader[] resolve(ResultSetMetaData metaData, List<ExportColumn> columns)
+      throws SQLException {
+    Map<String, String> formats = new HashMap<>();
+    if (columns != null) {
+      for (ExportColumn column : columns) {
+        if (column.getFormat() != null && !column.getFormat().isBlank()) {
+          formats.put(column.getKey().toLowerCase(Locale.ROOT), column.getFormat());
+        }
+      }
+    }
+    ValueReader[] readers = new ValueReader[metaData.getColumnCount()];
+    for (int i = 0; i < readers.length; i++) {
+      String label = metaData.getColumnLabel(i + 1);
+      String format = formats.get(label.toLowerCase(Locale.ROOT));
+      readers[i] = format == null
+          ? ResultSet::getString
+          : formatted(label, metaData.getColumnType(i + 1), format);
+    }
+    return readers;
+  }
+
+  private static ValueReader formatted(String label, int sqlType, String format) {
+    return switch (sqlType) {
+      case Types.DATE -> temporal(format, LocalDate.class);
+      case Types.TIME -> temporal(format, LocalTime.class);
+      case Types.TIMESTAMP -> temporal(format, LocalDateTime.class);
+      case Types.TIMESTAMP_WITH_TIMEZONE -> temporal(format, OffsetDateTime.class);
+      case Types.NUMERIC, Types.DECIMAL, Types.DOUBLE, Types.FLOAT, Types.REAL,
+          Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> decimal(format);
+      case Types.BOOLEAN, Types.BIT -> bool(label, format);
+      default -> throw new IllegalArgumentException(
+          "Column " + label + " has a format but its SQL type is not formattable: " + sqlType);
+    };
+  }
+
+  private static ValueReader temporal(String pattern, Class<? extends TemporalAccessor> type) {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern, Locale.UK);
+    StringBuilder buffer = new StringBuilder(32);
+    return (resultSet, column) -> {
+      TemporalAccessor value = resultSet.getObject(column, type);
+      if (value == null) {
+        return null;
+      }
+      buffer.setLength(0);
+      formatter.formatTo(value, buffer);
+      return buffer;
+    };
+  }
+
+  private static ValueReader decimal(String pattern) {
+    DecimalFormat decimalFormat =
+        new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.UK));
+    decimalFormat.setRoundingMode(RoundingMode.HALF_UP);
+    StringBuffer buffer = new StringBuffer(32);
+    FieldPosition position = new FieldPosition(0);
+    return (resultSet, column) -> {
+      BigDecimal value = resultSet.getBigDecimal(column);
+      if (value == null) {
+        return null;
+      }
+      buffer.setLength(0);
+      return decimalFormat.format(value, buffer, position);
+    };
+  }
+
+  private static ValueReader bool(String label, String format) {
+    int separator = format.indexOf('|');
+    if (separator < 0 || format.indexOf('|', separator + 1) >= 0) {
+      throw new IllegalArgumentException(
+          "Column " + label + " boolean format must be 'trueText|falseText': " + format);
+    }
+    String trueText = format.substring(0, separator);
+    String falseText = format.substring(separator + 1);
+    return (resultSet, column) -> {
+      boolean value = resultSet.getBoolean(column);
+      if (resultSet.wasNull()) {
+        return null;
+      }
+      return value ? trueText : falseText;
+    };
+  }
+}
@@ -0,0 +1,69 @@
+package uk.gov.laa.springboot.export.csv;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+
+/**
+ * Writes result set rows as UTF-8 CSV in the same form as PostgreSQL {@code COPY ... CSV},
+ * applying each column's {@link ExportColumn#getFormat() format}.
+ */
+public final class CsvExportFormat implements ExportFormatWriter {
+  private final boolean includeHeader;
+
+  public CsvExportFormat() {
+    this(true);
+  }
+
+  /**
+   * Creates a CSV writer, optionally writing result set column labels as the header row.
+   */
+  public CsvExportFormat(boolean includeHeader) {
+    this.includeHeader = includeHeader;
+  }
+
+  @Override
+  public String getName() {
+    return ExportDefinition.CSV_FORMAT;
+  }
+
+  @Override
+  public String getMediaType() {
+    return "text/csv";
+  }
+
+  @Override
+  public String getFileExtension() {
+    return "csv";
+  }
+
+  @Override
+  public long write(ResultSet resultSet, List<ExportColumn> columns, OutputStream out)
+      throws SQLException, IOException {
+    CsvRowWriter writer = new CsvRowWriter(out);
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    CsvColumnFormats.ValueReader[] readers = CsvColumnFormats.resolve(metaData, columns);
+    if (includeHeader) {
+      for (int i = 1; i <= readers.length; i++) {
+        writer.writeField(metaData.getColumnLabel(i));
+      }
+      writer.endRow();
+    }
+    long rows = 0;
+    while (resultSet.next()) {
+      for (int i = 0; i < readers.length; i++) {
+        writer.writeField(readers[i].read(resultSet, i + 1));
+      }
+      writer.endRow();
+      rows++;
+    }
+    writer.flush();
+    return rows;
+  }
+}
@@ -1,7 +1,9 @@
 package uk.gov.laa.springboot.export.csv;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -23,14 +25,27 @@ public final class CsvHeaderWriter {
       Writer writer,
       List<String> columnOrder,
       List<ExportColumn> columns) throws IOException {
+    writer.write(headerLine(columnOrder, columns));
+  }
+
+  /**
+   * Writes a UTF-8 encoded CSV header line using configured columns and order.
+   */
+  public static void writeHeader(
+      OutputStream out,
+      List<String> columnOrder,
+      List<ExportColumn> columns) throws IOException {
+    out.write(headerLine(columnOrder, columns).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String headerLine(List<String> columnOrder, List<ExportColumn> columns) {
     List<ExportColumn> resolved = resolveColumns(columnOrder, columns);
     StringJoiner joiner = new StringJoiner(",");
     for (ExportColumn column : resolved) {
       String header = column.getHeader() == null ? column.getKey() : column.getHeader();
       joiner.add(escape(header));
     }
-    writer.write(joiner.toString());
-    writer.write("\n");
+    return joiner + "\n";
   }
 
   private static List<ExportColumn> resolveColumns(
@@ -73,11 +88,19 @@ public final class CsvHeaderWriter {
     if (value == null) {
       return "";
     }
-    boolean needsQuotes =
-        value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r");
-    if (!needsQuotes) {
-      return value;
+    StringBuilder quoted = null;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (quoted == null && (c == ',' || c == '"' || c == '\n' || c == '\r')) {
+        quoted = new StringBuilder(value.length() + 8).append('"').append(value, 0, i);
+      }
+      if (quoted != null) {
+        if (c == '"') {
+          quoted.append('"');
+        }
+        quoted.append(c);
+      }
     }
-    return "\"" + value.replace("\"", "\"\"") + "\"";
+    return quoted == null ? value : quoted.append('"').toString();
   }
 }
@@ -0,0 +1,229 @@
+package uk.gov.laa.springboot.export.csv;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Writes CSV rows as UTF-8 straight into a reusable byte buffer, for use by
+ * {@link uk.gov.laa.springboot.export.ExportCsvProvider} implementations.
+ * Fields are quoted in the same style as PostgreSQL {@code COPY ... CSV}: a {@code null} field
+ * is empty, an empty string is written as {@code ""}, and values containing a comma, quote or
+ * line break are quoted with embedded quotes doubled. Characters are encoded and escaped as they
+ * are copied into the buffer, which is written to the stream in large chunks.
+ * Instances are not thread-safe.
+ */
+public final class CsvRowWriter implements Flushable {
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  // Room for the longest single write: a surrogate pair, or a long with its sign.
+  private static final int MIN_BUFFER_SIZE = 32;
+
+  private final OutputStream out;
+  private final byte[] buffer;
+  private int position;
+  private boolean rowStarted;
+
+  public CsvRowWriter(OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a writer with the given buffer size in bytes.
+   */
+  public CsvRowWriter(OutputStream out, int bufferSize) {
+    this.out = out;
+    this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_SIZE)];
+  }
+
+  /**
+   * Writes a text field, quoting it if required.
+   */
+  public void writeField(CharSequence value) throws IOException {
+    startField();
+    if (value == null) {
+      return;
+    }
+    int length = value.length();
+    if (length > 0 && !needsQuoting(value, length)) {
+      writeChars(value, length, false);
+      return;
+    }
+    writeByte('"');
+    writeChars(value, length, true);
+    writeByte('"');
+  }
+
+  /**
+   * Writes an empty field.
+   */
+  public void writeNull() throws IOException {
+    startField();
+  }
+
+  /**
+   * Writes an integer field without boxing or allocating a string.
+   */
+  public void writeInt(int value) throws IOException {
+    writeLong(value);
+  }
+
+  /**
+   * Writes a long field without boxing or allocating a string.
+   */
+  public void writeLong(long value) throws IOException {
+    startField();
+    ensureCapacity(20);
+    if (value == Long.MIN_VALUE) {
+      writeAscii("-9223372036854775808");
+      return;
+    }
+    if (value < 0) {
+      buffer[position++] = '-';
+      value = -value;
+    }
+    int end = position + digits(value);
+    int index = end;
+    do {
+      buffer[--index] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    position = end;
+  }
+
+  /**
+   * Writes a date field in ISO {@code yyyy-MM-dd} form, or an empty field for {@code null}.
+   */
+  public void writeDate(LocalDate date) throws IOException {
+    startField();
+    if (date == null) {
+      return;
+    }
+    int year = date.getYear();
+    if (year < 0 || year > 9999) {
+      writeAscii(date.toString());
+      return;
+    }
+    ensureCapacity(10);
+    writePadded(year, 4);
+    buffer[position++] = '-';
+    writePadded(date.getMonthValue(), 2);
+    buffer[position++] = '-';
+    writePadded(date.getDayOfMonth(), 2);
+  }
+
+  /**
+   * Ends the current row with a line feed.
+   */
+  public void endRow() throws IOException {
+    writeByte('\n');
+    rowStarted = false;
+  }
+
+  /**
+   * Writes any buffered bytes to the stream and flushes it.
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+    out.flush();
+  }
+
+  private void startField() throws IOException {
+    if (rowStarted) {
+      writeByte(',');
+    }
+    rowStarted = true;
+  }
+
+  private void writeChars(CharSequence value, int length, boolean escapeQuotes)
+      throws IOException {
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        if (position + 2 > buffer.length) {
+          drain();
+        }
+        if (escapeQuotes && c == '"') {
+          buffer[position++] = '"';
+        }
+        buffer[position++] = (byte) c;
+      } else if (c < 0x800) {
+        ensureCapacity(2);
+        buffer[position++] = (byte) (0xC0 | (c >> 6));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < length
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+        ensureCapacity(4);
+        buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        // Unpaired surrogates cannot be encoded; match the JDK encoder's replacement.
+        writeByte('?');
+      } else {
+        ensureCapacity(3);
+        buffer[position++] = (byte) (0xE0 | (c >> 12));
+        buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+        buffer[position++] = (byte) (0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  private void writeAscii(String value) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      writeByte(value.charAt(i));
+    }
+  }
+
+  private void writePadded(int value, int width) {
+    for (int i = position + width - 1; i >= position; i--) {
+      buffer[i] = (byte) ('0' + value % 10);
+      value /= 10;
+    }
+    position += width;
+  }
+
+  private void writeByte(int b) throws IOException {
+    if (position == buffer.length) {
+      drain();
+    }
+    buffer[position++] = (byte) b;
+  }
+
+  private void ensureCapacity(int bytes) throws IOException {
+    if (position + bytes > buffer.length) {
+      drain();
+    }
+  }
+
+  private void drain() throws IOException {
+    if (position > 0) {
+      out.write(buffer, 0, position);
+      position = 0;
+    }
+  }
+
+  private static int digits(long value) {
+    int digits = 1;
+    while (value >= 10) {
+      value /= 10;
+      digits++;
+    }
+    return digits;
+  }
+
+  private static boolean needsQuoting(CharSequence value, int length) {
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,232 @@
+package uk.gov.laa.springboot.export.datasource;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Routes export connections to a dedicated pool, keeping heavy exports off the application's
+ * primary data source. When the pool points at a PostgreSQL read replica and a maximum lag is
+ * set, connections fall back to the primary while the replica is further behind than that, or
+ * while it cannot report its lag.
+ *
+ * <p>Lag is measured on a background thread through a separate probe data source, so a burst of
+ * exports that exhausts the pool neither delays routing nor fails the measurement. When the probe
+ * cannot connect, the last measurement stands; until the first one completes, the pool is used.
+ *
+ * <p>Work that must stay on one server, such as a bundle sharing a snapshot, {@link #pin() pins}
+ * the current decision; measurements taken while any pin is held are not applied.
+ */
+public class ExportDataSourceRouter implements AutoCloseable {
+  private static final Logger log = LoggerFactory.getLogger(ExportDataSourceRouter.class);
+
+  /**
+   * Lag is zero on a primary and on a replica that has replayed everything it received, so an
+   * idle primary does not make its replica look stale.
+   */
+  private static final String LAG_SQL =
+      "select case when not pg_is_in_recovery()"
+          + " or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+          + " else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp())::float8,"
+          + " 'Infinity') end";
+
+  private final DataSource primary;
+  private final DataSource exportPool;
+  private final DataSource lagProbe;
+  private final Duration maxReplicationLag;
+  private final DataSource dataSource = new RoutingDataSource();
+  private final ScheduledExecutorService lagChecker;
+  private final Object probeLock = new Object();
+  private final Object routeLock = new Object();
+  private volatile boolean lagging;
+  private int pins;
+
+  /**
+   * Creates a router and, when a maximum lag is set, starts measuring the export pool's lag.
+   *
+   * @param primary application data source used when the export pool is lagging
+   * @param exportPool dedicated export pool; closed with the router
+   * @param lagProbe data source for lag measurements, connected to the same database as the
+   *     export pool but not sharing its connections; closed with the router
+   * @param maxReplicationLag lag above which connections come from the primary, or {@code null}
+   *     to always use the export pool
+   * @param lagCheckInterval delay between lag measurements
+   */
+  public ExportDataSourceRouter(
+      DataSource primary,
+      DataSource exportPool,
+      DataSource lagProbe,
+      Duration maxReplicationLag,
+      Duration lagCheckInterval) {
+    this.primary = primary;
+    this.exportPool = exportPool;
+    this.lagProbe = lagProbe;
+    this.maxReplicationLag = maxReplicationLag;
+    if (maxReplicationLag == null) {
+      this.lagChecker = null;
+      return;
+    }
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("export-lag-check-");
+    threadFactory.setDaemon(true);
+    this.lagChecker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    this.lagChecker.scheduleWithFixedDelay(
+        this::checkLag, 0, lagCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the data source exports should use.
+   */
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  /**
+   * Returns whether connections currently come from the primary data source.
+   */
+  public boolean isUsingPrimary() {
+    return maxReplicationLag != null && lagging;
+  }
+
+  /**
+   * Keeps connections on the current data source until the returned pin is closed.
+   */
+  public Pin pin() {
+    synchronized (routeLock) {
+      pins++;
+    }
+    AtomicBoolean released = new AtomicBoolean();
+    return () -> {
+      if (released.compareAndSet(false, true)) {
+        synchronized (routeLock) {
+          pins--;
+        }
+      }
+    };
+  }
+
+  private DataSource target() {
+    return isUsingPrimary() ? primary : exportPool;
+  }
+
+  /**
+   * Measures the export pool's lag and updates the routing decision. Runs on the lag check
+   * thread; the routing path only reads the result.
+   */
+  void checkLag() {
+    synchronized (probeLock) {
+      Connection connection;
+      try {
+        connection = lagProbe.getConnection();
+      } catch (SQLException e) {
+        log.warn("Could not connect to measure export data source replication lag", e);
+        return;
+      }
+      boolean nowLagging = measureLag(connection) > maxReplicationLag.toMillis() / 1000d;
+      synchronized (routeLock) {
+        if (nowLagging == lagging || pins > 0) {
+          return;
+        }
+        lagging = nowLagging;
+      }
+      log.warn(nowLagging
+          ? "Export data source is lagging; exports are using the primary data source"
+          : "Export data source has caught up; exports are using the export data source");
+    }
+  }
+
+  private static double measureLag(Connection connection) {
+    try (connection;
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+      resultSet.next();
+      return resultSet.getDouble(1);
+    } catch (SQLException e) {
+      log.warn("Could not measure export data source replication lag", e);
+      return Double.POSITIVE_INFINITY;
+    }
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (lagChecker != null) {
+      lagChecker.shutdownNow();
+    }
+    if (lagProbe instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+    if (exportPool instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  /**
+   * Holds the routing decision; closing it more than once has no further effect.
+   */
+  public interface Pin extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private final class RoutingDataSource implements DataSource {
+
+    @Override
+    public Connection getConnection() throws SQLException {
+      return target().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+      return target().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+      return exportPool.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+      exportPool.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+      exportPool.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+      return exportPool.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+      return exportPool.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+      if (iface.isInstance(this)) {
+        return iface.cast(this);
+      }
+      throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+      return iface.isInstance(this);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package uk.gov.laa.springboot.export.datasource.jdbc;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.postgresql.PGStatement;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.csv.CsvExportFormat;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Exports SQL results by streaming a prepared statement through a JDBC cursor.
+ * Parameters are bound rather than inlined, and PostgreSQL statements are server-side prepared
+ * on first use so repeated exports on a pooled connection reuse the cached plan. Only standard
+ * JDBC is required, so the exporter also works against other databases such as H2.
+ *
+ * <p>A multi-value parameter is expanded into one placeholder per value, as the COPY renderer
+ * expands it into a literal list, so {@code in (:status)} works with either exporter. An empty
+ * list binds as {@code NULL}.
+ */
+public final class JdbcCursorExporter {
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+  private final int fetchSize;
+  private final Duration statementTimeout;
+
+  public JdbcCursorExporter(DataSource dataSource) {
+    this(dataSource, ObservationRegistry.NOOP, DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * Creates an exporter that observes connection acquisition and query execution.
+   *
+   * @param fetchSize number of rows fetched from the database per round trip
+   */
+  public JdbcCursorExporter(
+      DataSource dataSource, ObservationRegistry observationRegistry, int fetchSize) {
+    this(dataSource, observationRegistry, fetchSize, null);
+  }
+
+  /**
+   * Creates an exporter whose queries are limited to the given duration.
+   *
+   * @param fetchSize number of rows fetched from the database per round trip
+   * @param statementTimeout JDBC query timeout, rounded up to whole seconds, or {@code null}
+   */
+  public JdbcCursorExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      int fetchSize,
+      Duration statementTimeout) {
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+    if (fetchSize <= 0) {
+      throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
+    }
+    this.fetchSize = fetchSize;
+    this.statementTimeout = statementTimeout;
+  }
+
+  /**
+   * Executes the template with bound parameters and writes CSV rows to the stream as UTF-8.
+   * Values are written in the same text form and quoting as PostgreSQL {@code COPY ... CSV}.
+   *
+   * @param paramTypes declared export param types by name, used to type {@code null} values
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      Map<String, String> paramTypes,
+      OutputStream out,
+      boolean includeHeader) {
+    return copyCsv(template, params, paramTypes, List.of(), out, includeHeader);
+  }
+
+  /**
+   * Executes the template with bound parameters and writes CSV rows to the stream as UTF-8,
+   * applying the {@link ExportColumn#getFormat() format} of any column whose key matches a
+   * result set column label. Unformatted values are written as in {@code COPY ... CSV}.
+   *
+   * @param paramTypes declared export param types by name, used to type {@code null} values
+   * @param columns export column metadata supplying per-column formats
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      Map<String, String> paramTypes,
+      List<ExportColumn> columns,
+      OutputStream out,
+      boolean includeHeader) {
+    return export(template, params, paramTypes, columns, new CsvExportFormat(includeHeader), out);
+  }
+
+  /**
+   * Executes the template with bound parameters and streams the rows through an output format.
+   *
+   * @param paramTypes declared export param types by name, used to type {@code null} values
+   * @param columns export column metadata passed to the format
+   */
+  public long export(
+      SqlTemplate template,
+      Map<String, Object> params,
+      Map<String, String> paramTypes,
+      List<ExportColumn> columns,
+      ExportFormatWriter format,
+      OutputStream out) {
+    try (Connection conn = acquireConnection()) {
+      conn.setReadOnly(true);
+      // PostgreSQL only honours the fetch size, and so streams rows, outside autocommit.
+      conn.setAutoCommit(false);
+      ExportSnapshot.join(conn);
+      try (PreparedStatement statement = conn.prepareStatement(
+          positionalSql(template, params),
+          ResultSet.TYPE_FORWARD_ONLY,
+          ResultSet.CONCUR_READ_ONLY)) {
+        if (statement.isWrapperFor(PGStatement.class)) {
+          statement.unwrap(PGStatement.class).setPrepareThreshold(1);
+        }
+        statement.setFetchSize(fetchSize);
+        if (statementTimeout != null && !statementTimeout.isZero()) {
+          statement.setQueryTimeout(
+              (int) Math.max(1, (statementTimeout.toMillis() + 999) / 1000));
+        }
+        bind(statement, template.getSlots(), params, paramTypes);
+        long rows;
+        try (ExportCancellation.Registration cancel =
+            ExportCancellation.current().register(statement::cancel)) {
+          rows =
+              Observation.createNotStarted("laa.exports.query", observationRegistry)
+                  .lowCardinalityKeyValue("format", format.getName())
+                  .<Long, Exception>observeChecked(
+                      () -> writeRows(statement, columns, format, out));
+        }
+        conn.commit();
+        return rows;
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("Export failed", e);
+    }
+  }
+
+  private Connection acquireConnection() throws SQLException {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+
+  private static long writeRows(
+      PreparedStatement statement,
+      List<ExportColumn> columns,
+      ExportFormatWriter format,
+      OutputStream out) throws SQLException, IOException {
+    try (ResultSet resultSet = statement.executeQuery()) {
+      return format.write(resultSet, columns, out);
+    }
+  }
+
+  /**
+   * Returns the template's positional SQL, with a placeholder per value for collection params.
+   */
+  private static String positionalSql(SqlTemplate template, Map<String, Object> params) {
+    List<String> slots = template.getSlots();
+    if (slots.stream().noneMatch(name -> params.get(name) instanceof Collection<?>)) {
+      return template.getPositionalSql();
+    }
+    List<String> fragments = template.getFragments();
+    StringBuilder sql = new StringBuilder(fragments.get(0));
+    for (int i = 0; i < slots.size(); i++) {
+      if (params.get(slots.get(i)) instanceof Collection<?> values) {
+        sql.append(
+            values.isEmpty() ? "NULL" : String.join(", ", Collections.nCopies(values.size(), "?")));
+      } else {
+        sql.append('?');
+      }
+      sql.append(fragments.get(i + 1));
+    }
+    return sql.toString();
+  }
+
+  private static void bind(
+      PreparedStatement statement,
+      List<String> slots,
+      Map<String, Object> params,
+      Map<String, String> paramTypes) throws SQLException {
+    int index = 1;
+    for (String name : slots) {
+      Object value = params.get(name);
+      if (value instanceof Collection<?> values) {
+        for (Object item : values) {
+          bindValue(statement, index++, item, paramTypes.get(name));
+        }
+      } else {
+        bindValue(statement, index++, value, paramTypes.get(name));
+      }
+    }
+  }
+
+  private static void bindValue(
+      PreparedStatement statement, int index, Object value, String paramType)
+      throws SQLException {
+    if (value == null) {
+      statement.setNull(index, nullType(paramType));
+    } else if (value instanceof Enum<?> enumValue) {
+      statement.setString(index, enumValue.name());
+    } else if (value instanceof Instant instant) {
+      statement.setTimestamp(index, Timestamp.from(instant));
+    } else {
+      statement.setObject(index, value);
+    }
+  }
+
+  private static int nullType(String paramType) {
+    if (paramType == null) {
+      return Types.VARCHAR;
+    }
+    return switch (paramType) {
+      case "INT" -> Types.INTEGER;
+      case "LONG" -> Types.BIGINT;
+      case "BOOLEAN" -> Types.BOOLEAN;
+      case "DATE" -> Types.DATE;
+      default -> Types.VARCHAR;
+    };
+  }
+}
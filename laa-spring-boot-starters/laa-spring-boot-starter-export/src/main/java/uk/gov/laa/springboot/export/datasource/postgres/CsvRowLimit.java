@@ -0,0 +1,58 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+/**
+ * Counts the records of PostgreSQL COPY CSV output as it is written and finds where a row limit
+ * falls in it. A newline ends a record unless it is inside a quoted field; doubled quotes inside
+ * a field toggle the quoted state twice, so they need no special handling.
+ */
+final class CsvRowLimit {
+  private final long maxRows;
+  private boolean inHeader;
+  private boolean quoted;
+  private long rows;
+
+  /**
+   * Creates a limit.
+   *
+   * @param maxRows maximum number of data rows, or a negative number for no limit
+   * @param header whether the output starts with a header record, which is not counted
+   */
+  CsvRowLimit(long maxRows, boolean header) {
+    this.maxRows = maxRows;
+    this.inHeader = header;
+  }
+
+  /**
+   * Counts the records in {@code len} bytes of output and returns how many of those bytes are
+   * within the limit.
+   */
+  int accept(byte[] bytes, int off, int len) {
+    if (maxRows < 0) {
+      return len;
+    }
+    for (int i = 0; i < len; i++) {
+      if (isReached()) {
+        return i;
+      }
+      byte b = bytes[off + i];
+      if (b == '"') {
+        quoted = !quoted;
+      } else if (b == '\n' && !quoted) {
+        if (inHeader) {
+          inHeader = false;
+        } else {
+          rows++;
+        }
+      }
+    }
+    return len;
+  }
+
+  boolean isReached() {
+    return maxRows >= 0 && rows >= maxRows && !inHeader;
+  }
+
+  long getRows() {
+    return rows;
+  }
+}
@@ -0,0 +1,186 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Exports SQL results via PostgreSQL COPY in pages ordered by a unique key.
+ * Each page is bounded by key values rather than an offset, so it is found through the key's
+ * index, and its transaction is committed before the next page starts; no snapshot is held for
+ * the length of the export. An interrupted export can be continued after the last key value the
+ * client received, which a client reads from the last complete CSV row.
+ *
+ * <p>The key must be unique and not null. Rows are emitted in key order, and rows committed
+ * behind the current page while the export runs are not included.
+ *
+ * <p>The query's own {@code :maxRows} is rendered as {@code NULL}, since a key range cannot be
+ * pushed through a {@code LIMIT}. The limit is applied across pages instead, to the rows after
+ * {@code resumeAfter} in key order.
+ */
+public final class KeysetCopyExporter {
+  public static final int DEFAULT_PAGE_SIZE = 10_000;
+
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final String MAX_ROWS_PARAM = "maxRows";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+  private final String resumeKey;
+  private final int pageSize;
+  private final Duration statementTimeout;
+
+  /**
+   * Creates a keyset exporter.
+   *
+   * @param resumeKey unique, non-null column of the export query to page on
+   * @param pageSize number of rows copied per transaction
+   */
+  public KeysetCopyExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      String resumeKey,
+      int pageSize) {
+    this(dataSource, observationRegistry, resumeKey, pageSize, null);
+  }
+
+  /**
+   * Creates a keyset exporter whose statements are limited to the given duration.
+   *
+   * @param statementTimeout server-side limit for each page's statements, or {@code null}
+   */
+  public KeysetCopyExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      String resumeKey,
+      int pageSize,
+      Duration statementTimeout) {
+    if (resumeKey == null || !IDENTIFIER.matcher(resumeKey).matches()) {
+      throw new IllegalArgumentException("resumeKey must be a column name: " + resumeKey);
+    }
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+    }
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+    this.resumeKey = resumeKey;
+    this.pageSize = pageSize;
+    this.statementTimeout = statementTimeout;
+  }
+
+  /**
+   * Copies the rendered template to the stream as CSV, starting after the given key value, and
+   * returns the number of rows written.
+   *
+   * @param resumeAfter key value of the last row already received, or {@code null} to start
+   *     from the first row
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      String resumeAfter,
+      OutputStream out,
+      boolean includeHeader) {
+    long maxRows =
+        params.get(MAX_ROWS_PARAM) instanceof Number limit ? limit.longValue() : Long.MAX_VALUE;
+    Map<String, Object> unlimited = new HashMap<>(params);
+    unlimited.put(MAX_ROWS_PARAM, null);
+    String baseSql =
+        PostgresCopyExporter.stripTerminator(PostgresSqlRenderer.render(template, unlimited));
+    BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+    try (Connection conn = acquireConnection()) {
+      conn.setReadOnly(true);
+      conn.setAutoCommit(false);
+      String lower = resumeAfter;
+      boolean header = includeHeader;
+      long rows = 0;
+      while (true) {
+        // The last page is shortened so the export stops at maxRows.
+        int pageRows = (int) Math.min(pageSize, maxRows - rows);
+        ExportSnapshot.join(conn);
+        PostgresCopyExporter.setStatementTimeout(conn, statementTimeout);
+        try (ExportCancellation.Registration cancel =
+            PostgresCopyExporter.registerCancel(conn)) {
+          String upper = pageEnd(conn, baseSql, lower, pageRows);
+          String copySql =
+              PostgresCopyExporter.buildCopySql(pageSql(baseSql, lower, upper), header);
+          rows += copy(conn, copySql, buffered);
+          lower = upper;
+        }
+        conn.commit();
+        // Each complete page is flushed so the client holds a resumable prefix.
+        buffered.flush();
+        if (lower == null || rows >= maxRows) {
+          return rows;
+        }
+        header = false;
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("CSV export failed", e);
+    }
+  }
+
+  /**
+   * Returns the key value of the last row of a page of {@code pageRows} rows after
+   * {@code lower}, or {@code null} when the remaining rows fit in one page.
+   */
+  private String pageEnd(Connection conn, String baseSql, String lower, int pageRows)
+      throws SQLException {
+    String sql =
+        "select " + resumeKey + "::text from (" + baseSql + ") export_page"
+            + (lower == null ? "" : " where " + resumeKey + " > " + literal(lower))
+            + " order by " + resumeKey + " offset " + (pageRows - 1) + " limit 1";
+    try (Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      return resultSet.next() ? resultSet.getString(1) : null;
+    }
+  }
+
+  private String pageSql(String baseSql, String lower, String upper) {
+    StringBuilder sql =
+        new StringBuilder("select * from (").append(baseSql).append(") export_page");
+    if (lower != null) {
+      sql.append(" where ").append(resumeKey).append(" > ").append(literal(lower));
+    }
+    if (upper != null) {
+      sql.append(lower == null ? " where " : " and ")
+          .append(resumeKey)
+          .append(" <= ")
+          .append(literal(upper));
+    }
+    return sql.append(" order by ").append(resumeKey).toString();
+  }
+
+  /**
+   * Key values are rendered as quoted literals, which PostgreSQL coerces to the key's type.
+   */
+  private static String literal(String value) {
+    return PostgresSqlRenderer.literal(value);
+  }
+
+  private long copy(Connection conn, String copySql, OutputStream out) throws Exception {
+    return Observation.createNotStarted("laa.exports.copy", observationRegistry)
+        .<Long, Exception>observeChecked(
+            () -> conn.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, out));
+  }
+
+  private Connection acquireConnection() throws Exception {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+}
@@ -0,0 +1,377 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Exports SQL results via PostgreSQL COPY, split into key ranges that run concurrently.
+ * The range of the partition key is read first, then each range is copied on its own connection
+ * into a bounded buffer, and the buffers are drained in key order so the output is a single
+ * ordered CSV stream. All partitions read the same exported snapshot, so the output is as
+ * consistent as a single COPY.
+ *
+ * <p>The query's own {@code :maxRows} is rendered as {@code NULL} when it is split, since a
+ * range filter cannot be pushed through a {@code LIMIT}. The limit is applied to each range and
+ * to the stitched output instead, which keeps the first {@code maxRows} rows in key order.
+ */
+public final class PartitionedCopyExporter {
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final String MAX_ROWS_PARAM = "maxRows";
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int BUFFERED_CHUNKS = 16;
+  private static final byte[] END_OF_PARTITION = new byte[0];
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+  private final String partitionKey;
+  private final int partitions;
+  private final int parallelism;
+  private final Duration statementTimeout;
+
+  /**
+   * Creates a partitioned exporter.
+   *
+   * @param partitionKey integer or date column of the export query to split on
+   * @param partitions number of key ranges to split the query into
+   * @param parallelism maximum number of ranges copied at the same time
+   */
+  public PartitionedCopyExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      String partitionKey,
+      int partitions,
+      int parallelism) {
+    this(dataSource, observationRegistry, partitionKey, partitions, parallelism, null);
+  }
+
+  /**
+   * Creates a partitioned exporter whose statements are limited to the given duration.
+   *
+   * @param statementTimeout server-side limit for each statement, or {@code null} for none
+   */
+  public PartitionedCopyExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      String partitionKey,
+      int partitions,
+      int parallelism,
+      Duration statementTimeout) {
+    if (partitionKey == null || !IDENTIFIER.matcher(partitionKey).matches()) {
+      throw new IllegalArgumentException("partitionKey must be a column name: " + partitionKey);
+    }
+    if (partitions < 1 || parallelism < 1) {
+      throw new IllegalArgumentException("partitions and parallelism must be positive");
+    }
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+    this.partitionKey = partitionKey;
+    this.partitions = partitions;
+    this.parallelism = parallelism;
+    this.statementTimeout = statementTimeout;
+  }
+
+  /**
+   * Copies the rendered template to the stream as CSV and returns the number of rows written.
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      OutputStream out,
+      boolean includeHeader) {
+    long maxRows = maxRows(params);
+    Map<String, Object> unlimited = new HashMap<>(params);
+    unlimited.put(MAX_ROWS_PARAM, null);
+    String baseSql =
+        PostgresCopyExporter.stripTerminator(PostgresSqlRenderer.render(template, unlimited));
+    // Workers run on pool threads, so they register with the caller's cancellation.
+    ExportCancellation cancellation = ExportCancellation.current();
+    try (Connection coordinator = acquireConnection()) {
+      // Repeatable read keeps the snapshot alive until every partition has imported it.
+      coordinator.setReadOnly(true);
+      coordinator.setAutoCommit(false);
+      coordinator.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      ExportSnapshot.join(coordinator);
+      PostgresCopyExporter.setStatementTimeout(coordinator, statementTimeout);
+      long rows;
+      try (ExportCancellation.Registration cancel =
+          PostgresCopyExporter.registerCancel(cancellation, coordinator)) {
+        String snapshot = exportSnapshot(coordinator);
+        List<String> ranges = ranges(coordinator, baseSql);
+        if (ranges.isEmpty()) {
+          String copySql =
+              PostgresCopyExporter.buildCopySql(
+                  PostgresSqlRenderer.render(template, params), includeHeader);
+          BufferedOutputStream buffered = new BufferedOutputStream(out, CHUNK_SIZE);
+          rows = copy(coordinator, copySql, buffered);
+          buffered.flush();
+        } else {
+          rows =
+              copyPartitions(
+                  baseSql, ranges, maxRows, snapshot, cancellation, out, includeHeader);
+        }
+      }
+      coordinator.commit();
+      out.flush();
+      return rows;
+    } catch (Exception e) {
+      throw new RuntimeException("CSV export failed", e);
+    }
+  }
+
+  private long copyPartitions(
+      String baseSql,
+      List<String> ranges,
+      long maxRows,
+      String snapshot,
+      ExportCancellation cancellation,
+      OutputStream out,
+      boolean includeHeader) throws Exception {
+    ExecutorService executor =
+        Executors.newFixedThreadPool(Math.min(parallelism, ranges.size()), daemonThreads());
+    try {
+      List<PartitionBuffer> buffers = new ArrayList<>(ranges.size());
+      List<Future<Long>> results = new ArrayList<>(ranges.size());
+      for (int i = 0; i < ranges.size(); i++) {
+        String sql =
+            "select * from (" + baseSql + ") export_partition where " + ranges.get(i)
+                + (maxRows < 0 ? "" : " limit " + maxRows);
+        String copySql = PostgresCopyExporter.buildCopySql(sql, includeHeader && i == 0);
+        PartitionBuffer buffer = new PartitionBuffer();
+        buffers.add(buffer);
+        results.add(
+            executor.submit(() -> copyPartition(copySql, snapshot, cancellation, buffer)));
+      }
+      // Ranges are submitted in key order, so the partition being drained is always running.
+      CsvRowLimit limit = new CsvRowLimit(maxRows, includeHeader);
+      long rows = 0;
+      for (int i = 0; i < buffers.size(); i++) {
+        buffers.get(i).drainTo(out, limit);
+        if (limit.isReached()) {
+          // Later ranges are not needed; shutting down the pool cancels their COPY.
+          return limit.getRows();
+        }
+        rows += await(results.get(i));
+      }
+      return rows;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private long copyPartition(
+      String copySql, String snapshot, ExportCancellation cancellation, PartitionBuffer buffer)
+      throws Exception {
+    // The buffer is declared first so it is also closed, ending the drain, when no connection
+    // can be acquired.
+    try (OutputStream out = buffer; Connection conn = acquireConnection()) {
+      conn.setReadOnly(true);
+      conn.setAutoCommit(false);
+      conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      try (Statement statement = conn.createStatement()) {
+        statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+      }
+      PostgresCopyExporter.setStatementTimeout(conn, statementTimeout);
+      long rows;
+      try (ExportCancellation.Registration cancel =
+          PostgresCopyExporter.registerCancel(cancellation, conn)) {
+        rows = copy(conn, copySql, out);
+      }
+      conn.commit();
+      return rows;
+    }
+  }
+
+  private long copy(Connection conn, String copySql, OutputStream out) throws Exception {
+    return Observation.createNotStarted("laa.exports.copy", observationRegistry)
+        .<Long, Exception>observeChecked(
+            () -> conn.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, out));
+  }
+
+  private Connection acquireConnection() throws Exception {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+
+  private static String exportSnapshot(Connection conn) throws SQLException {
+    try (Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery("select pg_export_snapshot()")) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+
+  /**
+   * Returns one predicate per key range, or an empty list when the query should not be split.
+   * Rows with a null key are included in the first range.
+   */
+  private List<String> ranges(Connection conn, String baseSql) throws SQLException {
+    String boundsSql =
+        "select min(" + partitionKey + "), max(" + partitionKey + ") from ("
+            + baseSql + ") export_bounds";
+    long min;
+    long max;
+    boolean dates;
+    try (Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery(boundsSql)) {
+      resultSet.next();
+      int type = resultSet.getMetaData().getColumnType(1);
+      dates = type == Types.DATE;
+      if (!dates && type != Types.INTEGER && type != Types.BIGINT && type != Types.SMALLINT) {
+        throw new IllegalArgumentException(
+            "Partition key " + partitionKey + " must be an integer or date column");
+      }
+      if (resultSet.getObject(1) == null) {
+        return List.of();
+      }
+      min = dates ? resultSet.getObject(1, LocalDate.class).toEpochDay() : resultSet.getLong(1);
+      max = dates ? resultSet.getObject(2, LocalDate.class).toEpochDay() : resultSet.getLong(2);
+    }
+    long span = Math.addExact(Math.subtractExact(max, min), 1);
+    int count = (int) Math.min(partitions, span);
+    if (count < 2) {
+      return List.of();
+    }
+    List<String> ranges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      String lower = literal(boundary(min, span, count, i), dates);
+      String upper = literal(boundary(min, span, count, i + 1), dates);
+      if (i == 0) {
+        ranges.add("(" + partitionKey + " < " + upper + " or " + partitionKey + " is null)");
+      } else if (i == count - 1) {
+        ranges.add(partitionKey + " >= " + lower);
+      } else {
+        ranges.add(partitionKey + " >= " + lower + " and " + partitionKey + " < " + upper);
+      }
+    }
+    return ranges;
+  }
+
+  private static long boundary(long min, long span, int count, int index) {
+    return min + (span / count) * index + Math.min(index, span % count);
+  }
+
+  private static String literal(long value, boolean date) {
+    return date ? "date '" + LocalDate.ofEpochDay(value) + "'" : Long.toString(value);
+  }
+
+  /**
+   * Returns the request's row limit, or -1 when the query is not limited.
+   */
+  private static long maxRows(Map<String, Object> params) {
+    return params.get(MAX_ROWS_PARAM) instanceof Number maxRows ? maxRows.longValue() : -1;
+  }
+
+  private static long await(Future<Long> result) throws Exception {
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+
+  private static CustomizableThreadFactory daemonThreads() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("export-partition-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  /**
+   * Bounded hand-off of one partition's COPY output from its worker to the draining thread.
+   * Writers block once {@value #BUFFERED_CHUNKS} chunks are waiting, so memory use per partition
+   * is bounded regardless of how far ahead of the output the partition runs.
+   */
+  private static final class PartitionBuffer extends OutputStream {
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(BUFFERED_CHUNKS);
+    private byte[] chunk = new byte[CHUNK_SIZE];
+    private int length;
+
+    @Override
+    public void write(int b) throws IOException {
+      if (length == chunk.length) {
+        put(chunk);
+        chunk = new byte[CHUNK_SIZE];
+        length = 0;
+      }
+      chunk[length++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (length == chunk.length) {
+          put(chunk);
+          chunk = new byte[CHUNK_SIZE];
+          length = 0;
+        }
+        int n = Math.min(len, chunk.length - length);
+        System.arraycopy(b, off, chunk, length, n);
+        length += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    /**
+     * Hands over buffered bytes and marks the end of the partition, also after a failure.
+     */
+    @Override
+    public void close() throws IOException {
+      if (length > 0) {
+        put(Arrays.copyOf(chunk, length));
+        length = 0;
+      }
+      put(END_OF_PARTITION);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+      try {
+        chunks.put(bytes);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Export partition cancelled");
+      }
+    }
+
+    /**
+     * Writes the partition's output until it ends or the limit is reached.
+     */
+    private void drainTo(OutputStream out, CsvRowLimit limit)
+        throws IOException, InterruptedException {
+      for (byte[] bytes = chunks.take(); bytes != END_OF_PARTITION; bytes = chunks.take()) {
+        out.write(bytes, 0, limit.accept(bytes, 0, bytes.length));
+        if (limit.isReached()) {
+          return;
+        }
+      }
+    }
+  }
+}
@@ -1,38 +1,74 @@
 package uk.gov.laa.springboot.export.datasource.postgres;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
 import java.util.Map;
 import javax.sql.DataSource;
 import org.postgresql.PGConnection;
 import org.postgresql.copy.CopyManager;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Exports SQL results via PostgreSQL COPY ... TO STDOUT.
+ * The COPY is cancelled on the server when the export's {@link ExportCancellation} fires, and
+ * can be bounded by a {@code statement_timeout}.
  */
 public final class PostgresCopyExporter {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+  private final Duration statementTimeout;
 
   public PostgresCopyExporter(DataSource dataSource) {
+    this(dataSource, ObservationRegistry.NOOP);
+  }
+
+  /**
+   * Creates an exporter that observes connection acquisition and COPY execution.
+   */
+  public PostgresCopyExporter(DataSource dataSource, ObservationRegistry observationRegistry) {
+    this(dataSource, observationRegistry, null);
+  }
+
+  /**
+   * Creates an exporter whose COPY statements are limited to the given duration.
+   *
+   * @param statementTimeout server-side limit for each COPY, or {@code null} for none
+   */
+  public PostgresCopyExporter(
+      DataSource dataSource, ObservationRegistry observationRegistry, Duration statementTimeout) {
     this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+    this.statementTimeout = statementTimeout;
   }
 
   /**
    * Executes COPY TO STDOUT using rendered SQL and writes CSV to the writer.
+   * Prefer {@link #copyCsv(String, Map, OutputStream, boolean)}, which avoids decoding
+   * the COPY stream to characters.
    */
   public long copyCsv(
       String sql,
       Map<String, Object> params,
       Writer writer,
       boolean includeHeader) {
-    String rendered = PostgresSqlRenderer.render(sql, params);
-    String copySql = buildCopySql(rendered, includeHeader);
-    try (Connection conn = dataSource.getConnection()) {
-      conn.setReadOnly(true);
-      conn.setAutoCommit(false);
-      PGConnection pgConnection = conn.unwrap(PGConnection.class);
-      CopyManager copyManager = pgConnection.getCopyAPI();
-      long rows = copyManager.copyOut(copySql, writer);
+    String copySql = buildCopySql(PostgresSqlRenderer.render(sql, params), includeHeader);
+    try (Connection conn = acquireConnection()) {
+      CopyManager copyManager = beginCopy(conn);
+      long rows;
+      try (ExportCancellation.Registration cancel = registerCancel(conn)) {
+        rows = observeCopy(() -> copyManager.copyOut(copySql, writer));
+      }
       conn.commit();
       return rows;
     } catch (Exception e) {
@@ -40,12 +76,101 @@ public final class PostgresCopyExporter {
     }
   }
 
-  private String buildCopySql(String renderedSql, boolean includeHeader) {
+  /**
+   * Executes COPY TO STDOUT using rendered SQL and writes the raw CSV bytes to the stream.
+   * The server's UTF-8 COPY buffers are copied as-is, without character decoding.
+   */
+  public long copyCsv(
+      String sql,
+      Map<String, Object> params,
+      OutputStream out,
+      boolean includeHeader) {
+    return copyCsv(SqlTemplate.compile(sql), params, out, includeHeader);
+  }
+
+  /**
+   * Executes COPY TO STDOUT for a precompiled SQL template and writes the raw CSV bytes to the
+   * stream. Rendering is a single pass over the template's fragments, with no SQL parsing.
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      OutputStream out,
+      boolean includeHeader) {
+    String copySql = buildCopySql(PostgresSqlRenderer.render(template, params), includeHeader);
+    try (Connection conn = acquireConnection()) {
+      CopyManager copyManager = beginCopy(conn);
+      BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+      long rows;
+      try (ExportCancellation.Registration cancel = registerCancel(conn)) {
+        rows = observeCopy(() -> copyManager.copyOut(copySql, buffered));
+      }
+      buffered.flush();
+      conn.commit();
+      return rows;
+    } catch (Exception e) {
+      throw new RuntimeException("CSV export failed", e);
+    }
+  }
+
+  private Connection acquireConnection() throws Exception {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+
+  private long observeCopy(Observation.CheckedCallable<Long, Exception> copy) throws Exception {
+    return Observation.createNotStarted("laa.exports.copy", observationRegistry)
+        .observeChecked(copy);
+  }
+
+  private CopyManager beginCopy(Connection conn) throws Exception {
+    conn.setReadOnly(true);
+    conn.setAutoCommit(false);
+    ExportSnapshot.join(conn);
+    setStatementTimeout(conn, statementTimeout);
+    PGConnection pgConnection = conn.unwrap(PGConnection.class);
+    return pgConnection.getCopyAPI();
+  }
+
+  /**
+   * Limits statements in the connection's current transaction to the given duration.
+   * Must run inside a transaction; the setting ends with it.
+   */
+  static void setStatementTimeout(Connection conn, Duration statementTimeout)
+      throws SQLException {
+    if (statementTimeout == null || statementTimeout.isZero()) {
+      return;
+    }
+    try (Statement statement = conn.createStatement()) {
+      statement.execute(
+          "SET LOCAL statement_timeout = " + Math.max(1, statementTimeout.toMillis()));
+    }
+  }
+
+  /**
+   * Registers a server-side cancel of the connection's running statement with the current
+   * export's cancellation.
+   */
+  static ExportCancellation.Registration registerCancel(Connection conn) throws SQLException {
+    return registerCancel(ExportCancellation.current(), conn);
+  }
+
+  static ExportCancellation.Registration registerCancel(
+      ExportCancellation cancellation, Connection conn) throws SQLException {
+    PGConnection pgConnection = conn.unwrap(PGConnection.class);
+    return cancellation.register(pgConnection::cancelQuery);
+  }
+
+  static String buildCopySql(String renderedSql, boolean includeHeader) {
+    String headerClause = includeHeader ? " HEADER" : "";
+    return "COPY (" + stripTerminator(renderedSql) + ") TO STDOUT WITH CSV" + headerClause;
+  }
+
+  static String stripTerminator(String renderedSql) {
     String baseSql = renderedSql == null ? "" : renderedSql.trim();
     if (baseSql.endsWith(";")) {
       baseSql = baseSql.substring(0, baseSql.length() - 1);
     }
-    String headerClause = includeHeader ? " HEADER" : "";
-    return "COPY (" + baseSql + ") TO STDOUT WITH CSV" + headerClause;
+    return baseSql;
   }
 }
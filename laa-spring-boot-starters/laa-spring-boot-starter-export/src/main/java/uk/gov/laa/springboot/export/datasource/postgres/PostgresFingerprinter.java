@@ -0,0 +1,64 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Runs an export's freshness query, such as {@code select max(updated_at), count(*) from
+ * books}, and returns its first row as a fingerprint of the export's data.
+ *
+ * <p>The query should be far cheaper than the export itself, typically an index-backed
+ * aggregate over the export's source tables.
+ */
+public final class PostgresFingerprinter {
+  private static final char SEPARATOR = '\u001f';
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+
+  public PostgresFingerprinter(DataSource dataSource, ObservationRegistry observationRegistry) {
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+  }
+
+  /**
+   * Runs the rendered template and returns the text of every column of its first row, or an
+   * empty string when it returns no rows.
+   */
+  public String fingerprint(SqlTemplate template, Map<String, Object> params) {
+    String sql =
+        PostgresCopyExporter.stripTerminator(PostgresSqlRenderer.render(template, params));
+    try {
+      return Observation.createNotStarted("laa.exports.fingerprint", observationRegistry)
+          .observeChecked(() -> query(sql));
+    } catch (Exception e) {
+      throw new RuntimeException("Export fingerprint failed", e);
+    }
+  }
+
+  private String query(String sql) throws Exception {
+    try (Connection conn = dataSource.getConnection()) {
+      conn.setReadOnly(true);
+      try (Statement statement = conn.createStatement();
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        StringBuilder fingerprint = new StringBuilder();
+        if (resultSet.next()) {
+          int columns = resultSet.getMetaData().getColumnCount();
+          for (int i = 1; i <= columns; i++) {
+            if (i > 1) {
+              fingerprint.append(SEPARATOR);
+            }
+            fingerprint.append(resultSet.getString(i));
+          }
+        }
+        return fingerprint.toString();
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Estimates export sizes from PostgreSQL's {@code EXPLAIN (FORMAT JSON)} plan.
+ * The query is planned but not executed.
+ */
+public final class PostgresPlanEstimator {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+
+  public PostgresPlanEstimator(DataSource dataSource, ObservationRegistry observationRegistry) {
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+  }
+
+  /**
+   * Plans the rendered template and returns its estimated size.
+   *
+   * @param maxRows row limit applied to the export
+   */
+  public ExportEstimate estimate(SqlTemplate template, Map<String, Object> params, int maxRows) {
+    String sql =
+        "EXPLAIN (FORMAT JSON) "
+            + PostgresCopyExporter.stripTerminator(PostgresSqlRenderer.render(template, params));
+    try {
+      String plan =
+          Observation.createNotStarted("laa.exports.estimate", observationRegistry)
+              .observeChecked(() -> explain(sql));
+      return parse(plan, maxRows);
+    } catch (Exception e) {
+      throw new RuntimeException("Export estimate failed", e);
+    }
+  }
+
+  private String explain(String sql) throws Exception {
+    try (Connection conn = dataSource.getConnection()) {
+      conn.setReadOnly(true);
+      try (Statement statement = conn.createStatement();
+          ResultSet resultSet = statement.executeQuery(sql)) {
+        resultSet.next();
+        return resultSet.getString(1);
+      }
+    }
+  }
+
+  /**
+   * Reads the estimate from the top plan node. When the top node is the export's
+   * {@code LIMIT}, its input's row estimate is used, so the estimate shows whether the
+   * limit would truncate the export.
+   */
+  static ExportEstimate parse(String json, int maxRows) throws Exception {
+    JsonNode plan = MAPPER.readTree(json).path(0).path("Plan");
+    JsonNode rowsNode = plan;
+    if ("Limit".equals(plan.path("Node Type").asText()) && plan.path("Plans").size() > 0) {
+      rowsNode = plan.path("Plans").path(0);
+    }
+    return new ExportEstimate(
+        Math.round(rowsNode.path("Plan Rows").asDouble()),
+        maxRows,
+        plan.path("Plan Width").asInt(),
+        plan.path("Total Cost").asDouble());
+  }
+}
@@ -5,82 +5,101 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.StringJoiner;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Renders named-parameter SQL into a PostgreSQL COPY-ready statement.
  */
 public final class PostgresSqlRenderer {
-
-  private static final Pattern PARAM_PATTERN =
-      Pattern.compile("(?<!:):([A-Za-z_][A-Za-z0-9_]*)");
+  private static final int ESTIMATED_LITERAL_LENGTH = 16;
 
   private PostgresSqlRenderer() {}
 
   /**
    * Renders named parameters into SQL literals for COPY execution.
+   * Prefer {@link #render(SqlTemplate, Map)} with a template compiled once up front.
    */
   public static String render(String sql, Map<String, Object> params) {
     if (sql == null || sql.isBlank()) {
       return sql;
     }
+    return render(SqlTemplate.compile(sql), params);
+  }
+
+  /**
+   * Renders a precompiled template in a single pass over its fragments and slots.
+   * Parameters that have no value are rendered as {@code NULL}.
+   */
+  public static String render(SqlTemplate template, Map<String, Object> params) {
     Map<String, Object> safeParams = params == null ? Map.of() : params;
-    Matcher matcher = PARAM_PATTERN.matcher(sql);
-    StringBuffer sb = new StringBuffer();
-    while (matcher.find()) {
-      String name = matcher.group(1);
-      Object value = safeParams.get(name);
-      String literal = formatValue(value);
-      matcher.appendReplacement(sb, Matcher.quoteReplacement(literal));
+    List<String> fragments = template.getFragments();
+    List<String> slots = template.getSlots();
+    StringBuilder sb =
+        new StringBuilder(template.getSql().length() + slots.size() * ESTIMATED_LITERAL_LENGTH);
+    sb.append(fragments.get(0));
+    for (int i = 0; i < slots.size(); i++) {
+      appendValue(sb, safeParams.get(slots.get(i)));
+      sb.append(fragments.get(i + 1));
     }
-    matcher.appendTail(sb);
     return sb.toString();
   }
 
-  private static String formatValue(Object value) {
+  /**
+   * Renders a single value as a SQL literal.
+   */
+  static String literal(Object value) {
+    StringBuilder sb = new StringBuilder(ESTIMATED_LITERAL_LENGTH);
+    appendValue(sb, value);
+    return sb.toString();
+  }
+
+  private static void appendValue(StringBuilder sb, Object value) {
     if (value == null) {
-      return "NULL";
-    }
-    if (value instanceof Number) {
-      return value.toString();
-    }
-    if (value instanceof Boolean bool) {
-      return bool ? "TRUE" : "FALSE";
-    }
-    if (value instanceof LocalDate date) {
-      return quote(date.format(DateTimeFormatter.ISO_LOCAL_DATE));
-    }
-    if (value instanceof Instant instant) {
-      return quote(DateTimeFormatter.ISO_INSTANT.format(instant));
-    }
-    if (value instanceof OffsetDateTime offsetDateTime) {
-      return quote(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(offsetDateTime));
-    }
-    if (value instanceof UUID) {
-      return quote(value.toString());
-    }
-    if (value instanceof Enum<?> enumValue) {
-      return quote(enumValue.name());
-    }
-    if (value instanceof Collection<?> collection) {
+      sb.append("NULL");
+    } else if (value instanceof Number) {
+      sb.append(value);
+    } else if (value instanceof Boolean bool) {
+      sb.append(bool ? "TRUE" : "FALSE");
+    } else if (value instanceof LocalDate date) {
+      appendQuoted(sb, date.format(DateTimeFormatter.ISO_LOCAL_DATE));
+    } else if (value instanceof Instant instant) {
+      appendQuoted(sb, DateTimeFormatter.ISO_INSTANT.format(instant));
+    } else if (value instanceof OffsetDateTime offsetDateTime) {
+      appendQuoted(sb, DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(offsetDateTime));
+    } else if (value instanceof UUID) {
+      appendQuoted(sb, value.toString());
+    } else if (value instanceof Enum<?> enumValue) {
+      appendQuoted(sb, enumValue.name());
+    } else if (value instanceof Collection<?> collection) {
       if (collection.isEmpty()) {
-        return "NULL";
+        sb.append("NULL");
+        return;
       }
-      StringJoiner joiner = new StringJoiner(", ");
+      boolean first = true;
       for (Object item : collection) {
-        joiner.add(formatValue(item));
+        if (!first) {
+          sb.append(", ");
+        }
+        appendValue(sb, item);
+        first = false;
       }
-      return joiner.toString();
+    } else {
+      appendQuoted(sb, value.toString());
     }
-    return quote(value.toString());
   }
 
-  private static String quote(String value) {
-    String escaped = value == null ? "" : value.replace("'", "''");
-    return "'" + escaped + "'";
+  private static void appendQuoted(StringBuilder sb, String value) {
+    sb.append('\'');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\'') {
+        sb.append('\'');
+      }
+      sb.append(c);
+    }
+    sb.append('\'');
   }
 }
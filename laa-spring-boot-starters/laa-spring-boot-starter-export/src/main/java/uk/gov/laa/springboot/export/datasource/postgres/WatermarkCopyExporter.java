@@ -0,0 +1,185 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import org.postgresql.PGConnection;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+/**
+ * Exports only the rows whose watermark column, such as {@code updated_at}, falls after a
+ * client's previous watermark, via PostgreSQL COPY.
+ *
+ * <p>The upper bound of each delta is fixed before any rows are written, by
+ * {@link #nextWatermark}, so it can be returned to the client with the response headers and
+ * passed back as the lower bound of the next request. The bound is the watermark of the
+ * {@code maxRows}th newer row, so a large backlog is drained over several requests; rows sharing
+ * the bound's value are all included, which can take a delta slightly over {@code maxRows}. The
+ * query's own {@code :maxRows} is rendered as {@code NULL} so the cap applies to the delta
+ * rather than to the unfiltered rows.
+ *
+ * <p>A row whose watermark is at or below a bound already handed out is not exported again, so
+ * the column must only ever move forward and should be set no earlier than the row's commit.
+ */
+public final class WatermarkCopyExporter {
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+  private static final String MAX_ROWS_PARAM = "maxRows";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataSource dataSource;
+  private final ObservationRegistry observationRegistry;
+  private final String watermarkColumn;
+  private final Duration statementTimeout;
+
+  /**
+   * Creates a watermark exporter.
+   *
+   * @param watermarkColumn non-null column of the export query that increases when a row changes
+   */
+  public WatermarkCopyExporter(
+      DataSource dataSource, ObservationRegistry observationRegistry, String watermarkColumn) {
+    this(dataSource, observationRegistry, watermarkColumn, null);
+  }
+
+  /**
+   * Creates a watermark exporter whose statements are limited to the given duration.
+   *
+   * @param statementTimeout server-side limit for each statement, or {@code null}
+   */
+  public WatermarkCopyExporter(
+      DataSource dataSource,
+      ObservationRegistry observationRegistry,
+      String watermarkColumn,
+      Duration statementTimeout) {
+    if (watermarkColumn == null || !IDENTIFIER.matcher(watermarkColumn).matches()) {
+      throw new IllegalArgumentException(
+          "watermarkColumn must be a column name: " + watermarkColumn);
+    }
+    this.dataSource = dataSource;
+    this.observationRegistry = observationRegistry;
+    this.watermarkColumn = watermarkColumn;
+    this.statementTimeout = statementTimeout;
+  }
+
+  /**
+   * Returns the watermark the next delta runs up to, or {@code null} when no row is newer than
+   * {@code since}.
+   *
+   * @param since watermark of the client's previous delta, or {@code null} for a full export
+   */
+  public String nextWatermark(
+      SqlTemplate template, Map<String, Object> params, String since, int maxRows) {
+    String baseSql = baseSql(template, params);
+    String newer =
+        "from (" + baseSql + ") export_delta"
+            + (since == null ? "" : " where " + watermarkColumn + " > " + literal(since));
+    try (Connection conn = acquireConnection()) {
+      conn.setReadOnly(true);
+      conn.setAutoCommit(false);
+      PostgresCopyExporter.setStatementTimeout(conn, statementTimeout);
+      String bound;
+      try (ExportCancellation.Registration cancel = PostgresCopyExporter.registerCancel(conn)) {
+        bound =
+            queryText(
+                conn,
+                "select " + watermarkColumn + "::text " + newer + " order by " + watermarkColumn
+                    + " offset " + (Math.max(maxRows, 1) - 1) + " limit 1");
+        if (bound == null) {
+          bound = queryText(conn, "select max(" + watermarkColumn + ")::text " + newer);
+        }
+      }
+      conn.commit();
+      return bound;
+    } catch (Exception e) {
+      throw new RuntimeException("Watermark lookup failed", e);
+    }
+  }
+
+  /**
+   * Copies the rows with a watermark after {@code since} and up to {@code until} to the stream
+   * as CSV, in watermark order, and returns the number of rows written.
+   *
+   * @param since watermark of the client's previous delta, or {@code null} for a full export
+   * @param until watermark returned by {@link #nextWatermark}, or {@code null} for no bound
+   */
+  public long copyCsv(
+      SqlTemplate template,
+      Map<String, Object> params,
+      String since,
+      String until,
+      OutputStream out,
+      boolean includeHeader) {
+    StringBuilder sql =
+        new StringBuilder("select * from (")
+            .append(baseSql(template, params))
+            .append(") export_delta");
+    if (since != null) {
+      sql.append(" where ").append(watermarkColumn).append(" > ").append(literal(since));
+    }
+    if (until != null) {
+      sql.append(since == null ? " where " : " and ")
+          .append(watermarkColumn)
+          .append(" <= ")
+          .append(literal(until));
+    }
+    sql.append(" order by ").append(watermarkColumn);
+    String copySql = PostgresCopyExporter.buildCopySql(sql.toString(), includeHeader);
+    BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+    try (Connection conn = acquireConnection()) {
+      conn.setReadOnly(true);
+      conn.setAutoCommit(false);
+      PostgresCopyExporter.setStatementTimeout(conn, statementTimeout);
+      long rows;
+      try (ExportCancellation.Registration cancel = PostgresCopyExporter.registerCancel(conn)) {
+        rows = copy(conn, copySql, buffered);
+      }
+      buffered.flush();
+      conn.commit();
+      return rows;
+    } catch (Exception e) {
+      throw new RuntimeException("CSV export failed", e);
+    }
+  }
+
+  private static String baseSql(SqlTemplate template, Map<String, Object> params) {
+    Map<String, Object> unlimited = new HashMap<>(params);
+    unlimited.put(MAX_ROWS_PARAM, null);
+    return PostgresCopyExporter.stripTerminator(PostgresSqlRenderer.render(template, unlimited));
+  }
+
+  /**
+   * Watermark values are rendered as quoted literals, which PostgreSQL coerces to the column's
+   * type.
+   */
+  private static String literal(String value) {
+    return PostgresSqlRenderer.literal(value);
+  }
+
+  private static String queryText(Connection conn, String sql) throws Exception {
+    try (Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      return resultSet.next() ? resultSet.getString(1) : null;
+    }
+  }
+
+  private long copy(Connection conn, String copySql, OutputStream out) throws Exception {
+    return Observation.createNotStarted("laa.exports.copy", observationRegistry)
+        .<Long, Exception>observeChecked(
+            () -> conn.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, out));
+  }
+
+  private Connection acquireConnection() throws Exception {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+}
@@ -0,0 +1,165 @@
+package uk.gov.laa.springboot.export.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.arrow.adapter.jdbc.ArrowVectorIterator;
+import org.apache.arrow.adapter.jdbc.JdbcFieldInfo;
+import org.apache.arrow.adapter.jdbc.JdbcToArrow;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfig;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfigBuilder;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowUtils;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorLoader;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+/**
+ * Writes result set rows in the Apache Arrow IPC streaming format.
+ * Column types are derived from the result set metadata and rows are converted in record
+ * batches of a fixed size, so memory use is bounded by the batch size rather than the export.
+ * The output can be read with {@code pyarrow.ipc.open_stream} or Spark's Arrow readers.
+ *
+ * <p>Fields are named after the column {@link ExportColumn#getHeader() header overrides}, falling
+ * back to the column label. Types Arrow has no mapping for, such as PostgreSQL {@code json} and
+ * {@code jsonb}, and {@code numeric} columns without a declared precision are written as UTF-8
+ * text.
+ */
+public final class ArrowExportFormat implements ExportFormatWriter, AutoCloseable {
+  public static final String NAME = "arrow";
+
+  /** Widest precision the 256-bit Arrow decimal holds. */
+  private static final int MAX_DECIMAL_PRECISION = 76;
+
+  private final BufferAllocator allocator = new RootAllocator();
+  private final int batchSize;
+
+  /**
+   * Creates an Arrow writer.
+   *
+   * @param batchSize number of rows per record batch
+   */
+  public ArrowExportFormat(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getMediaType() {
+    return "application/vnd.apache.arrow.stream";
+  }
+
+  @Override
+  public String getFileExtension() {
+    return "arrows";
+  }
+
+  @Override
+  public long write(ResultSet resultSet, List<ExportColumn> columns, OutputStream out)
+      throws SQLException, IOException {
+    try (BufferAllocator exportAllocator =
+        allocator.newChildAllocator("export", 0, Long.MAX_VALUE)) {
+      Calendar calendar = JdbcToArrowUtils.getUtcCalendar();
+      JdbcToArrowConfig config =
+          new JdbcToArrowConfigBuilder(exportAllocator, calendar)
+              .setTargetBatchSize(batchSize)
+              .setJdbcToArrowTypeConverter(field -> arrowType(field, calendar))
+              .build();
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      Schema schema =
+          rename(JdbcToArrowUtils.jdbcToArrowSchema(metaData, config), metaData, columns);
+      long rows = 0;
+      try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, exportAllocator);
+          ArrowVectorIterator batches = JdbcToArrow.sqlToArrowVectorIterator(resultSet, config)) {
+        // The stream writer owns a fixed root, so each converted batch is moved into it.
+        ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out);
+        VectorLoader loader = new VectorLoader(root);
+        writer.start();
+        while (batches.hasNext()) {
+          try (VectorSchemaRoot batch = batches.next();
+              ArrowRecordBatch recordBatch = new VectorUnloader(batch).getRecordBatch()) {
+            loader.load(recordBatch);
+            writer.writeBatch();
+            rows += batch.getRowCount();
+          }
+        }
+        // end() rather than close(), which would also close the response stream.
+        writer.end();
+      }
+      out.flush();
+      return rows;
+    }
+  }
+
+  private static ArrowType arrowType(JdbcFieldInfo field, Calendar calendar) {
+    return switch (field.getJdbcType()) {
+      case Types.OTHER -> ArrowType.Utf8.INSTANCE;
+      case Types.TIMESTAMP_WITH_TIMEZONE ->
+          new ArrowType.Timestamp(TimeUnit.MILLISECOND, calendar.getTimeZone().getID());
+      // An unconstrained numeric reports no usable precision, and its values can have any scale.
+      case Types.NUMERIC, Types.DECIMAL ->
+          field.getPrecision() <= 0 || field.getPrecision() > MAX_DECIMAL_PRECISION
+              ? ArrowType.Utf8.INSTANCE
+              : JdbcToArrowUtils.getArrowTypeFromJdbcType(field, calendar);
+      default -> JdbcToArrowUtils.getArrowTypeFromJdbcType(field, calendar);
+    };
+  }
+
+  /**
+   * Renames fields after their header overrides. Batches are loaded into the renamed root by
+   * position, so the converted vectors keep their own names.
+   */
+  private static Schema rename(
+      Schema schema, ResultSetMetaData metaData, List<ExportColumn> columns)
+      throws SQLException {
+    Map<String, String> headers = new HashMap<>();
+    if (columns != null) {
+      for (ExportColumn column : columns) {
+        if (column.getHeader() != null && !column.getHeader().isBlank()) {
+          headers.put(column.getKey().toLowerCase(Locale.ROOT), column.getHeader());
+        }
+      }
+    }
+    if (headers.isEmpty()) {
+      return schema;
+    }
+    List<Field> fields = new ArrayList<>(schema.getFields().size());
+    for (int i = 0; i < schema.getFields().size(); i++) {
+      Field field = schema.getFields().get(i);
+      String header = headers.get(metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT));
+      fields.add(
+          header == null ? field : new Field(header, field.getFieldType(), field.getChildren()));
+    }
+    return new Schema(fields, schema.getCustomMetadata());
+  }
+
+  @Override
+  public void close() {
+    allocator.close();
+  }
+}
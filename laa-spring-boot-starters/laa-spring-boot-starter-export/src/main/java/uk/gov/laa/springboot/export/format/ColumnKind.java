@@ -0,0 +1,41 @@
+package uk.gov.laa.springboot.export.format;
+
+import java.sql.Types;
+
+/**
+ * How a result set column is read and written by the typed output formats.
+ */
+enum ColumnKind {
+  INTEGER,
+  DECIMAL,
+  DOUBLE,
+  BOOLEAN,
+  DATE,
+  TIME,
+  TIMESTAMP,
+  OFFSET_TIMESTAMP,
+  RAW_JSON,
+  STRING;
+
+  /**
+   * Returns the kind for a column's JDBC type and database type name.
+   */
+  static ColumnKind of(int sqlType, String typeName) {
+    return switch (sqlType) {
+      case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> INTEGER;
+      case Types.NUMERIC, Types.DECIMAL -> DECIMAL;
+      case Types.DOUBLE, Types.FLOAT, Types.REAL -> DOUBLE;
+      case Types.BOOLEAN, Types.BIT -> BOOLEAN;
+      case Types.DATE -> DATE;
+      case Types.TIME -> TIME;
+      // PostgreSQL reports timestamptz as TIMESTAMP, so the type name decides the Java type.
+      case Types.TIMESTAMP ->
+          "timestamptz".equalsIgnoreCase(typeName) ? OFFSET_TIMESTAMP : TIMESTAMP;
+      case Types.TIMESTAMP_WITH_TIMEZONE -> OFFSET_TIMESTAMP;
+      default ->
+          "json".equalsIgnoreCase(typeName) || "jsonb".equalsIgnoreCase(typeName)
+              ? RAW_JSON
+              : STRING;
+    };
+  }
+}
@@ -0,0 +1,197 @@
+package uk.gov.laa.springboot.export.format;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.io.SerializedString;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+/**
+ * Writes result set rows as JSON objects, either one per line (NDJSON) or as a single array.
+ * Field names are the column headers, so {@link ExportColumn#getHeader() header} overrides
+ * rename fields. Values keep their SQL type: numbers and booleans are written as JSON numbers
+ * and booleans, dates and timestamps as ISO-8601 strings, and PostgreSQL {@code json} and
+ * {@code jsonb} columns as embedded JSON. Column {@link ExportColumn#getFormat() formats} only
+ * apply to CSV.
+ */
+public final class JsonExportFormat implements ExportFormatWriter {
+  public static final String NDJSON = "ndjson";
+  public static final String JSON = "json";
+
+  private static final JsonFactory JSON_FACTORY =
+      JsonFactory.builder().disable(StreamWriteFeature.AUTO_CLOSE_TARGET).build();
+
+  private final boolean lines;
+
+  private JsonExportFormat(boolean lines) {
+    this.lines = lines;
+  }
+
+  /**
+   * Returns the newline-delimited format, which consumers can parse one row at a time.
+   */
+  public static JsonExportFormat ndjson() {
+    return new JsonExportFormat(true);
+  }
+
+  /**
+   * Returns the format that writes all rows as elements of one JSON array.
+   */
+  public static JsonExportFormat array() {
+    return new JsonExportFormat(false);
+  }
+
+  @Override
+  public String getName() {
+    return lines ? NDJSON : JSON;
+  }
+
+  @Override
+  public String getMediaType() {
+    return lines ? "application/x-ndjson" : "application/json";
+  }
+
+  @Override
+  public String getFileExtension() {
+    return lines ? NDJSON : JSON;
+  }
+
+  @Override
+  public long write(ResultSet resultSet, List<ExportColumn> columns, OutputStream out)
+      throws SQLException, IOException {
+    Field[] fields = resolveFields(resultSet.getMetaData(), columns);
+    long rows = 0;
+    try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+      // Rows are separated explicitly, so Jackson must not add its own root separator.
+      generator.setRootValueSeparator(null);
+      if (!lines) {
+        generator.writeStartArray();
+      }
+      while (resultSet.next()) {
+        generator.writeStartObject();
+        for (int i = 0; i < fields.length; i++) {
+          generator.writeFieldName(fields[i].name);
+          writeValue(generator, resultSet, i + 1, fields[i].kind);
+        }
+        generator.writeEndObject();
+        if (lines) {
+          generator.writeRaw('\n');
+        }
+        rows++;
+      }
+      if (!lines) {
+        generator.writeEndArray();
+      }
+    }
+    out.flush();
+    return rows;
+  }
+
+  private static Field[] resolveFields(ResultSetMetaData metaData, List<ExportColumn> columns)
+      throws SQLException {
+    Map<String, String> headers = new HashMap<>();
+    if (columns != null) {
+      for (ExportColumn column : columns) {
+        if (column.getHeader() != null && !column.getHeader().isBlank()) {
+          headers.put(column.getKey().toLowerCase(Locale.ROOT), column.getHeader());
+        }
+      }
+    }
+    Field[] fields = new Field[metaData.getColumnCount()];
+    for (int i = 0; i < fields.length; i++) {
+      String label = metaData.getColumnLabel(i + 1);
+      String name = headers.getOrDefault(label.toLowerCase(Locale.ROOT), label);
+      ColumnKind kind =
+          ColumnKind.of(metaData.getColumnType(i + 1), metaData.getColumnTypeName(i + 1));
+      fields[i] = new Field(new SerializedString(name), kind);
+    }
+    return fields;
+  }
+
+  private static void writeValue(
+      JsonGenerator generator, ResultSet resultSet, int column, ColumnKind kind)
+      throws SQLException, IOException {
+    switch (kind) {
+      case INTEGER -> {
+        long value = resultSet.getLong(column);
+        if (resultSet.wasNull()) {
+          generator.writeNull();
+        } else {
+          generator.writeNumber(value);
+        }
+      }
+      case DOUBLE -> {
+        double value = resultSet.getDouble(column);
+        if (resultSet.wasNull()) {
+          generator.writeNull();
+        } else {
+          generator.writeNumber(value);
+        }
+      }
+      case BOOLEAN -> {
+        boolean value = resultSet.getBoolean(column);
+        if (resultSet.wasNull()) {
+          generator.writeNull();
+        } else {
+          generator.writeBoolean(value);
+        }
+      }
+      case DECIMAL -> {
+        BigDecimal value = resultSet.getBigDecimal(column);
+        if (value == null) {
+          generator.writeNull();
+        } else {
+          generator.writeNumber(value);
+        }
+      }
+      case DATE -> writeString(generator, resultSet.getObject(column, LocalDate.class));
+      case TIME -> writeString(generator, resultSet.getObject(column, LocalTime.class));
+      case TIMESTAMP -> writeString(generator, resultSet.getObject(column, LocalDateTime.class));
+      case OFFSET_TIMESTAMP ->
+          writeString(generator, resultSet.getObject(column, OffsetDateTime.class));
+      case RAW_JSON -> {
+        String value = resultSet.getString(column);
+        if (value == null) {
+          generator.writeNull();
+        } else {
+          generator.writeRawValue(value);
+        }
+      }
+      default -> generator.writeString(resultSet.getString(column));
+    }
+  }
+
+  private static void writeString(JsonGenerator generator, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeString(value.toString());
+    }
+  }
+
+  private static final class Field {
+    private final SerializedString name;
+    private final ColumnKind kind;
+
+    private Field(SerializedString name, ColumnKind kind) {
+      this.name = name;
+      this.kind = kind;
+    }
+  }
+}
@@ -0,0 +1,284 @@
+package uk.gov.laa.springboot.export.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+/**
+ * Writes result set rows as an Excel workbook using Apache POI's streaming SXSSF writer.
+ * Only a fixed window of rows is kept in memory; older rows are flushed to a compressed
+ * temporary file, and the workbook is written to the output once the result set is exhausted.
+ * Cells are typed from the result set metadata, so numbers, dates and booleans stay typed in
+ * Excel while text such as reference numbers keeps its leading zeros. The first row holds the
+ * column headers, and rows beyond Excel's sheet limit continue on further sheets.
+ */
+public final class XlsxExportFormat implements ExportFormatWriter {
+  public static final String NAME = "xlsx";
+
+  private static final int MAX_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows();
+  // Excel stores numbers as doubles, so integers beyond 15 digits are written as text.
+  private static final long MAX_EXACT_NUMBER = 999_999_999_999_999L;
+  private static final int MAX_EXACT_DIGITS = 15;
+  private static final double SECONDS_PER_DAY = 86_400d;
+
+  private final int windowSize;
+  private final int maxRowsPerSheet;
+
+  /**
+   * Creates an XLSX writer.
+   *
+   * @param windowSize number of rows kept in memory before older rows are flushed to disk
+   */
+  public XlsxExportFormat(int windowSize) {
+    this(windowSize, MAX_ROWS_PER_SHEET);
+  }
+
+  XlsxExportFormat(int windowSize, int maxRowsPerSheet) {
+    if (windowSize <= 0) {
+      throw new IllegalArgumentException("windowSize must be positive: " + windowSize);
+    }
+    this.windowSize = windowSize;
+    this.maxRowsPerSheet = maxRowsPerSheet;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getMediaType() {
+    return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+  }
+
+  @Override
+  public String getFileExtension() {
+    return NAME;
+  }
+
+  /**
+   * Returns {@code false}; XLSX files are already ZIP compressed.
+   */
+  @Override
+  public boolean isCompressible() {
+    return false;
+  }
+
+  @Override
+  public long write(ResultSet resultSet, List<ExportColumn> columns, OutputStream out)
+      throws SQLException, IOException {
+    SXSSFWorkbook workbook = new SXSSFWorkbook(windowSize);
+    workbook.setCompressTempFiles(true);
+    try {
+      Column[] sheetColumns = resolveColumns(resultSet.getMetaData(), columns, workbook);
+      CellStyle headerStyle = headerStyle(workbook);
+      Sheet sheet = null;
+      int sheetRow = maxRowsPerSheet;
+      long rows = 0;
+      while (resultSet.next()) {
+        if (sheetRow == maxRowsPerSheet) {
+          sheet = createSheet(workbook, sheetColumns, headerStyle);
+          sheetRow = 1;
+        }
+        Row row = sheet.createRow(sheetRow++);
+        for (int i = 0; i < sheetColumns.length; i++) {
+          writeCell(row, i, resultSet, sheetColumns[i]);
+        }
+        rows++;
+      }
+      if (sheet == null) {
+        createSheet(workbook, sheetColumns, headerStyle);
+      }
+      workbook.write(out);
+      out.flush();
+      return rows;
+    } finally {
+      workbook.dispose();
+      workbook.close();
+    }
+  }
+
+  private static Column[] resolveColumns(
+      ResultSetMetaData metaData, List<ExportColumn> columns, SXSSFWorkbook workbook)
+      throws SQLException {
+    Map<String, ExportColumn> overrides = new HashMap<>();
+    if (columns != null) {
+      for (ExportColumn column : columns) {
+        overrides.put(column.getKey().toLowerCase(Locale.ROOT), column);
+      }
+    }
+    DataFormat dataFormat = workbook.createDataFormat();
+    Column[] resolved = new Column[metaData.getColumnCount()];
+    for (int i = 0; i < resolved.length; i++) {
+      String label = metaData.getColumnLabel(i + 1);
+      ExportColumn override = overrides.get(label.toLowerCase(Locale.ROOT));
+      String header =
+          override == null || override.getHeader() == null || override.getHeader().isBlank()
+              ? label
+              : override.getHeader();
+      ColumnKind kind =
+          ColumnKind.of(metaData.getColumnType(i + 1), metaData.getColumnTypeName(i + 1));
+      String format = override == null ? null : override.getFormat();
+      String pattern = format == null || format.isBlank() ? defaultPattern(kind) : format;
+      CellStyle style = null;
+      if (pattern != null && kind != ColumnKind.BOOLEAN && kind != ColumnKind.STRING) {
+        style = workbook.createCellStyle();
+        style.setDataFormat(dataFormat.getFormat(pattern));
+      }
+      resolved[i] = new Column(header, kind, style);
+    }
+    return resolved;
+  }
+
+  private static String defaultPattern(ColumnKind kind) {
+    return switch (kind) {
+      case DATE -> "yyyy-mm-dd";
+      case TIME -> "hh:mm:ss";
+      case TIMESTAMP, OFFSET_TIMESTAMP -> "yyyy-mm-dd hh:mm:ss";
+      default -> null;
+    };
+  }
+
+  private static CellStyle headerStyle(SXSSFWorkbook workbook) {
+    Font font = workbook.createFont();
+    font.setBold(true);
+    CellStyle style = workbook.createCellStyle();
+    style.setFont(font);
+    return style;
+  }
+
+  private static Sheet createSheet(
+      SXSSFWorkbook workbook, Column[] columns, CellStyle headerStyle) {
+    Sheet sheet = workbook.createSheet("Export " + (workbook.getNumberOfSheets() + 1));
+    Row header = sheet.createRow(0);
+    for (int i = 0; i < columns.length; i++) {
+      Cell cell = header.createCell(i);
+      cell.setCellValue(columns[i].header);
+      cell.setCellStyle(headerStyle);
+    }
+    sheet.createFreezePane(0, 1);
+    return sheet;
+  }
+
+  private static void writeCell(Row row, int index, ResultSet resultSet, Column column)
+      throws SQLException {
+    int jdbcIndex = index + 1;
+    switch (column.kind) {
+      case INTEGER -> {
+        long value = resultSet.getLong(jdbcIndex);
+        if (!resultSet.wasNull()) {
+          Cell cell = createCell(row, index, column);
+          if (Math.abs(value) > MAX_EXACT_NUMBER) {
+            cell.setCellValue(Long.toString(value));
+          } else {
+            cell.setCellValue(value);
+          }
+        }
+      }
+      case DECIMAL -> {
+        BigDecimal value = resultSet.getBigDecimal(jdbcIndex);
+        if (value != null) {
+          Cell cell = createCell(row, index, column);
+          if (value.precision() > MAX_EXACT_DIGITS) {
+            cell.setCellValue(value.toPlainString());
+          } else {
+            cell.setCellValue(value.doubleValue());
+          }
+        }
+      }
+      case DOUBLE -> {
+        double value = resultSet.getDouble(jdbcIndex);
+        if (!resultSet.wasNull()) {
+          Cell cell = createCell(row, index, column);
+          if (Double.isFinite(value)) {
+            cell.setCellValue(value);
+          } else {
+            cell.setCellValue(Double.toString(value));
+          }
+        }
+      }
+      case BOOLEAN -> {
+        boolean value = resultSet.getBoolean(jdbcIndex);
+        if (!resultSet.wasNull()) {
+          createCell(row, index, column).setCellValue(value);
+        }
+      }
+      case DATE -> {
+        LocalDate value = resultSet.getObject(jdbcIndex, LocalDate.class);
+        if (value != null) {
+          createCell(row, index, column).setCellValue(value);
+        }
+      }
+      case TIME -> {
+        LocalTime value = resultSet.getObject(jdbcIndex, LocalTime.class);
+        if (value != null) {
+          // Excel stores a time of day as a fraction of a day.
+          createCell(row, index, column)
+              .setCellValue(value.toNanoOfDay() / 1_000_000_000d / SECONDS_PER_DAY);
+        }
+      }
+      case TIMESTAMP -> {
+        LocalDateTime value = resultSet.getObject(jdbcIndex, LocalDateTime.class);
+        if (value != null) {
+          createCell(row, index, column).setCellValue(value);
+        }
+      }
+      case OFFSET_TIMESTAMP -> {
+        // Excel has no time zones, so instants are written in UTC.
+        OffsetDateTime value = resultSet.getObject(jdbcIndex, OffsetDateTime.class);
+        if (value != null) {
+          createCell(row, index, column)
+              .setCellValue(value.withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime());
+        }
+      }
+      default -> {
+        String value = resultSet.getString(jdbcIndex);
+        if (value != null) {
+          createCell(row, index, column).setCellValue(value);
+        }
+      }
+    }
+  }
+
+  private static Cell createCell(Row row, int index, Column column) {
+    Cell cell = row.createCell(index);
+    if (column.style != null) {
+      cell.setCellStyle(column.style);
+    }
+    return cell;
+  }
+
+  private static final class Column {
+    private final String header;
+    private final ColumnKind kind;
+    private final CellStyle style;
+
+    private Column(String header, ColumnKind kind, CellStyle style) {
+      this.header = header;
+      this.kind = kind;
+      this.style = style;
+    }
+  }
+}
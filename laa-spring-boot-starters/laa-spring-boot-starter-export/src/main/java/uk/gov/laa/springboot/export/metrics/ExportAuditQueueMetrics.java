@@ -0,0 +1,29 @@
+package uk.gov.laa.springboot.export.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import uk.gov.laa.springboot.export.audit.AsyncExportAuditSink;
+
+/**
+ * Publishes the asynchronous audit queue's depth and dropped events as Micrometer meters.
+ */
+public class ExportAuditQueueMetrics implements MeterBinder {
+  private final AsyncExportAuditSink sink;
+
+  public ExportAuditQueueMetrics(AsyncExportAuditSink sink) {
+    this.sink = sink;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("laa.exports.audit.queued", sink, AsyncExportAuditSink::getQueuedCount)
+        .description("Audit events waiting to be recorded")
+        .register(registry);
+    FunctionCounter.builder(
+            "laa.exports.audit.dropped", sink, AsyncExportAuditSink::getDroppedCount)
+        .description("Audit events discarded because the queue was full or the sink failed")
+        .register(registry);
+  }
+}
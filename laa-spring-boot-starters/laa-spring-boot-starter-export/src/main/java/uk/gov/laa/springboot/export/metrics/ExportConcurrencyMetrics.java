@@ -0,0 +1,62 @@
+package uk.gov.laa.springboot.export.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import uk.gov.laa.springboot.export.service.ExportConcurrencyLimiter;
+import uk.gov.laa.springboot.export.service.ExportConcurrencyLimiter.LimitStats;
+
+/**
+ * Publishes export admission control state as Micrometer meters.
+ */
+public class ExportConcurrencyMetrics implements MeterBinder {
+  private final ExportConcurrencyLimiter limiter;
+
+  public ExportConcurrencyMetrics(ExportConcurrencyLimiter limiter) {
+    this.limiter = limiter;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    LimitStats global = limiter.getGlobalStats();
+    if (global != null) {
+      bind(registry, global, Tags.of("scope", "global"));
+    }
+    for (Map.Entry<String, LimitStats> entry : limiter.getPerExportStats().entrySet()) {
+      bind(registry, entry.getValue(), Tags.of("scope", "export", "export", entry.getKey()));
+    }
+  }
+
+  private void bind(MeterRegistry registry, LimitStats stats, Tags tags) {
+    Gauge.builder("laa.exports.concurrency.limit", stats, LimitStats::getLimit)
+        .description("Maximum concurrent exports")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder("laa.exports.concurrency.active", stats, LimitStats::getActive)
+        .description("Exports currently running")
+        .tags(tags)
+        .register(registry);
+    Gauge.builder("laa.exports.concurrency.queued", stats, LimitStats::getQueued)
+        .description("Exports waiting for a permit")
+        .tags(tags)
+        .register(registry);
+    FunctionCounter.builder("laa.exports.concurrency.rejected", stats, LimitStats::getRejections)
+        .description("Exports rejected because the limit was reached")
+        .tags(tags)
+        .register(registry);
+    FunctionTimer.builder(
+            "laa.exports.concurrency.wait",
+            stats,
+            LimitStats::getWaits,
+            LimitStats::getWaitNanos,
+            TimeUnit.NANOSECONDS)
+        .description("Time exports spent queued for a permit")
+        .tags(tags)
+        .register(registry);
+  }
+}
@@ -0,0 +1,42 @@
+package uk.gov.laa.springboot.export.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import uk.gov.laa.springboot.export.cache.DiskExportResultCache;
+
+/**
+ * Publishes export result cache statistics as Micrometer meters.
+ */
+public class ExportResultCacheMetrics implements MeterBinder {
+  private final DiskExportResultCache cache;
+
+  public ExportResultCacheMetrics(DiskExportResultCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("laa.exports.cache.gets", cache, DiskExportResultCache::getHits)
+        .description("Export cache lookups")
+        .tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("laa.exports.cache.gets", cache, DiskExportResultCache::getMisses)
+        .description("Export cache lookups")
+        .tag("result", "miss")
+        .register(registry);
+    FunctionCounter.builder(
+            "laa.exports.cache.evictions", cache, DiskExportResultCache::getEvictions)
+        .description("Export cache entries evicted for size or expiry")
+        .register(registry);
+    Gauge.builder("laa.exports.cache.size", cache, DiskExportResultCache::getSizeBytes)
+        .description("Total size of cached export results")
+        .baseUnit(BaseUnits.BYTES)
+        .register(registry);
+    Gauge.builder("laa.exports.cache.entries", cache, DiskExportResultCache::getEntryCount)
+        .description("Number of cached export results")
+        .register(registry);
+  }
+}
@@ -6,26 +6,45 @@ import java.time.Instant;
  * Audit event describing an export run.
  */
 public final class ExportAuditEvent {
+  /**
+   * How an export run ended.
+   */
+  public enum Outcome {
+    SUCCESS,
+    FAILURE,
+    /** The client disconnected or the request timed out before the export finished. */
+    CANCELLED
+  }
+
   private final String exportKey;
-  private final boolean success;
+  private final Outcome outcome;
   private final int maxRows;
   private final long rows;
+  private final long bytes;
+  private final long timeToFirstByteMs;
+  private final long writeBlockedMs;
   private final long durationMs;
   private final Instant startedAt;
   private final String error;
 
   private ExportAuditEvent(
       String exportKey,
-      boolean success,
+      Outcome outcome,
       int maxRows,
       long rows,
+      long bytes,
+      long timeToFirstByteMs,
+      long writeBlockedMs,
       long durationMs,
       Instant startedAt,
       String error) {
     this.exportKey = exportKey;
-    this.success = success;
+    this.outcome = outcome;
     this.maxRows = maxRows;
     this.rows = rows;
+    this.bytes = bytes;
+    this.timeToFirstByteMs = timeToFirstByteMs;
+    this.writeBlockedMs = writeBlockedMs;
     this.durationMs = durationMs;
     this.startedAt = startedAt;
     this.error = error;
@@ -36,14 +55,7 @@ public final class ExportAuditEvent {
    */
   public static ExportAuditEvent success(
       String exportKey, ValidatedExportRequest request, long rows, long startMs) {
-    return new ExportAuditEvent(
-        exportKey,
-        true,
-        request == null ? 0 : request.getMaxRows(),
-        rows,
-        System.currentTimeMillis() - startMs,
-        Instant.ofEpochMilli(startMs),
-        null);
+    return builder(exportKey, request, startMs).rows(rows).success();
   }
 
   /**
@@ -51,14 +63,15 @@ public final class ExportAuditEvent {
    */
   public static ExportAuditEvent failure(
       String exportKey, ValidatedExportRequest request, long rows, long startMs, Exception e) {
-    return new ExportAuditEvent(
-        exportKey,
-        false,
-        request == null ? 0 : request.getMaxRows(),
-        rows,
-        System.currentTimeMillis() - startMs,
-        Instant.ofEpochMilli(startMs),
-        e == null ? null : e.getClass().getSimpleName());
+    return builder(exportKey, request, startMs).rows(rows).failure(e);
+  }
+
+  /**
+   * Starts building an audit event for an export run that started at {@code startMs}, in epoch
+   * milliseconds. The event's duration is measured when it is built.
+   */
+  public static Builder builder(String exportKey, ValidatedExportRequest request, long startMs) {
+    return new Builder(exportKey, request, startMs);
   }
 
   public String getExportKey() {
@@ -66,7 +79,11 @@ public final class ExportAuditEvent {
   }
 
   public boolean isSuccess() {
-    return success;
+    return outcome == Outcome.SUCCESS;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
   }
 
   public int getMaxRows() {
@@ -77,6 +94,41 @@ public final class ExportAuditEvent {
     return rows;
   }
 
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns milliseconds from the start of the export to the first byte of output,
+   * or {@code -1} when nothing was written.
+   */
+  public long getTimeToFirstByteMs() {
+    return timeToFirstByteMs;
+  }
+
+  /**
+   * Returns milliseconds spent blocked writing to the client. A large share of the duration
+   * means the export was limited by the network or a slow client.
+   */
+  public long getWriteBlockedMs() {
+    return writeBlockedMs;
+  }
+
+  /**
+   * Returns milliseconds not spent blocked on the client: running the query and formatting,
+   * compressing or reading cached output.
+   */
+  public long getDatabaseMs() {
+    return Math.max(0, durationMs - writeBlockedMs);
+  }
+
+  /**
+   * Returns the average bytes written per second over the export's duration.
+   */
+  public long getBytesPerSecond() {
+    return bytes * 1000 / Math.max(1, durationMs);
+  }
+
   public long getDurationMs() {
     return durationMs;
   }
@@ -85,7 +137,95 @@ public final class ExportAuditEvent {
     return startedAt;
   }
 
+  /**
+   * Returns the simple class name of the failure's root cause, or {@code null} for a successful
+   * export.
+   */
   public String getError() {
     return error;
   }
+
+  /**
+   * Builds an {@link ExportAuditEvent}; the terminal method sets its outcome.
+   */
+  public static final class Builder {
+    private final String exportKey;
+    private final ValidatedExportRequest request;
+    private final long startMs;
+    private long rows;
+    private long bytes;
+    private long timeToFirstByteMs = -1;
+    private long writeBlockedMs;
+
+    private Builder(String exportKey, ValidatedExportRequest request, long startMs) {
+      this.exportKey = exportKey;
+      this.request = request;
+      this.startMs = startMs;
+    }
+
+    public Builder rows(long rows) {
+      this.rows = rows;
+      return this;
+    }
+
+    public Builder bytes(long bytes) {
+      this.bytes = bytes;
+      return this;
+    }
+
+    /**
+     * Sets milliseconds to the first byte of output, or {@code -1}, the default, when nothing
+     * was written.
+     */
+    public Builder timeToFirstByteMs(long timeToFirstByteMs) {
+      this.timeToFirstByteMs = timeToFirstByteMs;
+      return this;
+    }
+
+    public Builder writeBlockedMs(long writeBlockedMs) {
+      this.writeBlockedMs = writeBlockedMs;
+      return this;
+    }
+
+    public ExportAuditEvent success() {
+      return build(Outcome.SUCCESS, null);
+    }
+
+    public ExportAuditEvent failure(Exception e) {
+      return build(Outcome.FAILURE, e);
+    }
+
+    /**
+     * Builds an event for an export abandoned by its client.
+     */
+    public ExportAuditEvent cancelled(Exception e) {
+      return build(Outcome.CANCELLED, e);
+    }
+
+    private ExportAuditEvent build(Outcome outcome, Exception e) {
+      return new ExportAuditEvent(
+          exportKey,
+          outcome,
+          request == null ? 0 : request.getMaxRows(),
+          rows,
+          bytes,
+          timeToFirstByteMs,
+          writeBlockedMs,
+          System.currentTimeMillis() - startMs,
+          Instant.ofEpochMilli(startMs),
+          e == null ? null : rootCause(e).getClass().getSimpleName());
+    }
+
+    /**
+     * Exporters wrap failures in a generic {@link RuntimeException}, so the innermost cause is
+     * what tells failures apart.
+     */
+    private static Throwable rootCause(Throwable e) {
+      Throwable cause = e;
+      while (cause.getCause() != null && cause.getCause() != cause) {
+        cause = cause.getCause();
+      }
+      return cause;
+    }
+  }
 }
@@ -1,5 +1,6 @@
 package uk.gov.laa.springboot.export.model;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -7,15 +8,29 @@ import java.util.List;
  * Configured export definition.
  */
 public final class ExportDefinition {
+  public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+  public static final String CSV_FORMAT = "csv";
+  public static final String EXPORT_DATA_SOURCE = "export";
+  public static final String PRIMARY_DATA_SOURCE = "primary";
+
   private final String key;
   private final String description;
   private final int maxRows;
   private final String provider;
   private final List<ExportColumn> columns;
   private final List<ExportParamDefinition> params;
+  private final boolean compressionEnabled;
+  private final int compressionLevel;
+  private final int maxConcurrent;
+  private final Duration cacheTtl;
+  private final List<String> formats;
+  private final String resumeKey;
+  private final String watermarkColumn;
+  private final Duration freshnessTtl;
+  private final String dataSource;
 
   /**
-   * Creates an export definition.
+   * Creates an export definition with default settings.
    */
   public ExportDefinition(
       String key,
@@ -24,12 +39,42 @@ public final class ExportDefinition {
       String provider,
       List<ExportColumn> columns,
       List<ExportParamDefinition> params) {
-    this.key = key;
-    this.description = description;
-    this.maxRows = maxRows;
-    this.provider = provider;
-    this.columns = columns == null ? List.of() : List.copyOf(columns);
-    this.params = params == null ? List.of() : List.copyOf(params);
+    this(
+        builder(key)
+            .description(description)
+            .maxRows(maxRows)
+            .provider(provider)
+            .columns(columns)
+            .params(params));
+  }
+
+  private ExportDefinition(Builder builder) {
+    this.key = builder.key;
+    this.description = builder.description;
+    this.maxRows = builder.maxRows;
+    this.provider = builder.provider;
+    this.columns = builder.columns == null ? List.of() : List.copyOf(builder.columns);
+    this.params = builder.params == null ? List.of() : List.copyOf(builder.params);
+    this.compressionEnabled = builder.compressionEnabled;
+    this.compressionLevel = builder.compressionLevel;
+    this.maxConcurrent = builder.maxConcurrent;
+    this.cacheTtl = builder.cacheTtl;
+    this.formats =
+        builder.formats == null || builder.formats.isEmpty()
+            ? List.of(CSV_FORMAT)
+            : List.copyOf(builder.formats);
+    this.resumeKey = builder.resumeKey;
+    this.watermarkColumn = builder.watermarkColumn;
+    this.freshnessTtl = builder.freshnessTtl;
+    this.dataSource = builder.dataSource == null ? EXPORT_DATA_SOURCE : builder.dataSource;
+  }
+
+  /**
+   * Starts building a definition with the given key. Unset settings take the same defaults as
+   * the short constructor.
+   */
+  public static Builder builder(String key) {
+    return new Builder(key);
   }
 
   public String getKey() {
@@ -56,4 +101,163 @@ public final class ExportDefinition {
     return Collections.unmodifiableList(params);
   }
 
+  public boolean isCompressionEnabled() {
+    return compressionEnabled;
+  }
+
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * Returns the maximum number of concurrent runs of this export, or 0 for no limit.
+   */
+  public int getMaxConcurrent() {
+    return maxConcurrent;
+  }
+
+  /**
+   * Returns how long results are cached, or {@code null} when caching is disabled.
+   */
+  public Duration getCacheTtl() {
+    return cacheTtl;
+  }
+
+  /**
+   * Returns the names of the output formats this export can be streamed in, CSV first.
+   */
+  public List<String> getFormats() {
+    return formats;
+  }
+
+  /**
+   * Returns the ordered unique column that resumed exports continue after, or {@code null}
+   * when the export cannot be resumed.
+   */
+  public String getResumeKey() {
+    return resumeKey;
+  }
+
+  /**
+   * Returns the column whose value marks how far an incremental export has read, or
+   * {@code null} when the export only supports full extracts.
+   */
+  public String getWatermarkColumn() {
+    return watermarkColumn;
+  }
+
+  /**
+   * Returns how long the export's freshness fingerprint is reused, {@link Duration#ZERO} when it
+   * is fetched for every request, or {@code null} when responses carry no {@code ETag}.
+   */
+  public Duration getFreshnessTtl() {
+    return freshnessTtl;
+  }
+
+  /**
+   * Returns the data source the export reads from: {@link #EXPORT_DATA_SOURCE} for the export
+   * pool when one is configured, or {@link #PRIMARY_DATA_SOURCE}.
+   */
+  public String getDataSource() {
+    return dataSource;
+  }
+
+  /**
+   * Builds an {@link ExportDefinition}.
+   */
+  public static final class Builder {
+    private final String key;
+    private String description;
+    private int maxRows;
+    private String provider;
+    private List<ExportColumn> columns;
+    private List<ExportParamDefinition> params;
+    private boolean compressionEnabled = true;
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+    private int maxConcurrent;
+    private Duration cacheTtl;
+    private List<String> formats;
+    private String resumeKey;
+    private String watermarkColumn;
+    private Duration freshnessTtl;
+    private String dataSource;
+
+    private Builder(String key) {
+      this.key = key;
+    }
+
+    public Builder description(String description) {
+      this.description = description;
+      return this;
+    }
+
+    public Builder maxRows(int maxRows) {
+      this.maxRows = maxRows;
+      return this;
+    }
+
+    public Builder provider(String provider) {
+      this.provider = provider;
+      return this;
+    }
+
+    public Builder columns(List<ExportColumn> columns) {
+      this.columns = columns;
+      return this;
+    }
+
+    public Builder params(List<ExportParamDefinition> params) {
+      this.params = params;
+      return this;
+    }
+
+    public Builder compressionEnabled(boolean compressionEnabled) {
+      this.compressionEnabled = compressionEnabled;
+      return this;
+    }
+
+    public Builder compressionLevel(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+      return this;
+    }
+
+    public Builder maxConcurrent(int maxConcurrent) {
+      this.maxConcurrent = maxConcurrent;
+      return this;
+    }
+
+    public Builder cacheTtl(Duration cacheTtl) {
+      this.cacheTtl = cacheTtl;
+      return this;
+    }
+
+    public Builder formats(List<String> formats) {
+      this.formats = formats;
+      return this;
+    }
+
+    public Builder resumeKey(String resumeKey) {
+      this.resumeKey = resumeKey;
+      return this;
+    }
+
+    public Builder watermarkColumn(String watermarkColumn) {
+      this.watermarkColumn = watermarkColumn;
+      return this;
+    }
+
+    public Builder freshnessTtl(Duration freshnessTtl) {
+      this.freshnessTtl = freshnessTtl;
+      return this;
+    }
+
+    public Builder dataSource(String dataSource) {
+      this.dataSource = dataSource;
+      return this;
+    }
+
+    public ExportDefinition build() {
+      return new ExportDefinition(this);
+    }
+  }
 }
@@ -0,0 +1,64 @@
+package uk.gov.laa.springboot.export.model;
+
+/**
+ * Planner estimate of an export's size. Figures come from table statistics and can be far
+ * from the actual result, particularly for selective filters on skewed columns.
+ */
+public final class ExportEstimate {
+  private final long estimatedRows;
+  private final int maxRows;
+  private final int rowWidth;
+  private final double totalCost;
+
+  /**
+   * Creates an estimate.
+   *
+   * @param estimatedRows rows matching the request before the {@code maxRows} limit
+   * @param maxRows row limit applied to the export
+   * @param rowWidth average row width in bytes
+   * @param totalCost planner cost, in the database's arbitrary cost units
+   */
+  public ExportEstimate(long estimatedRows, int maxRows, int rowWidth, double totalCost) {
+    this.estimatedRows = estimatedRows;
+    this.maxRows = maxRows;
+    this.rowWidth = rowWidth;
+    this.totalCost = totalCost;
+  }
+
+  public long getEstimatedRows() {
+    return estimatedRows;
+  }
+
+  public int getMaxRows() {
+    return maxRows;
+  }
+
+  public int getRowWidth() {
+    return rowWidth;
+  }
+
+  public double getTotalCost() {
+    return totalCost;
+  }
+
+  /**
+   * Returns the rows the export would write once {@code maxRows} is applied.
+   */
+  public long getExportedRows() {
+    return Math.min(estimatedRows, maxRows);
+  }
+
+  /**
+   * Returns the approximate uncompressed size of the exported rows.
+   */
+  public long getEstimatedBytes() {
+    return getExportedRows() * rowWidth;
+  }
+
+  /**
+   * Returns whether the export is expected to be truncated at {@code maxRows}.
+   */
+  public boolean isExceedsMaxRows() {
+    return estimatedRows > maxRows;
+  }
+}
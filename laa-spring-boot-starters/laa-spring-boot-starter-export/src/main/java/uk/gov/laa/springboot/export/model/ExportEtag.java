@@ -0,0 +1,60 @@
+package uk.gov.laa.springboot.export.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Builds and compares the weak entity tags sent with fingerprinted exports.
+ *
+ * <p>Tags are weak because the same data is served with different content encodings.
+ */
+public final class ExportEtag {
+  private static final int DIGEST_BYTES = 16;
+
+  private ExportEtag() {}
+
+  /**
+   * Returns a weak entity tag for the given parts, such as the export key, request and data
+   * fingerprint.
+   */
+  public static String of(Object... parts) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    for (Object part : parts) {
+      digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+    }
+    byte[] hash = digest.digest();
+    byte[] truncated = new byte[DIGEST_BYTES];
+    System.arraycopy(hash, 0, truncated, 0, DIGEST_BYTES);
+    return "W/\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(truncated) + "\"";
+  }
+
+  /**
+   * Returns whether an {@code If-None-Match} header matches the entity tag, using the weak
+   * comparison HTTP requires for that header.
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null || ifNoneMatch.isBlank() || etag == null) {
+      return false;
+    }
+    String opaque = opaque(etag);
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if ("*".equals(trimmed) || opaque.equals(opaque(trimmed))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String opaque(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
@@ -0,0 +1,71 @@
+package uk.gov.laa.springboot.export.model;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of an asynchronous export job.
+ */
+public final class ExportJob {
+  private final String id;
+  private final String exportKey;
+  private final ExportJobStatus status;
+  private final boolean compressed;
+  private final Instant createdAt;
+  private final Instant completedAt;
+  private final long sizeBytes;
+  private final String error;
+
+  /**
+   * Creates a job snapshot.
+   */
+  public ExportJob(
+      String id,
+      String exportKey,
+      ExportJobStatus status,
+      boolean compressed,
+      Instant createdAt,
+      Instant completedAt,
+      long sizeBytes,
+      String error) {
+    this.id = id;
+    this.exportKey = exportKey;
+    this.status = status;
+    this.compressed = compressed;
+    this.createdAt = createdAt;
+    this.completedAt = completedAt;
+    this.sizeBytes = sizeBytes;
+    this.error = error;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getExportKey() {
+    return exportKey;
+  }
+
+  public ExportJobStatus getStatus() {
+    return status;
+  }
+
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public Instant getCompletedAt() {
+    return completedAt;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+
+  public String getError() {
+    return error;
+  }
+}
@@ -0,0 +1,11 @@
+package uk.gov.laa.springboot.export.model;
+
+/**
+ * Lifecycle states of an asynchronous export job.
+ */
+public enum ExportJobStatus {
+  QUEUED,
+  RUNNING,
+  COMPLETED,
+  FAILED
+}
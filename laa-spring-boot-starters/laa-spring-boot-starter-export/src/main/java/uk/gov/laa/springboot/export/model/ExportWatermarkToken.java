@@ -0,0 +1,33 @@
+package uk.gov.laa.springboot.export.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes watermark values as opaque, URL-safe tokens for the {@code since} request parameter
+ * and the {@code X-Export-Watermark} response header.
+ */
+public final class ExportWatermarkToken {
+  public static final String HEADER = "X-Export-Watermark";
+  public static final String PARAM = "since";
+
+  private ExportWatermarkToken() {}
+
+  /**
+   * Returns the token for a watermark value.
+   */
+  public static String encode(String watermark) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(watermark.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the watermark value of a token.
+   *
+   * @throws IllegalArgumentException when the token was not produced by {@link #encode}
+   */
+  public static String decode(String token) {
+    return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+  }
+}
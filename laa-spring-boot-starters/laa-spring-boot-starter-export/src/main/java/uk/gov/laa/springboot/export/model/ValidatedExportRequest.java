@@ -12,6 +12,9 @@ public final class ValidatedExportRequest {
   private final Map<String, Object> params;
   private final int maxRows;
   private final Map<String, String[]> rawParams;
+  private final String resumeAfter;
+  private final String watermarkSince;
+  private final String watermarkUntil;
 
   /**
    * Creates a validated export request.
@@ -20,9 +23,36 @@ public final class ValidatedExportRequest {
       Map<String, Object> params,
       int maxRows,
       Map<String, String[]> rawParams) {
+    this(params, maxRows, rawParams, null);
+  }
+
+  /**
+   * Creates a validated export request that continues after the given resume key value.
+   */
+  public ValidatedExportRequest(
+      Map<String, Object> params,
+      int maxRows,
+      Map<String, String[]> rawParams,
+      String resumeAfter) {
+    this(params, maxRows, rawParams, resumeAfter, null, null);
+  }
+
+  /**
+   * Creates a validated export request for the rows between two watermarks.
+   */
+  public ValidatedExportRequest(
+      Map<String, Object> params,
+      int maxRows,
+      Map<String, String[]> rawParams,
+      String resumeAfter,
+      String watermarkSince,
+      String watermarkUntil) {
     this.params = params == null ? Map.of() : Map.copyOf(params);
     this.maxRows = maxRows;
     this.rawParams = rawParams == null ? Map.of() : Map.copyOf(rawParams);
+    this.resumeAfter = resumeAfter;
+    this.watermarkSince = watermarkSince;
+    this.watermarkUntil = watermarkUntil;
   }
 
   public Map<String, Object> getParams() {
@@ -44,6 +74,37 @@ public final class ValidatedExportRequest {
     return Collections.unmodifiableMap(rawParams);
   }
 
+  /**
+   * Returns the resume key value the export continues after, or {@code null} to start from the
+   * first row.
+   */
+  public String getResumeAfter() {
+    return resumeAfter;
+  }
+
+  /**
+   * Returns the watermark of the client's previous incremental export, or {@code null} for a
+   * full export.
+   */
+  public String getWatermarkSince() {
+    return watermarkSince;
+  }
+
+  /**
+   * Returns the watermark this export runs up to, or {@code null} when it has not been resolved.
+   */
+  public String getWatermarkUntil() {
+    return watermarkUntil;
+  }
+
+  /**
+   * Returns a copy of this request that runs up to the given watermark.
+   */
+  public ValidatedExportRequest withWatermarkUntil(String watermarkUntil) {
+    return new ValidatedExportRequest(
+        params, maxRows, rawParams, resumeAfter, watermarkSince, watermarkUntil);
+  }
+
   /**
    * Returns a typed parameter value when present.
    */
@@ -1,12 +1,25 @@
 package uk.gov.laa.springboot.export.registry;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.springframework.beans.BeansException;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
@@ -14,18 +27,30 @@ import org.yaml.snakeyaml.Yaml;
 import uk.gov.laa.springboot.export.ExportConfigurationException;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
 import uk.gov.laa.springboot.export.ExportDefinitionNotFoundException;
+import uk.gov.laa.springboot.export.ExportFormatNotAcceptableException;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.ExportFreshnessProvider;
 import uk.gov.laa.springboot.export.ExportRegistry;
+import uk.gov.laa.springboot.export.ExportRowProvider;
+import uk.gov.laa.springboot.export.ExportWatermarkProvider;
 import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.csv.CsvExportFormat;
 import uk.gov.laa.springboot.export.model.ExportColumn;
 import uk.gov.laa.springboot.export.model.ExportDefinition;
 import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ExportWatermarkToken;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 /**
  * Resolves configured exports and providers.
  */
 public class DefaultExportRegistry implements ExportRegistry {
+  private static final String MAX_ROWS_PARAM = "maxRows";
+  private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
   private final Map<String, ExportDefinition> definitions;
   private final Map<String, ExportCsvProvider> providers;
+  private final Map<String, ExportFormatWriter> formats;
 
   /**
    * Creates the registry from bound properties and provider beans.
@@ -34,12 +59,14 @@ public class DefaultExportRegistry implements ExportRegistry {
       ApplicationContext applicationContext, LaaExportsProperties properties) {
     this.definitions = new HashMap<>();
     this.providers = new HashMap<>();
+    this.formats = resolveFormats(applicationContext);
 
     Map<String, LaaExportsProperties.Definition> mergedDefinitions = new HashMap<>();
     mergedDefinitions.putAll(loadDefinitionsFromResources());
     mergedDefinitions.putAll(properties.getDefinitions());
 
-    int defaultMaxRows = properties.getDefaults().getMaxRows();
+    LaaExportsProperties.Defaults defaults = properties.getDefaults();
+    int defaultMaxRows = defaults.getMaxRows();
     for (Map.Entry<String, LaaExportsProperties.Definition> entry :
         mergedDefinitions.entrySet()) {
       String key = entry.getKey();
@@ -55,27 +82,79 @@ public class DefaultExportRegistry implements ExportRegistry {
       providers.put(key, provider);
 
       int maxRows = definition.getMaxRows() == null ? defaultMaxRows : definition.getMaxRows();
+      boolean compressionEnabled = definition.getCompressionEnabled() == null
+          ? defaults.isCompressionEnabled()
+          : definition.getCompressionEnabled();
+      int compressionLevel = resolveCompressionLevel(key, definition, defaults);
+      if (definition.getFetchSize() != null && definition.getFetchSize() <= 0) {
+        throw new ExportConfigurationException("Export " + key + " fetchSize must be positive");
+      }
+      if (definition.getStatementTimeout() != null
+          && (definition.getStatementTimeout().isNegative()
+              || definition.getStatementTimeout().isZero())) {
+        throw new ExportConfigurationException(
+            "Export " + key + " statementTimeout must be positive");
+      }
+      if (definition.getDatasource() != null
+          && !List.of(ExportDefinition.EXPORT_DATA_SOURCE, ExportDefinition.PRIMARY_DATA_SOURCE)
+              .contains(definition.getDatasource())) {
+        throw new ExportConfigurationException(
+            "Export " + key + " datasource must be export or primary: "
+                + definition.getDatasource());
+      }
+      int maxConcurrent = definition.getMaxConcurrent() == null
+          ? defaults.getMaxConcurrentPerExport()
+          : definition.getMaxConcurrent();
+      Duration cacheTtl = Boolean.TRUE.equals(definition.getCacheEnabled())
+          ? Objects.requireNonNullElse(definition.getCacheTtl(), properties.getCache().getTtl())
+          : null;
+      if (definition.getSql() != null && !definition.getSql().isBlank()) {
+        // Checked here so a typo fails startup; generated providers compile their own template.
+        validateSql(key, definition, definition.getSql(), "SQL");
+      }
+      validatePartition(key, definition);
+      List<String> definitionFormats = resolveDefinitionFormats(key, definition);
+      validateResume(key, definition, definitionFormats);
+      validateWatermark(key, definition, definitionFormats, provider);
+      Duration freshnessTtl = resolveFreshnessTtl(key, definition, provider);
+      if (definitionFormats.size() > 1 && !(provider instanceof ExportRowProvider)) {
+        throw new ExportConfigurationException(
+            "Export " + key + " enables formats " + definitionFormats
+                + " but its provider does not implement ExportRowProvider");
+      }
       ExportDefinition def =
-          new ExportDefinition(
-              key,
-              definition.getDescription(),
-              maxRows,
-              definition.getProvider(),
-              definition.getColumns().stream()
-                  .map(c -> new ExportColumn(c.getKey(), c.getHeader(), c.getFormat()))
-                  .collect(Collectors.toList()),
-              definition.getParams().stream()
-                  .map(
-                      p ->
-                          new ExportParamDefinition(
-                              p.getName(),
-                              resolveRequestParamName(p),
-                              parseFilterType(p.getType()),
-                              p.getEnumClass(),
-                              p.getAllowed(),
-                              p.isRequired(),
-                              p.getDefaultValue()))
-                  .collect(Collectors.toList()));
+          ExportDefinition.builder(key)
+              .description(definition.getDescription())
+              .maxRows(maxRows)
+              .provider(definition.getProvider())
+              .columns(
+                  definition.getColumns().stream()
+                      .map(c -> new ExportColumn(c.getKey(), c.getHeader(), c.getFormat()))
+                      .collect(Collectors.toList()))
+              .params(
+                  definition.getParams().stream()
+                      .map(
+                          p ->
+                              new ExportParamDefinition(
+                                  p.getName(),
+                                  resolveRequestParamName(p),
+                                  parseFilterType(p.getType()),
+                                  p.getEnumClass(),
+                                  p.getAllowed(),
+                                  p.isRequired(),
+                                  p.getDefaultValue()))
+                      .collect(Collectors.toList()))
+              .compressionEnabled(compressionEnabled)
+              .compressionLevel(compressionLevel)
+              .maxConcurrent(maxConcurrent)
+              .cacheTtl(cacheTtl)
+              .formats(definitionFormats)
+              .resumeKey(definition.getResume() == null ? null : definition.getResume().getKey())
+              .watermarkColumn(
+                  definition.getWatermark() == null ? null : definition.getWatermark().getColumn())
+              .freshnessTtl(freshnessTtl)
+              .dataSource(definition.getDatasource())
+              .build();
       definitions.put(key, def);
     }
   }
@@ -98,6 +177,15 @@ public class DefaultExportRegistry implements ExportRegistry {
     return provider;
   }
 
+  @Override
+  public ExportFormatWriter getFormat(String name) {
+    ExportFormatWriter format = name == null ? null : formats.get(name.toLowerCase(Locale.ROOT));
+    if (format == null) {
+      throw new ExportFormatNotAcceptableException("Export format not available: " + name);
+    }
+    return format;
+  }
+
   @Override
   public Set<String> keys() {
     return Set.copyOf(definitions.keySet());
@@ -114,6 +202,173 @@ public class DefaultExportRegistry implements ExportRegistry {
     return normalized;
   }
 
+  private int resolveCompressionLevel(
+      String key,
+      LaaExportsProperties.Definition definition,
+      LaaExportsProperties.Defaults defaults) {
+    int level = definition.getCompressionLevel() == null
+        ? defaults.getCompressionLevel()
+        : definition.getCompressionLevel();
+    if (level < 0 || level > 9) {
+      throw new ExportConfigurationException(
+          "Export " + key + " compressionLevel must be between 0 and 9");
+    }
+    return level;
+  }
+
+  private static void validateSql(
+      String key, LaaExportsProperties.Definition definition, String sql, String label) {
+    SqlTemplate template = SqlTemplate.compile(sql);
+    Set<String> declared = new HashSet<>();
+    declared.add(MAX_ROWS_PARAM);
+    definition.getParams().forEach(p -> declared.add(p.getName()));
+    for (String name : template.getParameterNames()) {
+      if (!declared.contains(name)) {
+        throw new ExportConfigurationException(
+            "Export " + key + " " + label + " references undeclared param: " + name);
+      }
+    }
+  }
+
+  private static void validatePartition(String key, LaaExportsProperties.Definition definition) {
+    LaaExportsProperties.Partition partition = definition.getPartition();
+    if (partition == null) {
+      return;
+    }
+    if (partition.getKey() == null || !IDENTIFIER.matcher(partition.getKey()).matches()) {
+      throw new ExportConfigurationException(
+          "Export " + key + " partition key must be a column name: " + partition.getKey());
+    }
+    if (partition.getCount() < 2) {
+      throw new ExportConfigurationException(
+          "Export " + key + " partition count must be at least 2");
+    }
+    if (partition.getParallelism() != null && partition.getParallelism() <= 0) {
+      throw new ExportConfigurationException(
+          "Export " + key + " partition parallelism must be positive");
+    }
+    if ("cursor".equalsIgnoreCase(definition.getExporter())) {
+      throw new ExportConfigurationException(
+          "Export " + key + " partition requires the copy exporter");
+    }
+  }
+
+  private static void validateResume(
+      String key, LaaExportsProperties.Definition definition, List<String> definitionFormats) {
+    LaaExportsProperties.Resume resume = definition.getResume();
+    if (resume == null) {
+      return;
+    }
+    if (resume.getKey() == null || !IDENTIFIER.matcher(resume.getKey()).matches()) {
+      throw new ExportConfigurationException(
+          "Export " + key + " resume key must be a column name: " + resume.getKey());
+    }
+    if (resume.getPageSize() <= 0) {
+      throw new ExportConfigurationException(
+          "Export " + key + " resume pageSize must be positive");
+    }
+    if (definition.getPartition() != null) {
+      throw new ExportConfigurationException(
+          "Export " + key + " cannot combine resume with partition");
+    }
+    if ("cursor".equalsIgnoreCase(definition.getExporter()) || definitionFormats.size() > 1) {
+      throw new ExportConfigurationException(
+          "Export " + key + " resume requires the copy exporter and CSV output only");
+    }
+  }
+
+  private void validateWatermark(
+      String key,
+      LaaExportsProperties.Definition definition,
+      List<String> definitionFormats,
+      ExportCsvProvider provider) {
+    LaaExportsProperties.Watermark watermark = definition.getWatermark();
+    if (watermark == null) {
+      return;
+    }
+    if (watermark.getColumn() == null || !IDENTIFIER.matcher(watermark.getColumn()).matches()) {
+      throw new ExportConfigurationException(
+          "Export " + key + " watermark column must be a column name: " + watermark.getColumn());
+    }
+    if (definition.getPartition() != null || definition.getResume() != null) {
+      throw new ExportConfigurationException(
+          "Export " + key + " cannot combine watermark with partition or resume");
+    }
+    if ("cursor".equalsIgnoreCase(definition.getExporter()) || definitionFormats.size() > 1) {
+      throw new ExportConfigurationException(
+          "Export " + key + " watermark requires the copy exporter and CSV output only");
+    }
+    for (LaaExportsProperties.Param param : definition.getParams()) {
+      if (ExportWatermarkToken.PARAM.equals(resolveRequestParamName(param))) {
+        throw new ExportConfigurationException(
+            "Export " + key + " param " + param.getName() + " uses the reserved request name "
+                + ExportWatermarkToken.PARAM);
+      }
+    }
+    if (!(provider instanceof ExportWatermarkProvider)) {
+      throw new ExportConfigurationException(
+          "Export " + key + " has a watermark but its provider does not implement "
+              + "ExportWatermarkProvider");
+    }
+  }
+
+  /**
+   * Validates the definition's freshness query and returns how long its fingerprints are
+   * reused, or {@code null} when the export has no fingerprint.
+   */
+  private static Duration resolveFreshnessTtl(
+      String key, LaaExportsProperties.Definition definition, ExportCsvProvider provider) {
+    LaaExportsProperties.Freshness freshness = definition.getFreshness();
+    if (freshness == null) {
+      return null;
+    }
+    if (freshness.getSql() == null || freshness.getSql().isBlank()) {
+      throw new ExportConfigurationException("Export " + key + " freshness sql missing");
+    }
+    validateSql(key, definition, freshness.getSql(), "freshness SQL");
+    if (definition.getWatermark() != null) {
+      throw new ExportConfigurationException(
+          "Export " + key + " cannot combine freshness with watermark");
+    }
+    if (freshness.getTtl() != null && freshness.getTtl().isNegative()) {
+      throw new ExportConfigurationException(
+          "Export " + key + " freshness ttl must not be negative");
+    }
+    if (!(provider instanceof ExportFreshnessProvider)) {
+      throw new ExportConfigurationException(
+          "Export " + key + " has a freshness query but its provider does not implement "
+              + "ExportFreshnessProvider");
+    }
+    return Objects.requireNonNullElse(freshness.getTtl(), Duration.ZERO);
+  }
+
+  private static Map<String, ExportFormatWriter> resolveFormats(
+      ApplicationContext applicationContext) {
+    Map<String, ExportFormatWriter> resolved = new HashMap<>();
+    resolved.put(ExportDefinition.CSV_FORMAT, new CsvExportFormat());
+    for (ExportFormatWriter format :
+        applicationContext.getBeansOfType(ExportFormatWriter.class).values()) {
+      resolved.put(format.getName().toLowerCase(Locale.ROOT), format);
+    }
+    return resolved;
+  }
+
+  private List<String> resolveDefinitionFormats(
+      String key, LaaExportsProperties.Definition definition) {
+    Set<String> names = new LinkedHashSet<>();
+    names.add(ExportDefinition.CSV_FORMAT);
+    List<String> configured = definition.getFormats() == null ? List.of() : definition.getFormats();
+    for (String name : configured) {
+      String normalized = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+      if (!formats.containsKey(normalized)) {
+        throw new ExportConfigurationException(
+            "Export " + key + " references unknown format: " + name);
+      }
+      names.add(normalized);
+    }
+    return List.copyOf(names);
+  }
+
   private String resolveRequestParamName(LaaExportsProperties.Param param) {
     if (param.getRequestName() != null && !param.getRequestName().isBlank()) {
       return param.getRequestName();
@@ -148,7 +403,7 @@ public class DefaultExportRegistry implements ExportRegistry {
     if (resources.length == 0) {
       return loaded;
     }
-    ObjectMapper mapper = new ObjectMapper();
+    ObjectMapper mapper = definitionMapper();
     Yaml yaml = new Yaml();
     for (Resource resource : resources) {
       Map<String, Object> root = readYaml(resource, yaml);
@@ -242,6 +497,21 @@ public class DefaultExportRegistry implements ExportRegistry {
             target.put(key, mapper.convertValue(value, LaaExportsProperties.Definition.class)));
   }
 
+  private static ObjectMapper definitionMapper() {
+    // Accept the same duration formats as Spring Boot property binding, e.g. "30m" or "PT30M".
+    SimpleModule durations = new SimpleModule();
+    durations.addDeserializer(
+        Duration.class,
+        new JsonDeserializer<>() {
+          @Override
+          public Duration deserialize(JsonParser parser, DeserializationContext context)
+              throws IOException {
+            return DurationStyle.detectAndParse(parser.getValueAsString());
+          }
+        });
+    return new ObjectMapper().registerModule(durations);
+  }
+
   private String filenameKey(Resource resource) {
     String filename = resource.getFilename();
     if (filename == null) {
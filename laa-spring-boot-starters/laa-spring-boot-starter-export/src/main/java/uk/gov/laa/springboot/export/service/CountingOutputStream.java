@@ -0,0 +1,95 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts bytes passed through to the delegate and remembers when the first byte was written,
+ * how long writes to the delegate were blocked, and whether a write to the delegate failed.
+ */
+final class CountingOutputStream extends FilterOutputStream {
+  private long count;
+  private long firstWriteNanos = -1;
+  private long blockedNanos;
+  private boolean writeFailed;
+
+  CountingOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    long start = System.nanoTime();
+    try {
+      out.write(b);
+    } catch (IOException e) {
+      writeFailed = true;
+      throw e;
+    } finally {
+      blockedNanos += System.nanoTime() - start;
+    }
+    recordWrite(1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    long start = System.nanoTime();
+    try {
+      out.write(b, off, len);
+    } catch (IOException e) {
+      writeFailed = true;
+      throw e;
+    } finally {
+      blockedNanos += System.nanoTime() - start;
+    }
+    recordWrite(len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    long start = System.nanoTime();
+    try {
+      out.flush();
+    } catch (IOException e) {
+      writeFailed = true;
+      throw e;
+    } finally {
+      blockedNanos += System.nanoTime() - start;
+    }
+  }
+
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns whether writing to the delegate failed, which for a response means the client
+   * disconnected.
+   */
+  boolean isWriteFailed() {
+    return writeFailed;
+  }
+
+  /**
+   * Returns milliseconds spent inside writes and flushes of the delegate; for a response this
+   * is time spent waiting on the client.
+   */
+  long getBlockedMillis() {
+    return blockedNanos / 1_000_000;
+  }
+
+  /**
+   * Returns milliseconds between {@code startNanos} and the first write, or -1 if none.
+   */
+  long millisToFirstWrite(long startNanos) {
+    return firstWriteNanos < 0 ? -1 : (firstWriteNanos - startNanos) / 1_000_000;
+  }
+
+  private void recordWrite(int len) {
+    if (firstWriteNanos < 0 && len > 0) {
+      firstWriteNanos = System.nanoTime();
+    }
+    count += len;
+  }
+}
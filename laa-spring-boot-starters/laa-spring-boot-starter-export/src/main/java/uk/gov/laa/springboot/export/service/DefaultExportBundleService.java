@@ -0,0 +1,369 @@
+package uk.gov.laa.springboot.export.service;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.sql.DataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import uk.gov.laa.springboot.export.ExportBundleService;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportRegistry;
+import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.ExportValidationException;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Default bundle service. A read-only, repeatable-read transaction exports its snapshot with
+ * {@code pg_export_snapshot()} and stays open while the bundle streams; every export imports
+ * that snapshot, so the archive is as consistent as if all queries ran in one transaction.
+ *
+ * <p>Exports run one after another by default. With a parallelism above one they run on their
+ * own connections at the same time, on threads shared by all bundles, each into a bounded pipe,
+ * and the pipes are drained into the archive in bundle order. Nothing is spooled to disk.
+ *
+ * <p>A bundle acquires its exports' concurrency permits before it takes a connection, so it is
+ * either rejected before the response starts or runs every export it includes.
+ *
+ * <p>A snapshot can only be imported on the server that exported it, so every export in a bundle
+ * must read from the same data source, and the export pool's routing is pinned while the bundle
+ * streams so a replica falling behind cannot move later exports to the primary.
+ */
+public final class DefaultExportBundleService implements ExportBundleService {
+  private static final String MAX_ROWS_PARAM = "maxRows";
+  private static final int PIPE_SIZE = 1024 * 1024;
+
+  private final ExportService exportService;
+  private final ExportRegistry registry;
+  private final DataSource primaryDataSource;
+  private final ExportDataSourceRouter router;
+  private final ExportConcurrencyLimiter limiter;
+  private final int maxExports;
+  private final int parallelism;
+  private final ExecutorService executor;
+  private final ObservationRegistry observationRegistry;
+
+  /**
+   * Creates a bundle service and, when bundles run exports in parallel, its shared threads.
+   *
+   * @param primaryDataSource application data source, used by exports on the primary data source
+   *     and by all exports when there is no export pool
+   * @param router export pool router, or {@code null} when no export pool is configured
+   * @param limiter limiter admitting bundles; a bundle runs no more exports at once than its
+   *     global limit allows
+   */
+  public DefaultExportBundleService(
+      ExportService exportService,
+      ExportRegistry registry,
+      DataSource primaryDataSource,
+      ExportDataSourceRouter router,
+      ExportConcurrencyLimiter limiter,
+      LaaExportsProperties.Bundles settings,
+      ObservationRegistry observationRegistry) {
+    if (settings.getMaxExports() < 1
+        || settings.getParallelism() < 1
+        || settings.getThreads() < 1) {
+      throw new IllegalArgumentException("maxExports, parallelism and threads must be positive");
+    }
+    this.exportService = exportService;
+    this.registry = registry;
+    this.primaryDataSource = primaryDataSource;
+    this.router = router;
+    this.limiter = limiter;
+    this.maxExports = settings.getMaxExports();
+    ExportConcurrencyLimiter.LimitStats global = limiter.getGlobalStats();
+    this.parallelism =
+        global == null
+            ? settings.getParallelism()
+            : Math.min(settings.getParallelism(), global.getLimit());
+    this.executor =
+        parallelism > 1
+            ? Executors.newFixedThreadPool(settings.getThreads(), daemonThreads())
+            : null;
+    this.observationRegistry = observationRegistry;
+  }
+
+  @Override
+  public Map<String, ValidatedExportRequest> validateBundle(
+      List<String> exportKeys, Map<String, String[]> rawParams) {
+    List<String> keys =
+        exportKeys == null
+            ? List.of()
+            : exportKeys.stream().map(String::trim).filter(key -> !key.isEmpty()).toList();
+    if (keys.isEmpty()) {
+      throw new ExportValidationException("keys must name at least one export");
+    }
+    if (keys.size() > maxExports) {
+      throw new ExportValidationException(
+          "A bundle can include at most " + maxExports + " exports");
+    }
+    Map<String, String[]> params = rawParams == null ? Map.of() : rawParams;
+    Set<String> used = new HashSet<>();
+    Map<String, ValidatedExportRequest> requests = new LinkedHashMap<>();
+    for (String key : keys) {
+      if (requests.containsKey(key)) {
+        throw new ExportValidationException("Export " + key + " is included more than once");
+      }
+      ExportDefinition def = registry.getRequired(key);
+      if (def.getWatermarkColumn() != null) {
+        throw new ExportValidationException(
+            "Export " + key + " is incremental and cannot be bundled");
+      }
+      Set<String> declared = new HashSet<>();
+      declared.add(MAX_ROWS_PARAM);
+      for (ExportParamDefinition param : def.getParams()) {
+        declared.add(param.getName());
+        declared.add(param.getRequestName());
+      }
+      String prefix = key + ".";
+      Map<String, String[]> own = new HashMap<>();
+      for (Map.Entry<String, String[]> entry : params.entrySet()) {
+        String name = entry.getKey();
+        if (name.startsWith(prefix)) {
+          own.put(name.substring(prefix.length()), entry.getValue());
+          used.add(name);
+        } else if (declared.contains(name)) {
+          own.putIfAbsent(name, entry.getValue());
+          used.add(name);
+        }
+      }
+      requests.put(key, exportService.validateRequest(key, own));
+    }
+    dataSourceOf(requests.keySet());
+    for (String name : params.keySet()) {
+      if (!used.contains(name)) {
+        throw new ExportValidationException("Unknown param: " + name);
+      }
+    }
+    return requests;
+  }
+
+  @Override
+  public void streamZip(Map<String, ValidatedExportRequest> requests, OutputStream out) {
+    try {
+      Observation.createNotStarted("laa.exports.bundle", observationRegistry)
+          .observeChecked(() -> streamInSnapshot(requests, out));
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException("Export bundle failed", e);
+    }
+  }
+
+  /**
+   * Stops the threads running bundled exports in parallel.
+   */
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private void streamInSnapshot(Map<String, ValidatedExportRequest> requests, OutputStream out)
+      throws Exception {
+    String source = dataSourceOf(requests.keySet());
+    // Nothing has been written yet, so a rejection still becomes a 429 response.
+    try (ExportConcurrencyLimiter.Permit permit =
+        limiter.acquireAll(requests.keySet(), Math.min(parallelism, requests.size()))) {
+      if (router == null || ExportDefinition.PRIMARY_DATA_SOURCE.equals(source)) {
+        streamInSnapshot(requests, primaryDataSource, out);
+        return;
+      }
+      // The holder and every export must reach the same server for the snapshot to import.
+      try (ExportDataSourceRouter.Pin pin = router.pin()) {
+        streamInSnapshot(requests, router.getDataSource(), out);
+      }
+    }
+  }
+
+  private void streamInSnapshot(
+      Map<String, ValidatedExportRequest> requests, DataSource dataSource, OutputStream out)
+      throws Exception {
+    try (Connection holder = acquireConnection(dataSource)) {
+      // The holder's transaction keeps the snapshot importable until every export has begun.
+      holder.setReadOnly(true);
+      holder.setAutoCommit(false);
+      holder.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      String snapshot = exportSnapshot(holder);
+      ZipOutputStream zip = new ZipOutputStream(out);
+      if (parallelism > 1 && requests.size() > 1) {
+        writeParallel(requests, snapshot, zip);
+      } else {
+        writeSequential(requests, snapshot, zip);
+      }
+      zip.finish();
+      zip.flush();
+      holder.commit();
+    }
+  }
+
+  private void writeSequential(
+      Map<String, ValidatedExportRequest> requests, String snapshot, ZipOutputStream zip)
+      throws IOException {
+    ExportSnapshot.bind(snapshot);
+    try {
+      OutputStream entry = new EntryOutputStream(zip);
+      for (Map.Entry<String, ValidatedExportRequest> request : requests.entrySet()) {
+        zip.putNextEntry(new ZipEntry(request.getKey() + ".csv"));
+        exportService.streamCsv(request.getKey(), request.getValue(), entry);
+        zip.closeEntry();
+      }
+    } finally {
+      ExportSnapshot.unbind();
+    }
+  }
+
+  private void writeParallel(
+      Map<String, ValidatedExportRequest> requests, String snapshot, ZipOutputStream zip)
+      throws Exception {
+    // Workers run on pool threads, so they bind the caller's cancellation and the snapshot.
+    ExportCancellation cancellation = ExportCancellation.current();
+    List<Map.Entry<String, ValidatedExportRequest>> entries =
+        new ArrayList<>(requests.entrySet());
+    List<PipedInputStream> pipes = new ArrayList<>(entries.size());
+    List<Future<Void>> results = new ArrayList<>(entries.size());
+    try {
+      for (int i = 0; i < entries.size(); i++) {
+        // Up to parallelism exports run ahead of the entry being written. The pool runs exports
+        // in the order they are submitted, so the entry being drained always gets a thread.
+        while (results.size() < Math.min(entries.size(), i + parallelism)) {
+          Map.Entry<String, ValidatedExportRequest> request = entries.get(results.size());
+          PipedInputStream pipe = new PipedInputStream(PIPE_SIZE);
+          PipedOutputStream sink = new PipedOutputStream(pipe);
+          pipes.add(pipe);
+          results.add(
+              executor.submit(
+                  () -> {
+                    streamEntry(
+                        request.getKey(), request.getValue(), snapshot, cancellation, sink);
+                    return null;
+                  }));
+        }
+        zip.putNextEntry(new ZipEntry(entries.get(i).getKey() + ".csv"));
+        pipes.get(i).transferTo(zip);
+        await(results.get(i));
+        zip.closeEntry();
+      }
+    } finally {
+      // Stops this bundle's exports that are still running when it fails.
+      results.forEach(result -> result.cancel(true));
+      pipes.forEach(DefaultExportBundleService::closeQuietly);
+    }
+  }
+
+  private void streamEntry(
+      String exportKey,
+      ValidatedExportRequest request,
+      String snapshot,
+      ExportCancellation cancellation,
+      OutputStream sink)
+      throws IOException {
+    ExportSnapshot.bind(snapshot);
+    ExportCancellation.bind(cancellation);
+    // Closing the pipe ends the entry's drain, also when the export fails.
+    try (OutputStream out = sink) {
+      exportService.streamCsv(exportKey, request, out);
+    } finally {
+      ExportCancellation.unbind();
+      ExportSnapshot.unbind();
+    }
+  }
+
+  /**
+   * Returns the data source shared by the given exports, rejecting bundles that mix them.
+   */
+  private String dataSourceOf(Collection<String> exportKeys) {
+    String source = null;
+    for (String key : exportKeys) {
+      String own = registry.getRequired(key).getDataSource();
+      if (source == null) {
+        source = own;
+      } else if (!source.equals(own)) {
+        throw new ExportValidationException(
+            "Export " + key + " reads from the " + own + " data source and cannot be bundled"
+                + " with exports reading from the " + source + " data source");
+      }
+    }
+    return source;
+  }
+
+  private Connection acquireConnection(DataSource dataSource) throws Exception {
+    return Observation.createNotStarted("laa.exports.connection", observationRegistry)
+        .observeChecked(dataSource::getConnection);
+  }
+
+  private static String exportSnapshot(Connection conn) throws SQLException {
+    try (Statement statement = conn.createStatement();
+        ResultSet resultSet = statement.executeQuery("select pg_export_snapshot()")) {
+      resultSet.next();
+      return resultSet.getString(1);
+    }
+  }
+
+  private static void await(Future<Void> result) throws Exception {
+    try {
+      result.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+
+  private static void closeQuietly(PipedInputStream pipe) {
+    try {
+      pipe.close();
+    } catch (IOException e) {
+      // The pipe only holds memory; a failed close leaves nothing behind.
+    }
+  }
+
+  private static CustomizableThreadFactory daemonThreads() {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("export-bundle-");
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  /**
+   * Writes one archive entry; closing it leaves the archive open for the next entry.
+   */
+  private static final class EntryOutputStream extends FilterOutputStream {
+    private EntryOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import uk.gov.laa.springboot.export.ExportConfigurationException;
+import uk.gov.laa.springboot.export.ExportJobNotFoundException;
+import uk.gov.laa.springboot.export.ExportJobNotReadyException;
+import uk.gov.laa.springboot.export.ExportJobService;
+import uk.gov.laa.springboot.export.ExportRejectedException;
+import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportJob;
+import uk.gov.laa.springboot.export.model.ExportJobStatus;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Default asynchronous export job engine.
+ * Jobs run on a bounded executor and spool CSV output to local files, which are deleted once
+ * the configured retention period has passed.
+ */
+public class DefaultExportJobService implements ExportJobService {
+  private static final Logger log = LoggerFactory.getLogger(DefaultExportJobService.class);
+
+  private final ExportService exportService;
+  private final LaaExportsProperties.Jobs settings;
+  private final Path spoolDirectory;
+  private final ThreadPoolExecutor executor;
+  private final ScheduledExecutorService cleaner;
+  private final Map<String, JobState> jobs = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the job engine and starts its worker and cleanup threads.
+   */
+  public DefaultExportJobService(ExportService exportService, LaaExportsProperties.Jobs settings) {
+    this.exportService = exportService;
+    this.settings = settings;
+    this.spoolDirectory = resolveSpoolDirectory(settings.getSpoolDirectory());
+    this.executor =
+        new ThreadPoolExecutor(
+            settings.getThreads(),
+            settings.getThreads(),
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(settings.getQueueCapacity()),
+            daemonThreads("export-job-"));
+    this.cleaner = Executors.newSingleThreadScheduledExecutor(daemonThreads("export-job-cleaner-"));
+    this.cleaner.scheduleWithFixedDelay(this::purgeExpired, 1, 1, TimeUnit.MINUTES);
+  }
+
+  @Override
+  public ExportJob submit(String exportKey, Map<String, String[]> rawParams) {
+    ValidatedExportRequest validated = exportService.validateRequest(exportKey, rawParams);
+    JobState job = new JobState(UUID.randomUUID().toString(), exportKey, settings.isCompress());
+    jobs.put(job.id, job);
+    try {
+      executor.execute(() -> run(job, validated));
+    } catch (RejectedExecutionException e) {
+      jobs.remove(job.id);
+      throw new ExportRejectedException("Export job queue is full");
+    }
+    return job.snapshot();
+  }
+
+  @Override
+  public ExportJob getRequired(String jobId) {
+    return requireJob(jobId).snapshot();
+  }
+
+  @Override
+  public Path getResultFile(String jobId) {
+    JobState job = requireJob(jobId);
+    if (job.status != ExportJobStatus.COMPLETED) {
+      throw new ExportJobNotReadyException("Export job " + jobId + " is " + job.status);
+    }
+    return job.file;
+  }
+
+  /**
+   * Stops the job threads and removes any spooled files.
+   */
+  public void shutdown() {
+    cleaner.shutdownNow();
+    executor.shutdownNow();
+    jobs.values().forEach(job -> deleteQuietly(job.file));
+    jobs.clear();
+  }
+
+  void purgeExpired() {
+    Instant cutoff = Instant.now().minus(settings.getRetention());
+    jobs.values().removeIf(
+        job -> {
+          if (job.completedAt == null || job.completedAt.isAfter(cutoff)) {
+            return false;
+          }
+          deleteQuietly(job.file);
+          return true;
+        });
+  }
+
+  private void run(JobState job, ValidatedExportRequest validated) {
+    job.status = ExportJobStatus.RUNNING;
+    Path file = null;
+    try {
+      String suffix = job.compressed ? ".csv.gz" : ".csv";
+      file = Files.createTempFile(spoolDirectory, "export-job-", suffix);
+      ExportContentEncoding encoding =
+          job.compressed ? ExportContentEncoding.GZIP : ExportContentEncoding.IDENTITY;
+      try (OutputStream out = Files.newOutputStream(file)) {
+        exportService.streamCsv(job.exportKey, validated, out, encoding);
+      }
+      job.complete(file, Files.size(file));
+    } catch (Exception e) {
+      deleteQuietly(file);
+      job.fail(e);
+      log.warn("export_job_failed id={} key={} error={}", job.id, job.exportKey, job.error);
+    }
+  }
+
+  private JobState requireJob(String jobId) {
+    JobState job = jobId == null ? null : jobs.get(jobId);
+    if (job == null) {
+      throw new ExportJobNotFoundException("Export job not found: " + jobId);
+    }
+    return job;
+  }
+
+  private static Path resolveSpoolDirectory(String configured) {
+    Path directory =
+        configured == null || configured.isBlank()
+            ? Path.of(System.getProperty("java.io.tmpdir"))
+            : Path.of(configured);
+    try {
+      return Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new ExportConfigurationException(
+          "Export job spool directory is not writable: " + directory, e);
+    }
+  }
+
+  private static CustomizableThreadFactory daemonThreads(String prefix) {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+    threadFactory.setDaemon(true);
+    return threadFactory;
+  }
+
+  private static void deleteQuietly(Path file) {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      log.warn("export_job_cleanup_failed file={}", file);
+    }
+  }
+
+  private static final class JobState {
+    private final String id;
+    private final String exportKey;
+    private final boolean compressed;
+    private final Instant createdAt = Instant.now();
+    private volatile ExportJobStatus status = ExportJobStatus.QUEUED;
+    private volatile Instant completedAt;
+    private volatile Path file;
+    private volatile long sizeBytes;
+    private volatile String error;
+
+    private JobState(String id, String exportKey, boolean compressed) {
+      this.id = id;
+      this.exportKey = exportKey;
+      this.compressed = compressed;
+    }
+
+    private void complete(Path result, long size) {
+      this.file = result;
+      this.sizeBytes = size;
+      this.completedAt = Instant.now();
+      this.status = ExportJobStatus.COMPLETED;
+    }
+
+    private void fail(Exception e) {
+      this.error = e.getClass().getSimpleName();
+      this.completedAt = Instant.now();
+      this.status = ExportJobStatus.FAILED;
+    }
+
+    private ExportJob snapshot() {
+      return new ExportJob(
+          id, exportKey, status, compressed, createdAt, completedAt, sizeBytes, error);
+    }
+  }
+}
@@ -1,52 +1,59 @@
 package uk.gov.laa.springboot.export.service;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import uk.gov.laa.springboot.export.ExportRequestValidator;
 import uk.gov.laa.springboot.export.ExportValidationException;
 import uk.gov.laa.springboot.export.model.ExportDefinition;
-import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ExportWatermarkToken;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+import uk.gov.laa.springboot.export.service.ExportValidationPlan.ParamPlan;
 
 /**
  * Default validator for export requests.
+ *
+ * <p>Each definition is compiled once into an {@link ExportValidationPlan}, cached by export key,
+ * so validating a request only looks up and parses the supplied values.
  */
 public class DefaultExportRequestValidator implements ExportRequestValidator {
+  private static final int MAX_RESUME_AFTER_LENGTH = 256;
+  private static final int MAX_WATERMARK_LENGTH = 256;
+
+  private final Map<String, ExportValidationPlan> plans = new ConcurrentHashMap<>();
 
   @Override
   public ValidatedExportRequest validate(ExportDefinition def, Map<String, String[]> rawParams) {
     Map<String, String[]> params = rawParams == null ? Map.of() : rawParams;
-    Map<String, ExportParamDefinition> paramsByName = new HashMap<>();
-    for (ExportParamDefinition definition : def.getParams()) {
-      paramsByName.put(definition.getName(), definition);
-      if (definition.getRequestName() != null && !definition.getRequestName().isBlank()) {
-        paramsByName.put(definition.getRequestName(), definition);
-      }
-    }
+    ExportValidationPlan plan = plan(def);
+    boolean incremental = def.getWatermarkColumn() != null;
+    ParamPlan[] paramPlans = plan.getParams();
+    Object[] values = new Object[paramPlans.length];
+    boolean[] present = new boolean[paramPlans.length];
 
-    Map<String, Object> parsedParams = new HashMap<>();
     for (Map.Entry<String, String[]> entry : params.entrySet()) {
       String name = entry.getKey();
-      if ("maxRows".equals(name)) {
+      if ("maxRows".equals(name)
+          || "resumeAfter".equals(name)
+          || (incremental && ExportWatermarkToken.PARAM.equals(name))) {
         continue;
       }
-      ExportParamDefinition param = paramsByName.get(name);
+      ParamPlan param = plan.forRequestName(name);
       if (param == null) {
         throw new ExportValidationException("Unknown param: " + name);
       }
-      parsedParams.put(param.getName(), parseParam(param, entry.getValue()));
+      values[param.getSlot()] = param.parse(entry.getValue());
+      present[param.getSlot()] = true;
     }
 
-    for (ExportParamDefinition param : def.getParams()) {
-      if (!parsedParams.containsKey(param.getName())) {
-        Object defaultValue = parseDefault(param);
-        if (defaultValue != null) {
-          parsedParams.put(param.getName(), defaultValue);
+    Map<String, Object> parsedParams = new HashMap<>();
+    for (ParamPlan param : paramPlans) {
+      Object value = values[param.getSlot()];
+      if (!present[param.getSlot()]) {
+        value = param.getDefault();
+        if (value != null) {
+          parsedParams.put(param.getName(), value);
           continue;
         }
         if (param.isRequired()) {
@@ -54,11 +61,11 @@ public class DefaultExportRequestValidator implements ExportRequestValidator {
         }
         continue;
       }
-      Object value = parsedParams.get(param.getName());
       if (param.isRequired()
           && (value == null || (value instanceof List<?> list && list.isEmpty()))) {
         throw new ExportValidationException("Missing required param: " + param.getName());
       }
+      parsedParams.put(param.getName(), value);
     }
 
     int maxRows = def.getMaxRows();
@@ -75,113 +82,62 @@ public class DefaultExportRequestValidator implements ExportRequestValidator {
       }
     }
 
-    return new ValidatedExportRequest(parsedParams, maxRows, params);
+    return new ValidatedExportRequest(
+        parsedParams,
+        maxRows,
+        params,
+        parseResumeAfter(def, params.get("resumeAfter")),
+        incremental ? parseSince(params.get(ExportWatermarkToken.PARAM)) : null,
+        null);
   }
 
-  private Object parseParam(ExportParamDefinition param, String[] values) {
-    if (values == null || values.length == 0) {
-      return parseDefault(param);
-    }
-    if (values.length == 1) {
-      return parseSingle(param, values[0]);
+  private ExportValidationPlan plan(ExportDefinition def) {
+    if (def.getKey() == null) {
+      return ExportValidationPlan.compile(def);
     }
-    List<Object> parsed = new ArrayList<>(values.length);
-    for (String value : values) {
-      parsed.add(parseSingle(param, value));
+    ExportValidationPlan plan = plans.get(def.getKey());
+    if (plan == null || plan.getDefinition() != def) {
+      // A reloaded registry supplies a new definition instance for the same key.
+      plan = ExportValidationPlan.compile(def);
+      plans.put(def.getKey(), plan);
     }
-    return parsed;
+    return plan;
   }
 
-  private Object parseSingle(ExportParamDefinition param, String rawValue) {
-    String value = rawValue == null ? null : rawValue.trim();
-    if (value == null || value.isBlank()) {
+  private String parseResumeAfter(ExportDefinition def, String[] values) {
+    if (values == null || values.length == 0) {
       return null;
     }
-    String normalized = value;
-    if ("ENUM".equalsIgnoreCase(param.getType())) {
-      normalized = value.toUpperCase(Locale.UK);
-    }
-    if (!param.getAllowed().isEmpty() && !param.getAllowed().contains(normalized)) {
-      throw new ExportValidationException(
-          "Param " + param.getName() + " value not allowed: " + value);
-    }
-    String type = param.getType() == null ? "" : param.getType().trim().toUpperCase(Locale.UK);
-    return switch (type) {
-      case "STRING" -> value;
-      case "UUID" -> parseUuid(param.getName(), value);
-      case "INT" -> parseInt(param.getName(), value);
-      case "LONG" -> parseLong(param.getName(), value);
-      case "BOOLEAN" -> parseBoolean(param.getName(), value);
-      case "DATE" -> parseDate(param.getName(), value);
-      case "ENUM" -> parseEnum(param, normalized);
-      default -> throw new ExportValidationException("Filter type invalid: " + param.getType());
-    };
-  }
-
-  private UUID parseUuid(String name, String value) {
-    try {
-      return UUID.fromString(value);
-    } catch (IllegalArgumentException e) {
-      throw new ExportValidationException("Filter " + name + " must be a UUID");
-    }
-  }
-
-  private Integer parseInt(String name, String value) {
-    try {
-      return Integer.valueOf(value);
-    } catch (NumberFormatException e) {
-      throw new ExportValidationException("Filter " + name + " must be an integer");
+    if (def.getResumeKey() == null) {
+      throw new ExportValidationException("Export " + def.getKey() + " cannot be resumed");
     }
-  }
-
-  private Long parseLong(String name, String value) {
-    try {
-      return Long.valueOf(value);
-    } catch (NumberFormatException e) {
-      throw new ExportValidationException("Filter " + name + " must be a long");
+    String value = values[0] == null ? "" : values[0].trim();
+    if (value.isEmpty()) {
+      throw new ExportValidationException("resumeAfter must not be blank");
     }
-  }
-
-  private Boolean parseBoolean(String name, String value) {
-    if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
-      throw new ExportValidationException("Filter " + name + " must be true or false");
+    if (value.length() > MAX_RESUME_AFTER_LENGTH) {
+      throw new ExportValidationException("resumeAfter is too long");
     }
-    return Boolean.parseBoolean(value);
+    return value;
   }
 
-  private LocalDate parseDate(String name, String value) {
-    try {
-      return LocalDate.parse(value);
-    } catch (Exception e) {
-      throw new ExportValidationException("Filter " + name + " must be a date (yyyy-MM-dd)");
+  private String parseSince(String[] values) {
+    if (values == null || values.length == 0) {
+      return null;
     }
-  }
-
-  @SuppressWarnings("unchecked")
-  private Object parseEnum(ExportParamDefinition param, String value) {
-    String enumClassName = param.getEnumClass();
-    if (enumClassName == null || enumClassName.isBlank()) {
-      throw new ExportValidationException("Param " + param.getName() + " enumClass missing");
+    String token = values[0] == null ? "" : values[0].trim();
+    if (token.isEmpty()) {
+      throw new ExportValidationException("since must not be blank");
     }
+    String watermark;
     try {
-      Class<?> enumClass = Class.forName(enumClassName);
-      if (!enumClass.isEnum()) {
-        throw new ExportValidationException("Param " + param.getName() + " enumClass invalid");
-      }
-      return Enum.valueOf((Class<Enum>) enumClass, value.toUpperCase(Locale.UK));
-    } catch (ExportValidationException e) {
-      throw e;
-    } catch (Exception e) {
-      throw new ExportValidationException("Param " + param.getName() + " enum value invalid");
+      watermark = ExportWatermarkToken.decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new ExportValidationException("since is not a valid watermark");
     }
-  }
-
-  private Object parseDefault(ExportParamDefinition param) {
-    String defaultValue = param.getDefaultValue();
-    if (defaultValue == null || defaultValue.isBlank()) {
-      return null;
+    if (watermark.isEmpty() || watermark.length() > MAX_WATERMARK_LENGTH) {
+      throw new ExportValidationException("since is not a valid watermark");
     }
-    return parseSingle(param, defaultValue);
+    return watermark;
   }
-
 }
@@ -1,15 +1,37 @@
 package uk.gov.laa.springboot.export.service;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.TreeMap;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportConfigurationException;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportEstimateProvider;
+import uk.gov.laa.springboot.export.ExportFormatNotAcceptableException;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.ExportFreshnessProvider;
 import uk.gov.laa.springboot.export.ExportRegistry;
 import uk.gov.laa.springboot.export.ExportRequestValidator;
+import uk.gov.laa.springboot.export.ExportResultCache;
+import uk.gov.laa.springboot.export.ExportRowProvider;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.ExportSnapshot;
+import uk.gov.laa.springboot.export.ExportValidationException;
+import uk.gov.laa.springboot.export.ExportWatermarkProvider;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
 import uk.gov.laa.springboot.export.model.ExportAuditEvent;
 import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.model.ExportEtag;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 /**
@@ -19,26 +41,190 @@ public final class DefaultExportService implements ExportService {
   private final ExportRegistry registry;
   private final ExportRequestValidator validator;
   private final ExportAuditSink audit;
+  private final ExportConcurrencyLimiter limiter;
+  private final ObservationRegistry observationRegistry;
+  private final ExportResultCache resultCache;
+  private final ExportEstimateCache estimateCache;
+  private final ExportFingerprintCache fingerprintCache = new ExportFingerprintCache();
+  private final Long maxEstimatedRows;
 
   /**
-   * Constructor for default export service.
+   * Constructor for default export service without concurrency limits, observations or caching.
    */
   public DefaultExportService(
       ExportRegistry registry,
       ExportRequestValidator validator,
       ExportAuditSink audit) {
-    this.registry = registry;
-    this.validator = validator;
-    this.audit = audit;
+    this(builder(registry, validator, audit));
+  }
+
+  private DefaultExportService(Builder builder) {
+    this.registry = builder.registry;
+    this.validator = builder.validator;
+    this.audit = builder.audit;
+    this.limiter = builder.limiter;
+    this.observationRegistry = builder.observationRegistry;
+    this.resultCache = builder.resultCache;
+    this.estimateCache = new ExportEstimateCache(builder.estimate.getCacheTtl());
+    this.maxEstimatedRows = builder.estimate.getMaxEstimatedRows();
   }
 
   /**
-   * Streams a CSV export for the given key and raw parameters.
+   * Starts a builder for an export service with optional collaborators.
+   */
+  public static Builder builder(
+      ExportRegistry registry,
+      ExportRequestValidator validator,
+      ExportAuditSink audit) {
+    return new Builder(registry, validator, audit);
+  }
+
+  /**
+   * Validates raw parameters and, when a row limit for estimates is configured, rejects
+   * requests estimated above it.
    */
   @Override
   public ValidatedExportRequest validateRequest(String exportKey, Map<String, String[]> rawParams) {
+    ValidatedExportRequest validated = validate(exportKey, rawParams);
+    if (maxEstimatedRows != null
+        && registry.getProvider(exportKey) instanceof ExportEstimateProvider) {
+      ExportEstimate estimate = estimate(exportKey, validated);
+      if (estimate.getEstimatedRows() > maxEstimatedRows) {
+        throw new ExportValidationException(
+            "Export " + exportKey + " is estimated at " + estimate.getEstimatedRows()
+                + " rows, above the limit of " + maxEstimatedRows + "; narrow the request");
+      }
+    }
+    return validated;
+  }
+
+  /**
+   * Estimates the request from its provider's query plan, reusing recent estimates for the
+   * same parameters.
+   */
+  @Override
+  public ExportEstimate estimate(String exportKey, Map<String, String[]> rawParams) {
+    return estimate(exportKey, validate(exportKey, rawParams));
+  }
+
+  private ValidatedExportRequest validate(String exportKey, Map<String, String[]> rawParams) {
+    ExportDefinition def = registry.getRequired(exportKey);
+    return Observation.createNotStarted("laa.exports.validate", observationRegistry)
+        .lowCardinalityKeyValue("export", exportKey)
+        .observe(() -> validator.validate(def, rawParams));
+  }
+
+  private ExportEstimate estimate(String exportKey, ValidatedExportRequest request) {
+    if (!(registry.getProvider(exportKey) instanceof ExportEstimateProvider provider)) {
+      throw new ExportConfigurationException(
+          "Export " + exportKey + " provider does not support estimates");
+    }
+    return estimateCache.get(exportKey, request, () -> provider.estimate(request));
+  }
+
+  /**
+   * Asks the export's provider for the watermark of the last row the export will include.
+   */
+  @Override
+  public ValidatedExportRequest resolveWatermark(
+      String exportKey, ValidatedExportRequest request) {
+    ExportDefinition def = registry.getRequired(exportKey);
+    if (def.getWatermarkColumn() == null) {
+      return request;
+    }
+    if (!(registry.getProvider(exportKey) instanceof ExportWatermarkProvider provider)) {
+      throw new ExportConfigurationException(
+          "Export " + exportKey + " provider does not support watermarks");
+    }
+    String until =
+        Observation.createNotStarted("laa.exports.watermark", observationRegistry)
+            .lowCardinalityKeyValue("export", exportKey)
+            .observe(() -> provider.nextWatermark(request));
+    return request.withWatermarkUntil(until == null ? request.getWatermarkSince() : until);
+  }
+
+  /**
+   * Returns the entity tag of the request's CSV export.
+   */
+  @Override
+  public String etag(String exportKey, ValidatedExportRequest request) {
+    return etag(exportKey, request, registry.getFormat(ExportDefinition.CSV_FORMAT));
+  }
+
+  /**
+   * Combines the provider's fingerprint, reused for the definition's freshness TTL, with
+   * everything else that selects the response's content.
+   */
+  @Override
+  public String etag(String exportKey, ValidatedExportRequest request, ExportFormatWriter format) {
+    ExportDefinition def = registry.getRequired(exportKey);
+    if (def.getFreshnessTtl() == null) {
+      return null;
+    }
+    if (!(registry.getProvider(exportKey) instanceof ExportFreshnessProvider provider)) {
+      throw new ExportConfigurationException(
+          "Export " + exportKey + " provider does not support fingerprints");
+    }
+    String fingerprint =
+        fingerprintCache.get(
+            exportKey, request, def.getFreshnessTtl(), () -> provider.fingerprint(request));
+    return ExportEtag.of(
+        exportKey,
+        format.getName(),
+        request.getMaxRows(),
+        new TreeMap<>(request.getParams()),
+        request.getResumeAfter(),
+        request.getWatermarkSince(),
+        fingerprint);
+  }
+
+  /**
+   * Resolves the content encoding, honouring the definition's compression setting.
+   */
+  @Override
+  public ExportContentEncoding negotiateEncoding(String exportKey, String acceptEncoding) {
+    ExportDefinition def = registry.getRequired(exportKey);
+    if (!def.isCompressionEnabled()) {
+      return ExportContentEncoding.IDENTITY;
+    }
+    return ExportContentEncoding.negotiate(acceptEncoding);
+  }
+
+  /**
+   * Resolves the output format from a URL extension, then the {@code Accept} header.
+   */
+  @Override
+  public ExportFormatWriter negotiateFormat(String exportKey, String extension, String accept) {
     ExportDefinition def = registry.getRequired(exportKey);
-    return validator.validate(def, rawParams);
+    if (extension != null && !extension.isBlank()) {
+      for (String name : def.getFormats()) {
+        ExportFormatWriter format = registry.getFormat(name);
+        if (format.getFileExtension().equalsIgnoreCase(extension)
+            || format.getName().equalsIgnoreCase(extension)) {
+          return format;
+        }
+      }
+      throw new ExportFormatNotAcceptableException(
+          "Export " + exportKey + " is not available as " + extension);
+    }
+    if (accept == null || accept.isBlank()) {
+      return registry.getFormat(ExportDefinition.CSV_FORMAT);
+    }
+    List<MediaType> accepted = new ArrayList<>(parseAccept(accept));
+    accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+    for (MediaType mediaType : accepted) {
+      if (mediaType.getQualityValue() <= 0) {
+        continue;
+      }
+      for (String name : def.getFormats()) {
+        ExportFormatWriter format = registry.getFormat(name);
+        if (mediaType.includes(MediaType.parseMediaType(format.getMediaType()))) {
+          return format;
+        }
+      }
+    }
+    throw new ExportFormatNotAcceptableException(
+        "Export " + exportKey + " is available as " + def.getFormats());
   }
 
   /**
@@ -55,22 +241,185 @@ public final class DefaultExportService implements ExportService {
    */
   @Override
   public void streamCsv(String exportKey, ValidatedExportRequest validated, OutputStream out) {
+    streamCsv(exportKey, validated, out, ExportContentEncoding.IDENTITY);
+  }
+
+  /**
+   * Streams a CSV export for a pre-validated request through the given content encoding.
+   */
+  @Override
+  public void streamCsv(
+      String exportKey,
+      ValidatedExportRequest validated,
+      OutputStream out,
+      ExportContentEncoding encoding) {
+    stream(exportKey, validated, out, registry.getFormat(ExportDefinition.CSV_FORMAT), encoding);
+  }
+
+  /**
+   * Streams an export in the given format. CSV is written by the export's provider and may be
+   * served from the result cache; other formats are written through its row provider.
+   */
+  @Override
+  public void stream(
+      String exportKey,
+      ValidatedExportRequest validated,
+      OutputStream out,
+      ExportFormatWriter format,
+      ExportContentEncoding encoding) {
     ExportDefinition def = registry.getRequired(exportKey);
+    if (!def.getFormats().contains(format.getName())) {
+      throw new ExportFormatNotAcceptableException(
+          "Export " + exportKey + " is not available as " + format.getName());
+    }
+    boolean csv = ExportDefinition.CSV_FORMAT.equals(format.getName());
+    boolean bundled = ExportSnapshot.current() != null;
+    // Resumed and incremental exports are partial results, and bundled exports read the bundle's
+    // snapshot, so they are neither served from nor stored in cache.
+    ExportResultCache cache =
+        def.getCacheTtl() == null
+                || !csv
+                || validated.getResumeAfter() != null
+                || def.getWatermarkColumn() != null
+                || bundled
+            ? null
+            : resultCache;
 
     long start = System.currentTimeMillis();
-    AtomicLong rowCounter = new AtomicLong();
+    long startNanos = System.nanoTime();
+    long rows = 0;
+    // Wire bytes and blocked time are measured after compression; first byte is taken from the
+    // provider's output.
+    CountingOutputStream wire = new CountingOutputStream(out);
+    CountingOutputStream body = null;
+    OutputStream encoded = null;
+    ExportResultCache.PendingResult pending = null;
+    Observation observation =
+        Observation.createNotStarted("laa.exports.stream", observationRegistry)
+            .lowCardinalityKeyValue("export", exportKey)
+            .lowCardinalityKeyValue("format", format.getName())
+            .lowCardinalityKeyValue("encoding", encoding.getToken())
+            .start();
 
-    try {
-      ExportCsvProvider provider = registry.getProvider(exportKey);
-      long rows = provider.writeCsv(validated, out, def.getColumns());
-      if (rows >= 0) {
-        rowCounter.set(rows);
+    try (Observation.Scope scope = observation.openScope()) {
+      long cachedRows = cache == null ? -1 : cache.serve(def, validated, wire, encoding);
+      if (cachedRows >= 0) {
+        rows = cachedRows;
+        body = wire;
+      } else {
+        // Bundles acquire their exports' permits before they start streaming.
+        try (ExportConcurrencyLimiter.Permit permit =
+            bundled ? () -> { } : limiter.acquire(exportKey)) {
+          ExportCsvProvider provider = registry.getProvider(exportKey);
+          pending = cache == null ? null : cache.begin(def, validated, encoding);
+          OutputStream target;
+          if (pending == null) {
+            encoded = encoding.wrap(wire, def.getCompressionLevel());
+            target = encoded;
+          } else {
+            target = pending.wrap(wire);
+          }
+          body = new CountingOutputStream(target);
+          long written =
+              csv
+                  ? provider.writeCsv(validated, body, def.getColumns())
+                  : ((ExportRowProvider) provider)
+                      .writeRows(validated, def.getColumns(), format, body);
+          if (pending == null) {
+            encoding.finish(encoded);
+          } else {
+            pending.commit(written);
+          }
+          // Providers that cannot count their rows return -1.
+          rows = Math.max(written, 0);
+        }
       }
 
-      audit.record(ExportAuditEvent.success(exportKey, validated, rowCounter.get(), start));
+      audit.record(
+          ExportAuditEvent.builder(exportKey, validated, start)
+              .rows(rows)
+              .bytes(wire.getCount())
+              .timeToFirstByteMs(body.millisToFirstWrite(startNanos))
+              .writeBlockedMs(wire.getBlockedMillis())
+              .success());
     } catch (Exception e) {
-      audit.record(ExportAuditEvent.failure(exportKey, validated, rowCounter.get(), start, e));
+      // Frees the compressor's native memory now rather than when it is garbage collected.
+      if (encoded != null) {
+        encoding.abandon(encoded);
+      }
+      if (pending != null) {
+        pending.discard();
+      }
+      observation.error(e);
+      ExportAuditEvent.Builder event =
+          ExportAuditEvent.builder(exportKey, validated, start)
+              .rows(rows)
+              .bytes(wire.getCount())
+              .timeToFirstByteMs(body == null ? -1 : body.millisToFirstWrite(startNanos))
+              .writeBlockedMs(wire.getBlockedMillis());
+      // A failed write to the response or a cancelled request means the client went away.
+      boolean cancelled = wire.isWriteFailed() || ExportCancellation.current().isCancelled();
+      audit.record(cancelled ? event.cancelled(e) : event.failure(e));
       throw e;
+    } finally {
+      observation.stop();
+    }
+  }
+
+  private static List<MediaType> parseAccept(String accept) {
+    try {
+      return MediaType.parseMediaTypes(accept);
+    } catch (InvalidMediaTypeException e) {
+      throw new ExportFormatNotAcceptableException("Invalid Accept header: " + accept);
+    }
+  }
+
+  /**
+   * Builds a {@link DefaultExportService}.
+   */
+  public static final class Builder {
+    private final ExportRegistry registry;
+    private final ExportRequestValidator validator;
+    private final ExportAuditSink audit;
+    private ExportConcurrencyLimiter limiter = ExportConcurrencyLimiter.unlimited();
+    private ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+    private ExportResultCache resultCache;
+    private LaaExportsProperties.Estimate estimate = new LaaExportsProperties.Estimate();
+
+    private Builder(
+        ExportRegistry registry,
+        ExportRequestValidator validator,
+        ExportAuditSink audit) {
+      this.registry = registry;
+      this.validator = validator;
+      this.audit = audit;
+    }
+
+    public Builder limiter(ExportConcurrencyLimiter limiter) {
+      this.limiter = limiter;
+      return this;
+    }
+
+    public Builder observationRegistry(ObservationRegistry observationRegistry) {
+      this.observationRegistry = observationRegistry;
+      return this;
+    }
+
+    /**
+     * Sets the cache for definitions with caching enabled, or {@code null} for none.
+     */
+    public Builder resultCache(ExportResultCache resultCache) {
+      this.resultCache = resultCache;
+      return this;
+    }
+
+    public Builder estimate(LaaExportsProperties.Estimate estimate) {
+      this.estimate = estimate;
+      return this;
+    }
+
+    public DefaultExportService build() {
+      return new DefaultExportService(this);
     }
   }
 }
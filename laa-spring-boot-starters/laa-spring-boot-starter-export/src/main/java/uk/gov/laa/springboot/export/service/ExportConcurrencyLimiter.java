@@ -0,0 +1,239 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import uk.gov.laa.springboot.export.ExportRejectedException;
+
+/**
+ * Semaphore-based admission control for exports.
+ * A global limit and per-export limits are applied; when a limit is full, callers either wait in
+ * a bounded queue for up to the configured time or are rejected immediately.
+ */
+public class ExportConcurrencyLimiter {
+  private static final Permit NO_OP_PERMIT = () -> { };
+
+  private final Limit global;
+  private final Map<String, Limit> perExport;
+  private final int maxQueued;
+  private final Duration maxQueueWait;
+  private final Duration retryAfter;
+
+  /**
+   * Creates a limiter.
+   *
+   * @param globalLimit maximum concurrent exports across all keys, or 0 for no limit
+   * @param perExportLimits maximum concurrent exports per key; keys mapped to 0 are unlimited
+   * @param maxQueued maximum callers allowed to wait for each limit, or 0 to reject immediately
+   * @param maxQueueWait maximum time a queued caller waits before being rejected
+   * @param retryAfter retry hint returned to rejected callers
+   */
+  public ExportConcurrencyLimiter(
+      int globalLimit,
+      Map<String, Integer> perExportLimits,
+      int maxQueued,
+      Duration maxQueueWait,
+      Duration retryAfter) {
+    this.global = globalLimit > 0 ? new Limit(globalLimit) : null;
+    Map<String, Limit> limits = new HashMap<>();
+    perExportLimits.forEach(
+        (key, limit) -> {
+          if (limit != null && limit > 0) {
+            limits.put(key, new Limit(limit));
+          }
+        });
+    this.perExport = Collections.unmodifiableMap(limits);
+    this.maxQueued = Math.max(0, maxQueued);
+    this.maxQueueWait = maxQueueWait == null ? Duration.ZERO : maxQueueWait;
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Creates a limiter that admits every export.
+   */
+  public static ExportConcurrencyLimiter unlimited() {
+    return new ExportConcurrencyLimiter(0, Map.of(), 0, Duration.ZERO, null);
+  }
+
+  /**
+   * Acquires a permit for an export, waiting in the queue if allowed.
+   *
+   * @throws ExportRejectedException when no permit is available
+   */
+  public Permit acquire(String exportKey) {
+    Limit exportLimit = perExport.get(exportKey);
+    if (exportLimit == null && global == null) {
+      return NO_OP_PERMIT;
+    }
+    acquirePermits(exportLimit, exportKey, 1);
+    try {
+      acquirePermits(global, exportKey, 1);
+    } catch (RuntimeException e) {
+      release(exportLimit, 1);
+      throw e;
+    }
+    return () -> {
+      release(global, 1);
+      release(exportLimit, 1);
+    };
+  }
+
+  /**
+   * Acquires permits for a bundle of exports before any of them starts, so none is rejected
+   * once the bundle is streaming. Each export's own limit is taken once, and the global limit
+   * once for every export the bundle runs at the same time.
+   *
+   * @param concurrent number of the bundle's exports running at the same time
+   * @throws ExportRejectedException when the permits are not available
+   */
+  public Permit acquireAll(Collection<String> exportKeys, int concurrent) {
+    String bundle = "bundle of " + String.join(", ", exportKeys);
+    List<Limit> held = new ArrayList<>();
+    try {
+      // Sorted, so bundles sharing exports queue for their limits in the same order.
+      for (String exportKey : new TreeSet<>(exportKeys)) {
+        Limit exportLimit = perExport.get(exportKey);
+        acquirePermits(exportLimit, exportKey, 1);
+        held.add(exportLimit);
+      }
+      acquirePermits(global, bundle, concurrent);
+    } catch (RuntimeException e) {
+      held.forEach(limit -> release(limit, 1));
+      throw e;
+    }
+    return () -> {
+      release(global, concurrent);
+      held.forEach(limit -> release(limit, 1));
+    };
+  }
+
+  /**
+   * Returns statistics for the global limit, or {@code null} when no global limit is set.
+   */
+  public LimitStats getGlobalStats() {
+    return global;
+  }
+
+  public Map<String, LimitStats> getPerExportStats() {
+    return Collections.unmodifiableMap(perExport);
+  }
+
+  private void acquirePermits(Limit limit, String exportKey, int permits) {
+    if (limit == null || limit.semaphore.tryAcquire(permits)) {
+      return;
+    }
+    if (maxQueued == 0 || maxQueueWait.isZero() || permits > limit.permits) {
+      throw reject(limit, exportKey);
+    }
+    if (limit.waiting.incrementAndGet() > maxQueued) {
+      limit.waiting.decrementAndGet();
+      throw reject(limit, exportKey);
+    }
+    long started = System.nanoTime();
+    boolean acquired = false;
+    try {
+      acquired =
+          limit.semaphore.tryAcquire(permits, maxQueueWait.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      limit.waiting.decrementAndGet();
+      limit.waits.incrementAndGet();
+      limit.waitNanos.addAndGet(System.nanoTime() - started);
+    }
+    if (!acquired) {
+      throw reject(limit, exportKey);
+    }
+  }
+
+  private ExportRejectedException reject(Limit limit, String exportKey) {
+    limit.rejections.incrementAndGet();
+    return new ExportRejectedException(
+        "Too many concurrent exports for " + exportKey + ", try again later", retryAfter);
+  }
+
+  private static void release(Limit limit, int permits) {
+    if (limit != null) {
+      limit.semaphore.release(permits);
+    }
+  }
+
+  /**
+   * Releases an acquired export permit.
+   */
+  @FunctionalInterface
+  public interface Permit extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * Point-in-time statistics for a single limit.
+   */
+  public interface LimitStats {
+    int getLimit();
+
+    int getActive();
+
+    int getQueued();
+
+    long getRejections();
+
+    long getWaits();
+
+    long getWaitNanos();
+  }
+
+  private static final class Limit implements LimitStats {
+    private final int permits;
+    private final Semaphore semaphore;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong rejections = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+
+    private Limit(int permits) {
+      this.permits = permits;
+      this.semaphore = new Semaphore(permits, true);
+    }
+
+    @Override
+    public int getLimit() {
+      return permits;
+    }
+
+    @Override
+    public int getActive() {
+      return permits - semaphore.availablePermits();
+    }
+
+    @Override
+    public int getQueued() {
+      return waiting.get();
+    }
+
+    @Override
+    public long getRejections() {
+      return rejections.get();
+    }
+
+    @Override
+    public long getWaits() {
+      return waits.get();
+    }
+
+    @Override
+    public long getWaitNanos() {
+      return waitNanos.get();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Short-lived cache of planner estimates per export and parameter set, so repeated estimate
+ * requests while a user adjusts filters do not each plan the query.
+ */
+final class ExportEstimateCache {
+  private static final int MAX_ENTRIES = 1_000;
+
+  private final Duration ttl;
+  private final Clock clock;
+  private final Map<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+
+  ExportEstimateCache(Duration ttl) {
+    this(ttl, Clock.systemUTC());
+  }
+
+  ExportEstimateCache(Duration ttl, Clock clock) {
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the cached estimate for the request, computing and caching it when missing or
+   * expired.
+   */
+  ExportEstimate get(
+      String exportKey, ValidatedExportRequest request, Supplier<ExportEstimate> estimator) {
+    if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+      return estimator.get();
+    }
+    List<Object> key = List.of(exportKey, request.getMaxRows(), request.getParams());
+    Instant now = clock.instant();
+    Entry cached = entries.get(key);
+    if (cached != null && cached.expiresAt.isAfter(now)) {
+      return cached.estimate;
+    }
+    ExportEstimate estimate = estimator.get();
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.values().removeIf(entry -> !entry.expiresAt.isAfter(now));
+      if (entries.size() >= MAX_ENTRIES) {
+        entries.clear();
+      }
+    }
+    entries.put(key, new Entry(estimate, now.plus(ttl)));
+    return estimate;
+  }
+
+  private static final class Entry {
+    private final ExportEstimate estimate;
+    private final Instant expiresAt;
+
+    private Entry(ExportEstimate estimate, Instant expiresAt) {
+      this.estimate = estimate;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Short-lived cache of freshness fingerprints per export and parameter set, so a burst of
+ * conditional requests runs the freshness query once per definition TTL rather than once each.
+ */
+final class ExportFingerprintCache {
+  private static final int MAX_ENTRIES = 1_000;
+
+  private final Clock clock;
+  private final Map<List<Object>, Entry> entries = new ConcurrentHashMap<>();
+
+  ExportFingerprintCache() {
+    this(Clock.systemUTC());
+  }
+
+  ExportFingerprintCache(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the cached fingerprint for the request, computing and caching it for {@code ttl}
+   * when missing or expired.
+   */
+  String get(
+      String exportKey,
+      ValidatedExportRequest request,
+      Duration ttl,
+      Supplier<String> fingerprinter) {
+    if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+      return fingerprinter.get();
+    }
+    List<Object> key = List.of(exportKey, request.getMaxRows(), request.getParams());
+    Instant now = clock.instant();
+    Entry cached = entries.get(key);
+    if (cached != null && cached.expiresAt.isAfter(now)) {
+      return cached.fingerprint;
+    }
+    String fingerprint = fingerprinter.get();
+    if (entries.size() >= MAX_ENTRIES) {
+      entries.values().removeIf(entry -> !entry.expiresAt.isAfter(now));
+      if (entries.size() >= MAX_ENTRIES) {
+        entries.clear();
+      }
+    }
+    entries.put(key, new Entry(fingerprint, now.plus(ttl)));
+    return fingerprint;
+  }
+
+  private static final class Entry {
+    private final String fingerprint;
+    private final Instant expiresAt;
+
+    private Entry(String fingerprint, Instant expiresAt) {
+      this.fingerprint = fingerprint;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
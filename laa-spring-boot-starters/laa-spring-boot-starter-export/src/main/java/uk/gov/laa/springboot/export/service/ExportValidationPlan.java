@@ -0,0 +1,239 @@
+package uk.gov.laa.springboot.export.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import uk.gov.laa.springboot.export.ExportValidationException;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+
+/**
+ * Validation work for one export definition that does not depend on the request: request name
+ * lookup, normalised types, resolved enum constants and parsed defaults.
+ *
+ * <p>Configuration problems such as an unknown type or enum class are kept and reported when a
+ * value for the param is parsed, as they would be without a plan.
+ */
+final class ExportValidationPlan {
+  private final ExportDefinition definition;
+  private final ParamPlan[] params;
+  private final Map<String, ParamPlan> paramsByRequestName;
+
+  private ExportValidationPlan(
+      ExportDefinition definition, ParamPlan[] params, Map<String, ParamPlan> paramsByRequestName) {
+    this.definition = definition;
+    this.params = params;
+    this.paramsByRequestName = paramsByRequestName;
+  }
+
+  static ExportValidationPlan compile(ExportDefinition definition) {
+    List<ExportParamDefinition> definitions = definition.getParams();
+    ParamPlan[] params = new ParamPlan[definitions.size()];
+    Map<String, ParamPlan> paramsByRequestName = new HashMap<>();
+    for (int i = 0; i < params.length; i++) {
+      ExportParamDefinition param = definitions.get(i);
+      params[i] = new ParamPlan(i, param);
+      paramsByRequestName.put(param.getName(), params[i]);
+      if (param.getRequestName() != null && !param.getRequestName().isBlank()) {
+        paramsByRequestName.put(param.getRequestName(), params[i]);
+      }
+    }
+    return new ExportValidationPlan(definition, params, Map.copyOf(paramsByRequestName));
+  }
+
+  ExportDefinition getDefinition() {
+    return definition;
+  }
+
+  ParamPlan[] getParams() {
+    return params;
+  }
+
+  ParamPlan forRequestName(String name) {
+    return paramsByRequestName.get(name);
+  }
+
+  /**
+   * Parsing rules for a single param, resolved from its definition.
+   */
+  static final class ParamPlan {
+    private final int slot;
+    private final String name;
+    private final String declaredType;
+    private final String type;
+    private final boolean required;
+    private final Set<String> allowed;
+    private final boolean upperCase;
+    private final Map<String, Object> enumConstants;
+    private final String enumError;
+    private final Object defaultValue;
+    private final String defaultError;
+
+    private ParamPlan(int slot, ExportParamDefinition param) {
+      this.slot = slot;
+      this.name = param.getName();
+      this.declaredType = param.getType();
+      this.type = param.getType() == null ? "" : param.getType().trim().toUpperCase(Locale.UK);
+      this.required = param.isRequired();
+      this.allowed = param.getAllowed().isEmpty() ? null : Set.copyOf(param.getAllowed());
+      this.upperCase = "ENUM".equalsIgnoreCase(param.getType());
+
+      Map<String, Object> constants = null;
+      String error = null;
+      if ("ENUM".equals(type)) {
+        try {
+          constants = enumConstants(param);
+        } catch (ExportValidationException e) {
+          error = e.getMessage();
+        }
+      }
+      this.enumConstants = constants;
+      this.enumError = error;
+
+      Object parsedDefault = null;
+      error = null;
+      if (param.getDefaultValue() != null && !param.getDefaultValue().isBlank()) {
+        try {
+          parsedDefault = parseSingle(param.getDefaultValue());
+        } catch (ExportValidationException e) {
+          error = e.getMessage();
+        }
+      }
+      this.defaultValue = parsedDefault;
+      this.defaultError = error;
+    }
+
+    int getSlot() {
+      return slot;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    boolean isRequired() {
+      return required;
+    }
+
+    /**
+     * Returns the parsed default, or {@code null} when the param has none.
+     */
+    Object getDefault() {
+      if (defaultError != null) {
+        throw new ExportValidationException(defaultError);
+      }
+      return defaultValue;
+    }
+
+    Object parse(String[] values) {
+      if (values == null || values.length == 0) {
+        return getDefault();
+      }
+      if (values.length == 1) {
+        return parseSingle(values[0]);
+      }
+      List<Object> parsed = new ArrayList<>(values.length);
+      for (String value : values) {
+        parsed.add(parseSingle(value));
+      }
+      return parsed;
+    }
+
+    private Object parseSingle(String rawValue) {
+      String value = rawValue == null ? null : rawValue.trim();
+      if (value == null || value.isBlank()) {
+        return null;
+      }
+      String normalized = upperCase ? value.toUpperCase(Locale.UK) : value;
+      if (allowed != null && !allowed.contains(normalized)) {
+        throw new ExportValidationException("Param " + name + " value not allowed: " + value);
+      }
+      return switch (type) {
+        case "STRING" -> value;
+        case "UUID" -> parseUuid(value);
+        case "INT" -> parseInt(value);
+        case "LONG" -> parseLong(value);
+        case "BOOLEAN" -> parseBoolean(value);
+        case "DATE" -> parseDate(value);
+        case "ENUM" -> parseEnum(normalized);
+        default -> throw new ExportValidationException("Filter type invalid: " + declaredType);
+      };
+    }
+
+    private UUID parseUuid(String value) {
+      try {
+        return UUID.fromString(value);
+      } catch (IllegalArgumentException e) {
+        throw new ExportValidationException("Filter " + name + " must be a UUID");
+      }
+    }
+
+    private Integer parseInt(String value) {
+      try {
+        return Integer.valueOf(value);
+      } catch (NumberFormatException e) {
+        throw new ExportValidationException("Filter " + name + " must be an integer");
+      }
+    }
+
+    private Long parseLong(String value) {
+      try {
+        return Long.valueOf(value);
+      } catch (NumberFormatException e) {
+        throw new ExportValidationException("Filter " + name + " must be a long");
+      }
+    }
+
+    private Boolean parseBoolean(String value) {
+      if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+        throw new ExportValidationException("Filter " + name + " must be true or false");
+      }
+      return Boolean.parseBoolean(value);
+    }
+
+    private LocalDate parseDate(String value) {
+      try {
+        return LocalDate.parse(value);
+      } catch (Exception e) {
+        throw new ExportValidationException("Filter " + name + " must be a date (yyyy-MM-dd)");
+      }
+    }
+
+    private Object parseEnum(String value) {
+      if (enumError != null) {
+        throw new ExportValidationException(enumError);
+      }
+      Object constant = enumConstants.get(upperCase ? value : value.toUpperCase(Locale.UK));
+      if (constant == null) {
+        throw new ExportValidationException("Param " + name + " enum value invalid");
+      }
+      return constant;
+    }
+
+    private static Map<String, Object> enumConstants(ExportParamDefinition param) {
+      String enumClassName = param.getEnumClass();
+      if (enumClassName == null || enumClassName.isBlank()) {
+        throw new ExportValidationException("Param " + param.getName() + " enumClass missing");
+      }
+      Class<?> enumClass;
+      try {
+        enumClass = Class.forName(enumClassName);
+      } catch (Exception | LinkageError e) {
+        throw new ExportValidationException("Param " + param.getName() + " enum value invalid");
+      }
+      if (!enumClass.isEnum()) {
+        throw new ExportValidationException("Param " + param.getName() + " enumClass invalid");
+      }
+      Map<String, Object> constants = new HashMap<>();
+      for (Object constant : enumClass.getEnumConstants()) {
+        constants.put(((Enum<?>) constant).name(), constant);
+      }
+      return Map.copyOf(constants);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package uk.gov.laa.springboot.export.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Named-parameter SQL parsed once into literal fragments and parameter slots.
+ * {@code :name} placeholders are recognised outside string literals, quoted identifiers and
+ * comments; PostgreSQL {@code ::type} casts are left untouched.
+ */
+public final class SqlTemplate {
+  private final String sql;
+  private final List<String> fragments;
+  private final List<String> slots;
+  private final String positionalSql;
+
+  private SqlTemplate(String sql, List<String> fragments, List<String> slots) {
+    this.sql = sql;
+    this.fragments = List.copyOf(fragments);
+    this.slots = List.copyOf(slots);
+    this.positionalSql = String.join("?", fragments);
+  }
+
+  /**
+   * Parses named-parameter SQL into a template.
+   */
+  public static SqlTemplate compile(String sql) {
+    String source = sql == null ? "" : sql;
+    List<String> fragments = new ArrayList<>();
+    List<String> slots = new ArrayList<>();
+    int length = source.length();
+    int fragmentStart = 0;
+    int i = 0;
+    while (i < length) {
+      char c = source.charAt(i);
+      if (c == '\'' || c == '"') {
+        i = skipQuoted(source, i, c);
+      } else if (c == '-' && i + 1 < length && source.charAt(i + 1) == '-') {
+        int end = source.indexOf('\n', i);
+        i = end < 0 ? length : end;
+      } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+        int end = source.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (c == ':' && i + 1 < length && source.charAt(i + 1) == ':') {
+        i += 2;
+      } else if (c == ':' && i + 1 < length && isNameStart(source.charAt(i + 1))) {
+        int end = i + 2;
+        while (end < length && isNamePart(source.charAt(end))) {
+          end++;
+        }
+        fragments.add(source.substring(fragmentStart, i));
+        slots.add(source.substring(i + 1, end));
+        fragmentStart = end;
+        i = end;
+      } else {
+        i++;
+      }
+    }
+    fragments.add(source.substring(fragmentStart));
+    return new SqlTemplate(source, fragments, slots);
+  }
+
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * Returns the literal SQL fragments; there is always one more fragment than slots.
+   */
+  public List<String> getFragments() {
+    return fragments;
+  }
+
+  /**
+   * Returns the parameter name for each slot in order, including repeats.
+   */
+  public List<String> getSlots() {
+    return slots;
+  }
+
+  /**
+   * Returns the distinct parameter names referenced by the SQL, in order of first use.
+   */
+  public Set<String> getParameterNames() {
+    return new LinkedHashSet<>(slots);
+  }
+
+  /**
+   * Returns the SQL with each slot replaced by a JDBC {@code ?} placeholder.
+   */
+  public String getPositionalSql() {
+    return positionalSql;
+  }
+
+  private static int skipQuoted(String source, int start, char quote) {
+    int i = start + 1;
+    while (i < source.length()) {
+      if (source.charAt(i) == quote) {
+        if (i + 1 < source.length() && source.charAt(i + 1) == quote) {
+          i += 2;
+          continue;
+        }
+        return i + 1;
+      }
+      i++;
+    }
+    return source.length();
+  }
+
+  private static boolean isNameStart(char c) {
+    return c == '_' || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+
+  private static boolean isNamePart(char c) {
+    return isNameStart(c) || (c >= '0' && c <= '9');
+  }
+}
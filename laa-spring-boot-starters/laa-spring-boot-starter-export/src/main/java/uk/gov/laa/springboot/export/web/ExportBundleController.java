@@ -0,0 +1,56 @@
+package uk.gov.laa.springboot.export.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import uk.gov.laa.springboot.export.ExportBundleService;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+/**
+ * Endpoint streaming several exports as one ZIP archive. The requests are validated before the
+ * response is committed, so an invalid bundle is rejected with a 400 rather than a broken archive.
+ */
+@RestController
+@RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
+public class ExportBundleController {
+  private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+  private static final String KEYS_PARAM = "keys";
+
+  private final ExportBundleService bundleService;
+
+  public ExportBundleController(ExportBundleService bundleService) {
+    this.bundleService = bundleService;
+  }
+
+  /**
+   * Streams the exports named by {@code keys}, using the remaining query parameters as export
+   * params.
+   */
+  @GetMapping(value = "/bundle.zip", produces = "application/zip")
+  public ResponseEntity<StreamingResponseBody> bundle(
+      @RequestParam(KEYS_PARAM) List<String> keys, HttpServletRequest request) {
+    Map<String, String[]> params = new HashMap<>(request.getParameterMap());
+    params.remove(KEYS_PARAM);
+    Map<String, ValidatedExportRequest> requests = bundleService.validateBundle(keys, params);
+    StreamingResponseBody body = out -> bundleService.streamZip(requests, out);
+    String filename = "exports-" + LocalDate.now() + ".zip";
+    return ResponseEntity.ok()
+        .contentType(APPLICATION_ZIP)
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString())
+        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+        .body(body);
+  }
+}
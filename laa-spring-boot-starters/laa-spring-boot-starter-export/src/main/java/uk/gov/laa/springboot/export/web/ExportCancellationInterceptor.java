@@ -0,0 +1,58 @@
+package uk.gov.laa.springboot.export.web;
+
+import java.util.concurrent.Callable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import uk.gov.laa.springboot.export.ExportCancellation;
+
+/**
+ * Cancels an export's database work when its asynchronous response times out or the container
+ * reports the client connection failed. Streaming export responses run as async callables, so
+ * without this the query keeps running on the worker thread until its next write fails.
+ */
+public class ExportCancellationInterceptor implements CallableProcessingInterceptor {
+  private static final String ATTRIBUTE = ExportCancellation.class.getName();
+
+  @Override
+  public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+    request.setAttribute(ATTRIBUTE, new ExportCancellation(), RequestAttributes.SCOPE_REQUEST);
+  }
+
+  @Override
+  public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+    ExportCancellation cancellation = cancellation(request);
+    if (cancellation != null) {
+      ExportCancellation.bind(cancellation);
+    }
+  }
+
+  @Override
+  public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object result) {
+    ExportCancellation.unbind();
+  }
+
+  @Override
+  public <T> Object handleTimeout(NativeWebRequest request, Callable<T> task) {
+    cancel(request);
+    return RESULT_NONE;
+  }
+
+  @Override
+  public <T> Object handleError(NativeWebRequest request, Callable<T> task, Throwable t) {
+    cancel(request);
+    return RESULT_NONE;
+  }
+
+  private static void cancel(NativeWebRequest request) {
+    ExportCancellation cancellation = cancellation(request);
+    if (cancellation != null) {
+      cancellation.cancel();
+    }
+  }
+
+  private static ExportCancellation cancellation(NativeWebRequest request) {
+    return (ExportCancellation)
+        request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+  }
+}
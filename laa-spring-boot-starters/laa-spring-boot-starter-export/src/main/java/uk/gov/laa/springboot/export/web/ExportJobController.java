@@ -0,0 +1,78 @@
+package uk.gov.laa.springboot.export.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.URI;
+import java.nio.file.Path;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import uk.gov.laa.springboot.export.ExportJobService;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportJob;
+
+/**
+ * Endpoints for submitting asynchronous export jobs and downloading their results.
+ * Downloads are served as file resources, so {@code Range} requests are supported.
+ */
+@RestController
+@RequestMapping("${laa.springboot.starter.exports.web.base-path:/exports}")
+public class ExportJobController {
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+  private static final MediaType APPLICATION_GZIP = MediaType.parseMediaType("application/gzip");
+
+  private final ExportJobService jobService;
+  private final String basePath;
+
+  public ExportJobController(ExportJobService jobService, LaaExportsProperties properties) {
+    this.jobService = jobService;
+    this.basePath = properties.getWeb().getBasePath();
+  }
+
+  /**
+   * Queues an export job using the request's query parameters as export params.
+   */
+  @PostMapping("/{exportKey}/jobs")
+  public ResponseEntity<ExportJob> submit(
+      @PathVariable("exportKey") String exportKey, HttpServletRequest request) {
+    ExportJob job = jobService.submit(exportKey, request.getParameterMap());
+    URI location =
+        ServletUriComponentsBuilder.fromCurrentContextPath()
+            .path(basePath)
+            .path("/jobs/{jobId}")
+            .buildAndExpand(job.getId())
+            .toUri();
+    return ResponseEntity.accepted().location(location).body(job);
+  }
+
+  @GetMapping("/jobs/{jobId}")
+  public ExportJob status(@PathVariable("jobId") String jobId) {
+    return jobService.getRequired(jobId);
+  }
+
+  /**
+   * Downloads the spooled result of a completed job.
+   */
+  @GetMapping("/jobs/{jobId}/download")
+  public ResponseEntity<Resource> download(@PathVariable("jobId") String jobId) {
+    ExportJob job = jobService.getRequired(jobId);
+    Path file = jobService.getResultFile(jobId);
+    String filename =
+        job.getExportKey() + "-" + job.getId() + (job.isCompressed() ? ".csv.gz" : ".csv");
+    return ResponseEntity.ok()
+        .contentType(job.isCompressed() ? APPLICATION_GZIP : TEXT_CSV)
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment().filename(filename).build().toString())
+        .header(HttpHeaders.CACHE_CONTROL, "no-store")
+        .body(new FileSystemResource(file));
+  }
+}
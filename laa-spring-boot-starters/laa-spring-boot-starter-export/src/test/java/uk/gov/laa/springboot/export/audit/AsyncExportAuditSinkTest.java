@@ -0,0 +1,162 @@
+package uk.gov.laa.springboot.export.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class AsyncExportAuditSinkTest {
+
+  private final ValidatedExportRequest request =
+      new ValidatedExportRequest(Map.of(), 100, Map.of());
+  private final List<List<ExportAuditEvent>> batches = new CopyOnWriteArrayList<>();
+
+  @Test
+  void recordsQueuedEventsInBatchesAndFlushesOnClose() throws Exception {
+    AsyncExportAuditSink sink =
+        new AsyncExportAuditSink(
+            collecting(), 100, 2, Duration.ofMinutes(1), AsyncExportAuditSink.Overflow.DROP_NEWEST,
+            Duration.ofSeconds(5));
+
+    for (int i = 0; i < 5; i++) {
+      sink.record(event("books-" + i));
+    }
+    sink.close();
+
+    assertThat(batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+    assertThat(batches.stream().flatMap(List::stream).map(ExportAuditEvent::getExportKey))
+        .containsExactly("books-0", "books-1", "books-2", "books-3", "books-4");
+    assertThat(sink.getQueuedCount()).isZero();
+    assertThat(sink.getDroppedCount()).isZero();
+  }
+
+  @Test
+  void dropsNewEventsWhenQueueIsFull() throws Exception {
+    CountDownLatch delivering = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExportAuditSink blocking =
+        new ExportAuditSink() {
+          @Override
+          public void record(ExportAuditEvent event) {
+          }
+
+          @Override
+          public void recordAll(List<ExportAuditEvent> events) {
+            delivering.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            batches.add(events);
+          }
+        };
+    AsyncExportAuditSink sink =
+        new AsyncExportAuditSink(
+            blocking, 2, 1, Duration.ofMillis(10), AsyncExportAuditSink.Overflow.DROP_NEWEST,
+            Duration.ofSeconds(5));
+
+    sink.record(event("first"));
+    assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+    sink.record(event("second"));
+    sink.record(event("third"));
+    sink.record(event("dropped"));
+
+    assertThat(sink.getQueuedCount()).isEqualTo(2);
+    assertThat(sink.getDroppedCount()).isEqualTo(1);
+
+    release.countDown();
+    sink.close();
+
+    assertThat(batches.stream().flatMap(List::stream).map(ExportAuditEvent::getExportKey))
+        .containsExactly("first", "second", "third");
+  }
+
+  @Test
+  void dropsQueuedAndLateEventsWithoutClosingBusyDelegate() throws Exception {
+    CountDownLatch delivering = new CountDownLatch(1);
+    AtomicBoolean delegateClosed = new AtomicBoolean();
+    class BlockingSink implements ExportAuditSink, AutoCloseable {
+      @Override
+      public void record(ExportAuditEvent event) {
+      }
+
+      @Override
+      public void recordAll(List<ExportAuditEvent> events) {
+        delivering.countDown();
+        try {
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        batches.add(events);
+      }
+
+      @Override
+      public void close() {
+        delegateClosed.set(true);
+      }
+    }
+
+    AsyncExportAuditSink sink =
+        new AsyncExportAuditSink(
+            new BlockingSink(), 10, 1, Duration.ofMillis(10),
+            AsyncExportAuditSink.Overflow.DROP_NEWEST, Duration.ofMillis(50));
+    sink.record(event("first"));
+    assertThat(delivering.await(5, TimeUnit.SECONDS)).isTrue();
+    sink.record(event("second"));
+    sink.record(event("third"));
+
+    sink.close();
+    sink.record(event("late"));
+
+    assertThat(delegateClosed).isFalse();
+    assertThat(sink.getQueuedCount()).isZero();
+    assertThat(sink.getDroppedCount()).isEqualTo(3);
+    assertThat(batches.stream().flatMap(List::stream).map(ExportAuditEvent::getExportKey))
+        .doesNotContain("second", "third", "late");
+  }
+
+  @Test
+  void countsEventsDroppedByFailingDelegate() throws Exception {
+    AsyncExportAuditSink sink =
+        new AsyncExportAuditSink(
+            event -> {
+              throw new IllegalStateException("boom");
+            },
+            10, 5, Duration.ofMillis(10), AsyncExportAuditSink.Overflow.CALLER_RUNS,
+            Duration.ofSeconds(5));
+
+    sink.record(event("books"));
+    sink.close();
+
+    assertThat(sink.getDroppedCount()).isEqualTo(1);
+  }
+
+  private ExportAuditSink collecting() {
+    return new ExportAuditSink() {
+      @Override
+      public void record(ExportAuditEvent event) {
+        batches.add(List.of(event));
+      }
+
+      @Override
+      public void recordAll(List<ExportAuditEvent> events) {
+        batches.add(List.copyOf(events));
+      }
+    };
+  }
+
+  private ExportAuditEvent event(String key) {
+    return ExportAuditEvent.success(key, request, 1, System.currentTimeMillis());
+  }
+}
@@ -0,0 +1,73 @@
+package uk.gov.laa.springboot.export.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class JdbcExportAuditSinkTest {
+
+  private static JdbcDataSource dataSource;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:export_audit;DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table export_audit(export_key varchar(100), outcome varchar(20),"
+              + " started_at timestamp with time zone, duration_ms bigint, max_rows int,"
+              + " rows_written bigint, bytes_written bigint, first_byte_ms bigint,"
+              + " write_blocked_ms bigint, error varchar(200))");
+    }
+  }
+
+  @Test
+  void insertsEventsInOneBatch() throws Exception {
+    ValidatedExportRequest request = new ValidatedExportRequest(Map.of(), 100, Map.of());
+    long start = System.currentTimeMillis();
+    JdbcExportAuditSink sink = new JdbcExportAuditSink(dataSource, "export_audit");
+
+    sink.recordAll(
+        List.of(
+            ExportAuditEvent.builder("books", request, start)
+                .rows(3)
+                .bytes(120)
+                .timeToFirstByteMs(5)
+                .writeBlockedMs(2)
+                .success(),
+            ExportAuditEvent.builder("loans", request, start)
+                .rows(1)
+                .bytes(40)
+                .cancelled(new IOException("Broken pipe"))));
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery(
+                "select export_key, outcome, rows_written, first_byte_ms, error"
+                    + " from export_audit order by export_key")) {
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getString(1)).isEqualTo("books");
+      assertThat(resultSet.getString(2)).isEqualTo("SUCCESS");
+      assertThat(resultSet.getLong(3)).isEqualTo(3);
+      assertThat(resultSet.getLong(4)).isEqualTo(5);
+      assertThat(resultSet.getString(5)).isNull();
+      assertThat(resultSet.next()).isTrue();
+      assertThat(resultSet.getString(2)).isEqualTo("CANCELLED");
+      assertThat(resultSet.getObject(4)).isNull();
+      assertThat(resultSet.getString(5)).isEqualTo("IOException");
+      assertThat(resultSet.next()).isFalse();
+    }
+  }
+}
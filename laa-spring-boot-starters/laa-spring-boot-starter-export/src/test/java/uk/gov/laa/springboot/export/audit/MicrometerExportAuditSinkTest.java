@@ -0,0 +1,107 @@
+package uk.gov.laa.springboot.export.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class MicrometerExportAuditSinkTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final MicrometerExportAuditSink sink = new MicrometerExportAuditSink(registry);
+  private final ValidatedExportRequest request =
+      new ValidatedExportRequest(Map.of(), 100, Map.of());
+
+  @Test
+  void recordsTimersAndSummariesForSuccessfulExport() {
+    long start = System.currentTimeMillis();
+
+    sink.record(
+        ExportAuditEvent.builder("books", request, start)
+            .rows(3)
+            .bytes(120)
+            .timeToFirstByteMs(5)
+            .success());
+
+    assertThat(registry.get("laa.exports.duration")
+        .tags("export", "books", "outcome", "success").timer().count()).isEqualTo(1);
+    assertThat(registry.get("laa.exports.rows").tag("export", "books").summary().totalAmount())
+        .isEqualTo(3);
+    assertThat(registry.get("laa.exports.bytes").tag("export", "books").summary().totalAmount())
+        .isEqualTo(120);
+    assertThat(registry.get("laa.exports.first.byte").tag("export", "books").timer().count())
+        .isEqualTo(1);
+    assertThat(registry.find("laa.exports.failures").counter()).isNull();
+  }
+
+  @Test
+  void splitsDurationIntoDatabaseAndWriteBlockedTime() {
+    long start = System.currentTimeMillis() - 1000;
+
+    ExportAuditEvent event =
+        ExportAuditEvent.builder("books", request, start)
+            .rows(3)
+            .bytes(10_000)
+            .timeToFirstByteMs(5)
+            .writeBlockedMs(800)
+            .success();
+    sink.record(event);
+
+    assertThat(event.getDatabaseMs()).isEqualTo(event.getDurationMs() - 800);
+    assertThat(event.getBytesPerSecond()).isBetween(1L, 10_000L);
+    assertThat(registry.get("laa.exports.write.blocked").tag("export", "books").timer()
+        .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(800);
+    assertThat(registry.get("laa.exports.database.time").tag("export", "books").timer()
+        .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(event.getDatabaseMs());
+    assertThat(registry.get("laa.exports.throughput").tag("export", "books").summary().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void countsFailuresByExceptionType() {
+    long start = System.currentTimeMillis();
+
+    sink.record(
+        ExportAuditEvent.failure("books", request, 0, start, new IllegalStateException("boom")));
+
+    assertThat(registry.get("laa.exports.failures")
+        .tags("export", "books", "exception", "IllegalStateException").counter().count())
+        .isEqualTo(1);
+    assertThat(registry.find("laa.exports.first.byte").timer()).isNull();
+  }
+
+  @Test
+  void tagsFailuresWithRootCauseType() {
+    long start = System.currentTimeMillis();
+    Exception failure =
+        new RuntimeException("CSV export failed", new SQLException("timeout", "57014"));
+
+    sink.record(ExportAuditEvent.failure("books", request, 0, start, failure));
+
+    assertThat(registry.get("laa.exports.failures")
+        .tags("export", "books", "exception", "SQLException").counter().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  void tagsCancelledExportsSeparatelyFromFailures() {
+    long start = System.currentTimeMillis();
+
+    sink.record(
+        ExportAuditEvent.builder("books", request, start)
+            .rows(40)
+            .bytes(4096)
+            .timeToFirstByteMs(5)
+            .cancelled(new IOException("Broken pipe")));
+
+    assertThat(registry.get("laa.exports.duration")
+        .tags("export", "books", "outcome", "cancelled").timer().count()).isEqualTo(1);
+    assertThat(registry.find("laa.exports.failures").counter()).isNull();
+  }
+}
@@ -0,0 +1,206 @@
+package uk.gov.laa.springboot.export.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import uk.gov.laa.springboot.export.ExportResultCache;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class DiskExportResultCacheTest {
+
+  private static final String CSV = "id,name\n1,Alice\n2,Bob\n";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void servesCommittedResultInRequestedEncoding() throws Exception {
+    DiskExportResultCache cache = cache(DataSize.ofMegabytes(1));
+    ExportDefinition definition = definition("books", Duration.ofMinutes(5));
+    ValidatedExportRequest request = request(Map.of("status", "OPEN"));
+
+    assertThat(cache.serve(definition, request, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY)).isEqualTo(-1);
+    ByteArrayOutputStream client = new ByteArrayOutputStream();
+    write(cache, definition, request, client, ExportContentEncoding.IDENTITY, 2);
+    assertThat(client.toString(StandardCharsets.UTF_8)).isEqualTo(CSV);
+
+    ByteArrayOutputStream plain = new ByteArrayOutputStream();
+    assertThat(cache.serve(definition, request, plain, ExportContentEncoding.IDENTITY))
+        .isEqualTo(2);
+    assertThat(plain.toString(StandardCharsets.UTF_8)).isEqualTo(CSV);
+
+    ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+    assertThat(cache.serve(definition, request, gzipped, ExportContentEncoding.GZIP)).isEqualTo(2);
+    assertThat(gunzip(gzipped.toByteArray())).isEqualTo(CSV);
+    assertThat(cache.getHits()).isEqualTo(2);
+    assertThat(cache.getMisses()).isEqualTo(1);
+  }
+
+  @Test
+  void storesGzipResponseBytesAsSent() throws Exception {
+    DiskExportResultCache cache = cache(DataSize.ofMegabytes(1));
+    ExportDefinition definition = definition("books", Duration.ofMinutes(5));
+    ValidatedExportRequest request = request(Map.of());
+
+    ByteArrayOutputStream client = new ByteArrayOutputStream();
+    write(cache, definition, request, client, ExportContentEncoding.GZIP, 2);
+
+    ByteArrayOutputStream cached = new ByteArrayOutputStream();
+    cache.serve(definition, request, cached, ExportContentEncoding.GZIP);
+    assertThat(cached.toByteArray()).isEqualTo(client.toByteArray());
+    assertThat(gunzip(cached.toByteArray())).isEqualTo(CSV);
+  }
+
+  @Test
+  void discardedAndInvalidatedResultsAreNotServed() {
+    DiskExportResultCache cache = cache(DataSize.ofMegabytes(1));
+    ExportDefinition definition = definition("books", Duration.ofMinutes(5));
+    ValidatedExportRequest request = request(Map.of());
+
+    ExportResultCache.PendingResult discarded =
+        cache.begin(definition, request, ExportContentEncoding.IDENTITY);
+    discarded.wrap(new ByteArrayOutputStream());
+    discarded.discard();
+    assertThat(cache.getEntryCount()).isZero();
+
+    write(cache, definition, request, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY, 2);
+    ExportResultCache.PendingResult inFlight =
+        cache.begin(definition, request(Map.of("status", "OPEN")),
+            ExportContentEncoding.IDENTITY);
+    cache.invalidate("books");
+    inFlight.wrap(new ByteArrayOutputStream());
+    inFlight.commit(1);
+
+    assertThat(cache.getEntryCount()).isZero();
+    assertThat(cache.getSizeBytes()).isZero();
+    assertThat(directory.toFile().list()).isEmpty();
+  }
+
+  @Test
+  void resultsWithUnknownRowCountAreNotStored() throws Exception {
+    DiskExportResultCache cache = cache(DataSize.ofMegabytes(1));
+    ExportDefinition definition = definition("books", Duration.ofMinutes(5));
+    ValidatedExportRequest request = request(Map.of());
+    ByteArrayOutputStream client = new ByteArrayOutputStream();
+
+    write(cache, definition, request, client, ExportContentEncoding.GZIP, -1);
+
+    assertThat(gunzip(client.toByteArray())).isEqualTo(CSV);
+    ByteArrayOutputStream served = new ByteArrayOutputStream();
+    assertThat(cache.serve(definition, request, served, ExportContentEncoding.GZIP))
+        .isEqualTo(-1);
+    assertThat(served.size()).isZero();
+    assertThat(cache.getEntryCount()).isZero();
+    assertThat(directory.toFile().list()).isEmpty();
+  }
+
+  @Test
+  void expiredEntriesAreMisses() {
+    DiskExportResultCache cache = cache(DataSize.ofMegabytes(1));
+    ExportDefinition definition = definition("books", Duration.ofMillis(-1));
+    ValidatedExportRequest request = request(Map.of());
+
+    write(cache, definition, request, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY, 2);
+
+    assertThat(cache.serve(definition, request, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY)).isEqualTo(-1);
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedEntriesWhenOverMaxSize() {
+    DiskExportResultCache cache = cache(DataSize.ofBytes(100));
+    ExportDefinition definition = definition("books", Duration.ofMinutes(5));
+    ValidatedExportRequest first = request(Map.of("id", 1L));
+    ValidatedExportRequest second = request(Map.of("id", 2L));
+    ValidatedExportRequest third = request(Map.of("id", 3L));
+
+    write(cache, definition, first, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY, 2);
+    write(cache, definition, second, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY, 2);
+    cache.serve(definition, first, new ByteArrayOutputStream(), ExportContentEncoding.GZIP);
+    write(cache, definition, third, new ByteArrayOutputStream(),
+        ExportContentEncoding.IDENTITY, 2);
+
+    assertThat(cache.getSizeBytes()).isLessThanOrEqualTo(100);
+    assertThat(cache.getEvictions()).isPositive();
+    assertThat(cache.serve(definition, second, new ByteArrayOutputStream(),
+        ExportContentEncoding.GZIP)).isEqualTo(-1);
+    assertThat(cache.serve(definition, third, new ByteArrayOutputStream(),
+        ExportContentEncoding.GZIP)).isEqualTo(2);
+  }
+
+  @Test
+  void cacheIdIgnoresParamOrderButNotValuesOrMaxRows() {
+    Map<String, Object> ordered = new LinkedHashMap<>();
+    ordered.put("a", "1");
+    ordered.put("b", 2L);
+    Map<String, Object> reversed = new LinkedHashMap<>();
+    reversed.put("b", 2L);
+    reversed.put("a", "1");
+
+    String id = DiskExportResultCache.cacheId("books", request(ordered));
+    assertThat(DiskExportResultCache.cacheId("books", request(reversed))).isEqualTo(id);
+    assertThat(DiskExportResultCache.cacheId("books", request(Map.of("a", "1", "b", "2"))))
+        .isNotEqualTo(id);
+    assertThat(DiskExportResultCache.cacheId(
+        "books", new ValidatedExportRequest(ordered, 10, Map.of()))).isNotEqualTo(id);
+    assertThat(DiskExportResultCache.cacheId("loans", request(ordered))).isNotEqualTo(id);
+  }
+
+  private DiskExportResultCache cache(DataSize maxSize) {
+    LaaExportsProperties.Cache settings = new LaaExportsProperties.Cache();
+    settings.setDirectory(directory.toString());
+    settings.setMaxSize(maxSize);
+    return new DiskExportResultCache(settings);
+  }
+
+  private static void write(
+      DiskExportResultCache cache,
+      ExportDefinition definition,
+      ValidatedExportRequest request,
+      OutputStream client,
+      ExportContentEncoding encoding,
+      long rows) {
+    ExportResultCache.PendingResult pending = cache.begin(definition, request, encoding);
+    try {
+      OutputStream out = pending.wrap(client);
+      out.write(CSV.getBytes(StandardCharsets.UTF_8));
+      out.flush();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+    pending.commit(rows);
+  }
+
+  private static ExportDefinition definition(String key, Duration ttl) {
+    return ExportDefinition.builder(key).maxRows(100).provider("provider").cacheTtl(ttl).build();
+  }
+
+  private static ValidatedExportRequest request(Map<String, Object> params) {
+    return new ValidatedExportRequest(params, 100, Map.of());
+  }
+
+  private static String gunzip(byte[] bytes) throws Exception {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
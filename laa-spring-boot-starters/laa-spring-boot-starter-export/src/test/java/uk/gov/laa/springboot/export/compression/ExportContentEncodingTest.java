@@ -0,0 +1,59 @@
+package uk.gov.laa.springboot.export.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+
+class ExportContentEncodingTest {
+
+  @Test
+  void negotiatesGzipFromAcceptEncodingHeader() {
+    assertThat(ExportContentEncoding.negotiate("gzip, deflate, br"))
+        .isEqualTo(ExportContentEncoding.GZIP);
+    assertThat(ExportContentEncoding.negotiate("br;q=1.0, *;q=0.5"))
+        .isEqualTo(ExportContentEncoding.GZIP);
+  }
+
+  @Test
+  void fallsBackToIdentityWhenGzipNotAccepted() {
+    assertThat(ExportContentEncoding.negotiate(null)).isEqualTo(ExportContentEncoding.IDENTITY);
+    assertThat(ExportContentEncoding.negotiate("br")).isEqualTo(ExportContentEncoding.IDENTITY);
+    assertThat(ExportContentEncoding.negotiate("gzip;q=0, *"))
+        .isEqualTo(ExportContentEncoding.IDENTITY);
+  }
+
+  @Test
+  void gzipStreamRoundTripsCsvContent() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+
+    OutputStream wrapped = ExportContentEncoding.GZIP.wrap(target, 9);
+    wrapped.write("id,name\n1,Alice\n".getBytes(StandardCharsets.UTF_8));
+    ExportContentEncoding.GZIP.finish(wrapped);
+
+    try (GZIPInputStream gzip =
+        new GZIPInputStream(new ByteArrayInputStream(target.toByteArray()))) {
+      assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8))
+          .isEqualTo("id,name\n1,Alice\n");
+    }
+  }
+
+  @Test
+  void abandonReleasesGzipStreamWithoutWritingTrailer() throws Exception {
+    ByteArrayOutputStream target = new ByteArrayOutputStream();
+    OutputStream wrapped = ExportContentEncoding.GZIP.wrap(target, 6);
+    wrapped.write("id,name\n1,Alice\n".getBytes(StandardCharsets.UTF_8));
+    int written = target.size();
+
+    ExportContentEncoding.GZIP.abandon(wrapped);
+
+    assertThat(target.size()).isEqualTo(written);
+    assertThatThrownBy(() -> ExportContentEncoding.GZIP.finish(wrapped))
+        .isInstanceOf(RuntimeException.class);
+  }
+}
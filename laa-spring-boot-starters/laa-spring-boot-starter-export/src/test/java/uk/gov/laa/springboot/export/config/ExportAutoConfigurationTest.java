@@ -2,16 +2,26 @@ package uk.gov.laa.springboot.export.config;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import uk.gov.laa.springboot.export.ExportAuditSink;
+import uk.gov.laa.springboot.export.ExportJobService;
 import uk.gov.laa.springboot.export.ExportRegistry;
 import uk.gov.laa.springboot.export.ExportRequestValidator;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.audit.AsyncExportAuditSink;
+import uk.gov.laa.springboot.export.audit.CompositeExportAuditSink;
 import uk.gov.laa.springboot.export.audit.LogExportAuditSink;
+import uk.gov.laa.springboot.export.audit.MicrometerExportAuditSink;
+import uk.gov.laa.springboot.export.metrics.ExportConcurrencyMetrics;
 import uk.gov.laa.springboot.export.service.DefaultExportRequestValidator;
 import uk.gov.laa.springboot.export.service.DefaultExportService;
+import uk.gov.laa.springboot.export.service.ExportConcurrencyLimiter;
+import uk.gov.laa.springboot.export.web.ExportJobController;
 
 class ExportAutoConfigurationTest {
 
@@ -48,6 +58,91 @@ class ExportAutoConfigurationTest {
                   .isInstanceOf(DefaultExportRequestValidator.class);
               assertThat(context.getBean(ExportAuditSink.class))
                   .isInstanceOf(LogExportAuditSink.class);
+              assertThat(context.getBean(ExportRegistry.class).getFormat("ndjson").getMediaType())
+                  .isEqualTo("application/x-ndjson");
+              assertThat(context).doesNotHaveBean(ExportJobService.class);
+            });
+  }
+
+  @Test
+  void createsExportJobBeansWhenJobsEnabled() {
+    contextRunner
+        .withBean(
+            "resourceProvider",
+            uk.gov.laa.springboot.export.ExportCsvProvider.class,
+            () -> (request, out, cols) -> 0L)
+        .withPropertyValues(
+            "laa.springboot.starter.exports.enabled=true",
+            "laa.springboot.starter.exports.jobs.enabled=true")
+        .run(
+            context -> {
+              assertThat(context).hasSingleBean(ExportJobService.class);
+              assertThat(context).hasSingleBean(ExportJobController.class);
+            });
+  }
+
+  @Test
+  void createsConcurrencyLimiterFromDefinitionLimits() {
+    contextRunner
+        .withBean(
+            "libraryProvider",
+            uk.gov.laa.springboot.export.ExportCsvProvider.class,
+            () -> (request, out, cols) -> 0L)
+        .withPropertyValues(
+            "laa.springboot.starter.exports.enabled=true",
+            "laa.springboot.starter.exports.defaults.max-concurrent-exports=4",
+            "laa.springboot.starter.exports.definitions.sample.provider=libraryProvider",
+            "laa.springboot.starter.exports.definitions.sample.maxConcurrent=2")
+        .run(
+            context -> {
+              ExportConcurrencyLimiter limiter = context.getBean(ExportConcurrencyLimiter.class);
+              assertThat(limiter.getGlobalStats().getLimit()).isEqualTo(4);
+              assertThat(limiter.getPerExportStats().get("sample").getLimit()).isEqualTo(2);
+              assertThat(context).hasSingleBean(ExportConcurrencyMetrics.class);
+            });
+  }
+
+  @Test
+  void composesLogAndMicrometerAuditSinksWhenMeterRegistryPresent() {
+    contextRunner
+        .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+        .withPropertyValues("laa.springboot.starter.exports.enabled=true")
+        .run(
+            context -> {
+              ExportAuditSink sink = context.getBean(ExportAuditSink.class);
+              assertThat(sink).isInstanceOf(CompositeExportAuditSink.class);
+              assertThat(((CompositeExportAuditSink) sink).getSinks())
+                  .hasExactlyElementsOfTypes(
+                      LogExportAuditSink.class, MicrometerExportAuditSink.class);
+            });
+  }
+
+  @Test
+  void usesLogAuditSinkWithoutMicrometer() {
+    contextRunner
+        .withClassLoader(new FilteredClassLoader("io.micrometer.core"))
+        .withPropertyValues("laa.springboot.starter.exports.enabled=true")
+        .run(
+            context -> {
+              assertThat(context).hasSingleBean(ExportAuditSink.class);
+              assertThat(context.getBean(ExportAuditSink.class))
+                  .isInstanceOf(LogExportAuditSink.class);
+            });
+  }
+
+  @Test
+  void wrapsAuditSinkWhenAsyncAuditEnabled() {
+    contextRunner
+        .withBean("customAuditSink", ExportAuditSink.class, () -> event -> { })
+        .withPropertyValues(
+            "laa.springboot.starter.exports.enabled=true",
+            "laa.springboot.starter.exports.audit.async.enabled=true",
+            "laa.springboot.starter.exports.audit.async.batch-size=10")
+        .run(
+            context -> {
+              assertThat(context).hasSingleBean(ExportAuditSink.class);
+              assertThat(context.getBean(ExportAuditSink.class))
+                  .isInstanceOf(AsyncExportAuditSink.class);
             });
   }
 
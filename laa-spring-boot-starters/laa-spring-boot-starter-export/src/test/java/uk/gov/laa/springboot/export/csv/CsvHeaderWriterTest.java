@@ -2,7 +2,9 @@ package uk.gov.laa.springboot.export.csv;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import uk.gov.laa.springboot.export.model.ExportColumn;
@@ -34,4 +36,16 @@ class CsvHeaderWriterTest {
 
     assertThat(writer.toString()).isEqualTo("id,Extra Header\n");
   }
+
+  @Test
+  void writesUtf8EncodedHeaderToOutputStream() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    CsvHeaderWriter.writeHeader(
+        out,
+        List.of("id", "fee"),
+        List.of(new ExportColumn("fee", "Fee (£)", null)));
+
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,Fee (£)\n");
+  }
 }
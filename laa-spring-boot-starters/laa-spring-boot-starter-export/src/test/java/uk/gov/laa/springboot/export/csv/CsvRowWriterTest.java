@@ -0,0 +1,68 @@
+package uk.gov.laa.springboot.export.csv;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+
+class CsvRowWriterTest {
+
+  @Test
+  void writesCopyCompatibleQuoting() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvRowWriter writer = new CsvRowWriter(out);
+
+    writer.writeField("plain");
+    writer.writeField("a,b");
+    writer.writeField("say \"hi\"");
+    writer.writeField("");
+    writer.writeNull();
+    writer.writeField("line\nbreak");
+    writer.endRow();
+    writer.flush();
+
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("plain,\"a,b\",\"say \"\"hi\"\"\",\"\",,\"line\nbreak\"\n");
+  }
+
+  @Test
+  void writesPrimitivesAndDatesWithoutFormatting() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvRowWriter writer = new CsvRowWriter(out);
+
+    writer.writeInt(0);
+    writer.writeInt(-42);
+    writer.writeLong(Long.MAX_VALUE);
+    writer.writeLong(Long.MIN_VALUE);
+    writer.writeDate(LocalDate.of(2025, 1, 5));
+    writer.writeDate(null);
+    writer.endRow();
+    writer.flush();
+
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("0,-42,9223372036854775807,-9223372036854775808,2025-01-05,\n");
+  }
+
+  @Test
+  void encodesUtf8AcrossBufferBoundaries() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CsvRowWriter writer = new CsvRowWriter(out, 32);
+    String value = "Zoë Ñandú 日本 😀 \"quoted\", ".repeat(20);
+
+    for (int i = 0; i < 50; i++) {
+      writer.writeField(value);
+      writer.writeLong(i);
+      writer.endRow();
+    }
+    writer.flush();
+
+    StringBuilder expected = new StringBuilder();
+    String quoted = "\"" + value.replace("\"", "\"\"") + "\"";
+    for (int i = 0; i < 50; i++) {
+      expected.append(quoted).append(',').append(i).append('\n');
+    }
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+  }
+}
@@ -0,0 +1,144 @@
+package uk.gov.laa.springboot.export.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+@Testcontainers
+class ExportDataSourceRouterTest {
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource postgres;
+  private static DataSource h2;
+
+  @BeforeAll
+  static void setUpDatabases() {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    postgres = pgDataSource;
+
+    JdbcDataSource h2DataSource = new JdbcDataSource();
+    h2DataSource.setURL("jdbc:h2:mem:export_router;DB_CLOSE_DELAY=-1");
+    h2 = h2DataSource;
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void usesExportPoolWithinReplicationLag() throws Exception {
+    try (ExportDataSourceRouter router = router(h2, postgres, postgres, Duration.ofSeconds(30))) {
+      router.checkLag();
+
+      assertThat(product(router.getDataSource())).isEqualTo("PostgreSQL");
+      assertThat(router.isUsingPrimary()).isFalse();
+    }
+  }
+
+  @Test
+  void fallsBackToPrimaryWhenReplicaCannotReportLag() throws Exception {
+    try (ExportDataSourceRouter router = router(postgres, h2, h2, Duration.ofSeconds(30))) {
+      router.checkLag();
+
+      assertThat(product(router.getDataSource())).isEqualTo("PostgreSQL");
+      assertThat(router.isUsingPrimary()).isTrue();
+    }
+  }
+
+  @Test
+  void keepsLastDecisionWhenProbeCannotConnect() throws Exception {
+    AtomicBoolean reachable = new AtomicBoolean(true);
+    DataSource probe = mock(DataSource.class);
+    when(probe.getConnection())
+        .thenAnswer(
+            invocation -> {
+              if (!reachable.get()) {
+                throw new SQLException("Connection is not available");
+              }
+              return h2.getConnection();
+            });
+    try (ExportDataSourceRouter router = router(postgres, h2, probe, Duration.ofSeconds(30))) {
+      router.checkLag();
+      reachable.set(false);
+      router.checkLag();
+
+      assertThat(router.isUsingPrimary()).isTrue();
+    }
+  }
+
+  @Test
+  void usesExportPoolUntilProbeCanConnect() throws Exception {
+    DataSource probe = mock(DataSource.class);
+    when(probe.getConnection()).thenThrow(new SQLException("Connection is not available"));
+    try (ExportDataSourceRouter router = router(h2, postgres, probe, Duration.ofSeconds(30))) {
+      router.checkLag();
+
+      assertThat(product(router.getDataSource())).isEqualTo("PostgreSQL");
+      assertThat(router.isUsingPrimary()).isFalse();
+    }
+  }
+
+  @Test
+  void appliesLagOnlyOncePinsAreReleased() throws Exception {
+    AtomicReference<DataSource> replica = new AtomicReference<>(h2);
+    DataSource probe = mock(DataSource.class);
+    when(probe.getConnection()).thenAnswer(invocation -> replica.get().getConnection());
+    try (ExportDataSourceRouter router = router(postgres, h2, probe, Duration.ofSeconds(30))) {
+      router.checkLag();
+      ExportDataSourceRouter.Pin pin = router.pin();
+      replica.set(postgres);
+      router.checkLag();
+
+      assertThat(router.isUsingPrimary()).isTrue();
+
+      pin.close();
+      pin.close();
+      router.checkLag();
+
+      assertThat(router.isUsingPrimary()).isFalse();
+    }
+  }
+
+  @Test
+  void alwaysUsesExportPoolWithoutMaxLag() throws Exception {
+    try (ExportDataSourceRouter router = router(postgres, h2, null, null)) {
+      assertThat(product(router.getDataSource())).isEqualTo("H2");
+      assertThat(router.isUsingPrimary()).isFalse();
+    }
+  }
+
+  private static ExportDataSourceRouter router(
+      DataSource primary, DataSource exportPool, DataSource lagProbe, Duration maxLag) {
+    return new ExportDataSourceRouter(primary, exportPool, lagProbe, maxLag, Duration.ofHours(1));
+  }
+
+  private static String product(DataSource dataSource) throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      return connection.getMetaData().getDatabaseProductName();
+    }
+  }
+}
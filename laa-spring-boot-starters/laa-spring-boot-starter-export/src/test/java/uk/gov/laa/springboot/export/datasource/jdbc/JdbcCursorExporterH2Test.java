@@ -0,0 +1,99 @@
+package uk.gov.laa.springboot.export.datasource.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+class JdbcCursorExporterH2Test {
+
+  private static JdbcDataSource dataSource;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:cursor_export;DB_CLOSE_DELAY=-1");
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table loans(id bigint primary key, due_on date, fine decimal(10, 3),"
+              + " returned boolean, note varchar(50))");
+      statement.execute(
+          "insert into loans values"
+              + " (1, date '2025-01-31', 1234.5, true, 'ok'),"
+              + " (2, null, 0.125, false, 'say \"hi\"'),"
+              + " (3, date '2025-02-01', null, null, null)");
+    }
+  }
+
+  @Test
+  void appliesColumnFormatsWhileStreaming() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource, ObservationRegistry.NOOP, 2);
+    SqlTemplate template =
+        SqlTemplate.compile(
+            "select id, due_on, fine, returned, note from loans where id <= :maxRows order by id");
+    List<ExportColumn> columns =
+        List.of(
+            new ExportColumn("due_on", "Due", "dd/MM/yyyy"),
+            new ExportColumn("fine", "Fine", "#,##0.00"),
+            new ExportColumn("returned", "Returned", "Yes|No"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows =
+        exporter.copyCsv(template, Map.of("maxRows", 10), Map.of(), columns, out, true);
+
+    assertThat(rows).isEqualTo(3);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo(
+            "ID,DUE_ON,FINE,RETURNED,NOTE\n"
+                + "1,31/01/2025,\"1,234.50\",Yes,ok\n"
+                + "2,,0.13,No,\"say \"\"hi\"\"\"\n"
+                + "3,01/02/2025,,,\n");
+  }
+
+  @Test
+  void rejectsFormatsOnUnformattableColumns() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource);
+    SqlTemplate template = SqlTemplate.compile("select note from loans");
+    List<ExportColumn> columns = List.of(new ExportColumn("note", "Note", "dd/MM/yyyy"));
+
+    assertThatThrownBy(
+            () ->
+                exporter.copyCsv(
+                    template, Map.of(), Map.of(), columns, new ByteArrayOutputStream(), false))
+        .hasRootCauseInstanceOf(IllegalArgumentException.class)
+        .hasRootCauseMessage(
+            "Column NOTE has a format but its SQL type is not formattable: 12");
+  }
+
+  @Test
+  void expandsMultiValueParamsIntoPlaceholders() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource);
+    SqlTemplate template =
+        SqlTemplate.compile("select id from loans where id in (:ids) or note = :note order by id");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteArrayOutputStream none = new ByteArrayOutputStream();
+
+    long rows =
+        exporter.copyCsv(
+            template, Map.of("ids", List.of(1L, 3L), "note", ""), Map.of(), out, false);
+    long noRows =
+        exporter.copyCsv(template, Map.of("ids", List.of(), "note", ""), Map.of(), none, false);
+
+    assertThat(rows).isEqualTo(2);
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("1\n3\n");
+    assertThat(noRows).isZero();
+  }
+}
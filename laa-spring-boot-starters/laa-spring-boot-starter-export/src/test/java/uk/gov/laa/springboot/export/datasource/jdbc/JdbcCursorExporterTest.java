@@ -0,0 +1,101 @@
+package uk.gov.laa.springboot.export.datasource.jdbc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+@Testcontainers
+class JdbcCursorExporterTest {
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table cursor_people(id bigint primary key, name text)");
+      statement.execute(
+          "insert into cursor_people(id, name) values"
+              + " (1, 'Alice'), (2, 'Bob, Jr'), (3, ''), (4, null)");
+    }
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void bindsParametersAndWritesCopyCompatibleCsv() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource);
+    SqlTemplate template =
+        SqlTemplate.compile(
+            "select id as id, name as name from cursor_people"
+                + " where (:minId is null or id >= :minId) order by id limit :maxRows");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows =
+        exporter.copyCsv(
+            template, Map.of("minId", 2L, "maxRows", 10), Map.of("minId", "LONG"), out, true);
+
+    assertThat(rows).isEqualTo(3);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("id,name\n2,\"Bob, Jr\"\n3,\"\"\n4,\n");
+  }
+
+  @Test
+  void bindsTypedNullsForOptionalFilters() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource);
+    SqlTemplate template =
+        SqlTemplate.compile(
+            "select id as id from cursor_people"
+                + " where (:minId is null or id >= :minId) order by id limit :maxRows");
+    Map<String, Object> params = new HashMap<>();
+    params.put("minId", null);
+    params.put("maxRows", 2);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter.copyCsv(template, params, Map.of("minId", "LONG"), out, false);
+
+    assertThat(rows).isEqualTo(2);
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("1\n2\n");
+  }
+
+  @Test
+  void reusesStatementAcrossRepeatedExports() {
+    JdbcCursorExporter exporter = new JdbcCursorExporter(dataSource);
+    SqlTemplate template =
+        SqlTemplate.compile("select name as name from cursor_people where id = :id");
+
+    for (long id = 1; id <= 3; id++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      assertThat(exporter.copyCsv(template, Map.of("id", id), Map.of(), out, false)).isEqualTo(1);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+@Testcontainers
+class KeysetCopyExporterTest {
+
+  private static final SqlTemplate SQL =
+      SqlTemplate.compile(
+          "select id as id, title as title from export_titles where title <> :excluded");
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table export_titles(id int primary key, title text)");
+      statement.execute(
+          "insert into export_titles select n, 'Title ' || n from generate_series(1, 25) n");
+    }
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void pagedOutputMatchesSingleCopy() {
+    Map<String, Object> params = Map.of("excluded", "Title 10");
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new PostgresCopyExporter(dataSource)
+        .copyCsv(SqlTemplate.compile(SQL.getSql() + " order by id"), params, expected, true);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+
+    long rows = exporter(4).copyCsv(SQL, params, null, actual, true);
+
+    assertThat(rows).isEqualTo(24);
+    assertThat(actual.toString(StandardCharsets.UTF_8))
+        .isEqualTo(expected.toString(StandardCharsets.UTF_8))
+        .startsWith("id,title\n1,Title 1\n");
+  }
+
+  @Test
+  void resumesAfterGivenKeyWithoutHeader() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter(2).copyCsv(SQL, Map.of("excluded", "Title 23"), "20", out, false);
+
+    assertThat(rows).isEqualTo(4);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("21,Title 21\n22,Title 22\n24,Title 24\n25,Title 25\n");
+  }
+
+  @Test
+  void writesOnlyHeaderWhenNothingFollowsResumeKey() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter(10).copyCsv(SQL, Map.of("excluded", ""), "25", out, true);
+
+    assertThat(rows).isZero();
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,title\n");
+  }
+
+  @Test
+  void appliesMaxRowsAcrossPagesInKeyOrder() {
+    SqlTemplate limited =
+        SqlTemplate.compile(
+            "select id as id, title as title from export_titles order by title limit :maxRows");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter(4).copyCsv(limited, Map.of("maxRows", 10), "3", out, false);
+
+    assertThat(rows).isEqualTo(10);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .startsWith("4,Title 4\n")
+        .endsWith("13,Title 13\n")
+        .hasLineCount(10);
+  }
+
+  private static KeysetCopyExporter exporter(int pageSize) {
+    return new KeysetCopyExporter(dataSource, ObservationRegistry.NOOP, "id", pageSize);
+  }
+}
@@ -0,0 +1,143 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+@Testcontainers
+class PartitionedCopyExporterTest {
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table export_loans(id int, title text, due_on date)");
+      statement.execute(
+          "insert into export_loans select n, 'Book ' || n, date '2024-01-01' + n"
+              + " from generate_series(1, 1000) n");
+      statement.execute("insert into export_loans values (null, 'No id', null)");
+    }
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void partitionedOutputMatchesSingleCopy() {
+    String sql =
+        "select id as id, title as title from export_loans where title <> :excluded"
+            + " order by id nulls first";
+    Map<String, Object> params = Map.of("excluded", "Book 500");
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    long expectedRows =
+        new PostgresCopyExporter(dataSource).copyCsv(sql, params, expected, true);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    long rows =
+        exporter("id", 7, 3).copyCsv(SqlTemplate.compile(sql), params, actual, true);
+
+    assertThat(expectedRows).isEqualTo(1000);
+    assertThat(rows).isEqualTo(expectedRows);
+    assertThat(actual.toString(StandardCharsets.UTF_8))
+        .isEqualTo(expected.toString(StandardCharsets.UTF_8))
+        .startsWith("id,title\n,No id\n1,Book 1\n");
+  }
+
+  @Test
+  void appliesMaxRowsToStitchedOutput() {
+    String sql =
+        "select id as id, title as title from export_loans order by id nulls first"
+            + " limit :maxRows";
+    Map<String, Object> params = Map.of("maxRows", 250);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    new PostgresCopyExporter(dataSource).copyCsv(sql, params, expected, true);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    long rows =
+        exporter("id", 8, 4).copyCsv(SqlTemplate.compile(sql), params, actual, true);
+
+    assertThat(rows).isEqualTo(250);
+    assertThat(actual.toString(StandardCharsets.UTF_8))
+        .isEqualTo(expected.toString(StandardCharsets.UTF_8))
+        .endsWith("249,Book 249\n");
+  }
+
+  @Test
+  void countsQuotedNewlinesAsPartOfOneRow() {
+    String sql =
+        "select id as id, 'line one' || chr(10) || 'line \"two\"' as note from export_loans"
+            + " where id is not null order by id limit :maxRows";
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long rows =
+        exporter("id", 4, 4)
+            .copyCsv(SqlTemplate.compile(sql), Map.of("maxRows", 3), out, false);
+
+    assertThat(rows).isEqualTo(3);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo(
+            "1,\"line one\nline \"\"two\"\"\"\n"
+                + "2,\"line one\nline \"\"two\"\"\"\n"
+                + "3,\"line one\nline \"\"two\"\"\"\n");
+  }
+
+  @Test
+  void splitsOnDateKeys() {
+    String sql =
+        "select due_on as due_on, id as id from export_loans order by due_on nulls first, id";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter("due_on", 4, 4).copyCsv(SqlTemplate.compile(sql), Map.of(), out, false);
+
+    assertThat(rows).isEqualTo(1001);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .startsWith(",\n2024-01-02,1\n")
+        .endsWith("2026-09-27,1000\n");
+  }
+
+  @Test
+  void runsSingleCopyWhenThereIsNothingToSplit() {
+    String sql = "select id as id from export_loans where id = 42";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = exporter("id", 4, 2).copyCsv(SqlTemplate.compile(sql), Map.of(), out, true);
+
+    assertThat(rows).isEqualTo(1);
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id\n42\n");
+  }
+
+  private static PartitionedCopyExporter exporter(String key, int partitions, int parallelism) {
+    return new PartitionedCopyExporter(
+        dataSource, ObservationRegistry.NOOP, key, partitions, parallelism);
+  }
+}
@@ -1,19 +1,30 @@
 package uk.gov.laa.springboot.export.datasource.postgres;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import io.micrometer.observation.ObservationRegistry;
+
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.postgresql.ds.PGSimpleDataSource;
+import org.postgresql.util.PSQLException;
 import org.testcontainers.postgresql.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.laa.springboot.export.ExportCancellation;
 
 @Testcontainers
 class PostgresCopyExporterTest {
@@ -62,6 +73,22 @@ class PostgresCopyExporterTest {
     assertThat(writer.toString()).contains("id,name").contains("1,Alice").contains("2,Bob");
   }
 
+  @Test
+  void copyCsvWritesRawBytesToOutputStream() {
+    PostgresCopyExporter exporter = new PostgresCopyExporter(dataSource);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows =
+        exporter.copyCsv(
+            "select id as id, name as name from export_people order by id",
+            Map.of(),
+            out,
+            true);
+
+    assertThat(rows).isEqualTo(2);
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("id,name\n1,Alice\n2,Bob\n");
+  }
+
   @Test
   void copyCsvCanRunRepeatedlyWithoutHoldingConnectionsOpen() {
     PostgresCopyExporter exporter = new PostgresCopyExporter(dataSource);
@@ -75,4 +102,43 @@ class PostgresCopyExporterTest {
     assertThat(first.toString()).contains("id").contains("1");
     assertThat(second.toString()).contains("id").contains("2");
   }
+
+  @Test
+  void statementTimeoutStopsLongRunningCopy() {
+    PostgresCopyExporter exporter =
+        new PostgresCopyExporter(dataSource, ObservationRegistry.NOOP, Duration.ofMillis(200));
+
+    assertThatThrownBy(
+            () -> exporter.copyCsv(
+                "select pg_sleep(10)", Map.of(), new ByteArrayOutputStream(), false))
+        .hasRootCauseInstanceOf(PSQLException.class)
+        .rootCause()
+        .hasMessageContaining("statement timeout");
+  }
+
+  @Test
+  void cancellationCancelsRunningCopyOnTheServer() throws Exception {
+    PostgresCopyExporter exporter = new PostgresCopyExporter(dataSource);
+    ExportCancellation cancellation = new ExportCancellation();
+    CompletableFuture<Long> export =
+        CompletableFuture.supplyAsync(
+            () -> {
+              ExportCancellation.bind(cancellation);
+              try {
+                return exporter.copyCsv(
+                    "select pg_sleep(30)", Map.of(), new ByteArrayOutputStream(), false);
+              } finally {
+                ExportCancellation.unbind();
+              }
+            });
+
+    Thread.sleep(500);
+    cancellation.cancel();
+
+    assertThatThrownBy(() -> export.get(10, TimeUnit.SECONDS))
+        .isInstanceOf(ExecutionException.class)
+        .hasRootCauseInstanceOf(PSQLException.class)
+        .rootCause()
+        .hasMessageContaining("canceling statement due to user request");
+  }
 }
@@ -0,0 +1,79 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+@Testcontainers
+class PostgresFingerprinterTest {
+
+  private static final SqlTemplate SQL =
+      SqlTemplate.compile(
+          "select max(updated_at), count(*) from export_versions where status = :status");
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+  private static PostgresFingerprinter fingerprinter;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table export_versions(id int primary key, status text, updated_at date)");
+      statement.execute(
+          "insert into export_versions values (1, 'OPEN', date '2025-01-01'),"
+              + " (2, 'OPEN', date '2025-01-02'), (3, 'CLOSED', date '2025-01-03')");
+    }
+    fingerprinter = new PostgresFingerprinter(dataSource, ObservationRegistry.NOOP);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void fingerprintsEveryColumnOfFirstRow() {
+    assertThat(fingerprinter.fingerprint(SQL, Map.of("status", "OPEN")))
+        .isEqualTo("2025-01-02\u001f2");
+  }
+
+  @Test
+  void fingerprintChangesWhenMatchingRowsChange() throws Exception {
+    String before = fingerprinter.fingerprint(SQL, Map.of("status", "CLOSED"));
+    String other = fingerprinter.fingerprint(SQL, Map.of("status", "OPEN"));
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("delete from export_versions where id = 3");
+    }
+
+    assertThat(fingerprinter.fingerprint(SQL, Map.of("status", "CLOSED")))
+        .isNotEqualTo(before);
+    assertThat(fingerprinter.fingerprint(SQL, Map.of("status", "OPEN"))).isEqualTo(other);
+  }
+}
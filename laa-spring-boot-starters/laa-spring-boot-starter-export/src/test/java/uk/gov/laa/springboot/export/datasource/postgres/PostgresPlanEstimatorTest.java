@@ -0,0 +1,38 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
+
+class PostgresPlanEstimatorTest {
+
+  @Test
+  void readsRowsFromLimitInputSoTruncationIsVisible() throws Exception {
+    String plan =
+        "[{\"Plan\": {\"Node Type\": \"Limit\", \"Total Cost\": 1834.5, \"Plan Rows\": 500,"
+            + " \"Plan Width\": 40, \"Plans\": [{\"Node Type\": \"Seq Scan\","
+            + " \"Total Cost\": 1834.5, \"Plan Rows\": 120000, \"Plan Width\": 40}]}}]";
+
+    ExportEstimate estimate = PostgresPlanEstimator.parse(plan, 500);
+
+    assertThat(estimate.getEstimatedRows()).isEqualTo(120000);
+    assertThat(estimate.getExportedRows()).isEqualTo(500);
+    assertThat(estimate.getEstimatedBytes()).isEqualTo(20000);
+    assertThat(estimate.getTotalCost()).isEqualTo(1834.5);
+    assertThat(estimate.isExceedsMaxRows()).isTrue();
+  }
+
+  @Test
+  void readsRowsFromTopNodeWithoutLimit() throws Exception {
+    String plan =
+        "[{\"Plan\": {\"Node Type\": \"Index Scan\", \"Total Cost\": 8.3, \"Plan Rows\": 12,"
+            + " \"Plan Width\": 16}}]";
+
+    ExportEstimate estimate = PostgresPlanEstimator.parse(plan, 500);
+
+    assertThat(estimate.getEstimatedRows()).isEqualTo(12);
+    assertThat(estimate.getEstimatedBytes()).isEqualTo(192);
+    assertThat(estimate.isExceedsMaxRows()).isFalse();
+  }
+}
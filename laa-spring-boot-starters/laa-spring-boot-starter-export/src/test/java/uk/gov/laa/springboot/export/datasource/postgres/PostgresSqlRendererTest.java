@@ -7,6 +7,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
 
 class PostgresSqlRendererTest {
 
@@ -44,4 +45,15 @@ class PostgresSqlRendererTest {
         .contains("status='OPEN'")
         .contains("optional=NULL");
   }
+
+  @Test
+  void rendersPrecompiledTemplateWithoutTouchingQuotedText() {
+    SqlTemplate template =
+        SqlTemplate.compile("select ':literal' as label, id from books where id = :id or id = :id");
+
+    String rendered = PostgresSqlRenderer.render(template, Map.of("id", 7L));
+
+    assertThat(rendered)
+        .isEqualTo("select ':literal' as label, id from books where id = 7 or id = 7");
+  }
 }
@@ -0,0 +1,94 @@
+package uk.gov.laa.springboot.export.datasource.postgres;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import uk.gov.laa.springboot.export.sql.SqlTemplate;
+
+@Testcontainers
+class WatermarkCopyExporterTest {
+
+  private static final SqlTemplate SQL =
+      SqlTemplate.compile(
+          "select id as id, updated_at as updated_at from export_changes"
+              + " where id <> :excluded order by id limit :maxRows");
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static WatermarkCopyExporter exporter;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    DataSource dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table export_changes(id int primary key, updated_at date)");
+      // Rows 1-10 changed on consecutive days; rows 11 and 12 share the last day.
+      statement.execute(
+          "insert into export_changes select n, date '2025-01-01' + least(n, 10) - 1"
+              + " from generate_series(1, 12) n");
+    }
+    exporter = new WatermarkCopyExporter(dataSource, ObservationRegistry.NOOP, "updated_at");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @Test
+  void boundsFirstDeltaAtMaxRowsIgnoringQueryLimit() {
+    Map<String, Object> params = Map.of("excluded", 2);
+
+    String until = exporter.nextWatermark(SQL, params, null, 3);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long rows = exporter.copyCsv(SQL, params, null, until, out, true);
+
+    assertThat(until).isEqualTo("2025-01-04");
+    assertThat(rows).isEqualTo(3);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .isEqualTo("id,updated_at\n1,2025-01-01\n3,2025-01-03\n4,2025-01-04\n");
+  }
+
+  @Test
+  void includesRowsSharingTheBoundaryWatermark() {
+    Map<String, Object> params = Map.of("excluded", 0);
+
+    String until = exporter.nextWatermark(SQL, params, "2025-01-08", 2);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long rows = exporter.copyCsv(SQL, params, "2025-01-08", until, out, false);
+
+    assertThat(until).isEqualTo("2025-01-10");
+    assertThat(rows).isEqualTo(4);
+    assertThat(out.toString(StandardCharsets.UTF_8))
+        .startsWith("9,2025-01-09\n")
+        .contains("10,2025-01-10\n", "11,2025-01-10\n", "12,2025-01-10\n");
+  }
+
+  @Test
+  void returnsNoWatermarkWhenNothingIsNewer() {
+    assertThat(exporter.nextWatermark(SQL, Map.of("excluded", 0), "2025-01-10", 100)).isNull();
+  }
+}
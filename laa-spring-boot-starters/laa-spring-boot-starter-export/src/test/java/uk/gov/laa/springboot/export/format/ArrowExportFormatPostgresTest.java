@@ -0,0 +1,108 @@
+package uk.gov.laa.springboot.export.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import javax.sql.DataSource;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+@Testcontainers
+class ArrowExportFormatPostgresTest {
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+  private static ArrowExportFormat format;
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table arrow_payments(id bigint primary key, amount numeric(10, 2),"
+              + " ratio numeric, details jsonb, paid_at timestamptz)");
+      statement.execute(
+          "insert into arrow_payments values"
+              + " (1, 12.50, 0.3333333333333333333333, '{\"ref\": \"A1\"}',"
+              + " '2024-03-01 09:30:00+00')");
+    }
+    format = new ArrowExportFormat(10);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    format.close();
+    POSTGRES.stop();
+  }
+
+  @Test
+  void writesPostgresTypesUnderHeaderOverrides() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows;
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery(
+                "select id, amount, ratio, details, paid_at from arrow_payments")) {
+      rows =
+          format.write(
+              resultSet, List.of(new ExportColumn("amount", "Amount (GBP)", null)), out);
+    }
+
+    assertThat(rows).isEqualTo(1);
+    try (BufferAllocator allocator = new RootAllocator();
+        ArrowStreamReader reader =
+            new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      VectorSchemaRoot root = reader.getVectorSchemaRoot();
+      assertThat(root.getSchema().getFields())
+          .extracting(field -> field.getName())
+          .containsExactly("id", "Amount (GBP)", "ratio", "details", "paid_at");
+      assertThat(root.getSchema().findField("paid_at").getType())
+          .isInstanceOf(ArrowType.Timestamp.class);
+
+      assertThat(reader.loadNextBatch()).isTrue();
+      assertThat(((DecimalVector) root.getVector("Amount (GBP)")).getObject(0))
+          .isEqualByComparingTo(new BigDecimal("12.50"));
+      assertThat(((VarCharVector) root.getVector("ratio")).getObject(0).toString())
+          .isEqualTo("0.3333333333333333333333");
+      assertThat(((VarCharVector) root.getVector("details")).getObject(0).toString())
+          .isEqualTo("{\"ref\": \"A1\"}");
+      assertThat(((TimeStampMilliTZVector) root.getVector("paid_at")).get(0))
+          .isEqualTo(Instant.parse("2024-03-01T09:30:00Z").toEpochMilli());
+      assertThat(reader.loadNextBatch()).isFalse();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package uk.gov.laa.springboot.export.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ArrowExportFormatTest {
+
+  private static JdbcDataSource dataSource;
+  private static ArrowExportFormat format;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:arrow_export;DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table books(id bigint primary key, title varchar(50))");
+      statement.execute(
+          "insert into books select x, concat('Book ', x) from system_range(1, 25)");
+    }
+    format = new ArrowExportFormat(10);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    format.close();
+  }
+
+  @Test
+  void streamsTypedRecordBatchesOfBoundedSize() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = write("select id, title from books order by id", out);
+
+    assertThat(rows).isEqualTo(25);
+    try (BufferAllocator allocator = new RootAllocator();
+        ArrowStreamReader reader =
+            new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      VectorSchemaRoot root = reader.getVectorSchemaRoot();
+      assertThat(root.getSchema().getFields())
+          .extracting(field -> field.getName())
+          .containsExactly("ID", "TITLE");
+
+      int batches = 0;
+      long total = 0;
+      while (reader.loadNextBatch()) {
+        assertThat(root.getRowCount()).isLessThanOrEqualTo(10);
+        if (batches == 0) {
+          assertThat(((BigIntVector) root.getVector("ID")).get(0)).isEqualTo(1L);
+          assertThat(((VarCharVector) root.getVector("TITLE")).getObject(0).toString())
+              .isEqualTo("Book 1");
+        }
+        batches++;
+        total += root.getRowCount();
+      }
+      assertThat(batches).isEqualTo(3);
+      assertThat(total).isEqualTo(25);
+    }
+  }
+
+  @Test
+  void writesSchemaOnlyStreamForEmptyResults() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    long rows = write("select id, title from books where id < 0", out);
+
+    assertThat(rows).isZero();
+    try (BufferAllocator allocator = new RootAllocator();
+        ArrowStreamReader reader =
+            new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      assertThat(reader.getVectorSchemaRoot().getSchema().getFields()).hasSize(2);
+      assertThat(reader.loadNextBatch()).isFalse();
+    }
+  }
+
+  private static long write(String sql, ByteArrayOutputStream out) throws Exception {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      return format.write(resultSet, List.of(), out);
+    }
+  }
+}
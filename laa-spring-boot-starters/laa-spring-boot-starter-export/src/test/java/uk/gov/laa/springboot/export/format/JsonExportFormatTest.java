@@ -0,0 +1,82 @@
+package uk.gov.laa.springboot.export.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+class JsonExportFormatTest {
+
+  private static JdbcDataSource dataSource;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:json_export;DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table loans(id int primary key, title varchar(50), fine decimal(6,2),"
+              + " due_on date, returned boolean)");
+      statement.execute(
+          "insert into loans values"
+              + " (1, 'Café \"Guide\"', 2.50, date '2024-03-01', true),"
+              + " (2, null, null, null, null)");
+    }
+  }
+
+  @Test
+  void writesOneTypedObjectPerLineWithHeaderOverridesAsFieldNames() throws Exception {
+    String json =
+        write(
+            JsonExportFormat.ndjson(),
+            List.of(new ExportColumn("title", "Book Title", null)));
+
+    assertThat(json)
+        .isEqualTo(
+            "{\"ID\":1,\"Book Title\":\"Café \\\"Guide\\\"\",\"FINE\":2.50,"
+                + "\"DUE_ON\":\"2024-03-01\",\"RETURNED\":true}\n"
+                + "{\"ID\":2,\"Book Title\":null,\"FINE\":null,\"DUE_ON\":null,"
+                + "\"RETURNED\":null}\n");
+  }
+
+  @Test
+  void writesRowsAsSingleArray() throws Exception {
+    String json = write(JsonExportFormat.array(), List.of());
+
+    assertThat(json).startsWith("[{\"ID\":1,").endsWith("\"RETURNED\":null}]");
+  }
+
+  @Test
+  void writesEmptyArrayForEmptyResults() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("select id from loans where id < 0")) {
+      assertThat(JsonExportFormat.array().write(resultSet, List.of(), out)).isZero();
+    }
+
+    assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("[]");
+  }
+
+  private static String write(JsonExportFormat format, List<ExportColumn> columns)
+      throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery(
+                "select id, title, fine, due_on, returned from loans order by id")) {
+      assertThat(format.write(resultSet, columns, out)).isEqualTo(2);
+    }
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,93 @@
+package uk.gov.laa.springboot.export.format;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.model.ExportColumn;
+
+class XlsxExportFormatTest {
+
+  private static JdbcDataSource dataSource;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:xlsx_export;DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(
+          "create table accounts(id int primary key, reference varchar(10), balance decimal(8,2),"
+              + " opened_on date, active boolean)");
+      statement.execute(
+          "insert into accounts values"
+              + " (1, '000123', 10.50, date '2024-03-01', true),"
+              + " (2, null, null, null, null),"
+              + " (3, '000456', -2.25, date '2024-04-30', false)");
+    }
+  }
+
+  @Test
+  void writesHeaderRowAndTypedCells() throws Exception {
+    XlsxExportFormat format = new XlsxExportFormat(2);
+
+    try (XSSFWorkbook workbook =
+        read(format, List.of(new ExportColumn("reference", "Reference", null)))) {
+      Sheet sheet = workbook.getSheetAt(0);
+      Row header = sheet.getRow(0);
+      assertThat(header.getCell(0).getStringCellValue()).isEqualTo("ID");
+      assertThat(header.getCell(1).getStringCellValue()).isEqualTo("Reference");
+
+      Row first = sheet.getRow(1);
+      assertThat(first.getCell(0).getNumericCellValue()).isEqualTo(1d);
+      assertThat(first.getCell(1).getCellType()).isEqualTo(CellType.STRING);
+      assertThat(first.getCell(1).getStringCellValue()).isEqualTo("000123");
+      assertThat(first.getCell(2).getNumericCellValue()).isEqualTo(10.5d);
+      assertThat(first.getCell(3).getLocalDateTimeCellValue())
+          .isEqualTo(LocalDateTime.of(2024, 3, 1, 0, 0));
+      assertThat(first.getCell(3).getCellStyle().getDataFormatString()).isEqualTo("yyyy-mm-dd");
+      assertThat(first.getCell(4).getBooleanCellValue()).isTrue();
+
+      assertThat(sheet.getRow(2).getCell(1)).isNull();
+      assertThat(sheet.getLastRowNum()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void continuesOnNewSheetWhenSheetIsFull() throws Exception {
+    XlsxExportFormat format = new XlsxExportFormat(1, 3);
+
+    try (XSSFWorkbook workbook = read(format, List.of())) {
+      assertThat(workbook.getNumberOfSheets()).isEqualTo(2);
+      assertThat(workbook.getSheetAt(0).getLastRowNum()).isEqualTo(2);
+      Sheet second = workbook.getSheetAt(1);
+      assertThat(second.getRow(0).getCell(0).getStringCellValue()).isEqualTo("ID");
+      assertThat(second.getRow(1).getCell(0).getNumericCellValue()).isEqualTo(3d);
+    }
+  }
+
+  private static XSSFWorkbook read(XlsxExportFormat format, List<ExportColumn> columns)
+      throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet =
+            statement.executeQuery(
+                "select id, reference, balance, opened_on, active from accounts order by id")) {
+      assertThat(format.write(resultSet, columns, out)).isEqualTo(3);
+    }
+    return new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()));
+  }
+}
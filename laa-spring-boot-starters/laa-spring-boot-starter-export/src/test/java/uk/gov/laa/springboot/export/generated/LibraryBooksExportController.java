@@ -6,11 +6,14 @@ import java.util.Map;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 @RestController
@@ -25,7 +28,8 @@ public class LibraryBooksExportController {
 
   @GetMapping(value = "/library-books", produces = "text/csv")
   public ResponseEntity<StreamingResponseBody> exportLibraryBooks(
-      @RequestParam(name = "statusCode", required = false) String statusCode) {
+      @RequestParam(name = "statusCode", required = false) String statusCode,
+      @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
     Map<String, String[]> rawParams = new HashMap<>();
     if (statusCode != null) {
       rawParams.put("statusCode", new String[] {statusCode});
@@ -38,12 +42,28 @@ public class LibraryBooksExportController {
     filename.append("-").append(LocalDate.now()).append(".csv");
     String outputFilename = filename.toString();
     ValidatedExportRequest validatedRequest = exportService.validateRequest("library-books", rawParams);
-    StreamingResponseBody body = out -> exportService.streamCsv("library-books", validatedRequest, out);
+    ExportContentEncoding encoding = exportService.negotiateEncoding("library-books", acceptEncoding);
+    StreamingResponseBody body =
+        out -> exportService.streamCsv("library-books", validatedRequest, out, encoding);
 
-    return ResponseEntity.ok()
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
         .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + outputFilename + "\"")
         .header(HttpHeaders.CACHE_CONTROL, "no-store")
-        .body(body);
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (encoding != ExportContentEncoding.IDENTITY) {
+      response.header(HttpHeaders.CONTENT_ENCODING, encoding.getToken());
+    }
+    return response.body(body);
+  }
+
+  @GetMapping(value = "/library-books/estimate", produces = "application/json")
+  public ExportEstimate exportLibraryBooksEstimate(
+      @RequestParam(name = "statusCode", required = false) String statusCode) {
+    Map<String, String[]> rawParams = new HashMap<>();
+    if (statusCode != null) {
+      rawParams.put("statusCode", new String[] {statusCode});
+    }
+    return exportService.estimate("library-books", rawParams);
   }
 
   private String sanitizeFilenamePart(String value) {
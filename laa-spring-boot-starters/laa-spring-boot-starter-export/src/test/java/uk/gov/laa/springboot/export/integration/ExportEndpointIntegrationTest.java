@@ -4,14 +4,19 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.jayway.jsonpath.JsonPath;
+import java.io.ByteArrayInputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -22,8 +27,10 @@ import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportEstimateProvider;
 import uk.gov.laa.springboot.export.generated.LibraryBooksExportController;
 import uk.gov.laa.springboot.export.model.ExportColumn;
+import uk.gov.laa.springboot.export.model.ExportEstimate;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 @SpringBootTest(classes = ExportEndpointIntegrationTest.TestApplication.class)
@@ -34,7 +41,9 @@ import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
       "laa.springboot.starter.exports.definitions.library-books.provider=libraryBooksProvider",
       "laa.springboot.starter.exports.definitions.library-books.params[0].name=statusCode",
       "laa.springboot.starter.exports.definitions.library-books.params[0].type=INT",
-      "laa.springboot.starter.exports.definitions.library-books.params[0].required=false"
+      "laa.springboot.starter.exports.definitions.library-books.params[0].required=false",
+      "laa.springboot.starter.exports.jobs.enabled=true",
+      "laa.springboot.starter.exports.jobs.compress=false"
     })
 class ExportEndpointIntegrationTest {
 
@@ -61,6 +70,72 @@ class ExportEndpointIntegrationTest {
     assertThat(response.getResponse().getContentAsString()).contains("statusCode").contains("7");
   }
 
+  @Test
+  void gzipCompressesCsvWhenClientAcceptsGzip() throws Exception {
+    MvcResult asyncResult =
+        mockMvc
+            .perform(
+                get("/exports/library-books")
+                    .param("statusCode", "7")
+                    .header("Accept-Encoding", "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(asyncResult))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Encoding", "gzip"))
+            .andExpect(header().string("Vary", containsString("Accept-Encoding")))
+            .andReturn();
+
+    byte[] compressed = response.getResponse().getContentAsByteArray();
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      String csv = new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+      assertThat(csv).contains("statusCode").contains("7");
+    }
+  }
+
+  @Test
+  void runsExportJobAndServesByteRangeOfResult() throws Exception {
+    MvcResult submitted =
+        mockMvc
+            .perform(post("/exports/library-books/jobs").param("statusCode", "7"))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", containsString("/exports/jobs/")))
+            .andReturn();
+    String jobId = JsonPath.read(submitted.getResponse().getContentAsString(), "$.id");
+
+    for (int attempt = 0; attempt < 100; attempt++) {
+      String status =
+          JsonPath.read(
+              mockMvc
+                  .perform(get("/exports/jobs/{jobId}", jobId))
+                  .andReturn()
+                  .getResponse()
+                  .getContentAsString(),
+              "$.status");
+      if ("COMPLETED".equals(status)) {
+        break;
+      }
+      Thread.sleep(50);
+    }
+
+    mockMvc
+        .perform(get("/exports/jobs/{jobId}", jobId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.status").value("COMPLETED"));
+    mockMvc
+        .perform(get("/exports/jobs/{jobId}/download", jobId).header("Range", "bytes=0-9"))
+        .andExpect(status().isPartialContent())
+        .andExpect(content().string("statusCode"));
+  }
+
+  @Test
+  void returnsNotFoundForUnknownExportJob() throws Exception {
+    mockMvc.perform(get("/exports/jobs/{jobId}", "missing")).andExpect(status().isNotFound());
+  }
+
   @Test
   void throwsValidationExceptionForInvalidExportParam() throws Exception {
     mockMvc
@@ -69,6 +144,15 @@ class ExportEndpointIntegrationTest {
         .andExpect(content().string(org.hamcrest.Matchers.containsString("Filter statusCode must be an integer")));
   }
 
+  @Test
+  void returnsEstimateForGeneratedEstimateEndpoint() throws Exception {
+    mockMvc
+        .perform(get("/exports/library-books/estimate").param("statusCode", "7"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.estimatedRows").value(42))
+        .andExpect(jsonPath("$.rowWidth").value(8));
+  }
+
   @SpringBootApplication
   @Import(LibraryBooksExportController.class)
   static class TestApplication {
@@ -80,21 +164,28 @@ class ExportEndpointIntegrationTest {
 
     @Bean("libraryBooksProvider")
     ExportCsvProvider libraryBooksProvider() {
-      return new ExportCsvProvider() {
-        @Override
-        public long writeCsv(
-            ValidatedExportRequest request, OutputStream out, List<ExportColumn> columns)
-            throws RuntimeException {
-          String statusCode = String.valueOf(request.getParams().getOrDefault("statusCode", ""));
-          String csv = "statusCode\\n" + statusCode + "\\n";
-          try {
-            out.write(csv.getBytes(StandardCharsets.UTF_8));
-            return 1;
-          } catch (Exception e) {
-            throw new RuntimeException(e);
-          }
-        }
-      };
+      return new LibraryBooksProvider();
+    }
+  }
+
+  static class LibraryBooksProvider implements ExportCsvProvider, ExportEstimateProvider {
+    @Override
+    public long writeCsv(
+        ValidatedExportRequest request, OutputStream out, List<ExportColumn> columns)
+        throws RuntimeException {
+      String statusCode = String.valueOf(request.getParams().getOrDefault("statusCode", ""));
+      String csv = "statusCode\\n" + statusCode + "\\n";
+      try {
+        out.write(csv.getBytes(StandardCharsets.UTF_8));
+        return 1;
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public ExportEstimate estimate(ValidatedExportRequest request) {
+      return new ExportEstimate(42, request.getMaxRows(), 8, 12.5);
     }
   }
 }
@@ -0,0 +1,32 @@
+package uk.gov.laa.springboot.export.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ExportEtagTest {
+
+  @Test
+  void buildsStableWeakTagsThatDifferByPart() {
+    String etag = ExportEtag.of("library-books", "csv", "2025-01-02\u001f2");
+
+    assertThat(etag).startsWith("W/\"").endsWith("\"");
+    assertThat(ExportEtag.of("library-books", "csv", "2025-01-02\u001f2")).isEqualTo(etag);
+    assertThat(ExportEtag.of("library-books", "json", "2025-01-02\u001f2")).isNotEqualTo(etag);
+    assertThat(ExportEtag.of("library-books", "csv", "2025-01-03\u001f2")).isNotEqualTo(etag);
+  }
+
+  @Test
+  void matchesIfNoneMatchUsingWeakComparison() {
+    String etag = ExportEtag.of("library-books", "csv", "v1");
+    String strong = etag.substring(2);
+
+    assertThat(ExportEtag.matches(etag, etag)).isTrue();
+    assertThat(ExportEtag.matches(strong, etag)).isTrue();
+    assertThat(ExportEtag.matches("\"other\", " + etag, etag)).isTrue();
+    assertThat(ExportEtag.matches("*", etag)).isTrue();
+    assertThat(ExportEtag.matches("\"other\"", etag)).isFalse();
+    assertThat(ExportEtag.matches(null, etag)).isFalse();
+    assertThat(ExportEtag.matches(etag, null)).isFalse();
+  }
+}
@@ -3,11 +3,15 @@ package uk.gov.laa.springboot.export.registry;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.context.support.GenericApplicationContext;
 import uk.gov.laa.springboot.export.ExportConfigurationException;
 import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportFreshnessProvider;
+import uk.gov.laa.springboot.export.ExportWatermarkProvider;
 import uk.gov.laa.springboot.export.config.LaaExportsProperties;
 import uk.gov.laa.springboot.export.model.ExportDefinition;
 import uk.gov.laa.springboot.export.model.ExportParamDefinition;
@@ -102,7 +106,7 @@ class DefaultExportRegistryTest {
     overridden.setType("LONG");
     overridden.setRequestName("account-id");
 
-    definition.setParams(java.util.List.of(automatic, overridden));
+    definition.setParams(List.of(automatic, overridden));
     properties.setDefinitions(Map.of("library-books", definition));
 
     DefaultExportRegistry registry = new DefaultExportRegistry(context, properties);
@@ -115,6 +119,139 @@ class DefaultExportRegistryTest {
     assertThat(overriddenParam.getRequestName()).isEqualTo("account-id");
   }
 
+  @Test
+  void acceptsDeclaredSqlParamsAndRejectsUndeclaredOnes() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBean("resourceProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean("libraryProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.refresh();
+
+    LaaExportsProperties.Param minId = new LaaExportsProperties.Param();
+    minId.setName("minId");
+    minId.setType("LONG");
+
+    LaaExportsProperties properties = new LaaExportsProperties();
+    LaaExportsProperties.Definition definition = new LaaExportsProperties.Definition();
+    definition.setProvider("libraryProvider");
+    definition.setSql("select id from books where id > :minId limit :maxRows");
+    definition.setParams(List.of(minId));
+    properties.setDefinitions(Map.of("library-books", definition));
+
+    assertThat(new DefaultExportRegistry(context, properties).getRequired("library-books"))
+        .isNotNull();
+
+    definition.setSql("select id from books where id > :minId and status = :status");
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("undeclared param: status");
+  }
+
+  @Test
+  void resolvesFormatsAndRejectsUnknownFormats() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBean("resourceProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean("libraryProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.refresh();
+
+    LaaExportsProperties properties = new LaaExportsProperties();
+    LaaExportsProperties.Definition definition = new LaaExportsProperties.Definition();
+    definition.setProvider("libraryProvider");
+    definition.setSql("select 1 as id");
+    properties.setDefinitions(Map.of("library-books", definition));
+
+    DefaultExportRegistry registry = new DefaultExportRegistry(context, properties);
+    assertThat(registry.getRequired("library-books").getFormats()).containsExactly("csv");
+    assertThat(registry.getFormat("CSV").getMediaType()).isEqualTo("text/csv");
+
+    definition.setFormats(List.of("parquet"));
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("unknown format: parquet");
+  }
+
+  @Test
+  void resolvesWatermarkColumnForWatermarkProviders() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBean("resourceProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean("libraryProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean(
+        "libraryDeltaProvider", ExportCsvProvider.class, NoOpWatermarkProvider::new);
+    context.refresh();
+
+    LaaExportsProperties.Watermark watermark = new LaaExportsProperties.Watermark();
+    watermark.setColumn("updated_at");
+    LaaExportsProperties.Definition definition = new LaaExportsProperties.Definition();
+    definition.setProvider("libraryDeltaProvider");
+    definition.setWatermark(watermark);
+    LaaExportsProperties properties = new LaaExportsProperties();
+    properties.setDefinitions(Map.of("library-books", definition));
+
+    DefaultExportRegistry registry = new DefaultExportRegistry(context, properties);
+    assertThat(registry.getRequired("library-books").getWatermarkColumn())
+        .isEqualTo("updated_at");
+
+    definition.setProvider("libraryProvider");
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("does not implement ExportWatermarkProvider");
+
+    definition.setProvider("libraryDeltaProvider");
+    LaaExportsProperties.Param since = new LaaExportsProperties.Param();
+    since.setName("since");
+    since.setType("DATE");
+    definition.setParams(List.of(since));
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("reserved request name since");
+  }
+
+  @Test
+  void resolvesFreshnessTtlForFreshnessProviders() {
+    GenericApplicationContext context = new GenericApplicationContext();
+    context.registerBean("resourceProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean("libraryProvider", ExportCsvProvider.class, NoOpProvider::new);
+    context.registerBean(
+        "libraryFreshProvider", ExportCsvProvider.class, NoOpFreshnessProvider::new);
+    context.refresh();
+
+    LaaExportsProperties.Freshness freshness = new LaaExportsProperties.Freshness();
+    freshness.setSql("select max(updated_at), count(*) from books where status = :status");
+    LaaExportsProperties.Param status = new LaaExportsProperties.Param();
+    status.setName("status");
+    status.setType("STRING");
+    LaaExportsProperties.Definition definition = new LaaExportsProperties.Definition();
+    definition.setProvider("libraryFreshProvider");
+    definition.setFreshness(freshness);
+    definition.setParams(List.of(status));
+    LaaExportsProperties properties = new LaaExportsProperties();
+    properties.setDefinitions(Map.of("library-books", definition));
+
+    DefaultExportRegistry registry = new DefaultExportRegistry(context, properties);
+    assertThat(registry.getRequired("library-books").getFreshnessTtl()).isEqualTo(Duration.ZERO);
+
+    freshness.setTtl(Duration.ofSeconds(10));
+    registry = new DefaultExportRegistry(context, properties);
+    assertThat(registry.getRequired("library-books").getFreshnessTtl())
+        .isEqualTo(Duration.ofSeconds(10));
+
+    definition.setProvider("libraryProvider");
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("does not implement ExportFreshnessProvider");
+
+    definition.setProvider("libraryFreshProvider");
+    freshness.setSql("select max(updated_at) from books where author = :author");
+
+    assertThatThrownBy(() -> new DefaultExportRegistry(context, properties))
+        .isInstanceOf(ExportConfigurationException.class)
+        .hasMessageContaining("freshness SQL references undeclared param: author");
+  }
+
   private static final class NoOpProvider implements ExportCsvProvider {
 
     @Override
@@ -125,4 +262,38 @@ class DefaultExportRegistryTest {
       return 0;
     }
   }
+
+  private static final class NoOpWatermarkProvider
+      implements ExportCsvProvider, ExportWatermarkProvider {
+
+    @Override
+    public long writeCsv(
+        ValidatedExportRequest request,
+        java.io.OutputStream out,
+        java.util.List<uk.gov.laa.springboot.export.model.ExportColumn> columns) {
+      return 0;
+    }
+
+    @Override
+    public String nextWatermark(ValidatedExportRequest request) {
+      return null;
+    }
+  }
+
+  private static final class NoOpFreshnessProvider
+      implements ExportCsvProvider, ExportFreshnessProvider {
+
+    @Override
+    public long writeCsv(
+        ValidatedExportRequest request,
+        java.io.OutputStream out,
+        java.util.List<uk.gov.laa.springboot.export.model.ExportColumn> columns) {
+      return 0;
+    }
+
+    @Override
+    public String fingerprint(ValidatedExportRequest request) {
+      return "";
+    }
+  }
 }
@@ -0,0 +1,102 @@
+package uk.gov.laa.springboot.export.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.jupiter.api.Test;
+
+class CountingOutputStreamTest {
+
+  @Test
+  void countsBytesWrittenThroughToDelegate() throws Exception {
+    ByteArrayOutputStream delegate = new ByteArrayOutputStream();
+    CountingOutputStream out = new CountingOutputStream(delegate);
+
+    out.write('a');
+    out.write("bcdef".getBytes(), 1, 3);
+
+    assertThat(out.getCount()).isEqualTo(4);
+    assertThat(delegate.toString()).isEqualTo("acde");
+    assertThat(out.isWriteFailed()).isFalse();
+  }
+
+  @Test
+  void measuresTimeToFirstNonEmptyWrite() throws Exception {
+    long start = System.nanoTime();
+    CountingOutputStream out = new CountingOutputStream(new ByteArrayOutputStream());
+
+    out.write(new byte[0], 0, 0);
+    assertThat(out.millisToFirstWrite(start)).isEqualTo(-1);
+
+    Thread.sleep(50);
+    out.write(new byte[] {1}, 0, 1);
+    Thread.sleep(50);
+    out.write(new byte[] {2}, 0, 1);
+
+    assertThat(out.millisToFirstWrite(start)).isGreaterThanOrEqualTo(50);
+  }
+
+  @Test
+  void measuresTimeBlockedInWritesAndFlushes() throws Exception {
+    CountingOutputStream out = new CountingOutputStream(new SlowOutputStream(40));
+
+    out.write(new byte[] {1, 2}, 0, 2);
+    out.write(3);
+    out.flush();
+
+    assertThat(out.getBlockedMillis()).isGreaterThanOrEqualTo(120);
+  }
+
+  @Test
+  void remembersFailedWrites() {
+    CountingOutputStream out =
+        new CountingOutputStream(
+            new OutputStream() {
+              @Override
+              public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+              }
+            });
+
+    assertThatThrownBy(() -> out.write(1)).isInstanceOf(IOException.class);
+    assertThat(out.isWriteFailed()).isTrue();
+    assertThat(out.getCount()).isZero();
+  }
+
+  /**
+   * Blocks every write and flush for a fixed time, like a slow client.
+   */
+  static final class SlowOutputStream extends OutputStream {
+    private final long delayMs;
+
+    SlowOutputStream(long delayMs) {
+      this.delayMs = delayMs;
+    }
+
+    @Override
+    public void write(int b) {
+      pause();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      pause();
+    }
+
+    @Override
+    public void flush() {
+      pause();
+    }
+
+    private void pause() {
+      try {
+        Thread.sleep(delayMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,310 @@
+package uk.gov.laa.springboot.export.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.observation.ObservationRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import uk.gov.laa.springboot.export.ExportRegistry;
+import uk.gov.laa.springboot.export.ExportRejectedException;
+import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.ExportValidationException;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.datasource.ExportDataSourceRouter;
+import uk.gov.laa.springboot.export.datasource.postgres.PostgresCopyExporter;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+@Testcontainers
+class DefaultExportBundleServiceTest {
+
+  @Container
+  private static final PostgreSQLContainer POSTGRES =
+      new PostgreSQLContainer("postgres:16-alpine");
+
+  private static DataSource dataSource;
+  private static PostgresCopyExporter copyExporter;
+
+  private final ExportService exportService = mock(ExportService.class);
+  private final ExportRegistry registry = mock(ExportRegistry.class);
+
+  @BeforeAll
+  static void setUpDatabase() throws Exception {
+    POSTGRES.start();
+
+    PGSimpleDataSource pgDataSource = new PGSimpleDataSource();
+    pgDataSource.setURL(POSTGRES.getJdbcUrl());
+    pgDataSource.setUser(POSTGRES.getUsername());
+    pgDataSource.setPassword(POSTGRES.getPassword());
+    dataSource = pgDataSource;
+
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("create table bundle_books(id int primary key, title text)");
+      statement.execute("create table bundle_loans(id int primary key, book_id int)");
+    }
+    copyExporter = new PostgresCopyExporter(dataSource);
+  }
+
+  @AfterAll
+  static void tearDown() {
+    POSTGRES.stop();
+  }
+
+  @BeforeEach
+  void resetData() throws Exception {
+    execute("truncate bundle_books, bundle_loans");
+    execute("insert into bundle_books values (1, 'Emma'), (2, 'Persuasion')");
+    execute("insert into bundle_loans values (10, 1)");
+  }
+
+  @Test
+  void routesSharedAndPrefixedParams() {
+    when(registry.getRequired("books")).thenReturn(definition("books", "status", null));
+    when(registry.getRequired("loans")).thenReturn(definition("loans", "branch", null));
+    ValidatedExportRequest validated = new ValidatedExportRequest(Map.of(), 10, Map.of());
+    when(exportService.validateRequest(any(), any())).thenReturn(validated);
+    Map<String, String[]> params = new LinkedHashMap<>();
+    params.put("status", new String[] {"OPEN"});
+    params.put("branch", new String[] {"LEEDS"});
+    params.put("loans.branch", new String[] {"YORK"});
+
+    Map<String, ValidatedExportRequest> requests =
+        bundleService(1).validateBundle(List.of("books", "loans"), params);
+
+    assertThat(requests).containsOnlyKeys("books", "loans");
+    ArgumentCaptor<Map<String, String[]>> bookParams = ArgumentCaptor.captor();
+    ArgumentCaptor<Map<String, String[]>> loanParams = ArgumentCaptor.captor();
+    verify(exportService).validateRequest(eq("books"), bookParams.capture());
+    verify(exportService).validateRequest(eq("loans"), loanParams.capture());
+    assertThat(bookParams.getValue()).containsOnlyKeys("status");
+    assertThat(bookParams.getValue().get("status")).containsExactly("OPEN");
+    assertThat(loanParams.getValue()).containsOnlyKeys("branch");
+    assertThat(loanParams.getValue().get("branch")).containsExactly("YORK");
+  }
+
+  @Test
+  void rejectsParamNoBundledExportDeclares() {
+    when(registry.getRequired("books")).thenReturn(definition("books", "status", null));
+    when(exportService.validateRequest(any(), any()))
+        .thenReturn(new ValidatedExportRequest(Map.of(), 10, Map.of()));
+
+    assertThatThrownBy(
+            () ->
+                bundleService(1)
+                    .validateBundle(List.of("books"), Map.of("colour", new String[] {"RED"})))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("Unknown param: colour");
+  }
+
+  @Test
+  void rejectsIncrementalAndOversizedBundles() {
+    when(registry.getRequired("changes")).thenReturn(definition("changes", "status", "updated_at"));
+
+    assertThatThrownBy(() -> bundleService(1).validateBundle(List.of("changes"), Map.of()))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessageContaining("incremental");
+    assertThatThrownBy(
+            () -> bundleService(1).validateBundle(List.of("a", "b", "c", "d"), Map.of()))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessageContaining("at most 3");
+    assertThatThrownBy(() -> bundleService(1).validateBundle(List.of(), Map.of()))
+        .isInstanceOf(ExportValidationException.class);
+  }
+
+  @Test
+  void rejectsBundlesMixingDataSources() {
+    when(registry.getRequired("books")).thenReturn(definition("books", "status", null));
+    when(registry.getRequired("audit"))
+        .thenReturn(
+            ExportDefinition.builder("audit")
+                .maxRows(10)
+                .provider("auditProvider")
+                .dataSource(ExportDefinition.PRIMARY_DATA_SOURCE)
+                .build());
+
+    assertThatThrownBy(
+            () -> bundleService(1).validateBundle(List.of("books", "audit"), Map.of()))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessageContaining("cannot be bundled");
+  }
+
+  @Test
+  void streamsEntriesFromOneSnapshot() throws Exception {
+    Map<String, String> entries = streamWithConcurrentInsert(bundleService(1));
+
+    assertThat(entries.keySet()).containsExactly("books.csv", "loans.csv");
+    assertThat(entries.get("books.csv")).isEqualTo("id,title\n1,Emma\n2,Persuasion\n");
+    assertThat(entries.get("loans.csv")).isEqualTo("id,book_id\n10,1\n");
+  }
+
+  @Test
+  void streamsParallelEntriesFromOneSnapshot() throws Exception {
+    Map<String, String> entries = streamWithConcurrentInsert(bundleService(2));
+
+    assertThat(entries.keySet()).containsExactly("books.csv", "loans.csv");
+    assertThat(entries.get("books.csv")).isEqualTo("id,title\n1,Emma\n2,Persuasion\n");
+    assertThat(entries.get("loans.csv")).isEqualTo("id,book_id\n10,1\n");
+  }
+
+  @Test
+  void takesSnapshotFromExportPool() throws Exception {
+    DataSource primary = mock(DataSource.class);
+    when(primary.getConnection()).thenThrow(new SQLException("primary is not used"));
+    try (ExportDataSourceRouter router =
+        new ExportDataSourceRouter(primary, dataSource, null, null, Duration.ofSeconds(5))) {
+      Map<String, String> entries =
+          streamWithConcurrentInsert(bundleService(1, primary, router));
+
+      assertThat(entries.get("loans.csv")).isEqualTo("id,book_id\n10,1\n");
+    }
+  }
+
+  @Test
+  void rejectsBundleBeforeTakingConnectionWhenLimitIsFull() throws Exception {
+    DataSource primary = mock(DataSource.class);
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(0, Map.of("loans", 1), 0, Duration.ZERO, null);
+    when(registry.getRequired("books")).thenReturn(definition("books", "status", null));
+    when(registry.getRequired("loans")).thenReturn(definition("loans", "branch", null));
+    Map<String, ValidatedExportRequest> requests = new LinkedHashMap<>();
+    requests.put("books", new ValidatedExportRequest(Map.of(), 10, Map.of()));
+    requests.put("loans", new ValidatedExportRequest(Map.of(), 10, Map.of()));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (ExportConcurrencyLimiter.Permit permit = limiter.acquire("loans")) {
+      assertThatThrownBy(
+              () -> bundleService(2, primary, null, limiter).streamZip(requests, out))
+          .isInstanceOf(ExportRejectedException.class);
+    }
+
+    assertThat(out.size()).isZero();
+    verify(primary, never()).getConnection();
+    verify(exportService, never()).streamCsv(any(), any(), any(OutputStream.class));
+  }
+
+  /**
+   * Inserts a loan once the books export has started; the loans export only reads after that
+   * insert has committed, but must not see it.
+   */
+  private Map<String, String> streamWithConcurrentInsert(DefaultExportBundleService bundleService)
+      throws Exception {
+    CountDownLatch inserted = new CountDownLatch(1);
+    ValidatedExportRequest books = new ValidatedExportRequest(Map.of(), 10, Map.of());
+    ValidatedExportRequest loans = new ValidatedExportRequest(Map.of(), 10, Map.of());
+    doAnswer(
+            invocation -> {
+              execute("insert into bundle_loans values (11, 2)");
+              inserted.countDown();
+              copyExporter.copyCsv(
+                  "select id, title from bundle_books order by id",
+                  Map.of(),
+                  invocation.getArgument(2),
+                  true);
+              return null;
+            })
+        .when(exportService)
+        .streamCsv(eq("books"), eq(books), any(OutputStream.class));
+    doAnswer(
+            invocation -> {
+              assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+              copyExporter.copyCsv(
+                  "select id, book_id from bundle_loans order by id",
+                  Map.of(),
+                  invocation.getArgument(2),
+                  true);
+              return null;
+            })
+        .when(exportService)
+        .streamCsv(eq("loans"), eq(loans), any(OutputStream.class));
+
+    when(registry.getRequired("books")).thenReturn(definition("books", "status", null));
+    when(registry.getRequired("loans")).thenReturn(definition("loans", "branch", null));
+    Map<String, ValidatedExportRequest> requests = new LinkedHashMap<>();
+    requests.put("books", books);
+    requests.put("loans", loans);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    bundleService.streamZip(requests, out);
+    return unzip(out.toByteArray());
+  }
+
+  private DefaultExportBundleService bundleService(int parallelism) {
+    return bundleService(parallelism, dataSource, null);
+  }
+
+  private DefaultExportBundleService bundleService(
+      int parallelism, DataSource primary, ExportDataSourceRouter router) {
+    return bundleService(parallelism, primary, router, ExportConcurrencyLimiter.unlimited());
+  }
+
+  private DefaultExportBundleService bundleService(
+      int parallelism,
+      DataSource primary,
+      ExportDataSourceRouter router,
+      ExportConcurrencyLimiter limiter) {
+    LaaExportsProperties.Bundles settings = new LaaExportsProperties.Bundles();
+    settings.setMaxExports(3);
+    settings.setParallelism(parallelism);
+    return new DefaultExportBundleService(
+        exportService, registry, primary, router, limiter, settings, ObservationRegistry.NOOP);
+  }
+
+  private static ExportDefinition definition(String key, String param, String watermarkColumn) {
+    return ExportDefinition.builder(key)
+        .maxRows(10)
+        .provider(key + "Provider")
+        .params(List.of(new ExportParamDefinition(param, "STRING", null, List.of(), false, null)))
+        .watermarkColumn(watermarkColumn)
+        .build();
+  }
+
+  private static Map<String, String> unzip(byte[] archive) throws Exception {
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private static void execute(String sql) throws Exception {
+    try (Connection connection = dataSource.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute(sql);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package uk.gov.laa.springboot.export.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.laa.springboot.export.ExportJobNotReadyException;
+import uk.gov.laa.springboot.export.ExportRejectedException;
+import uk.gov.laa.springboot.export.ExportService;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportJob;
+import uk.gov.laa.springboot.export.model.ExportJobStatus;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class DefaultExportJobServiceTest {
+
+  @TempDir private Path spoolDirectory;
+
+  private final ExportService exportService = mock(ExportService.class);
+  private final ValidatedExportRequest validated =
+      new ValidatedExportRequest(Map.of(), 100, Map.of());
+
+  @Test
+  void spoolsJobOutputToFileForDownload() throws Exception {
+    when(exportService.validateRequest(eq("library-books"), any())).thenReturn(validated);
+    doAnswer(
+            invocation -> {
+              OutputStream out = invocation.getArgument(2);
+              out.write("id\n1\n".getBytes(StandardCharsets.UTF_8));
+              return null;
+            })
+        .when(exportService)
+        .streamCsv(
+            eq("library-books"),
+            eq(validated),
+            any(OutputStream.class),
+            eq(ExportContentEncoding.IDENTITY));
+
+    DefaultExportJobService jobService = jobService(1, 1, false);
+    try {
+      ExportJob job = jobService.submit("library-books", Map.of());
+
+      ExportJob completed = awaitFinished(jobService, job.getId());
+
+      assertThat(completed.getStatus()).isEqualTo(ExportJobStatus.COMPLETED);
+      assertThat(completed.getSizeBytes()).isEqualTo(5);
+      assertThat(Files.readString(jobService.getResultFile(job.getId()))).isEqualTo("id\n1\n");
+    } finally {
+      jobService.shutdown();
+    }
+  }
+
+  @Test
+  void marksJobFailedAndRefusesDownload() throws Exception {
+    when(exportService.validateRequest(eq("library-books"), any())).thenReturn(validated);
+    doThrow(new IllegalStateException("boom"))
+        .when(exportService)
+        .streamCsv(eq("library-books"), eq(validated), any(OutputStream.class), any());
+
+    DefaultExportJobService jobService = jobService(1, 1, true);
+    try {
+      ExportJob job = jobService.submit("library-books", Map.of());
+
+      ExportJob failed = awaitFinished(jobService, job.getId());
+
+      assertThat(failed.getStatus()).isEqualTo(ExportJobStatus.FAILED);
+      assertThat(failed.getError()).isEqualTo("IllegalStateException");
+      assertThatThrownBy(() -> jobService.getResultFile(job.getId()))
+          .isInstanceOf(ExportJobNotReadyException.class);
+    } finally {
+      jobService.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsJobsWhenQueueIsFull() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    when(exportService.validateRequest(eq("library-books"), any())).thenReturn(validated);
+    doAnswer(
+            invocation -> {
+              release.await(5, TimeUnit.SECONDS);
+              return null;
+            })
+        .when(exportService)
+        .streamCsv(eq("library-books"), eq(validated), any(OutputStream.class), any());
+
+    DefaultExportJobService jobService = jobService(1, 1, false);
+    try {
+      jobService.submit("library-books", Map.of());
+      jobService.submit("library-books", Map.of());
+
+      assertThatThrownBy(() -> jobService.submit("library-books", Map.of()))
+          .isInstanceOf(ExportRejectedException.class);
+    } finally {
+      release.countDown();
+      jobService.shutdown();
+    }
+  }
+
+  @Test
+  void purgesFinishedJobsPastRetention() throws Exception {
+    when(exportService.validateRequest(eq("library-books"), any())).thenReturn(validated);
+
+    DefaultExportJobService jobService = jobService(1, 1, false);
+    try {
+      ExportJob job = jobService.submit("library-books", Map.of());
+      awaitFinished(jobService, job.getId());
+      Path file = jobService.getResultFile(job.getId());
+
+      jobService.purgeExpired();
+
+      assertThat(file).doesNotExist();
+    } finally {
+      jobService.shutdown();
+    }
+  }
+
+  private DefaultExportJobService jobService(int threads, int queueCapacity, boolean compress) {
+    LaaExportsProperties.Jobs settings = new LaaExportsProperties.Jobs();
+    settings.setThreads(threads);
+    settings.setQueueCapacity(queueCapacity);
+    settings.setCompress(compress);
+    settings.setRetention(Duration.ZERO);
+    settings.setSpoolDirectory(spoolDirectory.toString());
+    return new DefaultExportJobService(exportService, settings);
+  }
+
+  private ExportJob awaitFinished(DefaultExportJobService jobService, String jobId)
+      throws InterruptedException {
+    for (int attempt = 0; attempt < 100; attempt++) {
+      ExportJob job = jobService.getRequired(jobId);
+      if (job.getStatus() == ExportJobStatus.COMPLETED
+          || job.getStatus() == ExportJobStatus.FAILED) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Export job did not finish: " + jobId);
+  }
+}
@@ -3,6 +3,7 @@ package uk.gov.laa.springboot.export.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
@@ -10,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import uk.gov.laa.springboot.export.ExportValidationException;
 import uk.gov.laa.springboot.export.model.ExportDefinition;
 import uk.gov.laa.springboot.export.model.ExportParamDefinition;
+import uk.gov.laa.springboot.export.model.ExportWatermarkToken;
 import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
 
 class DefaultExportRequestValidatorTest {
@@ -91,4 +93,138 @@ class DefaultExportRequestValidatorTest {
 
     assertThat(request.getParam("submissionId", Long.class)).contains(123L);
   }
+
+  @Test
+  void passesResumeAfterThroughForResumableExports() {
+    ExportDefinition definition =
+        ExportDefinition.builder("library-books")
+            .description("Library books export")
+            .maxRows(200)
+            .provider("libraryProvider")
+            .resumeKey("id")
+            .build();
+
+    ValidatedExportRequest request =
+        validator.validate(definition, Map.of("resumeAfter", new String[] {" 1042 "}));
+
+    assertThat(request.getResumeAfter()).isEqualTo("1042");
+    assertThat(request.getParams()).isEmpty();
+  }
+
+  @Test
+  void rejectsResumeAfterForExportsWithoutResumeKey() {
+    ExportDefinition definition =
+        new ExportDefinition(
+            "library-books",
+            "Library books export",
+            200,
+            "libraryProvider",
+            List.of(),
+            List.of());
+
+    assertThatThrownBy(
+            () -> validator.validate(definition, Map.of("resumeAfter", new String[] {"1042"})))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("Export library-books cannot be resumed");
+  }
+
+  @Test
+  void resolvesEnumParamsAndRejectsUnknownConstants() {
+    ExportDefinition definition =
+        new ExportDefinition(
+            "library-books",
+            "Library books export",
+            200,
+            "libraryProvider",
+            List.of(),
+            List.of(
+                new ExportParamDefinition(
+                    "day", "ENUM", "java.time.DayOfWeek", List.of(), false, "monday")));
+
+    assertThat(validator.validate(definition, Map.of()).getParam("day", DayOfWeek.class))
+        .contains(DayOfWeek.MONDAY);
+    assertThat(
+            validator
+                .validate(definition, Map.of("day", new String[] {"friday"}))
+                .getParam("day", DayOfWeek.class))
+        .contains(DayOfWeek.FRIDAY);
+    assertThatThrownBy(() -> validator.validate(definition, Map.of("day", new String[] {"funday"})))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("Param day enum value invalid");
+  }
+
+  @Test
+  void reportsInvalidDefaultOnlyWhenDefaultIsUsed() {
+    ExportDefinition definition =
+        new ExportDefinition(
+            "library-books",
+            "Library books export",
+            200,
+            "libraryProvider",
+            List.of(),
+            List.of(new ExportParamDefinition("minId", "LONG", null, List.of(), false, "lots")));
+
+    assertThat(
+            validator
+                .validate(definition, Map.of("minId", new String[] {"5"}))
+                .getParam("minId", Long.class))
+        .contains(5L);
+    assertThatThrownBy(() -> validator.validate(definition, Map.of()))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("Filter minId must be a long");
+  }
+
+  @Test
+  void recompilesPlanWhenDefinitionForKeyChanges() {
+    ExportDefinition original =
+        new ExportDefinition(
+            "library-books",
+            "Library books export",
+            200,
+            "libraryProvider",
+            List.of(),
+            List.of(new ExportParamDefinition("status", "STRING", null, List.of(), false, null)));
+    ExportDefinition reloaded =
+        new ExportDefinition(
+            "library-books",
+            "Library books export",
+            200,
+            "libraryProvider",
+            List.of(),
+            List.of(new ExportParamDefinition("author", "STRING", null, List.of(), false, null)));
+
+    validator.validate(original, Map.of("status", new String[] {"OPEN"}));
+
+    assertThat(
+            validator
+                .validate(reloaded, Map.of("author", new String[] {"Austen"}))
+                .getParam("author", String.class))
+        .contains("Austen");
+    assertThatThrownBy(() -> validator.validate(reloaded, Map.of("status", new String[] {"OPEN"})))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("Unknown param: status");
+  }
+
+  @Test
+  void decodesSinceTokenForWatermarkExports() {
+    ExportDefinition definition =
+        ExportDefinition.builder("library-books")
+            .description("Library books export")
+            .maxRows(200)
+            .provider("libraryProvider")
+            .watermarkColumn("updated_at")
+            .build();
+    String token = ExportWatermarkToken.encode("2025-02-01 10:15:00+00");
+
+    ValidatedExportRequest request =
+        validator.validate(definition, Map.of("since", new String[] {token}));
+
+    assertThat(request.getWatermarkSince()).isEqualTo("2025-02-01 10:15:00+00");
+    assertThat(request.getWatermarkUntil()).isNull();
+    assertThat(request.getParams()).isEmpty();
+    assertThatThrownBy(
+            () -> validator.validate(definition, Map.of("since", new String[] {"not*base64"})))
+        .isInstanceOf(ExportValidationException.class)
+        .hasMessage("since is not a valid watermark");
+  }
 }
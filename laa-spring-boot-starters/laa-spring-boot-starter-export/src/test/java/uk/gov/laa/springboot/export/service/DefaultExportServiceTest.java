@@ -0,0 +1,223 @@
+package uk.gov.laa.springboot.export.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.gov.laa.springboot.export.ExportCancellation;
+import uk.gov.laa.springboot.export.ExportCsvProvider;
+import uk.gov.laa.springboot.export.ExportFormatWriter;
+import uk.gov.laa.springboot.export.ExportRegistry;
+import uk.gov.laa.springboot.export.cache.DiskExportResultCache;
+import uk.gov.laa.springboot.export.compression.ExportContentEncoding;
+import uk.gov.laa.springboot.export.config.LaaExportsProperties;
+import uk.gov.laa.springboot.export.model.ExportAuditEvent;
+import uk.gov.laa.springboot.export.model.ExportDefinition;
+import uk.gov.laa.springboot.export.model.ValidatedExportRequest;
+
+class DefaultExportServiceTest {
+  private static final byte[] CSV = "id\n1\n2\n".getBytes(StandardCharsets.UTF_8);
+
+  private final ExportRegistry registry = mock(ExportRegistry.class);
+  private final List<ExportAuditEvent> events = new CopyOnWriteArrayList<>();
+  private final ValidatedExportRequest request =
+      new ValidatedExportRequest(Map.of(), 100, Map.of());
+  private DefaultExportService exportService;
+
+  @BeforeEach
+  void setUp() {
+    ExportFormatWriter csvFormat = mock(ExportFormatWriter.class);
+    when(csvFormat.getName()).thenReturn(ExportDefinition.CSV_FORMAT);
+    when(registry.getFormat(ExportDefinition.CSV_FORMAT)).thenReturn(csvFormat);
+    when(registry.getRequired("books"))
+        .thenReturn(ExportDefinition.builder("books").maxRows(100).provider("p").build());
+    exportService = new DefaultExportService(registry, null, events::add);
+  }
+
+  @Test
+  void auditsRowsBytesAndTimeToFirstByte() {
+    provide(
+        (request, out, columns) -> {
+          sleep(50);
+          write(out, CSV);
+          return 2;
+        });
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    exportService.streamCsv("books", request, out);
+
+    assertThat(out.toByteArray()).isEqualTo(CSV);
+    ExportAuditEvent event = singleEvent();
+    assertThat(event.getOutcome()).isEqualTo(ExportAuditEvent.Outcome.SUCCESS);
+    assertThat(event.getRows()).isEqualTo(2);
+    assertThat(event.getBytes()).isEqualTo(CSV.length);
+    assertThat(event.getTimeToFirstByteMs()).isBetween(50L, event.getDurationMs());
+  }
+
+  @Test
+  void auditsCompressedBytesSentToClient() throws Exception {
+    provide(
+        (request, out, columns) -> {
+          write(out, CSV);
+          return 2;
+        });
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    exportService.streamCsv("books", request, out, ExportContentEncoding.GZIP);
+
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertThat(gzip.readAllBytes()).isEqualTo(CSV);
+    }
+    assertThat(singleEvent().getBytes()).isEqualTo(out.size());
+  }
+
+  @Test
+  void auditsTimeBlockedOnSlowClient() {
+    provide(
+        (request, out, columns) -> {
+          write(out, CSV);
+          write(out, CSV);
+          return 4;
+        });
+
+    exportService.streamCsv("books", request, new CountingOutputStreamTest.SlowOutputStream(60));
+
+    ExportAuditEvent event = singleEvent();
+    assertThat(event.getWriteBlockedMs()).isGreaterThanOrEqualTo(120);
+    assertThat(event.getDatabaseMs()).isEqualTo(event.getDurationMs() - event.getWriteBlockedMs());
+  }
+
+  @Test
+  void auditsFailedClientWriteAsCancelled() {
+    provide(
+        (request, out, columns) -> {
+          write(out, CSV);
+          return 2;
+        });
+    OutputStream disconnected =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Broken pipe");
+          }
+        };
+
+    assertThatThrownBy(() -> exportService.streamCsv("books", request, disconnected))
+        .isInstanceOf(UncheckedIOException.class);
+
+    assertThat(singleEvent().getOutcome()).isEqualTo(ExportAuditEvent.Outcome.CANCELLED);
+    assertThat(singleEvent().getError()).isEqualTo("IOException");
+  }
+
+  @Test
+  void auditsCancelledRequestAsCancelled() {
+    ExportCancellation cancellation = new ExportCancellation();
+    provide(
+        (request, out, columns) -> {
+          cancellation.cancel();
+          throw new RuntimeException("CSV export failed", new SQLException("canceled", "57014"));
+        });
+
+    ExportCancellation.bind(cancellation);
+    try {
+      assertThatThrownBy(
+              () -> exportService.streamCsv("books", request, new ByteArrayOutputStream()))
+          .hasMessage("CSV export failed");
+    } finally {
+      ExportCancellation.unbind();
+    }
+
+    assertThat(singleEvent().getOutcome()).isEqualTo(ExportAuditEvent.Outcome.CANCELLED);
+  }
+
+  @Test
+  void streamsResultWithUnknownRowCountOnceWhenCaching(@TempDir Path directory) {
+    LaaExportsProperties.Cache settings = new LaaExportsProperties.Cache();
+    settings.setDirectory(directory.toString());
+    when(registry.getRequired("books"))
+        .thenReturn(
+            ExportDefinition.builder("books")
+                .maxRows(100)
+                .provider("p")
+                .cacheTtl(Duration.ofMinutes(5))
+                .build());
+    List<String> calls = new CopyOnWriteArrayList<>();
+    provide(
+        (request, out, columns) -> {
+          calls.add("query");
+          write(out, CSV);
+          return -1;
+        });
+    DefaultExportService cachingService =
+        DefaultExportService.builder(registry, null, events::add)
+            .resultCache(new DiskExportResultCache(settings))
+            .build();
+
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      cachingService.streamCsv("books", request, out);
+      assertThat(out.toByteArray()).isEqualTo(CSV);
+    }
+
+    assertThat(calls).hasSize(2);
+  }
+
+  @Test
+  void auditsOtherErrorsAsFailures() {
+    provide(
+        (request, out, columns) -> {
+          write(out, CSV);
+          throw new RuntimeException("CSV export failed", new SQLException("boom", "42P01"));
+        });
+
+    assertThatThrownBy(() -> exportService.streamCsv("books", request, new ByteArrayOutputStream()))
+        .hasMessage("CSV export failed");
+
+    ExportAuditEvent event = singleEvent();
+    assertThat(event.getOutcome()).isEqualTo(ExportAuditEvent.Outcome.FAILURE);
+    assertThat(event.getError()).isEqualTo("SQLException");
+    assertThat(event.getBytes()).isEqualTo(CSV.length);
+  }
+
+  private void provide(ExportCsvProvider provider) {
+    when(registry.getProvider("books")).thenReturn(provider);
+  }
+
+  private ExportAuditEvent singleEvent() {
+    assertThat(events).hasSize(1);
+    return events.get(0);
+  }
+
+  private static void write(OutputStream out, byte[] bytes) {
+    try {
+      out.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
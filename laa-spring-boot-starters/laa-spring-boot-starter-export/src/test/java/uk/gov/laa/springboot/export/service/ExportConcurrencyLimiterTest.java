@@ -0,0 +1,115 @@
+package uk.gov.laa.springboot.export.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import uk.gov.laa.springboot.export.ExportRejectedException;
+
+class ExportConcurrencyLimiterTest {
+
+  @Test
+  void rejectsImmediatelyWhenPerExportLimitReachedWithoutQueue() {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(
+            0, Map.of("books", 1), 0, Duration.ofSeconds(1), Duration.ofSeconds(15));
+
+    ExportConcurrencyLimiter.Permit permit = limiter.acquire("books");
+
+    assertThatThrownBy(() -> limiter.acquire("books"))
+        .isInstanceOf(ExportRejectedException.class)
+        .extracting(e -> ((ExportRejectedException) e).getRetryAfter())
+        .isEqualTo(Duration.ofSeconds(15));
+    assertThat(limiter.acquire("loans")).isNotNull();
+    assertThat(limiter.getPerExportStats().get("books").getRejections()).isEqualTo(1);
+
+    permit.close();
+    limiter.acquire("books").close();
+    assertThat(limiter.getPerExportStats().get("books").getActive()).isZero();
+  }
+
+  @Test
+  void globalLimitAppliesAcrossExports() {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(1, Map.of(), 0, Duration.ZERO, null);
+
+    try (ExportConcurrencyLimiter.Permit permit = limiter.acquire("books")) {
+      assertThatThrownBy(() -> limiter.acquire("loans"))
+          .isInstanceOf(ExportRejectedException.class);
+      assertThat(limiter.getGlobalStats().getActive()).isEqualTo(1);
+    }
+    assertThat(limiter.getGlobalStats().getActive()).isZero();
+  }
+
+  @Test
+  void releasesPerExportPermitWhenGlobalLimitRejects() {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(1, Map.of("books", 2), 0, Duration.ZERO, null);
+
+    try (ExportConcurrencyLimiter.Permit permit = limiter.acquire("loans")) {
+      assertThatThrownBy(() -> limiter.acquire("books"))
+          .isInstanceOf(ExportRejectedException.class);
+    }
+    assertThat(limiter.getPerExportStats().get("books").getActive()).isZero();
+  }
+
+  @Test
+  void acquiresBundlePermitsTogetherOrNotAtAll() {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(3, Map.of("books", 1, "loans", 1), 0, Duration.ZERO, null);
+
+    try (ExportConcurrencyLimiter.Permit permit =
+        limiter.acquireAll(List.of("books", "loans"), 2)) {
+      assertThat(limiter.getGlobalStats().getActive()).isEqualTo(2);
+      assertThat(limiter.getPerExportStats().get("books").getActive()).isEqualTo(1);
+      assertThatThrownBy(() -> limiter.acquire("loans"))
+          .isInstanceOf(ExportRejectedException.class);
+    }
+    try (ExportConcurrencyLimiter.Permit permit = limiter.acquire("loans")) {
+      assertThatThrownBy(() -> limiter.acquireAll(List.of("books", "loans"), 2))
+          .isInstanceOf(ExportRejectedException.class);
+      assertThat(limiter.getPerExportStats().get("books").getActive()).isZero();
+      assertThatThrownBy(() -> limiter.acquireAll(List.of("books"), 3))
+          .isInstanceOf(ExportRejectedException.class);
+      assertThat(limiter.getGlobalStats().getActive()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void queuedCallerAcquiresPermitOnceReleased() throws Exception {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(0, Map.of("books", 1), 1, Duration.ofSeconds(5), null);
+    ExportConcurrencyLimiter.Permit first = limiter.acquire("books");
+
+    CompletableFuture<ExportConcurrencyLimiter.Permit> queued =
+        CompletableFuture.supplyAsync(() -> limiter.acquire("books"));
+    while (limiter.getPerExportStats().get("books").getQueued() == 0) {
+      Thread.onSpinWait();
+    }
+    assertThatThrownBy(() -> limiter.acquire("books"))
+        .isInstanceOf(ExportRejectedException.class);
+
+    first.close();
+    queued.get(5, TimeUnit.SECONDS).close();
+
+    assertThat(limiter.getPerExportStats().get("books").getWaits()).isEqualTo(1);
+    assertThat(limiter.getPerExportStats().get("books").getQueued()).isZero();
+  }
+
+  @Test
+  void queuedCallerIsRejectedAfterMaxWait() {
+    ExportConcurrencyLimiter limiter =
+        new ExportConcurrencyLimiter(0, Map.of("books", 1), 1, Duration.ofMillis(20), null);
+    limiter.acquire("books");
+
+    assertThatThrownBy(() -> limiter.acquire("books"))
+        .isInstanceOf(ExportRejectedException.class);
+    assertThat(limiter.getPerExportStats().get("books").getWaitNanos())
+        .isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+  }
+}
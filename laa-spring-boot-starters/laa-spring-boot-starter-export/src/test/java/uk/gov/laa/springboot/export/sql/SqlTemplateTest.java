@@ -0,0 +1,43 @@
+package uk.gov.laa.springboot.export.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SqlTemplateTest {
+
+  @Test
+  void splitsSqlIntoFragmentsAndSlots() {
+    SqlTemplate template =
+        SqlTemplate.compile("select * from books where (:status is null or status = :status)"
+            + " limit :maxRows");
+
+    assertThat(template.getSlots()).containsExactly("status", "status", "maxRows");
+    assertThat(template.getParameterNames()).containsExactly("status", "maxRows");
+    assertThat(template.getFragments()).hasSize(4);
+    assertThat(template.getPositionalSql())
+        .isEqualTo("select * from books where (? is null or status = ?) limit ?");
+  }
+
+  @Test
+  void ignoresCastsLiteralsIdentifiersAndComments() {
+    SqlTemplate template =
+        SqlTemplate.compile(
+            "select ':notParam', \"col:name\", created::date -- :comment\n"
+                + "from t /* :block */ where id = :id and note = 'it''s :x'");
+
+    assertThat(template.getSlots()).containsExactly("id");
+    assertThat(template.getPositionalSql())
+        .isEqualTo(
+            "select ':notParam', \"col:name\", created::date -- :comment\n"
+                + "from t /* :block */ where id = ? and note = 'it''s :x'");
+  }
+
+  @Test
+  void handlesSqlWithoutParameters() {
+    SqlTemplate template = SqlTemplate.compile("select 1");
+
+    assertThat(template.getSlots()).isEmpty();
+    assertThat(template.getFragments()).containsExactly("select 1");
+  }
+}